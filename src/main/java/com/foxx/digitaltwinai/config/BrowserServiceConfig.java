@@ -5,6 +5,9 @@ import org.springframework.context.annotation.Configuration;
 
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 浏览器服务配置类
  * (Browser Service Configuration Class)
@@ -31,4 +34,145 @@ public class BrowserServiceConfig {
      * (Read Timeout in milliseconds)
      */
     private int readTimeout = 30000;  // 默认30秒
-} 
\ No newline at end of file
+    
+    /**
+     * 浏览器服务实例列表，配置后优先于url
+     * (Browser service instance URLs, take precedence over url when set)
+     */
+    private List<String> urls = new ArrayList<>();
+    
+    /**
+     * 实例健康检查路径
+     * (Instance health check path)
+     */
+    private String healthCheckPath = "/health";
+    
+    /**
+     * 健康检查间隔（毫秒）
+     * (Health check interval in milliseconds)
+     */
+    private long healthCheckInterval = 10000;  // 默认10秒
+    
+    /**
+     * 健康检查超时（毫秒）
+     * (Health check timeout in milliseconds)
+     */
+    private int healthCheckTimeout = 2000;  // 默认2秒
+    
+    /**
+     * 连续失败多少次后摘除实例
+     * (Consecutive failures before an instance is ejected)
+     */
+    private int ejectionFailureThreshold = 3;
+    
+    /**
+     * 平均延迟超过该值（毫秒）时摘除实例
+     * (Average latency in milliseconds above which an instance is ejected)
+     */
+    private long ejectionLatencyThreshold = 5000;
+    
+    /**
+     * 实例被摘除的最短时长（毫秒）
+     * (Minimum ejection duration in milliseconds)
+     */
+    private long ejectionDuration = 30000;  // 默认30秒
+    
+    /**
+     * 会话亲和映射最大条目数
+     * (Maximum number of session affinity entries)
+     */
+    private int sessionAffinityMaxEntries = 10000;
+    
+    /**
+     * 重试配置
+     * (Retry Configuration)
+     */
+    private RetryConfig retry = new RetryConfig();
+    
+    /**
+     * 幂等配置
+     * (Idempotency Configuration)
+     */
+    private IdempotencyConfig idempotency = new IdempotencyConfig();
+    
+    /**
+     * 获取生效的实例地址列表
+     * (Get the effective instance URL list)
+     */
+    public List<String> getEffectiveUrls() {
+        return urls != null && !urls.isEmpty() ? urls : List.of(url);
+    }
+    
+    /**
+     * 重试配置类
+     * (Retry Configuration Class)
+     */
+    @Data
+    public static class RetryConfig {
+        
+        /**
+         * 最大尝试次数（含首次）
+         * (Maximum attempts, including the first one)
+         */
+        private int maxAttempts = 3;
+        
+        /**
+         * 初始退避时间（毫秒）
+         * (Initial backoff in milliseconds)
+         */
+        private long initialBackoff = 100;
+        
+        /**
+         * 最大退避时间（毫秒）
+         * (Maximum backoff in milliseconds)
+         */
+        private long maxBackoff = 1000;
+        
+        /**
+         * 从首次请求开始计算的总时限（毫秒），超出后不再发起重试
+         * (Overall deadline in milliseconds from the first attempt; no retry is started past it)
+         */
+        private long maxTotalTime = 5000;
+        
+        /**
+         * 每个请求向重试预算存入的令牌数
+         * (Tokens deposited into the retry budget per request)
+         */
+        private double budgetRatio = 0.2;
+        
+        /**
+         * 重试预算上限（令牌数）
+         * (Retry budget capacity in tokens)
+         */
+        private double budgetMax = 10;
+        
+        /**
+         * 可重试的HTTP状态码，只能列出浏览器服务保证未开始执行操作时才返回的状态码（例如准入检查返回的503）；
+         * 默认为空，只重试连接失败
+         * (Retryable HTTP status codes. Only list codes the browser service returns when it guarantees the
+         * operation never started, such as a 503 from its admission check; empty by default, so only connect
+         * failures are retried)
+         */
+        private List<Integer> retryableStatusCodes = new ArrayList<>();
+    }
+    
+    /**
+     * 幂等配置类
+     * (Idempotency Configuration Class)
+     */
+    @Data
+    public static class IdempotencyConfig {
+        
+        /**
+         * 已完成结果的保留时间（毫秒）
+         * (Retention of completed results in milliseconds)
+         */
+        private long resultTtl = 600000;  // 默认10分钟
+        
+        /**
+         * 最多保留的结果数
+         * (Maximum number of retained results)
+         */
+        private int maxEntries = 10000;
+    }
+}
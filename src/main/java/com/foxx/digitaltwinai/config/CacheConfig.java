@@ -0,0 +1,56 @@
+package com.foxx.digitaltwinai.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.service.log.CompactCacheSerializer;
+import com.foxx.digitaltwinai.service.log.RequestLogCaches;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
+import org.springframework.cache.interceptor.LoggingCacheErrorHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
+
+/**
+ * 缓存配置类
+ * (Cache Configuration)
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig implements CachingConfigurer {
+
+    /**
+     * Redis不可用时缓存读写失败只记录日志，查询直接访问数据库
+     * (When Redis is unavailable cache failures are only logged and queries go straight to the database)
+     */
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new LoggingCacheErrorHandler();
+    }
+
+    /**
+     * 配置请求日志各缓存的过期时间和序列化，清空缓存时用SCAN代替KEYS
+     * (Configure TTLs and serialization of the request log caches; clearing a cache uses SCAN instead of KEYS)
+     */
+    @Bean
+    public RedisCacheManagerBuilderCustomizer requestLogCacheCustomizer(RedisConnectionFactory connectionFactory,
+                                                                        RequestLogConfig requestLogConfig,
+                                                                        ObjectMapper objectMapper) {
+        RequestLogConfig.Cache cache = requestLogConfig.getCache();
+        RedisCacheConfiguration base = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new CompactCacheSerializer(objectMapper, cache.getCompressThreshold())));
+        return builder -> builder
+                .cacheWriter(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory, BatchStrategies.scan(1000)))
+                .withCacheConfiguration(RequestLogCaches.HEAD_PAGES, base.entryTtl(Duration.ofMillis(cache.getHeadPageTtl())))
+                .withCacheConfiguration(RequestLogCaches.PAGES, base.entryTtl(Duration.ofMillis(cache.getPageTtl())))
+                .withCacheConfiguration(RequestLogCaches.STATS, base.entryTtl(Duration.ofMillis(cache.getStatsTtl())));
+    }
+}
@@ -68,6 +68,12 @@ public class DifyApiConfig {
      */
     private FallbackConfig fallback = new FallbackConfig();
     
+    /**
+     * 流式响应监控配置
+     * (Streaming Response Monitoring Configuration)
+     */
+    private StreamConfig stream = new StreamConfig();
+    
     /**
      * HMAC签名配置内部类
      * (HMAC Signature Configuration Inner Class)
@@ -134,4 +140,24 @@ public class DifyApiConfig {
          */
         private boolean autoRetryOnFailure = true;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 流式响应监控配置类
+     * (Streaming Response Monitoring Configuration Class)
+     */
+    @Data
+    public static class StreamConfig {
+        
+        /**
+         * 超过该时长（毫秒）未收到新片段视为停滞
+         * (A stream with no new chunk for this many milliseconds is considered stalled)
+         */
+        private long stallThreshold = 10000;
+        
+        /**
+         * 停滞检查间隔（毫秒）
+         * (Stall check interval in milliseconds)
+         */
+        private long stallCheckInterval = 1000;
+    }
+}
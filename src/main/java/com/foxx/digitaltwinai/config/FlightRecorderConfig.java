@@ -0,0 +1,63 @@
+package com.foxx.digitaltwinai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 慢请求飞行记录配置类
+ * (Slow-request flight recorder configuration class)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "flight-recorder")
+@Data
+public class FlightRecorderConfig {
+
+    /**
+     * 是否启动持续的JFR记录
+     * (Whether the continuous JFR recording is started)
+     */
+    private boolean enabled = true;
+
+    /**
+     * JFR内置配置名：default 开销约1%，profile 约2%
+     * (Built-in JFR settings: default costs about 1%, profile about 2%)
+     */
+    private String settings = "default";
+
+    /**
+     * 滚动窗口保留的时长（毫秒）
+     * (Length of the rolling window in milliseconds)
+     */
+    private long maxAge = 600000;
+
+    /**
+     * 滚动窗口占用的最大磁盘空间（字节）
+     * (Largest disk space used by the rolling window in bytes)
+     */
+    private long maxSize = 268435456;
+
+    /**
+     * 聊天请求超过该耗时（毫秒）时转储记录
+     * (Dump the recording when a chat request takes longer than this, in milliseconds)
+     */
+    private long slowThreshold = 10000;
+
+    /**
+     * 两次自动转储的最小间隔（毫秒），避免慢请求集中时反复转储
+     * (Minimum interval between automatic dumps in milliseconds, so a burst of slow requests dumps once)
+     */
+    private long dumpCooldown = 60000;
+
+    /**
+     * 转储文件目录
+     * (Directory for dump files)
+     */
+    private String dumpDirectory = "data/flight-recordings";
+
+    /**
+     * 最多保留的转储文件数，超出时删除最早的
+     * (Most dump files kept; the oldest are deleted beyond this)
+     */
+    private int maxDumps = 20;
+}
@@ -0,0 +1,374 @@
+package com.foxx.digitaltwinai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 请求日志异步写入配置类
+ * (Request Log Asynchronous Writer Configuration Class)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "request-log")
+@Data
+public class RequestLogConfig {
+
+    /**
+     * 日志存储方式
+     * (Log store)
+     */
+    private Store store = Store.DATABASE;
+
+    /**
+     * 是否异步批量写入，关闭时在请求线程同步保存
+     * (Whether logs are written asynchronously in batches; when off they are saved on the request thread)
+     */
+    private boolean async = true;
+
+    /**
+     * 内存队列容量
+     * (In-memory queue capacity)
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 每批最多写入条数，应与 hibernate.jdbc.batch_size 一致
+     * (Maximum rows per batch, should match hibernate.jdbc.batch_size)
+     */
+    private int batchSize = 50;
+
+    /**
+     * 未满一批时的最长等待时间（毫秒）
+     * (Longest wait before flushing a partial batch, in milliseconds)
+     */
+    private long flushInterval = 500;
+
+    /**
+     * 队列满时的处理策略
+     * (Policy when the queue is full)
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    /**
+     * block 策略下等待队列空位的最长时间（毫秒）
+     * (Longest wait for queue space under the block policy, in milliseconds)
+     */
+    private long offerTimeout = 50;
+
+    /**
+     * 关闭时等待队列写完的最长时间（毫秒）
+     * (Longest wait for the queue to drain on shutdown, in milliseconds)
+     */
+    private long shutdownTimeout = 10000;
+
+    /**
+     * 本地日志文件配置
+     * (Local journal configuration)
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * 统计汇总配置
+     * (Rollup configuration)
+     */
+    private Rollup rollup = new Rollup();
+
+    /**
+     * 请求/响应内容存储配置
+     * (Request/response content storage configuration)
+     */
+    private Payload payload = new Payload();
+
+    /**
+     * 保留与清理配置
+     * (Retention configuration)
+     */
+    private Retention retention = new Retention();
+
+    /**
+     * 二进制文件存储配置
+     * (Binary file store configuration)
+     */
+    private Binary binary = new Binary();
+
+    /**
+     * 查询缓存配置
+     * (Query cache configuration)
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 本地日志文件配置，数据库不可用时请求日志先写入本地，恢复后回放
+     * (Local Journal Configuration; request logs go to local disk while the database is unavailable and are replayed once it recovers)
+     */
+    @Data
+    public static class Journal {
+
+        /**
+         * 是否启用本地日志文件
+         * (Whether the local journal is enabled)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 日志文件目录
+         * (Journal directory)
+         */
+        private String directory = "data/request-log-journal";
+
+        /**
+         * 单个分段文件大小（字节）
+         * (Size of one segment file, in bytes)
+         */
+        private int segmentSize = 8 * 1024 * 1024;
+
+        /**
+         * 日志文件总磁盘上限（字节），超出时删除最旧的分段
+         * (Total disk budget in bytes; the oldest segments are deleted beyond it)
+         */
+        private long maxDiskBytes = 256L * 1024 * 1024;
+
+        /**
+         * 逐条写入时强制刷盘的最大间隔（毫秒），即断电时可能丢失的窗口；0表示每条都刷盘
+         * (Longest gap between forces for single appends, in milliseconds, i.e. the window lost on power loss;
+         * 0 forces every append)
+         */
+        private long forceInterval = 1000;
+
+        /**
+         * 回放检查间隔（毫秒）
+         * (Replay check interval, in milliseconds)
+         */
+        private long replayInterval = 5000;
+
+        /**
+         * 数据库写入失败后熔断时长（毫秒），期间直接写入本地
+         * (How long the circuit stays open after a database failure, in milliseconds; logs go straight to the journal meanwhile)
+         */
+        private long circuitOpenDuration = 30000;
+    }
+
+    /**
+     * 统计汇总配置，按分钟和小时预先汇总请求数、成功率和耗时分布
+     * (Rollup Configuration; request counts, success rate and latency distribution are pre-aggregated per minute and hour)
+     */
+    @Data
+    public static class Rollup {
+
+        /**
+         * 是否启用统计汇总
+         * (Whether rollups are enabled)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 内存汇总写入数据库的间隔（毫秒）
+         * (Interval for writing in-memory aggregates to the database, in milliseconds)
+         */
+        private long flushInterval = 5000;
+
+        /**
+         * 回填已有日志时每批处理的主键区间大小
+         * (Primary-key range covered by each batch when backfilling existing logs)
+         */
+        private int backfillBatchSize = 5000;
+
+        /**
+         * 回填批次之间的间隔（毫秒）
+         * (Delay between backfill batches, in milliseconds)
+         */
+        private long backfillInterval = 1000;
+    }
+
+    /**
+     * 请求/响应内容存储配置
+     * (Request/Response Content Storage Configuration)
+     */
+    @Data
+    public static class Payload {
+
+        /**
+         * 存储模式
+         * (Storage mode)
+         */
+        private Mode mode = Mode.COMPRESSED;
+
+        /**
+         * 小于该字符数的内容保持原文
+         * (Content shorter than this many characters is kept as is)
+         */
+        private int minSize = 256;
+
+        /**
+         * 压缩后达到该字节数时外置存储
+         * (Compressed size in bytes at which content is offloaded)
+         */
+        private int offloadThreshold = 16 * 1024;
+
+        /**
+         * Deflate压缩级别 (0-9)
+         * (Deflate compression level, 0-9)
+         */
+        private int level = 6;
+
+        /**
+         * 存储模式
+         * (Storage Mode)
+         */
+        public enum Mode {
+            RAW, COMPRESSED
+        }
+    }
+
+    /**
+     * 保留与清理配置，过期日志先归档再分批删除
+     * (Retention Configuration; expired logs are archived and then deleted in chunks)
+     */
+    @Data
+    public static class Retention {
+
+        /**
+         * 是否启用定时清理
+         * (Whether scheduled purging is enabled)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 清理计划（cron）
+         * (Purge schedule, cron)
+         */
+        private String cron = "0 30 3 * * *";
+
+        /**
+         * 日志保留天数
+         * (Days to keep logs)
+         */
+        private int retainDays = 30;
+
+        /**
+         * 分钟级汇总保留天数
+         * (Days to keep minute rollups)
+         */
+        private int minuteRollupDays = 7;
+
+        /**
+         * 每批删除条数
+         * (Rows deleted per chunk)
+         */
+        private int chunkSize = 500;
+
+        /**
+         * 两批之间的最短暂停（毫秒），实际暂停不短于上一批耗时
+         * (Minimum pause between chunks in milliseconds; the actual pause is never shorter than the previous chunk took)
+         */
+        private long pauseBetweenChunks = 200;
+
+        /**
+         * 单次运行最长时间（毫秒），未清完的留到下次
+         * (Longest run in milliseconds; whatever is left waits for the next run)
+         */
+        private long maxRunDuration = 30 * 60 * 1000L;
+
+        /**
+         * 删除前是否归档
+         * (Whether rows are archived before deletion)
+         */
+        private boolean archive = true;
+
+        /**
+         * 归档目录，文件为gzip压缩的NDJSON
+         * (Archive directory; files are gzip-compressed NDJSON)
+         */
+        private String archiveDirectory = "data/request-log-archive";
+    }
+
+    /**
+     * 二进制文件存储配置，store=binary 时日志写入滚动的内存映射文件而非MySQL
+     * (Binary File Store Configuration; with store=binary logs go to rolling memory-mapped files instead of MySQL)
+     */
+    @Data
+    public static class Binary {
+
+        /**
+         * 文件目录
+         * (File directory)
+         */
+        private String directory = "data/request-log-binary";
+
+        /**
+         * 单个文件大小（字节），写满后滚动
+         * (Size of one file in bytes; a full file rolls over)
+         */
+        private int segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * 总磁盘上限（字节），超出时删除最旧的文件
+         * (Total disk budget in bytes; the oldest files are deleted beyond it)
+         */
+        private long maxDiskBytes = 4L * 1024 * 1024 * 1024;
+    }
+
+    /**
+     * 查询缓存配置，日志分页和统计结果缓存在Redis中，写入新日志时主动失效
+     * (Query Cache Configuration; log pages and stats are cached in Redis and invalidated as new logs are written)
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * 不带游标的首页的过期时间（毫秒），新日志会改变首页
+         * (TTL of head pages without a cursor in milliseconds; new logs change the head page)
+         */
+        private long headPageTtl = 30000;
+
+        /**
+         * 带游标的历史页的过期时间（毫秒），新日志不会改变历史页
+         * (TTL of history pages with a cursor in milliseconds; new logs do not change history pages)
+         */
+        private long pageTtl = 600000;
+
+        /**
+         * 持续写入时首页换代的最短间隔（毫秒），即首页在写入后最多滞后的时长
+         * (Shortest gap between head page generations under steady writes in milliseconds, i.e. how far the head
+         * page can lag behind new writes)
+         */
+        private long headRefreshInterval = 2000;
+
+        /**
+         * 统计结果的过期时间（毫秒）
+         * (TTL of stats results in milliseconds)
+         */
+        private long statsTtl = 10000;
+
+        /**
+         * 超过该大小（字节）的缓存值先压缩
+         * (Cached values larger than this many bytes are compressed)
+         */
+        private int compressThreshold = 1024;
+    }
+
+    /**
+     * 日志存储方式
+     * (Log Store)
+     *
+     * <p>database 写入MySQL；binary 写入本地二进制文件，不经过数据库。
+     * (database writes to MySQL; binary writes local binary files without touching the database.)</p>
+     */
+    public enum Store {
+        DATABASE, BINARY
+    }
+
+    /**
+     * 队列满时的处理策略
+     * (Queue Overflow Policy)
+     *
+     * <p>drop 丢弃新日志并计数；block 短暂等待空位，超时后丢弃；caller-runs 在请求线程同步写入。
+     * 启用本地日志文件时，drop 和 block 不再丢弃，而是写入本地日志文件。
+     * (drop discards the new log and counts it; block waits briefly for space and drops on timeout;
+     * caller-runs writes synchronously on the request thread. With the journal enabled, drop and block
+     * spill to the journal instead of discarding.)</p>
+     */
+    public enum OverflowPolicy {
+        DROP, BLOCK, CALLER_RUNS
+    }
+}
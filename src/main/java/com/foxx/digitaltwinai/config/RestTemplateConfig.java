@@ -1,5 +1,6 @@
 package com.foxx.digitaltwinai.config;
 
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -33,7 +34,13 @@ public class RestTemplateConfig {
      * (Browser Service Configuration)
      */
     private final BrowserServiceConfig browserServiceConfig;
-    
+
+    /**
+     * 观测注册表，为出站请求创建客户端span并写入traceparent请求头
+     * (Observation registry; creates client spans for outbound requests and writes the traceparent header)
+     */
+    private final ObservationRegistry observationRegistry;
+
     /**
      * 创建RestTemplate Bean
      * (Create RestTemplate Bean)
@@ -59,7 +66,10 @@ public class RestTemplateConfig {
         
         messageConverters.add(converter);
         restTemplate.setMessageConverters(messageConverters);
-        
+
+        // 链路上下文经请求头传给Dify和浏览器服务 (Trace context reaches Dify and the browser service through request headers)
+        restTemplate.setObservationRegistry(observationRegistry);
+
         return restTemplate;
     }
     
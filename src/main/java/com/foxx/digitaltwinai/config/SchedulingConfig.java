@@ -0,0 +1,42 @@
+package com.foxx.digitaltwinai.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * 定时任务配置类
+ * (Scheduled Task Configuration)
+ *
+ * <p>STOMP代理的心跳调度器是容器中唯一的 TaskScheduler，Spring Boot因此不再创建默认调度器，
+ * 所有 {@code @Scheduled} 任务会落到心跳线程上；日志清理这类长任务会拖慢心跳。这里为定时任务提供独立线程池，
+ * 大小和线程名前缀取自 spring.task.scheduling.*，且不注册为Bean，避免与心跳调度器按类型注入时冲突。
+ * (The STOMP broker's heartbeat scheduler is the only TaskScheduler in the context, so Spring Boot backs off
+ * from creating its default one and every {@code @Scheduled} job would run on the heartbeat threads, where
+ * long jobs such as the log purge delay heartbeats. This gives scheduled jobs their own pool, sized and named
+ * from spring.task.scheduling.*, and keeps it out of the context so injection of the heartbeat scheduler by
+ * type stays unambiguous.)</p>
+ */
+@Configuration
+public class SchedulingConfig implements SchedulingConfigurer, DisposableBean {
+
+    private final ThreadPoolTaskScheduler taskScheduler;
+
+    public SchedulingConfig(ThreadPoolTaskSchedulerBuilder taskSchedulerBuilder) {
+        this.taskScheduler = taskSchedulerBuilder.build();
+        this.taskScheduler.initialize();
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.setTaskScheduler(taskScheduler);
+    }
+
+    @Override
+    public void destroy() {
+        taskScheduler.shutdown();
+    }
+}
@@ -0,0 +1,46 @@
+package com.foxx.digitaltwinai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 链路追踪进程内缓冲配置类
+ * (In-process trace buffer configuration class)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "tracing.buffer")
+@Data
+public class TracingConfig {
+
+    /**
+     * 是否把导出的span保留在内存中供 /api/traces 查询
+     * (Whether exported spans are kept in memory for /api/traces)
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多保留的链路数，超出时丢弃最早的
+     * (Most traces kept; the oldest are dropped beyond this)
+     */
+    private int maxTraces = 500;
+
+    /**
+     * 单条链路最多保留的span数，超出的span只计数
+     * (Most spans kept per trace; spans beyond this are only counted)
+     */
+    private int maxSpansPerTrace = 200;
+
+    /**
+     * /api/traces/slow 默认的最短耗时（毫秒）
+     * (Default minimum duration for /api/traces/slow, in milliseconds)
+     */
+    private long slowThreshold = 1000;
+
+    /**
+     * 访问 /api/traces 需在 X-Trace-Token 头中携带的令牌；为空时只允许本机访问，经反向代理访问时必须配置
+     * (Token /api/traces requires in the X-Trace-Token header; when empty only loopback clients are allowed, so it
+     * must be set when the endpoint is reached through a reverse proxy)
+     */
+    private String accessToken = "";
+}
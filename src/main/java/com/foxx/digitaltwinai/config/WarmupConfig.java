@@ -0,0 +1,48 @@
+package com.foxx.digitaltwinai.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动预热与就绪检查配置类
+ * (Startup Warm-up and Readiness Configuration Class)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "warmup")
+@Data
+public class WarmupConfig {
+
+    /**
+     * 是否启用预热
+     * (Whether warm-up is enabled)
+     */
+    private boolean enabled = true;
+
+    /**
+     * 序列化与解析热点路径的预热迭代次数
+     * (Warm-up iterations for serializer and parser hot paths)
+     */
+    private int iterations = 500;
+
+    /**
+     * 单个依赖探测超时（毫秒）
+     * (Per-dependency probe timeout in milliseconds)
+     */
+    private int probeTimeout = 3000;
+
+    /**
+     * 预热完成后依赖状态刷新间隔（毫秒）
+     * (Dependency status refresh interval after warm-up, in milliseconds)
+     */
+    private long refreshInterval = 15000;
+
+    /**
+     * 必须可用才能就绪的依赖：dify、browser-service、mysql、redis
+     * (Dependencies that must be up for readiness: dify, browser-service, mysql, redis)
+     */
+    private List<String> requiredDependencies = new ArrayList<>(List.of("browser-service"));
+}
@@ -2,16 +2,34 @@ package com.foxx.digitaltwinai.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foxx.digitaltwinai.websocket.CborMessageConverter;
+import com.foxx.digitaltwinai.websocket.ChannelMetricsInterceptor;
+import com.foxx.digitaltwinai.websocket.PayloadEncodingRegistry;
+import com.foxx.digitaltwinai.websocket.SessionChannelInterceptor;
+import com.foxx.digitaltwinai.websocket.SessionHandshakeHandler;
+import com.foxx.digitaltwinai.websocket.SessionTokens;
+import com.foxx.digitaltwinai.websocket.SlowConsumerGuard;
+import com.foxx.digitaltwinai.websocket.TransportMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.converter.DefaultContentTypeResolver;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import java.util.List;
 
@@ -21,19 +39,170 @@ import java.util.List;
  */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    /**
+     * WebSocket属性配置
+     * (WebSocket Properties)
+     */
+    private final WebSocketProperties webSocketProperties;
+
+    /**
+     * 慢消费者保护
+     * (Slow consumer protection)
+     */
+    private final SlowConsumerGuard slowConsumerGuard;
+
+    /**
+     * 负载编码协商
+     * (Payload encoding negotiation)
+     */
+    private final PayloadEncodingRegistry payloadEncodingRegistry;
+
+    /**
+     * 按传输方式的连接与延迟指标
+     * (Per-transport connection and latency metrics)
+     */
+    private final TransportMetrics transportMetrics;
+
+    /**
+     * 会话令牌，握手时校验
+     * (Session tokens, verified during the handshake)
+     */
+    private final SessionTokens sessionTokens;
+
+    /**
+     * 指标注册表
+     * (Meter Registry)
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 发送STOMP心跳使用的调度器
+     * (Scheduler used to send STOMP heartbeats)
+     */
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    /**
+     * 延迟注入代理调度器，它由本配置参与创建
+     * (Inject the broker scheduler lazily, since this configuration takes part in creating it)
+     */
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        // /queue 用于按会话投递的用户目标 (/queue carries per-session user destinations)
+        WebSocketProperties.Broker broker = webSocketProperties.getBroker();
+        WebSocketProperties.Heartbeat heartbeat = webSocketProperties.getHeartbeat();
+        if (broker.getMode() == WebSocketProperties.Mode.STOMP_RELAY) {
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(broker.getRelayHost())
+                    .setRelayPort(broker.getRelayPort())
+                    .setClientLogin(broker.getClientLogin())
+                    .setClientPasscode(broker.getClientPasscode())
+                    .setSystemLogin(broker.getSystemLogin())
+                    .setSystemPasscode(broker.getSystemPasscode())
+                    .setSystemHeartbeatSendInterval(heartbeat.getServer())
+                    .setSystemHeartbeatReceiveInterval(heartbeat.getClient())
+                    // 用户目标在会话所在的节点解析 (User destinations are resolved on the node that owns the session)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            if (broker.getVirtualHost() != null && !broker.getVirtualHost().isEmpty()) {
+                relay.setVirtualHost(broker.getVirtualHost());
+            }
+        } else {
+            // redis 模式同样使用本地代理，由 ClusteredMessageRelay 负责跨节点转发
+            // (redis mode also uses the local broker; ClusteredMessageRelay forwards across nodes)
+            registry.enableSimpleBroker("/topic", "/queue")
+                    .setHeartbeatValue(new long[] {heartbeat.getServer(), heartbeat.getClient()})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+        }
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
     }
 
+    /**
+     * 注册原生WebSocket端点，并保留SockJS端点供不支持WebSocket的客户端回退
+     * (Register the native WebSocket endpoint and keep the SockJS endpoint as a fallback)
+     */
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns("*")
-                .withSockJS();
+        registry.addEndpoint(webSocketProperties.getNativeEndpoint())
+                .setAllowedOriginPatterns(webSocketProperties.getAllowedOrigins())
+                .setHandshakeHandler(new SessionHandshakeHandler(sessionTokens));
+
+        WebSocketProperties.Heartbeat heartbeat = webSocketProperties.getHeartbeat();
+        registry.addEndpoint(webSocketProperties.getEndpoint())
+                .setAllowedOriginPatterns(webSocketProperties.getAllowedOrigins())
+                .setHandshakeHandler(new SessionHandshakeHandler(sessionTokens))
+                .withSockJS()
+                .setHeartbeatTime(heartbeat.getSockJs())
+                .setDisconnectDelay(heartbeat.getSockJsDisconnectDelay());
+    }
+
+    /**
+     * 校验WebSocket用户身份与握手时绑定的聊天会话ID一致
+     * (Check WebSocket users against the chat session ID bound at handshake)
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        configurePool(registration, "inbound", webSocketProperties.getChannels().getInbound());
+        registration.interceptors(new SessionChannelInterceptor(), payloadEncodingRegistry,
+                new ChannelMetricsInterceptor("inbound", meterRegistry));
+    }
+
+    /**
+     * 配置出站线程池与慢消费者保护
+     * (Configure the outbound pool and slow consumer protection)
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        configurePool(registration, "outbound", webSocketProperties.getChannels().getOutbound());
+        registration.interceptors(slowConsumerGuard, transportMetrics,
+                new ChannelMetricsInterceptor("outbound", meterRegistry));
+    }
+
+    /**
+     * 配置发送时间、发送缓冲与消息大小限制，超出发送限制的会话会被关闭
+     * (Configure send time, send buffer and message size limits; sessions exceeding the send limits are closed)
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        WebSocketProperties.Transport transport = webSocketProperties.getTransport();
+        registration.setMessageSizeLimit(transport.getMessageSizeLimit())
+                .setSendTimeLimit(transport.getSendTimeLimit())
+                .setSendBufferSizeLimit(transport.getSendBufferSizeLimit())
+                .setTimeToFirstMessage(transport.getTimeToFirstMessage())
+                .addDecoratorFactory(slowConsumerGuard::decorate)
+                .addDecoratorFactory(payloadEncodingRegistry::decorate)
+                .addDecoratorFactory(transportMetrics::decorate);
+    }
+
+    /**
+     * 按配置创建通道线程池，并注册排队数与活动线程数指标
+     * (Create the channel pool from configuration and register queue depth and active thread metrics)
+     */
+    private void configurePool(ChannelRegistration registration, String channel, WebSocketProperties.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ws-" + channel + "-");
+        registration.taskExecutor(executor)
+                .corePoolSize(pool.getCorePoolSize())
+                .maxPoolSize(pool.getMaxPoolSize())
+                .queueCapacity(pool.getQueueCapacity())
+                .keepAliveSeconds(pool.getKeepAlive());
+
+        Gauge.builder("digital_twin.websocket.channel.queue", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .description("消息通道排队数 (Messages queued on the channel)")
+                .tag("channel", channel)
+                .register(meterRegistry);
+        Gauge.builder("digital_twin.websocket.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("消息通道活动线程数 (Active threads on the channel)")
+                .tag("channel", channel)
+                .register(meterRegistry);
     }
 
     /**
@@ -56,6 +225,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         converter.setContentTypeResolver(resolver);
         messageConverters.add(converter);
 
+        // 协商后使用的CBOR二进制编码，仅匹配显式的内容类型 (Negotiated CBOR encoding, only matches an explicit content type)
+        messageConverters.add(new CborMessageConverter());
+
         return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,411 @@
+package com.foxx.digitaltwinai.config;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * WebSocket属性配置类
+ * (WebSocket Properties Configuration Class)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "websocket")
+@Data
+public class WebSocketProperties {
+
+    /**
+     * STOMP端点路径
+     * (STOMP endpoint path)
+     */
+    private String endpoint = "/ws";
+
+    /**
+     * 原生WebSocket端点路径（不经SockJS）
+     * (Native WebSocket endpoint path, without SockJS)
+     */
+    private String nativeEndpoint = "/ws-native";
+
+    /**
+     * 允许的来源
+     * (Allowed origins)
+     */
+    private String allowedOrigins = "*";
+
+    /**
+     * 管理员全量消息主题配置
+     * (Admin firehose topic configuration)
+     */
+    private Firehose adminFirehose = new Firehose();
+
+    /**
+     * 日志与错误消息批量发送配置
+     * (Log and error message batching configuration)
+     */
+    private Batching batching = new Batching();
+
+    /**
+     * 消息代理配置
+     * (Message broker configuration)
+     */
+    private Broker broker = new Broker();
+
+    /**
+     * 传输层限制
+     * (Transport limits)
+     */
+    private Transport transport = new Transport();
+
+    /**
+     * 消息通道线程池配置
+     * (Message channel thread pool configuration)
+     */
+    private Channels channels = new Channels();
+
+    /**
+     * 慢消费者保护配置
+     * (Slow consumer protection configuration)
+     */
+    private SlowConsumer slowConsumer = new SlowConsumer();
+
+    /**
+     * 心跳配置
+     * (Heartbeat configuration)
+     */
+    private Heartbeat heartbeat = new Heartbeat();
+
+    /**
+     * STOMP聊天配置
+     * (STOMP chat configuration)
+     */
+    private Chat chat = new Chat();
+
+    /**
+     * 会话身份配置
+     * (Session identity configuration)
+     */
+    private Session session = new Session();
+
+    /**
+     * 管理员全量消息主题配置类
+     * (Admin Firehose Configuration Class)
+     */
+    @Data
+    public static class Firehose {
+
+        /**
+         * 是否将所有会话的消息同时发布到管理员主题
+         * (Whether messages of every session are also published to the admin topic)
+         */
+        private boolean enabled = false;
+
+        /**
+         * 管理员主题
+         * (Admin topic)
+         */
+        private String destination = "/topic/admin/firehose";
+    }
+
+    /**
+     * 批量发送配置类
+     * (Batching Configuration Class)
+     */
+    @Data
+    public static class Batching {
+
+        /**
+         * 是否启用批量发送
+         * (Whether batching is enabled)
+         */
+        private boolean enabled = true;
+
+        /**
+         * 单帧最多消息数，达到后立即发送
+         * (Maximum messages per frame; reaching it flushes immediately)
+         */
+        private int maxBatchSize = 20;
+
+        /**
+         * 定时刷新间隔（毫秒）
+         * (Periodic flush interval in milliseconds)
+         */
+        private long flushInterval = 100;
+
+        /**
+         * 相同错误消息的去重窗口（毫秒）
+         * (De-duplication window for identical error messages, in milliseconds)
+         */
+        private long errorDedupWindow = 2000;
+
+        /**
+         * 每个会话每秒允许的消息数
+         * (Messages per second allowed per session)
+         */
+        private double ratePerSecond = 20;
+
+        /**
+         * 每个会话允许的突发消息数
+         * (Burst size allowed per session)
+         */
+        private double burst = 40;
+    }
+
+    /**
+     * 消息代理配置类
+     * (Broker Configuration Class)
+     *
+     * <p>simple 为单节点内存代理；stomp-relay 将 /topic 和 /queue 转发到外部STOMP代理（如RabbitMQ）；
+     * redis 保留本地内存代理，并通过Redis发布订阅在各节点之间转发消息。
+     * (simple is the single-node in-memory broker; stomp-relay forwards /topic and /queue to an
+     * external STOMP broker such as RabbitMQ; redis keeps the local broker and forwards messages
+     * between nodes over Redis pub/sub.)</p>
+     */
+    @Data
+    public static class Broker {
+
+        /**
+         * 代理模式
+         * (Broker mode)
+         */
+        private Mode mode = Mode.SIMPLE;
+
+        /**
+         * STOMP代理主机
+         * (STOMP broker host)
+         */
+        private String relayHost = "localhost";
+
+        /**
+         * STOMP代理端口
+         * (STOMP broker port)
+         */
+        private int relayPort = 61613;
+
+        /**
+         * 客户端连接使用的登录名与密码
+         * (Login and passcode used for client connections)
+         */
+        private String clientLogin = "guest";
+
+        private String clientPasscode = "guest";
+
+        /**
+         * 系统连接使用的登录名与密码
+         * (Login and passcode used for the shared system connection)
+         */
+        private String systemLogin = "guest";
+
+        private String systemPasscode = "guest";
+
+        /**
+         * STOMP虚拟主机，为空时不设置
+         * (STOMP virtual host, unset when empty)
+         */
+        private String virtualHost;
+
+        /**
+         * redis 模式下使用的频道
+         * (Channel used in redis mode)
+         */
+        private String redisChannel = "digital-twin:websocket";
+
+        /**
+         * 非 simple 模式下相机状态在Redis中的键前缀
+         * (Key prefix of the camera state in Redis outside simple mode)
+         */
+        private String cameraStateKeyPrefix = "digital-twin:camera:";
+    }
+
+    /**
+     * 传输层限制配置类
+     * (Transport Limits Configuration Class)
+     */
+    @Data
+    public static class Transport {
+
+        /**
+         * 入站消息最大字节数
+         * (Maximum inbound message size in bytes)
+         */
+        private int messageSizeLimit = 64 * 1024;
+
+        /**
+         * 单次发送的最长时间（毫秒），超出后关闭会话
+         * (Maximum time for a single send in milliseconds; the session is closed when exceeded)
+         */
+        private int sendTimeLimit = 10000;
+
+        /**
+         * 每个会话的发送缓冲上限（字节），超出后关闭会话
+         * (Per-session send buffer limit in bytes; the session is closed when exceeded)
+         */
+        private int sendBufferSizeLimit = 512 * 1024;
+
+        /**
+         * 连接建立后等待首条消息的时间（毫秒）
+         * (Time to wait for the first message after connecting, in milliseconds)
+         */
+        private int timeToFirstMessage = 30000;
+    }
+
+    /**
+     * 消息通道配置类
+     * (Message Channels Configuration Class)
+     */
+    @Data
+    public static class Channels {
+
+        /**
+         * 客户端入站通道线程池
+         * (Client inbound channel pool)
+         */
+        private Pool inbound = new Pool(8, 16, 1000);
+
+        /**
+         * 客户端出站通道线程池
+         * (Client outbound channel pool)
+         */
+        private Pool outbound = new Pool(8, 32, 5000);
+    }
+
+    /**
+     * 线程池配置类
+     * (Thread Pool Configuration Class)
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Pool {
+
+        private int corePoolSize;
+
+        private int maxPoolSize;
+
+        private int queueCapacity;
+
+        /**
+         * 空闲线程存活时间（秒）
+         * (Idle thread keep-alive in seconds)
+         */
+        private int keepAlive = 60;
+
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    /**
+     * 慢消费者保护配置类
+     * (Slow Consumer Configuration Class)
+     */
+    @Data
+    public static class SlowConsumer {
+
+        /**
+         * 处理策略：drop 丢弃新消息，close 关闭会话
+         * (Policy: drop discards new messages, close closes the session)
+         */
+        private SlowConsumerPolicy policy = SlowConsumerPolicy.DROP;
+
+        /**
+         * 每个会话在出站通道中排队的最大消息数
+         * (Maximum messages queued on the outbound channel per session)
+         */
+        private int maxPendingMessages = 200;
+
+        /**
+         * 单次发送超过该时间（毫秒）即视为慢消费者
+         * (A send running longer than this, in milliseconds, marks the session as slow)
+         */
+        private long slowSendThreshold = 2000;
+    }
+
+    /**
+     * 心跳配置类
+     * (Heartbeat Configuration Class)
+     */
+    @Data
+    public static class Heartbeat {
+
+        /**
+         * 服务端发送STOMP心跳的间隔（毫秒），0 表示不发送
+         * (Interval at which the server sends STOMP heartbeats in milliseconds, 0 disables)
+         */
+        private long server = 10000;
+
+        /**
+         * 期望客户端发送STOMP心跳的间隔（毫秒），0 表示不检查
+         * (Interval at which clients are expected to send STOMP heartbeats in milliseconds, 0 disables)
+         */
+        private long client = 10000;
+
+        /**
+         * SockJS传输层心跳间隔（毫秒）
+         * (SockJS transport heartbeat interval in milliseconds)
+         */
+        private long sockJs = 25000;
+
+        /**
+         * SockJS客户端断开后保留会话的时间（毫秒）
+         * (How long a SockJS session is kept after the client disconnects, in milliseconds)
+         */
+        private long sockJsDisconnectDelay = 5000;
+    }
+
+    /**
+     * STOMP聊天配置类
+     * (STOMP Chat Configuration Class)
+     */
+    @Data
+    public static class Chat {
+
+        /**
+         * 同时处理的聊天请求数
+         * (Chat requests processed concurrently)
+         */
+        private int concurrency = 8;
+
+        /**
+         * 等待处理的聊天请求上限
+         * (Maximum chat requests waiting to be processed)
+         */
+        private int queueCapacity = 100;
+    }
+
+    /**
+     * 会话身份配置类
+     * (Session Identity Configuration Class)
+     */
+    @Data
+    public static class Session {
+
+        /**
+         * 会话令牌的HMAC密钥，多实例部署时各节点必须一致；为空时每次启动随机生成
+         * (HMAC key of session tokens; must be the same on every node. When empty a random key is generated at startup)
+         */
+        private String tokenSecret = "";
+
+        /**
+         * 会话令牌有效期（毫秒）
+         * (Session token lifetime in milliseconds)
+         */
+        private long tokenTtl = 24 * 60 * 60 * 1000L;
+    }
+
+    /**
+     * 慢消费者处理策略
+     * (Slow Consumer Policy)
+     */
+    public enum SlowConsumerPolicy {
+        DROP, CLOSE
+    }
+
+    /**
+     * 代理模式
+     * (Broker Mode)
+     */
+    public enum Mode {
+        SIMPLE, STOMP_RELAY, REDIS
+    }
+}
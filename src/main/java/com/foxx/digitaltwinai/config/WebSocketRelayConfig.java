@@ -0,0 +1,89 @@
+package com.foxx.digitaltwinai.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.service.CameraStateService;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import com.foxx.digitaltwinai.service.impl.CameraStateServiceImpl;
+import com.foxx.digitaltwinai.service.impl.RedisCameraStateServiceImpl;
+import com.foxx.digitaltwinai.websocket.ClusteredMessageRelay;
+import com.foxx.digitaltwinai.websocket.LocalMessageRelay;
+import com.foxx.digitaltwinai.websocket.MessageRelay;
+import com.foxx.digitaltwinai.websocket.PayloadEncodingRegistry;
+import com.foxx.digitaltwinai.websocket.RedisRelayTransport;
+import com.foxx.digitaltwinai.websocket.RelayTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+/**
+ * WebSocket多节点转发配置类
+ * (WebSocket Multi-node Relay Configuration)
+ */
+@Configuration
+public class WebSocketRelayConfig {
+
+    /**
+     * 配置消息发送入口：存在节点间传输时使用多节点转发，否则直接交给本节点代理
+     * (Configure the message relay: clustered when an inter-node transport exists, local otherwise)
+     */
+    @Bean
+    public MessageRelay messageRelay(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper,
+                                     ObjectProvider<RelayTransport> relayTransport,
+                                     PayloadEncodingRegistry payloadEncodingRegistry, MeterRegistry meterRegistry) {
+        RelayTransport transport = relayTransport.getIfAvailable();
+        if (transport == null) {
+            return new LocalMessageRelay(messagingTemplate, payloadEncodingRegistry);
+        }
+        return new ClusteredMessageRelay(messagingTemplate, objectMapper, transport, payloadEncodingRegistry,
+                meterRegistry);
+    }
+
+    /**
+     * 配置场景相机状态：simple 单节点模式保存在内存中，其余模式由多个节点共享，保存在Redis中
+     * (Configure scene camera state: in memory for the single-node simple mode, in Redis for the
+     * other modes where several nodes share it)
+     */
+    @Bean
+    public CameraStateService cameraStateService(WebSocketProperties webSocketProperties,
+                                                 WebSocketService webSocketService,
+                                                 ObjectProvider<StringRedisTemplate> redisTemplate,
+                                                 ObjectMapper objectMapper) {
+        WebSocketProperties.Broker broker = webSocketProperties.getBroker();
+        if (broker.getMode() == WebSocketProperties.Mode.SIMPLE) {
+            return new CameraStateServiceImpl(webSocketService);
+        }
+        return new RedisCameraStateServiceImpl(redisTemplate.getObject(), objectMapper, webSocketService,
+                broker.getCameraStateKeyPrefix());
+    }
+
+    /**
+     * redis 模式下的监听容器
+     * (Listener container for redis mode)
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "websocket.broker", name = "mode", havingValue = "redis")
+    public RedisMessageListenerContainer webSocketRelayListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * redis 模式下的节点间传输
+     * (Inter-node transport for redis mode)
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "websocket.broker", name = "mode", havingValue = "redis")
+    public RelayTransport redisRelayTransport(StringRedisTemplate redisTemplate,
+                                              RedisMessageListenerContainer webSocketRelayListenerContainer,
+                                              WebSocketProperties webSocketProperties) {
+        return new RedisRelayTransport(redisTemplate, webSocketRelayListenerContainer,
+                webSocketProperties.getBroker().getRedisChannel());
+    }
+}
@@ -2,9 +2,16 @@ package com.foxx.digitaltwinai.controller;
 
 import com.foxx.digitaltwinai.model.ChatRequest;
 import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.model.OperationBatchRequest;
+import com.foxx.digitaltwinai.model.OperationRequest;
+import com.foxx.digitaltwinai.operation.OperationHandler;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
 import com.foxx.digitaltwinai.service.BrowserService;
 import com.foxx.digitaltwinai.service.DifyService;
 import com.foxx.digitaltwinai.service.WebSocketService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,7 +21,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -46,6 +55,55 @@ public class ChatController {
      */
     private final WebSocketService webSocketService;
     
+    /**
+     * 操作处理器注册表
+     * (Operation handler registry)
+     */
+    private final OperationRegistry operationRegistry;
+    
+    /**
+     * 指标注册表
+     * (Meter Registry)
+     */
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 聊天接口耗时，与结构化操作接口分开统计
+     * (Chat endpoint latency, tracked separately from the structured operation endpoints)
+     */
+    private Timer chatTimer;
+    
+    /**
+     * 结构化操作接口耗时
+     * (Structured operation endpoint latency)
+     */
+    private Timer operationTimer;
+    
+    /**
+     * 批量结构化操作接口耗时
+     * (Batch structured operation endpoint latency)
+     */
+    private Timer operationBatchTimer;
+    
+    /**
+     * 初始化接口耗时指标
+     * (Initialize endpoint latency metrics)
+     */
+    @PostConstruct
+    public void initMetrics() {
+        chatTimer = endpointTimer("chat");
+        operationTimer = endpointTimer("operations");
+        operationBatchTimer = endpointTimer("operations_batch");
+    }
+    
+    private Timer endpointTimer(String endpoint) {
+        return Timer.builder("digital_twin.api.latency")
+                .description("接口处理耗时 (Endpoint handling latency)")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+    
     /**
      * 处理聊天请求
      * (Handle Chat Request)
@@ -55,6 +113,7 @@ public class ChatController {
      */
     @PostMapping("/chat")
     public ResponseEntity<ChatResponse> chat(@RequestBody(required = false) ChatRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             // 检查请求是否为null
             if (request == null) {
@@ -139,15 +198,104 @@ public class ChatController {
                     .build();
             
             return ResponseEntity.ok(errorResponse);
+        } finally {
+            sample.stop(chatTimer);
+        }
+    }
+
+    /**
+     * 直接执行结构化操作，绕过Dify、指令解析和聊天日志
+     * (Execute a structured operation directly, bypassing Dify, instruction parsing and chat logging)
+     *
+     * @param request 操作请求 (Operation request)
+     * @return 操作结果 (Operation result)
+     */
+    @PostMapping("/operations")
+    public ResponseEntity<Map<String, Object>> executeOperation(@Valid @RequestBody OperationRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            String error = validateOperation(request);
+            if (error != null) {
+                return ResponseEntity.badRequest().body(Map.of("success", false, "message", error));
+            }
+            return ResponseEntity.ok(handleModelAction(request.toActionMap(), request.getSessionId()));
+        } finally {
+            sample.stop(operationTimer);
+        }
+    }
+
+    /**
+     * 按顺序批量执行结构化操作，执行前先校验全部操作
+     * (Execute structured operations in order, validating all of them first)
+     *
+     * @param request 批量操作请求 (Batch operation request)
+     * @return 批量操作结果 (Batch operation result)
+     */
+    @PostMapping("/operations/batch")
+    public ResponseEntity<Map<String, Object>> executeOperationBatch(@Valid @RequestBody OperationBatchRequest request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            List<OperationRequest> operations = request.getOperations();
+            for (int i = 0; i < operations.size(); i++) {
+                String error = validateOperation(operations.get(i));
+                if (error != null) {
+                    return ResponseEntity.badRequest().body(Map.of(
+                            "success", false,
+                            "index", i,
+                            "message", error));
+                }
+            }
+
+            List<Map<String, Object>> results = new ArrayList<>(operations.size());
+            boolean allSucceeded = true;
+            for (OperationRequest operation : operations) {
+                Map<String, Object> result = handleModelAction(operation.toActionMap(), operation.getSessionId());
+                results.add(result);
+                if (!Boolean.TRUE.equals(result.get("success"))) {
+                    allSucceeded = false;
+                    if (request.isStopOnFailure()) {
+                        break;
+                    }
+                }
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", allSucceeded);
+            response.put("executed", results.size());
+            response.put("results", results);
+            return ResponseEntity.ok(response);
+        } finally {
+            sample.stop(operationBatchTimer);
+        }
+    }
+
+    /**
+     * 校验结构化操作
+     * (Validate a structured operation)
+     *
+     * @param request 操作请求 (Operation request)
+     * @return 错误信息，校验通过时返回null (Error message, or null when valid)
+     */
+    private String validateOperation(OperationRequest request) {
+        OperationHandler handler = operationRegistry.find(request.getType());
+        if (handler == null) {
+            return "不支持的操作类型: " + request.getType() + " (Unsupported action type)";
+        }
+        try {
+            handler.validate(request.getTarget(), request.getParams() != null ? request.getParams() : Map.of());
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
         }
     }
 
     /**
      * 处理模型操作请求
      * @param action 模型操作
+     * @param sessionId 会话ID
      * @return 操作结果
      */
-    private Map<String, Object> handleModelAction(Map<String, Object> action) {
+    private Map<String, Object> handleModelAction(Map<String, Object> action, String sessionId) {
         if (action == null) {
             return Map.of(
                 "success", false,
@@ -159,27 +307,19 @@ public class ChatController {
             // 获取操作类型、目标和参数
             String type = (String) action.get("type");
             String target = (String) action.get("target");
-            Map<String, Object> params = (Map<String, Object>) action.getOrDefault("params", Map.of());
+            Object params = action.getOrDefault("params", Map.of());
 
             // 记录操作请求
             log.info("执行模型操作: type={}, target={}, params={}", type, target, params);
 
-            // 使用browserService执行相应操作
-            switch (type.toLowerCase()) {
-                case "rotate":
-                    return browserService.executeRotate(params);
-                case "zoom":
-                    return browserService.executeZoom(params);
-                case "focus":
-                    return browserService.executeFocus(target);
-                case "reset":
-                    return browserService.executeReset();
-                default:
-                    return Map.of(
-                        "success", false,
-                        "message", "不支持的操作类型: " + type + " (Unsupported action type)"
-                    );
+            // 通过注册表查表分发，不支持的类型直接返回
+            if (!operationRegistry.supports(type)) {
+                return Map.of(
+                    "success", false,
+                    "message", "不支持的操作类型: " + type + " (Unsupported action type)"
+                );
             }
+            return browserService.executeModelOperation(action, sessionId);
         } catch (Exception e) {
             log.error("执行模型操作失败: {}", e.getMessage(), e);
             return Map.of(
@@ -1,5 +1,8 @@
 package com.foxx.digitaltwinai.controller;
 
+import com.foxx.digitaltwinai.service.WarmupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -12,8 +15,15 @@ import java.util.Map;
  * (Health Check Controller)
  */
 @RestController
+@RequiredArgsConstructor
 public class HealthController {
 
+    /**
+     * 预热与就绪服务
+     * (Warm-up and Readiness Service)
+     */
+    private final WarmupService warmupService;
+
     /**
      * 健康检查端点
      * (Health check endpoint)
@@ -29,4 +39,18 @@ public class HealthController {
 
         return ResponseEntity.ok(status);
     }
-}
\ No newline at end of file
+
+    /**
+     * 就绪检查端点，预热完成且必需依赖可用前返回503
+     * (Readiness endpoint, returns 503 until warm-up completes and required dependencies are up)
+     *
+     * @return 各依赖的状态与延迟 (Per-dependency status and latency)
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<Map<String, Object>> readinessCheck() {
+        Map<String, Object> report = warmupService.getReadinessReport();
+        report.put("service", "digital-twin-ai");
+        HttpStatus status = Boolean.TRUE.equals(report.get("ready")) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(report);
+    }
+}
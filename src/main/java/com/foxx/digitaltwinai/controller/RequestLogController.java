@@ -0,0 +1,102 @@
+package com.foxx.digitaltwinai.controller;
+
+import com.foxx.digitaltwinai.model.RequestLogPage;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import com.foxx.digitaltwinai.service.DifyRequestLogService;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 请求日志查询控制器
+ * (Request Log Query Controller)
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/logs")
+@RequiredArgsConstructor
+public class RequestLogController {
+
+    /**
+     * NDJSON内容类型
+     * (NDJSON content type)
+     */
+    static final String NDJSON = "application/x-ndjson";
+
+    /**
+     * 请求日志服务
+     * (Request Log Service)
+     */
+    private final DifyRequestLogService difyRequestLogService;
+
+    /**
+     * 键集分页查询日志，按时间倒序
+     * (Query one keyset page of logs, newest first)
+     *
+     * @return 本页日志和下一页游标 (Logs on this page and the next cursor)
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getLogs(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String operationType,
+            @RequestParam(required = false) String targetComponent,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        RequestLogQuery query = RequestLogQuery.builder()
+                .from(from).to(to).status(status)
+                .operationType(operationType).targetComponent(targetComponent)
+                .cursor(cursor).limit(limit)
+                .build();
+        try {
+            RequestLogPage page = difyRequestLogService.getLogPage(query);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("items", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * 以NDJSON流式导出日志，每行一条，按时间倒序
+     * (Stream logs as NDJSON, one per line, newest first)
+     */
+    @GetMapping("/export")
+    public void exportLogs(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer status,
+            @RequestParam(required = false) String operationType,
+            @RequestParam(required = false) String targetComponent,
+            HttpServletResponse response) throws IOException {
+        RequestLogQuery query = RequestLogQuery.builder()
+                .from(from).to(to).status(status)
+                .operationType(operationType).targetComponent(targetComponent)
+                .build();
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"dify-request-logs.ndjson\"");
+        try {
+            long exported = difyRequestLogService.exportLogs(query, response.getOutputStream());
+            log.info("导出请求日志 {} 条 (Exported {} request logs)", exported, exported);
+        } catch (IllegalArgumentException e) {
+            // 条件校验在写出第一行前完成 (Query validation happens before the first line is written)
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+    }
+}
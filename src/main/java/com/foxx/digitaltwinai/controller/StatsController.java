@@ -0,0 +1,53 @@
+package com.foxx.digitaltwinai.controller;
+
+import com.foxx.digitaltwinai.service.RequestLogStatsService;
+import com.foxx.digitaltwinai.service.log.RequestLogRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 请求统计控制器
+ * (Request Statistics Controller)
+ */
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    /**
+     * 请求日志统计服务
+     * (Request Log Statistics Service)
+     */
+    private final RequestLogStatsService requestLogStatsService;
+
+    /**
+     * 查询请求数、成功率和耗时分位数，数据来自分钟/小时汇总表
+     * (Query request count, success rate and latency percentiles from the minute/hour rollups)
+     *
+     * @return 统计结果 (Statistics)
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStats(
+            @RequestParam(defaultValue = "minute") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String operationType,
+            @RequestParam(required = false) String handlingPath) {
+        try {
+            RequestLogRollup.Granularity resolved = RequestLogRollup.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+            String path = handlingPath != null ? handlingPath.toUpperCase(Locale.ROOT) : null;
+            return ResponseEntity.ok(requestLogStatsService.getStats(resolved, from, to, operationType, path));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", e.getMessage()));
+        }
+    }
+}
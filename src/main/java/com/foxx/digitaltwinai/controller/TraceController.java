@@ -0,0 +1,122 @@
+package com.foxx.digitaltwinai.controller;
+
+import com.foxx.digitaltwinai.config.TracingConfig;
+import com.foxx.digitaltwinai.model.TraceSummary;
+import com.foxx.digitaltwinai.service.tracing.RingBufferSpanExporter;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 链路查询控制器，数据来自进程内缓冲
+ * (Trace Query Controller, served from the in-process buffer)
+ *
+ * <p>链路包含请求细节，只对携带 tracing.buffer.access-token 的请求开放；未配置令牌时只允许本机访问。
+ * (Traces carry request details, so they are only served to requests presenting tracing.buffer.access-token;
+ * without a configured token only loopback clients are allowed.)</p>
+ */
+@RestController
+@RequestMapping("/api/traces")
+@RequiredArgsConstructor
+public class TraceController {
+
+    /**
+     * 单次最多返回的链路数
+     * (Most traces returned at once)
+     */
+    static final int MAX_LIMIT = 100;
+
+    /**
+     * 访问令牌请求头
+     * (Access token request header)
+     */
+    public static final String ACCESS_TOKEN_HEADER = "X-Trace-Token";
+
+    private final RingBufferSpanExporter ringBufferSpanExporter;
+
+    private final TracingConfig tracingConfig;
+
+    /**
+     * 查询最慢的链路，按耗时倒序
+     * (Query the slowest traces, slowest first)
+     *
+     * @param minDurationMs 最短耗时，默认取 tracing.buffer.slow-threshold (Minimum duration, defaults to tracing.buffer.slow-threshold)
+     * @param limit 返回条数 (Traces to return)
+     * @return 链路摘要 (Trace summaries)
+     */
+    @GetMapping("/slow")
+    public ResponseEntity<Map<String, Object>> getSlowTraces(
+            @RequestParam(required = false) Long minDurationMs,
+            @RequestParam(defaultValue = "20") int limit,
+            HttpServletRequest request) {
+        if (!isAuthorized(request)) {
+            return forbidden();
+        }
+        long threshold = minDurationMs != null ? minDurationMs : tracingConfig.getSlowThreshold();
+        List<TraceSummary> traces = ringBufferSpanExporter.slowest(threshold, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("minDurationMs", threshold);
+        response.put("buffered", ringBufferSpanExporter.size());
+        response.put("items", traces);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 查询一条链路的全部span
+     * (Query all spans of one trace)
+     *
+     * @param traceId 链路ID，可从日志中的traceId获得 (Trace ID, as printed in the logs)
+     * @return 链路及其span (Trace with its spans)
+     */
+    @GetMapping("/{traceId}")
+    public ResponseEntity<?> getTrace(@PathVariable String traceId, HttpServletRequest request) {
+        if (!isAuthorized(request)) {
+            return forbidden();
+        }
+        TraceSummary trace = ringBufferSpanExporter.find(traceId);
+        if (trace == null) {
+            return ResponseEntity.status(404).body(Map.of("success", false,
+                    "message", "链路不在缓冲中 (Trace not in the buffer): " + traceId));
+        }
+        return ResponseEntity.ok(trace);
+    }
+
+    private boolean isAuthorized(HttpServletRequest request) {
+        String accessToken = tracingConfig.getAccessToken();
+        if (accessToken == null || accessToken.isBlank()) {
+            return isLoopback(request.getRemoteAddr());
+        }
+        String presented = request.getHeader(ACCESS_TOKEN_HEADER);
+        // 定长比较 (Constant-time comparison)
+        return presented != null && MessageDigest.isEqual(accessToken.getBytes(StandardCharsets.UTF_8),
+                presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isLoopback(String address) {
+        try {
+            // 远端地址是IP字面量，不会触发DNS查询 (The remote address is an IP literal, so no DNS lookup happens)
+            return address != null && InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> forbidden() {
+        return ResponseEntity.status(403).body(Map.of("success", false,
+                "message", "无权查询链路 (Not allowed to query traces)"));
+    }
+}
@@ -1,12 +1,25 @@
 package com.foxx.digitaltwinai.controller;
 
+import com.foxx.digitaltwinai.model.ChatRequest;
 import com.foxx.digitaltwinai.model.WebSocketMessage;
+import com.foxx.digitaltwinai.service.CameraStateService;
+import com.foxx.digitaltwinai.service.ChatStreamService;
+import com.foxx.digitaltwinai.websocket.SessionTokens;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
+import java.security.Principal;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * WebSocket控制器
  * (WebSocket Controller)
@@ -16,6 +29,71 @@ import org.springframework.stereotype.Controller;
 @RequiredArgsConstructor
 public class WebSocketController {
     
+    /**
+     * STOMP聊天服务
+     * (STOMP Chat Service)
+     */
+    private final ChatStreamService chatStreamService;
+    
+    /**
+     * 场景相机状态服务
+     * (Scene Camera State Service)
+     */
+    private final CameraStateService cameraStateService;
+    
+    /**
+     * 会话令牌
+     * (Session tokens)
+     */
+    private final SessionTokens sessionTokens;
+    
+    /**
+     * 订阅时返回本连接的会话ID和令牌：会话ID用于聊天请求，令牌用于重连时恢复身份
+     * (Return this connection's session ID and token on subscribe: the session ID goes into chat requests and the
+     * token resumes the identity on reconnect)
+     * 
+     * @param principal 连接所属的会话 (Session owning the connection)
+     * @return 会话ID和令牌 (Session ID and token)
+     */
+    @SubscribeMapping("/session")
+    public Map<String, Object> session(Principal principal) {
+        return Map.of("sessionId", principal.getName(), "sessionToken", sessionTokens.issue(principal.getName()));
+    }
+    
+    /**
+     * 订阅时返回场景相机状态的完整快照，之后的增量在 /topic/scenes/{sceneId}/camera 上推送
+     * (Return the full camera snapshot of a scene on subscribe; later deltas are pushed on
+     * /topic/scenes/{sceneId}/camera)
+     * 
+     * @param sceneId 场景ID (Scene ID)
+     * @return 相机状态快照 (Camera state snapshot)
+     */
+    @SubscribeMapping("/scenes/{sceneId}/camera")
+    public Map<String, Object> cameraSnapshot(@DestinationVariable String sceneId) {
+        return cameraStateService.getSnapshot(sceneId);
+    }
+    
+    /**
+     * 通过STOMP提交聊天消息，回答增量、操作指令、操作结果和最终响应异步发送到 /user/queue/chat
+     * (Submit a chat message over STOMP; answer deltas, the action, the operation result and the final
+     * response are sent asynchronously to /user/queue/chat)
+     * 
+     * @param request 聊天请求 (Chat Request)
+     * @param requestId 客户端请求ID，可选 (Client request ID, optional)
+     * @param principal 连接所属的会话 (Session owning the connection)
+     */
+    @MessageMapping("/chat")
+    public void chat(@Payload ChatRequest request,
+                     @Header(name = "request-id", required = false) String requestId,
+                     Principal principal) {
+        if (principal == null) {
+            log.warn("STOMP聊天请求缺少会话身份，已忽略 (STOMP chat request without a session identity, ignored)");
+            return;
+        }
+        chatStreamService.submit(principal.getName(),
+                requestId != null ? requestId : UUID.randomUUID().toString(), request);
+    }
+    
     /**
      * 发送日志消息
      * (Send Log Message)
@@ -24,7 +102,7 @@ public class WebSocketController {
      * @return 消息 (Message)
      */
     @MessageMapping("/logs")
-    @SendTo("/topic/logs")
+    @SendToUser("/queue/logs")
     public WebSocketMessage sendLog(WebSocketMessage message) {
         return message;
     }
@@ -37,7 +115,7 @@ public class WebSocketController {
      * @return 消息 (Message)
      */
     @MessageMapping("/errors")
-    @SendTo("/topic/errors")
+    @SendToUser("/queue/errors")
     public WebSocketMessage sendError(WebSocketMessage message) {
         return message;
     }
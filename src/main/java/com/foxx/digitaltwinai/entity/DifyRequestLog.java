@@ -1,10 +1,14 @@
 package com.foxx.digitaltwinai.entity;
 
+import com.foxx.digitaltwinai.model.StreamStats;
+import com.foxx.digitaltwinai.service.log.LogPayloadConverter;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
 
@@ -13,27 +17,37 @@ import java.time.LocalDateTime;
  * (Dify Request Log Entity)
  */
 @Entity
-@Table(name = "dify_request_logs")
+@Table(name = "dify_request_logs", indexes = {
+        // 与 db/migration/V2 保持一致 (Kept in sync with db/migration/V2)
+        @Index(name = "idx_dify_request_logs_created", columnList = "createdAt, id"),
+        @Index(name = "idx_dify_request_logs_status", columnList = "status, createdAt, id"),
+        @Index(name = "idx_dify_request_logs_operation", columnList = "operationType, createdAt, id"),
+        @Index(name = "idx_dify_request_logs_target", columnList = "targetComponent, createdAt, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class DifyRequestLog {
 
+    // 池化序列一次分配一段ID，允许Hibernate批量插入 (Pooled sequence allocates IDs in blocks so Hibernate can batch inserts)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dify_request_logs_seq")
+    @SequenceGenerator(name = "dify_request_logs_seq", sequenceName = "dify_request_logs_seq", allocationSize = 50)
     private Long id;
 
     // 用户原始指令 (User original instruction)
     @Column(length = 500, nullable = false)
     private String userInstruction;
 
-    // 请求内容 (Request content)
+    // 请求内容，按配置压缩或外置存储 (Request content, compressed or offloaded per configuration)
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = LogPayloadConverter.class)
     private String requestContent;
 
-    // 响应内容 (Response content)
+    // 响应内容，按配置压缩或外置存储 (Response content, compressed or offloaded per configuration)
     @Column(columnDefinition = "TEXT")
+    @Convert(converter = LogPayloadConverter.class)
     private String responseContent;
 
     // 响应时间(毫秒) (Response time in ms)
@@ -54,12 +68,58 @@ public class DifyRequestLog {
     @Column(length = 100)
     private String targetComponent;
 
+    // 处理路径，V3建为VARCHAR(20)，不用MySQL原生ENUM (Handling path; V3 created it as VARCHAR(20), not a native MySQL ENUM)
+    @Enumerated(EnumType.STRING)
+    @JdbcTypeCode(SqlTypes.VARCHAR)
+    @Column(length = 20)
+    private HandlingPath handlingPath;
+
+    // 流式响应首个片段耗时(毫秒) (Streaming: time to the first chunk in ms)
+    private Long ttftMs;
+
+    // 流式响应总耗时(毫秒) (Streaming: total stream duration in ms)
+    private Long streamDurationMs;
+
+    // 流式响应片段数 (Streaming: number of chunks)
+    private Integer chunkCount;
+
+    // 流式响应相邻片段最大间隔(毫秒) (Streaming: largest gap between chunks in ms)
+    private Long maxChunkGapMs;
+
+    // 回答字符数 (Streaming: answer length in characters)
+    private Integer answerLength;
+
+    // Dify报告的生成token数 (Streaming: completion tokens reported by Dify)
+    private Integer completionTokens;
+
+    // 流式响应是否停滞过 (Streaming: whether the stream stalled)
+    private Boolean streamStalled;
+
     // 创建时间 (Creation time)
     private LocalDateTime createdAt;
 
-    // 实例化时自动设置创建时间 (Automatically set creation time)
+    /**
+     * 填入流式响应统计，为null时不变
+     * (Copy in streaming statistics; nothing changes when null)
+     */
+    public void applyStreamStats(StreamStats stats) {
+        if (stats == null) {
+            return;
+        }
+        ttftMs = stats.getTtftMs();
+        streamDurationMs = stats.getDurationMs();
+        chunkCount = stats.getChunkCount();
+        maxChunkGapMs = stats.getMaxChunkGapMs();
+        answerLength = stats.getAnswerLength();
+        completionTokens = stats.getCompletionTokens();
+        streamStalled = stats.isStalled();
+    }
+
+    // 未设置时自动填充创建时间，异步写入保留记录产生的时间 (Fill creation time when unset; async writes keep the time the log was produced)
     @PrePersist
     public void prePersist() {
-        createdAt = LocalDateTime.now();
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
     }
 } 
\ No newline at end of file
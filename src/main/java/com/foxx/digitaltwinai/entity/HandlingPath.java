@@ -0,0 +1,26 @@
+package com.foxx.digitaltwinai.entity;
+
+/**
+ * 请求处理路径
+ * (Request handling path)
+ */
+public enum HandlingPath {
+
+    /**
+     * 本地解析指令直接执行，未调用Dify
+     * (Parsed and executed locally without calling Dify)
+     */
+    LOCAL,
+
+    /**
+     * 由Dify处理
+     * (Handled by Dify)
+     */
+    DIFY,
+
+    /**
+     * Dify失败后由本地回退逻辑处理
+     * (Handled by the local fallback after Dify failed)
+     */
+    FALLBACK
+}
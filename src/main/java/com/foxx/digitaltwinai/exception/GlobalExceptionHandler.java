@@ -1,6 +1,7 @@
 package com.foxx.digitaltwinai.exception;
 
 import com.foxx.digitaltwinai.service.WebSocketService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -28,6 +29,12 @@ public class GlobalExceptionHandler {
      */
     private final WebSocketService webSocketService;
     
+    /**
+     * 携带聊天会话ID的请求头，用于把错误推送到对应会话
+     * (Request header carrying the chat session ID, used to route errors to that session)
+     */
+    public static final String SESSION_ID_HEADER = "X-Session-Id";
+    
     /**
      * 处理验证异常
      * (Handle Validation Exception)
@@ -36,7 +43,8 @@ public class GlobalExceptionHandler {
      * @return 错误响应 (Error Response)
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+    public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex,
+                                                                          HttpServletRequest request) {
         Map<String, Object> errors = new HashMap<>();
         Map<String, String> validationErrors = new HashMap<>();
         
@@ -52,7 +60,7 @@ public class GlobalExceptionHandler {
         errors.put("errors", validationErrors);
         
         String errorMessage = "请求参数验证失败 (Request parameter validation failed)";
-        webSocketService.sendError(errorMessage);
+        webSocketService.sendError(request.getHeader(SESSION_ID_HEADER), errorMessage);
         log.error(errorMessage);
         
         return ResponseEntity.badRequest().body(errors);
@@ -66,14 +74,14 @@ public class GlobalExceptionHandler {
      * @return 错误响应 (Error Response)
      */
     @ExceptionHandler(RuntimeException.class)
-    public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException ex) {
+    public ResponseEntity<Map<String, Object>> handleRuntimeException(RuntimeException ex, HttpServletRequest request) {
         Map<String, Object> errors = new HashMap<>();
         
         errors.put("success", false);
         errors.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
         errors.put("message", ex.getMessage());
         
-        webSocketService.sendError(ex.getMessage());
+        webSocketService.sendError(request.getHeader(SESSION_ID_HEADER), ex.getMessage());
         log.error("运行时异常 (Runtime exception)", ex);
         
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errors);
@@ -87,7 +95,7 @@ public class GlobalExceptionHandler {
      * @return 错误响应 (Error Response)
      */
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, Object>> handleGlobalException(Exception ex) {
+    public ResponseEntity<Map<String, Object>> handleGlobalException(Exception ex, HttpServletRequest request) {
         Map<String, Object> errors = new HashMap<>();
         
         errors.put("success", false);
@@ -95,7 +103,7 @@ public class GlobalExceptionHandler {
         errors.put("message", "服务器内部错误 (Server internal error)");
         
         String errorMessage = "未处理的异常: " + ex.getMessage() + " (Unhandled exception: " + ex.getMessage() + ")";
-        webSocketService.sendError(errorMessage);
+        webSocketService.sendError(request.getHeader(SESSION_ID_HEADER), errorMessage);
         log.error(errorMessage, ex);
         
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errors);
@@ -0,0 +1,103 @@
+package com.foxx.digitaltwinai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 场景相机状态
+ * (Scene Camera State)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CameraState {
+
+    /**
+     * 场景ID
+     * (Scene ID)
+     */
+    private String sceneId;
+
+    /**
+     * 版本号，每次变化递增
+     * (Version, incremented on every change)
+     */
+    private long version;
+
+    /**
+     * 水平旋转角度，范围 [0, 360)
+     * (Horizontal rotation in degrees, within [0, 360))
+     */
+    private double rotation;
+
+    /**
+     * 累计缩放比例
+     * (Accumulated zoom scale)
+     */
+    private double scale = 1.0;
+
+    /**
+     * 聚焦目标
+     * (Focus target)
+     */
+    private String focus;
+
+    /**
+     * 复制当前状态
+     * (Copy the current state)
+     */
+    public CameraState copy() {
+        return new CameraState(sceneId, version, rotation, scale, focus);
+    }
+
+    /**
+     * 完整快照
+     * (Full snapshot)
+     */
+    public Map<String, Object> toSnapshot() {
+        Map<String, Object> snapshot = new HashMap<>();
+        snapshot.put("type", "snapshot");
+        snapshot.put("sceneId", sceneId);
+        snapshot.put("version", version);
+        snapshot.put("rotation", rotation);
+        snapshot.put("scale", scale);
+        snapshot.put("focus", focus);
+        return snapshot;
+    }
+
+    /**
+     * 相对于旧状态的增量，只包含变化的字段
+     * (Delta against a previous state, carrying only the fields that changed)
+     */
+    public Map<String, Object> deltaFrom(CameraState previous) {
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("type", "delta");
+        delta.put("sceneId", sceneId);
+        delta.put("version", version);
+        if (Double.compare(rotation, previous.rotation) != 0) {
+            delta.put("rotation", rotation);
+        }
+        if (Double.compare(scale, previous.scale) != 0) {
+            delta.put("scale", scale);
+        }
+        if (!Objects.equals(focus, previous.focus)) {
+            delta.put("focus", focus);
+        }
+        return delta;
+    }
+
+    /**
+     * 与另一状态除版本号外是否相同
+     * (Whether it equals another state apart from the version)
+     */
+    public boolean sameView(CameraState other) {
+        return Double.compare(rotation, other.rotation) == 0
+                && Double.compare(scale, other.scale) == 0
+                && Objects.equals(focus, other.focus);
+    }
+}
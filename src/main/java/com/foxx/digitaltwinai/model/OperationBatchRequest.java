@@ -0,0 +1,37 @@
+package com.foxx.digitaltwinai.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量结构化操作请求模型
+ * (Batch Structured Operation Request Model)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationBatchRequest {
+
+    /**
+     * 按顺序执行的操作列表
+     * (Operations executed in order)
+     */
+    @Valid
+    @NotEmpty(message = "操作列表不能为空 (Operation list cannot be empty)")
+    @Size(max = 50, message = "单批最多50个操作 (At most 50 operations per batch)")
+    private List<OperationRequest> operations;
+
+    /**
+     * 遇到失败时是否停止执行后续操作
+     * (Whether to stop executing remaining operations after a failure)
+     */
+    private boolean stopOnFailure;
+}
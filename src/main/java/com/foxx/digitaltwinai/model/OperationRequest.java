@@ -0,0 +1,71 @@
+package com.foxx.digitaltwinai.model;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 结构化操作请求模型
+ * (Structured Operation Request Model)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationRequest {
+
+    /**
+     * 操作类型：rotate, zoom, focus, reset
+     * (Operation Type: rotate, zoom, focus, reset)
+     */
+    @NotBlank(message = "操作类型不能为空 (Operation type cannot be empty)")
+    private String type;
+
+    /**
+     * 目标部件名称
+     * (Target Component Name)
+     */
+    private String target;
+
+    /**
+     * 操作参数
+     * (Operation Parameters)
+     */
+    private Map<String, Object> params;
+
+    /**
+     * 会话ID
+     * (Session ID)
+     */
+    private String sessionId;
+
+    /**
+     * 幂等键，相同的键只会执行一次
+     * (Idempotency key; operations with the same key execute only once)
+     */
+    private String idempotencyKey;
+
+    /**
+     * 转换为操作指令Map
+     * (Convert to action map)
+     *
+     * @return 操作指令Map (Action map)
+     */
+    public Map<String, Object> toActionMap() {
+        Map<String, Object> action = new HashMap<>();
+        action.put("type", type);
+        if (target != null) {
+            action.put("target", target);
+        }
+        action.put("params", params != null ? new HashMap<>(params) : new HashMap<>());
+        if (idempotencyKey != null) {
+            action.put("idempotencyKey", idempotencyKey);
+        }
+        return action;
+    }
+}
@@ -0,0 +1,30 @@
+package com.foxx.digitaltwinai.model;
+
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 请求日志分页结果
+ * (Request Log Page)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestLogPage {
+
+    /**
+     * 本页日志，按时间倒序
+     * (Logs on this page, newest first)
+     */
+    private List<DifyRequestLog> items;
+
+    /**
+     * 下一页游标，没有更多数据时为null
+     * (Cursor for the next page, null when there is no more data)
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,64 @@
+package com.foxx.digitaltwinai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 请求日志查询条件
+ * (Request Log Query)
+ *
+ * <p>状态、操作类型、目标部件三者最多指定一个，每个都有对应索引。
+ * (At most one of status, operation type and target component may be given; each has its own index.)</p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestLogQuery {
+
+    /**
+     * 开始时间（含）
+     * (Start time, inclusive)
+     */
+    private LocalDateTime from;
+
+    /**
+     * 结束时间（不含）
+     * (End time, exclusive)
+     */
+    private LocalDateTime to;
+
+    /**
+     * 处理状态 (Processing status: 0-失败 Failed, 1-成功 Success)
+     */
+    private Integer status;
+
+    /**
+     * 操作类型
+     * (Operation type)
+     */
+    private String operationType;
+
+    /**
+     * 目标部件
+     * (Target component)
+     */
+    private String targetComponent;
+
+    /**
+     * 上一页返回的游标，首页为空
+     * (Cursor returned by the previous page, empty for the first page)
+     */
+    private String cursor;
+
+    /**
+     * 每页条数
+     * (Page size)
+     */
+    @Builder.Default
+    private int limit = 50;
+}
@@ -0,0 +1,59 @@
+package com.foxx.digitaltwinai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一次Dify流式响应的统计
+ * (Statistics of one Dify streaming response)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamStats {
+
+    /**
+     * 首个回答片段的耗时（毫秒），未收到片段时为null
+     * (Time to the first answer chunk in milliseconds; null when no chunk arrived)
+     */
+    private Long ttftMs;
+
+    /**
+     * 从发出请求到读完响应的耗时（毫秒）
+     * (Time from sending the request to finishing the response in milliseconds)
+     */
+    private Long durationMs;
+
+    /**
+     * 回答片段数
+     * (Answer chunks)
+     */
+    private Integer chunkCount;
+
+    /**
+     * 相邻片段的最大间隔（毫秒）
+     * (Largest gap between consecutive chunks in milliseconds)
+     */
+    private Long maxChunkGapMs;
+
+    /**
+     * 回答总字符数
+     * (Total answer length in characters)
+     */
+    private Integer answerLength;
+
+    /**
+     * Dify报告的生成token数，未报告时为null
+     * (Completion tokens reported by Dify; null when not reported)
+     */
+    private Integer completionTokens;
+
+    /**
+     * 是否曾经停滞
+     * (Whether the stream stalled at some point)
+     */
+    private boolean stalled;
+}
@@ -0,0 +1,97 @@
+package com.foxx.digitaltwinai.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 进程内缓冲的一条链路
+ * (One trace held in the in-process buffer)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TraceSummary {
+
+    /**
+     * 链路ID，与日志中的traceId一致
+     * (Trace ID, the same traceId printed in the logs)
+     */
+    private String traceId;
+
+    /**
+     * 根span名称，根span尚未导出时取最早的span
+     * (Root span name; the earliest span when the root has not been exported yet)
+     */
+    private String rootName;
+
+    /**
+     * 链路开始时间
+     * (Trace start time)
+     */
+    private Instant startTime;
+
+    /**
+     * 从最早开始到最晚结束的耗时（毫秒）
+     * (Time from the earliest start to the latest end in milliseconds)
+     */
+    private long durationMs;
+
+    /**
+     * 导出的span数，含超出上限未保留的
+     * (Exported spans, including those dropped beyond the limit)
+     */
+    private int spanCount;
+
+    /**
+     * 是否有span以错误结束
+     * (Whether any span ended with an error)
+     */
+    private boolean error;
+
+    /**
+     * 按开始时间排序的span，列表查询时为null
+     * (Spans ordered by start time; null in list results)
+     */
+    private List<Span> spans;
+
+    /**
+     * 链路中的一个span
+     * (One span of a trace)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Span {
+
+        private String spanId;
+
+        private String parentSpanId;
+
+        private String name;
+
+        /**
+         * SERVER、CLIENT、INTERNAL等
+         * (SERVER, CLIENT, INTERNAL and so on)
+         */
+        private String kind;
+
+        private Instant startTime;
+
+        private long durationMs;
+
+        private boolean error;
+
+        private Map<String, String> attributes;
+    }
+}
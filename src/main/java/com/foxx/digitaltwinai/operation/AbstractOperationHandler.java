@@ -0,0 +1,106 @@
+package com.foxx.digitaltwinai.operation;
+
+import com.foxx.digitaltwinai.model.ChatResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 操作处理器基类，提供默认校验和执行指标
+ * (Base operation handler providing default validation and execution metrics)
+ */
+public abstract class AbstractOperationHandler implements OperationHandler, MeterBinder {
+
+    /**
+     * 执行耗时指标名称
+     * (Execution latency metric name)
+     */
+    public static final String EXECUTION_METRIC = "digital_twin.operation.execution";
+
+    /**
+     * 成功执行计时器
+     * (Successful execution timer)
+     */
+    private volatile Timer successTimer;
+
+    /**
+     * 失败执行计时器
+     * (Failed execution timer)
+     */
+    private volatile Timer failureTimer;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        successTimer = Timer.builder(EXECUTION_METRIC)
+                .description("浏览器操作执行耗时 (Browser operation execution latency)")
+                .tag("type", getType())
+                .tag("outcome", "success")
+                .register(registry);
+        failureTimer = Timer.builder(EXECUTION_METRIC)
+                .description("浏览器操作执行耗时 (Browser operation execution latency)")
+                .tag("type", getType())
+                .tag("outcome", "failure")
+                .register(registry);
+    }
+
+    @Override
+    public void validate(String target, Map<String, Object> params) {
+        // 默认无需校验 (No validation by default)
+    }
+
+    @Override
+    public void recordExecution(long elapsedNanos, boolean success) {
+        Timer timer = success ? successTimer : failureTimer;
+        if (timer != null) {
+            timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 构建只包含类型的操作指令
+     * (Build an action command carrying only the type)
+     */
+    protected ChatResponse.ActionCommand command() {
+        return ChatResponse.ActionCommand.builder()
+                .type(getType())
+                .build();
+    }
+
+    /**
+     * 读取数值参数
+     * (Read a numeric parameter)
+     *
+     * @throws IllegalArgumentException 参数不是数字时抛出 (Thrown when the parameter is not a number)
+     */
+    protected static Number numberParam(Map<String, Object> params, String name, Number defaultValue) {
+        Object value = params != null ? params.get(name) : null;
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("参数" + name + "必须是数字 (Parameter " + name + " must be a number)");
+        }
+    }
+
+    /**
+     * 读取有限数值参数，NaN和无穷大视为非法
+     * (Read a finite numeric parameter; NaN and infinities are rejected)
+     *
+     * @throws IllegalArgumentException 参数不是有限数字时抛出 (Thrown when the parameter is not a finite number)
+     */
+    protected static double finiteParam(Map<String, Object> params, String name, Number defaultValue) {
+        double value = numberParam(params, name, defaultValue).doubleValue();
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("参数" + name + "必须是有限数字 (Parameter " + name + " must be a finite number)");
+        }
+        return value;
+    }
+}
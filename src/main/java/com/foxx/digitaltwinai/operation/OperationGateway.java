@@ -0,0 +1,24 @@
+package com.foxx.digitaltwinai.operation;
+
+import java.util.Map;
+
+/**
+ * 浏览器操作服务网关
+ * (Browser operation service gateway)
+ *
+ * <p>由 BrowserServiceImpl 提供，处理器只负责组装参数，不直接接触HTTP传输。
+ * (Provided by BrowserServiceImpl; handlers only assemble parameters and never touch HTTP transport.)</p>
+ */
+@FunctionalInterface
+public interface OperationGateway {
+
+    /**
+     * 发送操作到浏览器服务的 /api/execute 接口
+     * (Send an operation to the browser service /api/execute endpoint)
+     *
+     * @param operation 操作名称 (Operation name)
+     * @param parameters 操作参数 (Operation parameters)
+     * @return 浏览器服务响应 (Browser service response)
+     */
+    Map<String, Object> send(String operation, Map<String, Object> parameters);
+}
@@ -0,0 +1,104 @@
+package com.foxx.digitaltwinai.operation;
+
+import com.foxx.digitaltwinai.model.CameraState;
+import com.foxx.digitaltwinai.model.ChatResponse;
+
+import java.util.Map;
+
+/**
+ * 模型操作处理器SPI
+ * (Model operation handler SPI)
+ *
+ * <p>每种操作（旋转、缩放、聚焦、重置……）对应一个处理器，负责指令解析、参数校验、
+ * 执行、本地回复文本以及指标统计。新增操作只需注册一个新的Spring Bean。
+ * (Each operation owns its parsing, validation, execution, local response text and metrics.
+ * Adding an operation only requires registering a new Spring bean.)</p>
+ */
+public interface OperationHandler {
+
+    /**
+     * 操作类型标识，如 rotate、zoom
+     * (Operation type identifier, e.g. rotate, zoom)
+     *
+     * @return 操作类型 (Operation type)
+     */
+    String getType();
+
+    /**
+     * 操作的中文显示名称
+     * (Chinese display name of the operation)
+     *
+     * @return 显示名称 (Display name)
+     */
+    String getDisplayName();
+
+    /**
+     * 从自然语言指令中解析操作
+     * (Parse the operation from a natural-language instruction)
+     *
+     * @param instruction 已转为小写并去除首尾空白的指令 (Lower-cased, trimmed instruction)
+     * @return 操作指令，不匹配时返回null (Action command, or null if not matched)
+     */
+    ChatResponse.ActionCommand parse(String instruction);
+
+    /**
+     * 校验操作参数
+     * (Validate operation parameters)
+     *
+     * @param target 目标部件 (Target component)
+     * @param params 操作参数 (Operation parameters)
+     * @throws IllegalArgumentException 参数无效时抛出 (Thrown when parameters are invalid)
+     */
+    void validate(String target, Map<String, Object> params);
+
+    /**
+     * 通过浏览器服务网关执行操作
+     * (Execute the operation through the browser service gateway)
+     *
+     * @param target 目标部件 (Target component)
+     * @param params 操作参数 (Operation parameters)
+     * @param gateway 浏览器服务网关 (Browser service gateway)
+     * @return 操作结果 (Operation result)
+     */
+    Map<String, Object> execute(String target, Map<String, Object> params, OperationGateway gateway);
+
+    /**
+     * 操作完成后推送到WebSocket的日志文本
+     * (Log text pushed over WebSocket once the operation completes)
+     *
+     * @param target 目标部件 (Target component)
+     * @param params 操作参数 (Operation parameters)
+     * @return 日志文本 (Log text)
+     */
+    String describeCompletion(String target, Map<String, Object> params);
+
+    /**
+     * 为本地处理的指令生成回复文本
+     * (Generate response text for a locally processed instruction)
+     *
+     * @param command 操作指令 (Action command)
+     * @return 回复文本 (Response text)
+     */
+    String generateLocalResponse(ChatResponse.ActionCommand command);
+
+    /**
+     * 把成功执行的操作应用到场景相机状态，不影响相机的操作保持默认实现
+     * (Apply a successfully executed operation to the scene camera state; operations that do not move
+     * the camera keep the default)
+     *
+     * @param state 相机状态 (Camera state)
+     * @param target 目标部件 (Target component)
+     * @param params 操作参数 (Operation parameters)
+     */
+    default void applyTo(CameraState state, String target, Map<String, Object> params) {
+    }
+
+    /**
+     * 记录一次执行的耗时与结果
+     * (Record the latency and outcome of one execution)
+     *
+     * @param elapsedNanos 耗时（纳秒） (Elapsed time in nanoseconds)
+     * @param success 是否成功 (Whether it succeeded)
+     */
+    void recordExecution(long elapsedNanos, boolean success);
+}
@@ -0,0 +1,141 @@
+package com.foxx.digitaltwinai.operation;
+
+import com.foxx.digitaltwinai.model.ChatResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 操作处理器注册表
+ * (Operation handler registry)
+ *
+ * <p>启动时根据所有 {@link OperationHandler} Bean 预先构建查找表，运行时按类型直接查表分发，
+ * 解析自然语言指令时按 {@code @Order} 顺序依次尝试。
+ * (Builds a lookup table from all {@link OperationHandler} beans at startup; dispatch is a direct
+ * table lookup, and natural-language parsing tries handlers in {@code @Order} order.)</p>
+ */
+@Slf4j
+@Component
+public class OperationRegistry {
+
+    /**
+     * 按类型索引的处理器查找表
+     * (Handler lookup table keyed by type)
+     */
+    private final Map<String, OperationHandler> handlersByType;
+
+    /**
+     * 按解析优先级排序的处理器
+     * (Handlers sorted by parsing priority)
+     */
+    private final List<OperationHandler> orderedHandlers;
+
+    public OperationRegistry(List<OperationHandler> handlers) {
+        List<OperationHandler> sorted = new ArrayList<>(handlers);
+        AnnotationAwareOrderComparator.sort(sorted);
+
+        Map<String, OperationHandler> table = new HashMap<>();
+        for (OperationHandler handler : sorted) {
+            String key = normalize(handler.getType());
+            OperationHandler previous = table.putIfAbsent(key, handler);
+            if (previous != null) {
+                throw new IllegalStateException("重复的操作类型: " + key + " (Duplicate operation type: " + key + ")");
+            }
+        }
+
+        this.handlersByType = Map.copyOf(table);
+        this.orderedHandlers = List.copyOf(sorted);
+        log.info("已注册操作处理器: {} (Registered operation handlers: {})", handlersByType.keySet(), handlersByType.keySet());
+    }
+
+    /**
+     * 根据类型查找处理器
+     * (Find handler by type)
+     *
+     * @param type 操作类型 (Operation type)
+     * @return 处理器，未注册时返回null (Handler, or null when not registered)
+     */
+    public OperationHandler find(String type) {
+        return type != null ? handlersByType.get(normalize(type)) : null;
+    }
+
+    /**
+     * 根据类型获取处理器，未注册时抛出异常
+     * (Get handler by type, throwing when not registered)
+     *
+     * @param type 操作类型 (Operation type)
+     * @return 处理器 (Handler)
+     * @throws IllegalArgumentException 不支持的操作类型 (Unsupported operation type)
+     */
+    public OperationHandler getHandler(String type) {
+        OperationHandler handler = find(type);
+        if (handler == null) {
+            throw new IllegalArgumentException("不支持的操作类型: " + type +
+                    " (Unsupported operation type: " + type + ")");
+        }
+        return handler;
+    }
+
+    /**
+     * 是否支持该操作类型
+     * (Whether the operation type is supported)
+     */
+    public boolean supports(String type) {
+        return find(type) != null;
+    }
+
+    /**
+     * 已注册的全部处理器（按解析优先级排序）
+     * (All registered handlers, in parsing priority order)
+     */
+    public Collection<OperationHandler> getHandlers() {
+        return orderedHandlers;
+    }
+
+    /**
+     * 依次尝试各处理器解析自然语言指令
+     * (Try each handler in turn to parse a natural-language instruction)
+     *
+     * @param instruction 用户指令 (User instruction)
+     * @return 操作指令，无法解析时返回null (Action command, or null when nothing matched)
+     */
+    public ChatResponse.ActionCommand parseInstruction(String instruction) {
+        if (instruction == null || instruction.isEmpty()) {
+            return null;
+        }
+        String normalized = instruction.toLowerCase().trim();
+        for (OperationHandler handler : orderedHandlers) {
+            ChatResponse.ActionCommand command = handler.parse(normalized);
+            if (command != null) {
+                return command;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 为本地处理的指令生成回复文本
+     * (Generate response text for a locally processed instruction)
+     *
+     * @param command 操作指令 (Action command)
+     * @return 回复文本 (Response text)
+     */
+    public String generateLocalResponse(ChatResponse.ActionCommand command) {
+        if (command == null) {
+            return "很抱歉，我无法理解您的指令。";
+        }
+        OperationHandler handler = find(command.getType());
+        return handler != null ? handler.generateLocalResponse(command) : "操作已执行。";
+    }
+
+    private static String normalize(String type) {
+        return type.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,88 @@
+package com.foxx.digitaltwinai.operation.handler;
+
+import com.foxx.digitaltwinai.model.CameraState;
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.operation.AbstractOperationHandler;
+import com.foxx.digitaltwinai.operation.OperationGateway;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 聚焦操作处理器
+ * (Focus operation handler)
+ */
+@Component
+@Order(10)
+public class FocusOperationHandler extends AbstractOperationHandler {
+
+    /**
+     * 默认聚焦目标
+     * (Default focus target)
+     */
+    public static final String DEFAULT_TARGET = "center";
+
+    /**
+     * 聚焦指令匹配模式
+     * (Focus instruction pattern)
+     */
+    private static final Pattern FOCUS_PATTERN = Pattern.compile("聚焦(?:到|)?(\\w+[\\d_]*)", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public String getType() {
+        return "focus";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "聚焦";
+    }
+
+    @Override
+    public ChatResponse.ActionCommand parse(String instruction) {
+        Matcher matcher = FOCUS_PATTERN.matcher(instruction);
+        if (matcher.find()) {
+            return ChatResponse.ActionCommand.builder()
+                    .type(getType())
+                    .target(matcher.group(1))
+                    .build();
+        }
+        return null;
+    }
+
+    @Override
+    public void validate(String target, Map<String, Object> params) {
+        if (target != null && target.length() > 100) {
+            throw new IllegalArgumentException("聚焦目标名称过长 (Focus target name is too long)");
+        }
+    }
+
+    @Override
+    public Map<String, Object> execute(String target, Map<String, Object> params, OperationGateway gateway) {
+        return gateway.send("focus", Collections.singletonMap("target", resolveTarget(target)));
+    }
+
+    @Override
+    public String describeCompletion(String target, Map<String, Object> params) {
+        String resolved = resolveTarget(target);
+        return "聚焦操作执行完成，目标: " + resolved + " (Focus operation completed, target: " + resolved + ")";
+    }
+
+    @Override
+    public String generateLocalResponse(ChatResponse.ActionCommand command) {
+        return "已聚焦到" + command.getTarget() + "区域，您可以近距离查看该区域的细节。";
+    }
+
+    private String resolveTarget(String target) {
+        return target != null && !target.isEmpty() ? target : DEFAULT_TARGET;
+    }
+
+    @Override
+    public void applyTo(CameraState state, String target, Map<String, Object> params) {
+        state.setFocus(resolveTarget(target));
+    }
+}
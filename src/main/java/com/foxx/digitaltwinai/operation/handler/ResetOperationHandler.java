@@ -0,0 +1,60 @@
+package com.foxx.digitaltwinai.operation.handler;
+
+import com.foxx.digitaltwinai.model.CameraState;
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.operation.AbstractOperationHandler;
+import com.foxx.digitaltwinai.operation.OperationGateway;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 重置视图操作处理器
+ * (Reset view operation handler)
+ */
+@Component
+@Order(0)
+public class ResetOperationHandler extends AbstractOperationHandler {
+
+    @Override
+    public String getType() {
+        return "reset";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "重置";
+    }
+
+    @Override
+    public ChatResponse.ActionCommand parse(String instruction) {
+        if (instruction.contains("重置") || instruction.contains("reset")) {
+            return command();
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> execute(String target, Map<String, Object> params, OperationGateway gateway) {
+        return gateway.send("reset", Collections.emptyMap());
+    }
+
+    @Override
+    public String describeCompletion(String target, Map<String, Object> params) {
+        return "视图重置操作执行完成 (View reset operation completed)";
+    }
+
+    @Override
+    public String generateLocalResponse(ChatResponse.ActionCommand command) {
+        return "已为您重置视图，恢复到默认状态。";
+    }
+
+    @Override
+    public void applyTo(CameraState state, String target, Map<String, Object> params) {
+        state.setRotation(0);
+        state.setScale(1.0);
+        state.setFocus(FocusOperationHandler.DEFAULT_TARGET);
+    }
+}
@@ -0,0 +1,121 @@
+package com.foxx.digitaltwinai.operation.handler;
+
+import com.foxx.digitaltwinai.model.CameraState;
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.operation.AbstractOperationHandler;
+import com.foxx.digitaltwinai.operation.OperationGateway;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 旋转操作处理器
+ * (Rotate operation handler)
+ */
+@Component
+@Order(20)
+public class RotateOperationHandler extends AbstractOperationHandler {
+
+    /**
+     * 默认旋转角度
+     * (Default rotation angle)
+     */
+    public static final int DEFAULT_ANGLE = 30;
+
+    /**
+     * 单次旋转的最大角度，方向由direction决定
+     * (Maximum angle of one rotation; the direction comes from direction)
+     */
+    public static final int MAX_ANGLE = 360;
+
+    /**
+     * 旋转指令匹配模式
+     * (Rotate instruction pattern)
+     */
+    private static final Pattern ROTATE_PATTERN = Pattern.compile("(?:向|)(左|右)(?:旋转|)(?:(\\d+)(?:度|))?", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public String getType() {
+        return "rotate";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "旋转";
+    }
+
+    @Override
+    public ChatResponse.ActionCommand parse(String instruction) {
+        Matcher matcher = ROTATE_PATTERN.matcher(instruction);
+        boolean matched = matcher.find();
+        if (!matched && !instruction.contains("旋转")) {
+            return null;
+        }
+
+        String direction = "left"; // 默认方向
+        int angle = DEFAULT_ANGLE; // 默认角度
+        if (matched) {
+            direction = matcher.group(1).equals("右") ? "right" : "left";
+            if (matcher.group(2) != null) {
+                try {
+                    angle = Integer.parseInt(matcher.group(2));
+                } catch (NumberFormatException e) {
+                    // 使用默认角度
+                }
+            }
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("direction", direction);
+        params.put("angle", angle);
+
+        return ChatResponse.ActionCommand.builder()
+                .type(getType())
+                .params(params)
+                .build();
+    }
+
+    @Override
+    public void validate(String target, Map<String, Object> params) {
+        Object direction = params.get("direction");
+        if (direction != null && !"left".equals(direction) && !"right".equals(direction)) {
+            throw new IllegalArgumentException("旋转方向必须是left或right (Rotation direction must be left or right)");
+        }
+        double angle = finiteParam(params, "angle", DEFAULT_ANGLE);
+        if (angle < 0 || angle > MAX_ANGLE) {
+            throw new IllegalArgumentException("旋转角度必须在0到" + MAX_ANGLE + "之间 (Rotation angle must be between 0 and " + MAX_ANGLE + ")");
+        }
+    }
+
+    @Override
+    public Map<String, Object> execute(String target, Map<String, Object> params, OperationGateway gateway) {
+        return gateway.send("rotate", params);
+    }
+
+    @Override
+    public String describeCompletion(String target, Map<String, Object> params) {
+        String direction = (String) params.getOrDefault("direction", "left");
+        int angle = numberParam(params, "angle", DEFAULT_ANGLE).intValue();
+        return "旋转操作执行完成，方向: " + direction + ", 角度: " + angle +
+                " (Rotate operation completed, direction: " + direction + ", angle: " + angle + ")";
+    }
+
+    @Override
+    public String generateLocalResponse(ChatResponse.ActionCommand command) {
+        Map<String, Object> params = command.getParams() != null ? command.getParams() : Map.of();
+        String direction = (String) params.getOrDefault("direction", "left");
+        Object angle = params.getOrDefault("angle", DEFAULT_ANGLE);
+        return "已将视图向" + (direction.equals("left") ? "左" : "右") + "旋转" + angle + "度。";
+    }
+
+    @Override
+    public void applyTo(CameraState state, String target, Map<String, Object> params) {
+        double angle = numberParam(params, "angle", DEFAULT_ANGLE).doubleValue();
+        double delta = "right".equals(params.get("direction")) ? angle : -angle;
+        state.setRotation(((state.getRotation() + delta) % 360 + 360) % 360);
+    }
+}
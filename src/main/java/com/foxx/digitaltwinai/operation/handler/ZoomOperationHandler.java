@@ -0,0 +1,111 @@
+package com.foxx.digitaltwinai.operation.handler;
+
+import com.foxx.digitaltwinai.model.CameraState;
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.operation.AbstractOperationHandler;
+import com.foxx.digitaltwinai.operation.OperationGateway;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 缩放操作处理器
+ * (Zoom operation handler)
+ */
+@Component
+@Order(30)
+public class ZoomOperationHandler extends AbstractOperationHandler {
+
+    /**
+     * 默认缩放比例
+     * (Default zoom scale)
+     */
+    public static final float DEFAULT_SCALE = 1.5f;
+
+    /**
+     * 缩放指令匹配模式
+     * (Zoom instruction pattern)
+     */
+    private static final Pattern ZOOM_PATTERN = Pattern.compile("(?:放大|缩小)(\\d+(?:\\.\\d+)?)(?:倍|)", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public String getType() {
+        return "zoom";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "缩放";
+    }
+
+    @Override
+    public ChatResponse.ActionCommand parse(String instruction) {
+        Matcher matcher = ZOOM_PATTERN.matcher(instruction);
+        boolean matched = matcher.find();
+        if (!matched && !instruction.contains("放大") && !instruction.contains("缩小")) {
+            return null;
+        }
+
+        float scale = DEFAULT_SCALE; // 默认比例
+        if (matched) {
+            try {
+                scale = Float.parseFloat(matcher.group(1));
+            } catch (NumberFormatException e) {
+                // 使用默认比例
+            }
+        }
+
+        // 如果是缩小，将比例设为小于1
+        if (instruction.contains("缩小") && scale > 1) {
+            scale = 1 / scale;
+        }
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("scale", scale);
+
+        return ChatResponse.ActionCommand.builder()
+                .type(getType())
+                .params(params)
+                .build();
+    }
+
+    @Override
+    public void validate(String target, Map<String, Object> params) {
+        // 超出float范围的值转换后同样是无穷大 (Values beyond the float range become infinite as well)
+        float scale = (float) finiteParam(params, "scale", DEFAULT_SCALE);
+        if (!Float.isFinite(scale) || scale <= 0) {
+            throw new IllegalArgumentException("缩放比例必须是大于0的有限数 (Zoom scale must be a finite number greater than 0)");
+        }
+    }
+
+    @Override
+    public Map<String, Object> execute(String target, Map<String, Object> params, OperationGateway gateway) {
+        float scale = numberParam(params, "scale", DEFAULT_SCALE).floatValue();
+        return gateway.send("zoom", Collections.singletonMap("scale", scale));
+    }
+
+    @Override
+    public String describeCompletion(String target, Map<String, Object> params) {
+        float scale = numberParam(params, "scale", DEFAULT_SCALE).floatValue();
+        return "缩放操作执行完成，比例: " + scale + " (Zoom operation completed, scale: " + scale + ")";
+    }
+
+    @Override
+    public String generateLocalResponse(ChatResponse.ActionCommand command) {
+        float scale = numberParam(command.getParams(), "scale", DEFAULT_SCALE).floatValue();
+        if (scale > 1) {
+            return "已将视图放大" + scale + "倍。";
+        }
+        return "已将视图缩小至原来的" + scale + "倍。";
+    }
+
+    @Override
+    public void applyTo(CameraState state, String target, Map<String, Object> params) {
+        state.setScale(state.getScale() * numberParam(params, "scale", DEFAULT_SCALE).floatValue());
+    }
+}
@@ -1,7 +1,10 @@
 package com.foxx.digitaltwinai.repository;
 
 import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -10,6 +13,12 @@ import java.util.List;
 /**
  * Dify请求日志仓库接口
  * (Dify Request Log Repository)
+ *
+ * <p>{@code findPage*} 方法按 (createdAt, id) 倒序做键集分页：游标为上一页最后一条的时间和ID，
+ * 每页只扫描索引上的一段，不随页数变慢。分页大小通过 {@link Pageable#getPageSize()} 传入，页码应为0。
+ * ({@code findPage*} methods paginate by keyset over (createdAt, id) newest first: the cursor is the time
+ * and ID of the last row of the previous page, so each page scans one range of the index and does not
+ * slow down with depth. The page size comes from {@link Pageable#getPageSize()}; the page number should be 0.)</p>
  */
 @Repository
 public interface DifyRequestLogRepository extends JpaRepository<DifyRequestLog, Long> {
@@ -49,4 +58,67 @@ public interface DifyRequestLogRepository extends JpaRepository<DifyRequestLog,
      * @return 日志列表 (List of logs)
      */
     List<DifyRequestLog> findByStatus(Integer status);
-} 
\ No newline at end of file
+
+    String KEYSET_RANGE = " AND (:from IS NULL OR l.createdAt >= :from)"
+            + " AND (:to IS NULL OR l.createdAt < :to)"
+            + " AND (:cursorTime IS NULL OR l.createdAt < :cursorTime"
+            + " OR (l.createdAt = :cursorTime AND l.id < :cursorId))"
+            + " ORDER BY l.createdAt DESC, l.id DESC";
+
+    /**
+     * 键集分页查询全部日志
+     * (Keyset page over all logs)
+     *
+     * @param from 开始时间（含），可为null (Start time inclusive, nullable)
+     * @param to 结束时间（不含），可为null (End time exclusive, nullable)
+     * @param cursorTime 游标时间，首页为null (Cursor time, null for the first page)
+     * @param cursorId 游标ID (Cursor ID)
+     * @param pageable 分页大小 (Page size)
+     * @return 日志列表 (List of logs)
+     */
+    @Query("SELECT l FROM DifyRequestLog l WHERE l.createdAt IS NOT NULL" + KEYSET_RANGE)
+    List<DifyRequestLog> findPage(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                  @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId,
+                                  Pageable pageable);
+
+    /**
+     * 按状态键集分页
+     * (Keyset page by status)
+     */
+    @Query("SELECT l FROM DifyRequestLog l WHERE l.status = :status" + KEYSET_RANGE)
+    List<DifyRequestLog> findPageByStatus(@Param("status") Integer status,
+                                          @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                          @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId,
+                                          Pageable pageable);
+
+    /**
+     * 按操作类型键集分页
+     * (Keyset page by operation type)
+     */
+    @Query("SELECT l FROM DifyRequestLog l WHERE l.operationType = :operationType" + KEYSET_RANGE)
+    List<DifyRequestLog> findPageByOperationType(@Param("operationType") String operationType,
+                                                 @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                 @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId,
+                                                 Pageable pageable);
+
+    /**
+     * 按目标部件键集分页
+     * (Keyset page by target component)
+     */
+    @Query("SELECT l FROM DifyRequestLog l WHERE l.targetComponent = :targetComponent" + KEYSET_RANGE)
+    List<DifyRequestLog> findPageByTargetComponent(@Param("targetComponent") String targetComponent,
+                                                   @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                   @Param("cursorTime") LocalDateTime cursorTime, @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
+
+    /**
+     * 最早的一批过期日志，按 (createdAt, id) 升序；删除后再取即为下一批
+     * (Oldest chunk of expired logs in (createdAt, id) order; once deleted, the next call returns the next chunk)
+     *
+     * @param cutoff 早于该时间的日志视为过期 (Logs older than this are expired)
+     * @param pageable 批大小 (Chunk size)
+     * @return 日志列表 (List of logs)
+     */
+    @Query("SELECT l FROM DifyRequestLog l WHERE l.createdAt < :cutoff ORDER BY l.createdAt ASC, l.id ASC")
+    List<DifyRequestLog> findExpiredChunk(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+}
@@ -17,6 +17,16 @@ public interface BrowserService {
      */
     Map<String, Object> executeModelOperation(Map<String, Object> action);
     
+    /**
+     * 在指定会话上执行模型操作，同一会话始终路由到同一浏览器服务实例
+     * (Execute model operation for a session; a session always routes to the same browser service instance)
+     *
+     * @param action 操作数据 (Action data)
+     * @param sessionId 会话ID (Session ID)
+     * @return 操作结果 (Operation result)
+     */
+    Map<String, Object> executeModelOperation(Map<String, Object> action, String sessionId);
+    
     /**
      * 执行旋转操作
      * (Execute rotation operation)
@@ -0,0 +1,74 @@
+package com.foxx.digitaltwinai.service;
+
+import com.foxx.digitaltwinai.operation.OperationHandler;
+
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 场景相机状态服务接口
+ * (Scene Camera State Service Interface)
+ *
+ * <p>成功执行的操作会更新场景的相机状态，并把只含变化字段、带递增版本号的增量广播到
+ * /topic/scenes/{sceneId}/camera。后加入的客户端订阅 /app/scenes/{sceneId}/camera 获取一次完整快照，
+ * 之后只应用版本号等于本地版本加一的增量；发现版本跳跃时重新获取快照。协商了CBOR的客户端改为订阅
+ * /topic/scenes/{sceneId}/camera/cbor，内容相同。
+ * (Successful operations update the scene's camera state and broadcast a delta carrying only the
+ * changed fields and an increasing version to /topic/scenes/{sceneId}/camera. Late joiners subscribe to
+ * /app/scenes/{sceneId}/camera for one full snapshot, then apply only deltas whose version is the local
+ * version plus one, fetching a new snapshot when they see a gap. Clients that negotiated CBOR subscribe to
+ * /topic/scenes/{sceneId}/camera/cbor instead, which carries the same deltas.)</p>
+ */
+public interface CameraStateService {
+
+    /**
+     * 默认场景ID
+     * (Default scene ID)
+     */
+    String DEFAULT_SCENE = "default";
+
+    /**
+     * 操作参数中的场景ID字段
+     * (Scene ID field in operation parameters)
+     */
+    String SCENE_ID_FIELD = "sceneId";
+
+    /**
+     * 合法的场景ID，避免拼出任意目标或键
+     * (Valid scene IDs, so arbitrary destinations or keys cannot be built)
+     */
+    Pattern SCENE_ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    /**
+     * 把任意类型的场景ID规范化为合法ID，非法或为空时使用默认场景
+     * (Normalize a scene ID of any type to a valid ID, falling back to the default scene when invalid or empty)
+     *
+     * @param sceneId 场景ID，可以是字符串或数字 (Scene ID, a string or a number)
+     * @return 合法的场景ID (Valid scene ID)
+     */
+    static String normalizeSceneId(Object sceneId) {
+        String id = sceneId != null ? sceneId.toString() : null;
+        return id != null && SCENE_ID_PATTERN.matcher(id).matches() ? id : DEFAULT_SCENE;
+    }
+
+    /**
+     * 应用一次成功的操作并广播增量
+     * (Apply a successful operation and broadcast the delta)
+     *
+     * @param sceneId 场景ID，为空时使用默认场景 (Scene ID, the default scene when empty)
+     * @param handler 操作处理器 (Operation handler)
+     * @param target 目标部件 (Target component)
+     * @param params 操作参数 (Operation parameters)
+     * @return 新版本号，相机状态未变化时返回当前版本号 (New version, or the current version when nothing changed)
+     */
+    long apply(String sceneId, OperationHandler handler, String target, Map<String, Object> params);
+
+    /**
+     * 获取场景的完整快照
+     * (Get the full snapshot of a scene)
+     *
+     * @param sceneId 场景ID (Scene ID)
+     * @return 快照 (Snapshot)
+     */
+    Map<String, Object> getSnapshot(String sceneId);
+}
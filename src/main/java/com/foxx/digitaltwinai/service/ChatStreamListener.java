@@ -0,0 +1,44 @@
+package com.foxx.digitaltwinai.service;
+
+import java.util.Map;
+
+/**
+ * 聊天处理过程的增量事件监听器
+ * (Listener for incremental events of the chat pipeline)
+ */
+public interface ChatStreamListener {
+
+    /**
+     * 不处理任何事件的监听器
+     * (Listener that ignores every event)
+     */
+    ChatStreamListener NONE = new ChatStreamListener() {
+    };
+
+    /**
+     * 收到一段回答增量
+     * (An answer delta arrived)
+     *
+     * @param delta 回答增量 (Answer delta)
+     */
+    default void onDelta(String delta) {
+    }
+
+    /**
+     * 解析出操作指令，即将执行
+     * (An action was parsed and is about to run)
+     *
+     * @param action 操作指令 (Action)
+     */
+    default void onAction(Map<String, Object> action) {
+    }
+
+    /**
+     * 操作执行完成
+     * (The action finished)
+     *
+     * @param result 操作结果 (Operation result)
+     */
+    default void onOperationResult(Map<String, Object> result) {
+    }
+}
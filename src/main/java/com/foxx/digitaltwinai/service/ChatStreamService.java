@@ -0,0 +1,24 @@
+package com.foxx.digitaltwinai.service;
+
+import com.foxx.digitaltwinai.model.ChatRequest;
+
+/**
+ * STOMP聊天服务接口
+ * (STOMP Chat Service Interface)
+ *
+ * <p>异步执行聊天流程，把回答增量、操作指令、操作结果和最终响应依次发送到会话的 /user/queue/chat。
+ * (Runs the chat pipeline asynchronously and sends answer deltas, the action, the operation result and
+ * the final response to the session's /user/queue/chat in order.)</p>
+ */
+public interface ChatStreamService {
+
+    /**
+     * 提交一条聊天消息
+     * (Submit a chat message)
+     *
+     * @param sessionId 会话ID (Session ID)
+     * @param requestId 客户端请求ID，回传在每个事件中 (Client request ID, echoed in every event)
+     * @param request 聊天请求 (Chat Request)
+     */
+    void submit(String sessionId, String requestId, ChatRequest request);
+}
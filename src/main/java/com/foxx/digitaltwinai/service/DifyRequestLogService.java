@@ -1,7 +1,13 @@
 package com.foxx.digitaltwinai.service;
 
 import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import com.foxx.digitaltwinai.model.RequestLogPage;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import com.foxx.digitaltwinai.model.StreamStats;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -32,12 +38,45 @@ public interface DifyRequestLogService {
      * @param errorMessage 错误信息 (Error message)
      * @param operationType 操作类型 (Operation type)
      * @param targetComponent 目标部件 (Target component)
-     * @return 保存的日志 (Saved log)
+     * @return 日志记录；异步写入时尚未分配ID (Log record; without an ID yet when written asynchronously)
+     */
+    default DifyRequestLog recordRequest(String userInstruction, String requestContent,
+                                         String responseContent, Long responseTime,
+                                         Integer status, String errorMessage,
+                                         String operationType, String targetComponent) {
+        return recordRequest(userInstruction, requestContent, responseContent, responseTime,
+                status, errorMessage, operationType, targetComponent, null);
+    }
+
+    /**
+     * 记录请求和响应，并标明处理路径
+     * (Record request and response along with the handling path)
+     *
+     * @param handlingPath 处理路径 (Handling path)
+     * @see #recordRequest(String, String, String, Long, Integer, String, String, String)
+     */
+    default DifyRequestLog recordRequest(String userInstruction, String requestContent,
+                                         String responseContent, Long responseTime,
+                                         Integer status, String errorMessage,
+                                         String operationType, String targetComponent,
+                                         HandlingPath handlingPath) {
+        return recordRequest(userInstruction, requestContent, responseContent, responseTime,
+                status, errorMessage, operationType, targetComponent, handlingPath, null);
+    }
+
+    /**
+     * 记录请求和响应，并附带流式响应统计
+     * (Record request and response along with streaming statistics)
+     *
+     * @param handlingPath 处理路径 (Handling path)
+     * @param streamStats 流式响应统计，非流式请求为null (Streaming statistics; null for non-streaming requests)
+     * @see #recordRequest(String, String, String, Long, Integer, String, String, String)
      */
-    DifyRequestLog recordRequest(String userInstruction, String requestContent, 
-                                String responseContent, Long responseTime, 
+    DifyRequestLog recordRequest(String userInstruction, String requestContent,
+                                String responseContent, Long responseTime,
                                 Integer status, String errorMessage,
-                                String operationType, String targetComponent);
+                                String operationType, String targetComponent,
+                                HandlingPath handlingPath, StreamStats streamStats);
     
     /**
      * 获取指定时间范围内的日志
@@ -46,7 +85,9 @@ public interface DifyRequestLogService {
      * @param start 开始时间 (Start time)
      * @param end 结束时间 (End time)
      * @return 日志列表 (List of logs)
+     * @deprecated 结果不分页，数据量大时改用 {@link #getLogPage} (Unbounded; use {@link #getLogPage} on large tables)
      */
+    @Deprecated
     List<DifyRequestLog> getLogsByTimeRange(LocalDateTime start, LocalDateTime end);
     
     /**
@@ -55,7 +96,9 @@ public interface DifyRequestLogService {
      * 
      * @param operationType 操作类型 (Operation type)
      * @return 日志列表 (List of logs)
+     * @deprecated 结果不分页，数据量大时改用 {@link #getLogPage} (Unbounded; use {@link #getLogPage} on large tables)
      */
+    @Deprecated
     List<DifyRequestLog> getLogsByOperationType(String operationType);
     
     /**
@@ -64,7 +107,9 @@ public interface DifyRequestLogService {
      * 
      * @param targetComponent 目标部件 (Target component)
      * @return 日志列表 (List of logs)
+     * @deprecated 结果不分页，数据量大时改用 {@link #getLogPage} (Unbounded; use {@link #getLogPage} on large tables)
      */
+    @Deprecated
     List<DifyRequestLog> getLogsByTargetComponent(String targetComponent);
     
     /**
@@ -72,6 +117,29 @@ public interface DifyRequestLogService {
      * (Get failed request logs)
      * 
      * @return 日志列表 (List of logs)
+     * @deprecated 结果不分页，数据量大时改用 {@link #getLogPage} (Unbounded; use {@link #getLogPage} on large tables)
      */
+    @Deprecated
     List<DifyRequestLog> getFailedLogs();
-} 
\ No newline at end of file
+
+    /**
+     * 键集分页查询日志
+     * (Query one keyset page of logs)
+     *
+     * @param query 查询条件 (Query)
+     * @return 本页日志和下一页游标 (Logs on this page and the next cursor)
+     * @throws IllegalArgumentException 游标无效或同时指定多个筛选条件 (Invalid cursor or more than one filter)
+     */
+    RequestLogPage getLogPage(RequestLogQuery query);
+
+    /**
+     * 以NDJSON逐页导出日志，内存占用与总量无关
+     * (Export logs as NDJSON page by page, in memory independent of the total)
+     *
+     * @param query 查询条件，忽略 limit (Query; limit is ignored)
+     * @param out 输出流 (Output stream)
+     * @return 导出的条数 (Logs exported)
+     * @throws IOException 写出失败 (Write failure)
+     */
+    long exportLogs(RequestLogQuery query, OutputStream out) throws IOException;
+}
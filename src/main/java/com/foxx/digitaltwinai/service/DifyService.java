@@ -17,4 +17,28 @@ public interface DifyService {
      * @return 聊天响应 (Chat Response)
      */
     ChatResponse sendChatMessage(ChatRequest request);
+    
+    /**
+     * 发送聊天消息，并在处理过程中通知回答增量、操作指令与操作结果
+     * (Send Chat Message, reporting answer deltas, the action and the operation result as they happen)
+     * 
+     * @param request 聊天请求 (Chat Request)
+     * @param listener 增量事件监听器 (Incremental event listener)
+     * @return 聊天响应 (Chat Response)
+     */
+    ChatResponse sendChatMessage(ChatRequest request, ChatStreamListener listener);
+    
+    /**
+     * 发送聊天消息，浏览器操作与WebSocket日志投递到指定的连接会话
+     * (Send Chat Message, delivering browser operations and WebSocket logs to the given connection session)
+     *
+     * <p>请求自身的 sessionId 仍作为Dify对话ID，两者可以不同。
+     * (The request's own sessionId is still used as the Dify conversation ID; the two may differ.)</p>
+     * 
+     * @param request 聊天请求 (Chat Request)
+     * @param sessionId 连接会话ID (Connection session ID)
+     * @param listener 增量事件监听器 (Incremental event listener)
+     * @return 聊天响应 (Chat Response)
+     */
+    ChatResponse sendChatMessage(ChatRequest request, String sessionId, ChatStreamListener listener);
 } 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.foxx.digitaltwinai.service;
+
+import com.foxx.digitaltwinai.service.log.RequestLogRollup;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 请求日志统计服务接口，只读取预先汇总的数据，不扫描原始日志表
+ * (Request Log Statistics Service Interface; reads pre-aggregated rollups only and never scans the raw log table)
+ */
+public interface RequestLogStatsService {
+
+    /**
+     * 查询时间范围内的请求统计
+     * (Query request statistics over a time range)
+     *
+     * @param granularity 粒度 (Granularity)
+     * @param from 开始时间（含），为空时按粒度取默认窗口 (Start time inclusive; defaults to a window per granularity)
+     * @param to 结束时间（不含），为空时为当前时间 (End time exclusive; defaults to now)
+     * @param operationType 操作类型，可为空 (Operation type, optional)
+     * @param handlingPath 处理路径，可为空 (Handling path, optional)
+     * @return 按时间桶的序列、按操作类型和处理路径的分组以及总计 (Series per bucket, breakdown per operation type and handling path, and totals)
+     * @throws IllegalArgumentException 时间范围无效或过大 (Invalid or too large a time range)
+     */
+    Map<String, Object> getStats(RequestLogRollup.Granularity granularity, LocalDateTime from, LocalDateTime to,
+                                 String operationType, String handlingPath);
+}
@@ -0,0 +1,36 @@
+package com.foxx.digitaltwinai.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 启动预热与就绪服务接口
+ * (Startup Warm-up and Readiness Service Interface)
+ */
+public interface WarmupService {
+
+    /**
+     * 是否已就绪：预热完成且必需依赖全部可用
+     * (Whether ready: warm-up finished and all required dependencies are up)
+     *
+     * @return 是否就绪 (Whether ready)
+     */
+    boolean isReady();
+
+    /**
+     * 获取就绪报告，包含各依赖的状态与延迟
+     * (Get the readiness report with per-dependency status and latency)
+     *
+     * @return 就绪报告 (Readiness report)
+     */
+    Map<String, Object> getReadinessReport();
+
+    /**
+     * 预热结束（含发布最终就绪状态）后完成，预热禁用时启动即完成
+     * (Completes once warm-up has ended, including publishing the final readiness state; completes at startup when
+     * warm-up is disabled)
+     *
+     * @return 预热完成信号 (Warm-up completion signal)
+     */
+    CompletableFuture<Void> warmupCompletion();
+}
@@ -1,9 +1,21 @@
 package com.foxx.digitaltwinai.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.WebSocketProperties;
+import com.foxx.digitaltwinai.websocket.BatchingMessagePublisher;
+import com.foxx.digitaltwinai.websocket.MessageRelay;
+import com.foxx.digitaltwinai.websocket.PayloadEncodingRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -12,6 +24,14 @@ import java.util.Map;
 /**
  * WebSocket服务
  * (WebSocket Service)
+ *
+ * <p>日志、错误和操作结果按聊天会话ID投递到 /user/queue/... 用户目标，只有该会话的客户端会收到；
+ * 状态消息仍广播到 /topic/status。日志与错误消息经批量发布器合并发送，可能以
+ * {@code {"type":"batch","items":[...]}} 的形式到达。
+ * (Logs, errors and operation results are delivered to /user/queue/... destinations keyed by the
+ * chat session ID, so only that session's clients receive them; status messages are still
+ * broadcast to /topic/status. Logs and errors go through the batching publisher and may arrive as
+ * {@code {"type":"batch","items":[...]}}.)</p>
  */
 public interface WebSocketService {
     
@@ -23,6 +43,15 @@ public interface WebSocketService {
      */
     void sendLog(String message);
     
+    /**
+     * 向指定会话发送日志消息
+     * (Send Log Message to a Session)
+     *
+     * @param sessionId 会话ID (Session ID)
+     * @param message 消息内容 (Message Content)
+     */
+    void sendLog(String sessionId, String message);
+    
     /**
      * 发送错误消息
      * (Send Error Message)
@@ -31,6 +60,15 @@ public interface WebSocketService {
      */
     void sendError(String message);
     
+    /**
+     * 向指定会话发送错误消息
+     * (Send Error Message to a Session)
+     *
+     * @param sessionId 会话ID (Session ID)
+     * @param message 错误消息 (Error Message)
+     */
+    void sendError(String sessionId, String message);
+    
     /**
      * 发送状态消息
      * (Send Status Message)
@@ -48,6 +86,35 @@ public interface WebSocketService {
      * @param data 数据 (Data)
      */
     void sendOperationResult(boolean success, String message, Object data);
+    
+    /**
+     * 向指定会话发送操作结果
+     * (Send Operation Result to a Session)
+     *
+     * @param sessionId 会话ID (Session ID)
+     * @param success 是否成功 (Success Flag)
+     * @param message 结果消息 (Result Message)
+     * @param data 数据 (Data)
+     */
+    void sendOperationResult(String sessionId, boolean success, String message, Object data);
+    
+    /**
+     * 向指定会话发送聊天事件（回答增量、操作指令、操作结果、最终响应）
+     * (Send a chat event to a session: answer delta, action, operation result or final response)
+     *
+     * @param sessionId 会话ID (Session ID)
+     * @param event 聊天事件 (Chat event)
+     */
+    void sendChatEvent(String sessionId, Map<String, Object> event);
+    
+    /**
+     * 广播场景相机状态增量
+     * (Broadcast a scene camera state delta)
+     *
+     * @param sceneId 场景ID (Scene ID)
+     * @param delta 相机状态增量 (Camera state delta)
+     */
+    void sendCameraDelta(String sceneId, Map<String, Object> delta);
 }
 
 /**
@@ -60,10 +127,10 @@ public interface WebSocketService {
 class WebSocketServiceImpl implements WebSocketService {
     
     /**
-     * WebSocket消息模板
-     * (WebSocket Messaging Template)
+     * 消息发送入口，多节点部署时负责跨节点转发
+     * (Message relay, forwards across nodes in multi-node deployments)
      */
-    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageRelay messageRelay;
     
     /**
      * JSON对象映射器
@@ -72,16 +139,40 @@ class WebSocketServiceImpl implements WebSocketService {
     private final ObjectMapper objectMapper;
     
     /**
-     * 日志目标
-     * (Log Destination)
+     * WebSocket用户注册表
+     * (WebSocket User Registry)
+     */
+    private final SimpUserRegistry simpUserRegistry;
+    
+    /**
+     * WebSocket属性配置
+     * (WebSocket Properties)
+     */
+    private final WebSocketProperties webSocketProperties;
+    
+    /**
+     * 指标注册表
+     * (Meter Registry)
+     */
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 链路追踪
+     * (Tracer)
      */
-    private static final String LOG_DESTINATION = "/topic/logs";
+    private final Tracer tracer;
     
     /**
-     * 错误目标
-     * (Error Destination)
+     * 日志目标（用户队列）
+     * (Log Destination, user queue)
      */
-    private static final String ERROR_DESTINATION = "/topic/errors";
+    private static final String LOG_DESTINATION = "/queue/logs";
+    
+    /**
+     * 错误目标（用户队列）
+     * (Error Destination, user queue)
+     */
+    private static final String ERROR_DESTINATION = "/queue/errors";
     
     /**
      * 状态目标
@@ -90,10 +181,70 @@ class WebSocketServiceImpl implements WebSocketService {
     private static final String STATUS_DESTINATION = "/topic/status";
     
     /**
-     * 操作结果目标
-     * (Operation Result Destination)
+     * 操作结果目标（用户队列）
+     * (Operation Result Destination, user queue)
      */
-    private static final String OPERATION_RESULT_DESTINATION = "/topic/operationResults";
+    private static final String OPERATION_RESULT_DESTINATION = "/queue/operationResults";
+    
+    /**
+     * 聊天事件目标（用户队列）
+     * (Chat Event Destination, user queue)
+     */
+    private static final String CHAT_DESTINATION = "/queue/chat";
+    
+    /**
+     * 各目标的扇出接收方数量分布
+     * (Fan-out recipient count distribution per destination)
+     */
+    private final Map<String, DistributionSummary> fanOutSummaries = new HashMap<>();
+    
+    /**
+     * 没有会话ID、无法投递到用户目标的消息数
+     * (Messages without a session ID that could not be routed to a user destination)
+     */
+    private Counter unroutedCounter;
+    
+    /**
+     * 日志与错误消息的批量发布器，未启用批量时为null
+     * (Batching publisher for logs and errors, null when batching is disabled)
+     */
+    private BatchingMessagePublisher batchingPublisher;
+    
+    /**
+     * 初始化扇出指标
+     * (Initialize fan-out metrics)
+     */
+    @PostConstruct
+    public void initMetrics() {
+        for (String destination : new String[] {LOG_DESTINATION, ERROR_DESTINATION, OPERATION_RESULT_DESTINATION,
+                CHAT_DESTINATION, STATUS_DESTINATION, webSocketProperties.getAdminFirehose().getDestination()}) {
+            fanOutSummaries.put(destination, DistributionSummary.builder("digital_twin.websocket.fanout")
+                    .description("每条消息的接收会话数 (Recipient sessions per message)")
+                    .tag("destination", destination)
+                    .register(meterRegistry));
+        }
+        unroutedCounter = Counter.builder("digital_twin.websocket.unrouted")
+                .description("缺少会话ID的消息 (Messages without a session ID)")
+                .register(meterRegistry);
+        
+        WebSocketProperties.Batching batching = webSocketProperties.getBatching();
+        if (batching.isEnabled()) {
+            batchingPublisher = new BatchingMessagePublisher(this::deliver, batching.getMaxBatchSize(),
+                    batching.getFlushInterval(), batching.getErrorDedupWindow(),
+                    batching.getRatePerSecond(), batching.getBurst(), meterRegistry);
+        }
+    }
+    
+    /**
+     * 关闭前发送缓冲中的消息
+     * (Send buffered messages before shutdown)
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (batchingPublisher != null) {
+            batchingPublisher.shutdown();
+        }
+    }
     
     /**
      * 发送日志消息
@@ -103,9 +254,14 @@ class WebSocketServiceImpl implements WebSocketService {
      */
     @Override
     public void sendLog(String message) {
+        sendLog(null, message);
+    }
+    
+    @Override
+    public void sendLog(String sessionId, String message) {
         try {
             log.debug("发送WebSocket日志消息: {} (Sending WebSocket log message: {})", message, message);
-            messagingTemplate.convertAndSend(LOG_DESTINATION, buildMessage("log", message));
+            publish(sessionId, LOG_DESTINATION, buildMessage("log", message, sessionId), false);
         } catch (Exception e) {
             log.error("发送WebSocket日志消息失败 (Failed to send WebSocket log message)", e);
         }
@@ -119,9 +275,14 @@ class WebSocketServiceImpl implements WebSocketService {
      */
     @Override
     public void sendError(String message) {
+        sendError(null, message);
+    }
+    
+    @Override
+    public void sendError(String sessionId, String message) {
         try {
             log.debug("发送WebSocket错误消息: {} (Sending WebSocket error message: {})", message, message);
-            messagingTemplate.convertAndSend(ERROR_DESTINATION, buildMessage("error", message));
+            publish(sessionId, ERROR_DESTINATION, buildMessage("error", message, sessionId), true);
         } catch (Exception e) {
             log.error("发送WebSocket错误消息失败 (Failed to send WebSocket error message)", e);
         }
@@ -137,7 +298,8 @@ class WebSocketServiceImpl implements WebSocketService {
     public void sendStatus(String message) {
         try {
             log.debug("发送WebSocket状态消息: {} (Sending WebSocket status message: {})", message, message);
-            messagingTemplate.convertAndSend(STATUS_DESTINATION, buildMessage("status", message));
+            messageRelay.send(STATUS_DESTINATION, buildMessage("status", message, null));
+            recordFanOut(STATUS_DESTINATION, countSubscribers(STATUS_DESTINATION));
         } catch (Exception e) {
             log.error("发送WebSocket状态消息失败 (Failed to send WebSocket status message)", e);
         }
@@ -153,6 +315,11 @@ class WebSocketServiceImpl implements WebSocketService {
      */
     @Override
     public void sendOperationResult(boolean success, String message, Object data) {
+        sendOperationResult(null, success, message, data);
+    }
+    
+    @Override
+    public void sendOperationResult(String sessionId, boolean success, String message, Object data) {
         try {
             Map<String, Object> result = new HashMap<>();
             result.put("success", success);
@@ -160,27 +327,124 @@ class WebSocketServiceImpl implements WebSocketService {
             if (data != null) {
                 result.put("data", data);
             }
+            if (sessionId != null) {
+                result.put("sessionId", sessionId);
+            }
             
             log.debug("发送WebSocket操作结果: {} (Sending WebSocket operation result: {})", message, message);
-            messagingTemplate.convertAndSend(OPERATION_RESULT_DESTINATION, result);
+            deliver(sessionId, OPERATION_RESULT_DESTINATION, result);
         } catch (Exception e) {
             log.error("发送WebSocket操作结果失败 (Failed to send WebSocket operation result)", e);
         }
     }
     
+    @Override
+    public void sendChatEvent(String sessionId, Map<String, Object> event) {
+        try {
+            // 回答增量对延迟敏感，不经过批量发布器 (Answer deltas are latency-sensitive and skip the batching publisher)
+            deliver(sessionId, CHAT_DESTINATION, event);
+        } catch (Exception e) {
+            log.error("发送WebSocket聊天事件失败 (Failed to send WebSocket chat event)", e);
+        }
+    }
+    
+    @Override
+    public void sendCameraDelta(String sceneId, Map<String, Object> delta) {
+        try {
+            String destination = "/topic/scenes/" + sceneId + "/camera";
+            messageRelay.send(destination, delta);
+            // 主题无法按订阅者编码，CBOR客户端订阅并行主题 (Topics cannot encode per subscriber; CBOR clients subscribe to the parallel topic)
+            messageRelay.send(destination + PayloadEncodingRegistry.CBOR_TOPIC_SUFFIX, delta);
+        } catch (Exception e) {
+            log.error("发送相机状态增量失败 (Failed to send camera state delta)", e);
+        }
+    }
+    
+    /**
+     * 通过批量发布器发送，未启用批量时直接投递
+     * (Send through the batching publisher, or deliver directly when batching is disabled)
+     */
+    private void publish(String sessionId, String destination, Map<String, Object> message, boolean dedupe) {
+        if (batchingPublisher != null) {
+            batchingPublisher.publish(sessionId, destination, message, dedupe);
+        } else {
+            deliver(sessionId, destination, message);
+        }
+    }
+    
+    /**
+     * 投递到会话的用户目标，并按配置复制到管理员主题
+     * (Deliver to the session's user destination and, if enabled, copy to the admin firehose)
+     *
+     * @param sessionId 会话ID (Session ID)
+     * @param destination 用户目标 (User destination)
+     * @param payload 消息内容 (Payload)
+     */
+    private void deliver(String sessionId, String destination, Object payload) {
+        // 只在请求链路内记录，批量发布器后台刷新不单独成链 (Only traced inside a request; background batch flushes do not start traces)
+        if (tracer.currentSpan() == null) {
+            doDeliver(sessionId, destination, payload);
+            return;
+        }
+        Span span = tracer.nextSpan().name("websocket.send").tag("destination", destination).start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            doDeliver(sessionId, destination, payload);
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+    
+    private void doDeliver(String sessionId, String destination, Object payload) {
+        if (sessionId != null && !sessionId.isEmpty()) {
+            messageRelay.sendToUser(sessionId, destination, payload);
+            SimpUser user = simpUserRegistry.getUser(sessionId);
+            recordFanOut(destination, user != null ? user.getSessions().size() : 0);
+        } else {
+            unroutedCounter.increment();
+        }
+        
+        WebSocketProperties.Firehose firehose = webSocketProperties.getAdminFirehose();
+        if (firehose.isEnabled()) {
+            messageRelay.send(firehose.getDestination(), payload);
+            recordFanOut(firehose.getDestination(), countSubscribers(firehose.getDestination()));
+        }
+    }
+    
+    /**
+     * 统计订阅某个广播主题的会话数
+     * (Count sessions subscribed to a broadcast topic)
+     */
+    private int countSubscribers(String destination) {
+        return simpUserRegistry.findSubscriptions(subscription -> destination.equals(subscription.getDestination())).size();
+    }
+    
+    private void recordFanOut(String destination, int recipients) {
+        DistributionSummary summary = fanOutSummaries.get(destination);
+        if (summary != null) {
+            summary.record(recipients);
+        }
+    }
+    
     /**
      * 构建消息
      * (Build Message)
      *
      * @param type 消息类型 (Message Type)
      * @param content 消息内容 (Message Content)
+     * @param sessionId 会话ID (Session ID)
      * @return 消息映射 (Message Map)
      */
-    private Map<String, Object> buildMessage(String type, String content) {
+    private Map<String, Object> buildMessage(String type, String content, String sessionId) {
         Map<String, Object> message = new HashMap<>();
         message.put("type", type);
         message.put("content", content);
         message.put("timestamp", System.currentTimeMillis());
+        if (sessionId != null) {
+            message.put("sessionId", sessionId);
+        }
         return message;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+package com.foxx.digitaltwinai.service.browser;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 浏览器服务实例状态
+ * (Browser service instance state)
+ */
+public class BrowserInstance {
+
+    /**
+     * 延迟指数移动平均的平滑系数
+     * (Smoothing factor for the latency exponential moving average)
+     */
+    private static final double EWMA_ALPHA = 0.2;
+
+    /**
+     * 实例基础URL
+     * (Instance base URL)
+     */
+    @Getter
+    private final String url;
+
+    /**
+     * 实例请求耗时
+     * (Instance request latency)
+     */
+    private final Timer latencyTimer;
+
+    /**
+     * 进行中的请求数
+     * (Outstanding request count)
+     */
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    /**
+     * 连续失败次数
+     * (Consecutive failure count)
+     */
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    /**
+     * 平均延迟（毫秒）
+     * (Average latency in milliseconds)
+     */
+    private volatile double averageLatencyMs;
+
+    /**
+     * 摘除截止时间，0表示未摘除
+     * (Ejection deadline, 0 when not ejected)
+     */
+    private volatile long ejectedUntil;
+
+    public BrowserInstance(String url, Timer latencyTimer) {
+        this.url = url;
+        this.latencyTimer = latencyTimer;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public double getAverageLatencyMs() {
+        return averageLatencyMs;
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * 当前是否可接收请求
+     * (Whether the instance currently accepts requests)
+     */
+    public boolean isAvailable(long now) {
+        return ejectedUntil <= now;
+    }
+
+    public boolean isEjected() {
+        return ejectedUntil > System.currentTimeMillis();
+    }
+
+    void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * 结束一次请求并更新统计
+     * (Finish a request and update statistics)
+     *
+     * @return 更新后的连续失败次数 (Consecutive failures after the update)
+     */
+    int complete(long elapsedNanos, boolean success) {
+        outstanding.decrementAndGet();
+        latencyTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        double elapsedMs = elapsedNanos / 1_000_000.0;
+        double previous = averageLatencyMs;
+        averageLatencyMs = previous == 0 ? elapsedMs : previous + EWMA_ALPHA * (elapsedMs - previous);
+        if (success) {
+            consecutiveFailures.set(0);
+            return 0;
+        }
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    void eject(long until) {
+        ejectedUntil = until;
+    }
+
+    void restore() {
+        ejectedUntil = 0;
+        consecutiveFailures.set(0);
+        averageLatencyMs = 0;
+    }
+}
@@ -0,0 +1,221 @@
+package com.foxx.digitaltwinai.service.browser;
+
+import com.foxx.digitaltwinai.config.BrowserServiceConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 浏览器服务实例池
+ * (Browser service instance pool)
+ *
+ * <p>同一会话始终路由到同一渲染实例，新会话按进行中请求数最少的实例分配；
+ * 连续失败或过慢的实例会被临时摘除，由定时健康检查恢复。
+ * (A session always hits the same renderer; new sessions go to the instance with the fewest
+ * outstanding requests. Failing or slow instances are ejected and restored by the health check.)</p>
+ */
+@Slf4j
+@Component
+public class BrowserInstancePool {
+
+    /**
+     * 浏览器服务配置
+     * (Browser Service Configuration)
+     */
+    private final BrowserServiceConfig config;
+
+    /**
+     * 全部实例
+     * (All instances)
+     */
+    private final List<BrowserInstance> instances;
+
+    /**
+     * 会话到实例的亲和映射（LRU淘汰）
+     * (Session to instance affinity map, LRU evicted)
+     */
+    private final Map<String, BrowserInstance> affinity;
+
+    /**
+     * 健康检查专用的短超时RestTemplate
+     * (Short-timeout RestTemplate dedicated to health checks)
+     */
+    private final RestTemplate healthCheckTemplate;
+
+    public BrowserInstancePool(BrowserServiceConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+
+        List<BrowserInstance> created = new ArrayList<>();
+        for (String url : config.getEffectiveUrls()) {
+            String baseUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+            Timer timer = Timer.builder("digital_twin.browser.instance.latency")
+                    .description("浏览器服务实例请求耗时 (Browser service instance request latency)")
+                    .tag("instance", baseUrl)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+            BrowserInstance instance = new BrowserInstance(baseUrl, timer);
+            Gauge.builder("digital_twin.browser.instance.outstanding", instance, BrowserInstance::getOutstanding)
+                    .tag("instance", baseUrl)
+                    .register(meterRegistry);
+            Gauge.builder("digital_twin.browser.instance.ejected", instance, i -> i.isEjected() ? 1 : 0)
+                    .tag("instance", baseUrl)
+                    .register(meterRegistry);
+            created.add(instance);
+        }
+        this.instances = List.copyOf(created);
+
+        int maxEntries = config.getSessionAffinityMaxEntries();
+        this.affinity = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BrowserInstance> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(config.getHealthCheckTimeout());
+        factory.setReadTimeout(config.getHealthCheckTimeout());
+        this.healthCheckTemplate = new RestTemplate(factory);
+
+        log.info("浏览器服务实例池已初始化: {} (Browser service instance pool initialized: {})",
+                config.getEffectiveUrls(), config.getEffectiveUrls());
+    }
+
+    /**
+     * 为会话选择实例并登记一次进行中的请求
+     * (Pick an instance for the session and register an outstanding request)
+     *
+     * @param sessionId 会话ID，可为空 (Session ID, may be null)
+     * @return 选中的实例 (Selected instance)
+     */
+    public BrowserInstance acquire(String sessionId) {
+        long now = System.currentTimeMillis();
+        BrowserInstance selected = null;
+
+        if (sessionId != null) {
+            BrowserInstance bound = affinity.get(sessionId);
+            if (bound != null && bound.isAvailable(now)) {
+                selected = bound;
+            }
+        }
+
+        if (selected == null) {
+            selected = leastOutstanding(now);
+            if (sessionId != null) {
+                affinity.put(sessionId, selected);
+            }
+        }
+
+        selected.begin();
+        return selected;
+    }
+
+    /**
+     * 归还实例并记录本次请求结果
+     * (Release the instance and record the request outcome)
+     *
+     * @param instance 实例 (Instance)
+     * @param elapsedNanos 耗时（纳秒） (Elapsed nanoseconds)
+     * @param success 传输层是否成功 (Whether the transport succeeded)
+     */
+    public void release(BrowserInstance instance, long elapsedNanos, boolean success) {
+        int failures = instance.complete(elapsedNanos, success);
+        if (instances.size() == 1 || instance.isEjected()) {
+            // 单实例时摘除没有意义 (Ejection is pointless with a single instance)
+            return;
+        }
+        if (failures >= config.getEjectionFailureThreshold()) {
+            eject(instance, "连续失败" + failures + "次 (" + failures + " consecutive failures)");
+        } else if (instance.getAverageLatencyMs() > config.getEjectionLatencyThreshold()) {
+            eject(instance, "平均延迟" + Math.round(instance.getAverageLatencyMs()) + "ms (average latency too high)");
+        }
+    }
+
+    /**
+     * 全部实例
+     * (All instances)
+     */
+    public List<BrowserInstance> getInstances() {
+        return instances;
+    }
+
+    /**
+     * 定时健康检查，恢复已就绪的实例、摘除无响应的实例
+     * (Periodic health check restoring recovered instances and ejecting unresponsive ones)
+     */
+    @Scheduled(fixedDelayString = "${browser-service.health-check-interval:10000}")
+    public void checkHealth() {
+        if (instances.size() == 1) {
+            return;
+        }
+        for (BrowserInstance instance : instances) {
+            boolean healthy = probe(instance);
+            if (healthy && instance.isEjected()) {
+                instance.restore();
+                log.info("浏览器服务实例已恢复: {} (Browser service instance restored: {})", instance.getUrl(), instance.getUrl());
+            } else if (!healthy && !instance.isEjected()) {
+                eject(instance, "健康检查失败 (health check failed)");
+            }
+        }
+    }
+
+    /**
+     * 探测实例健康状态
+     * (Probe instance health)
+     *
+     * @param instance 实例 (Instance)
+     * @return 是否健康 (Whether healthy)
+     */
+    public boolean probe(BrowserInstance instance) {
+        try {
+            healthCheckTemplate.getForEntity(instance.getUrl() + config.getHealthCheckPath(), String.class);
+            return true;
+        } catch (Exception e) {
+            log.debug("浏览器服务实例健康检查失败: {} {} (Browser service instance health check failed)", instance.getUrl(), e.getMessage());
+            return false;
+        }
+    }
+
+    private BrowserInstance leastOutstanding(long now) {
+        BrowserInstance best = null;
+        for (BrowserInstance instance : instances) {
+            if (!instance.isAvailable(now)) {
+                continue;
+            }
+            if (best == null
+                    || instance.getOutstanding() < best.getOutstanding()
+                    || (instance.getOutstanding() == best.getOutstanding()
+                        && instance.getAverageLatencyMs() < best.getAverageLatencyMs())) {
+                best = instance;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        // 全部实例都被摘除时，选失败次数最少的实例尝试 (All ejected: try the one with fewest failures)
+        best = instances.get(0);
+        for (BrowserInstance instance : instances) {
+            if (instance.getConsecutiveFailures() < best.getConsecutiveFailures()) {
+                best = instance;
+            }
+        }
+        return best;
+    }
+
+    private void eject(BrowserInstance instance, String reason) {
+        instance.eject(System.currentTimeMillis() + config.getEjectionDuration());
+        log.warn("摘除浏览器服务实例 {}: {} (Ejecting browser service instance {}: {})",
+                instance.getUrl(), reason, instance.getUrl(), reason);
+    }
+}
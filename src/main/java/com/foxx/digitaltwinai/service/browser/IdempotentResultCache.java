@@ -0,0 +1,116 @@
+package com.foxx.digitaltwinai.service.browser;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 按幂等键去重的操作结果缓存
+ * (Operation result cache de-duplicated by idempotency key)
+ *
+ * <p>同一幂等键的并发调用共享同一次执行，执行完成后结果保留一段时间，重复提交直接返回已有结果。
+ * 传输失败的结果不会保留，调用方可以用同一个键再次尝试。
+ * (Concurrent calls with the same key share one execution; completed results are retained for a
+ * while so duplicate submissions get the existing result. Transport failures are not retained,
+ * so callers may retry with the same key.)</p>
+ */
+public class IdempotentResultCache {
+
+    /**
+     * 缓存条目
+     * (Cache entry)
+     */
+    private static final class Entry {
+        private final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        private volatile long completedAt;
+    }
+
+    /**
+     * 执行结果
+     * (Execution outcome)
+     *
+     * @param result 操作结果 (Operation result)
+     * @param duplicate 是否为重复提交 (Whether this was a duplicate submission)
+     */
+    public record Outcome(Map<String, Object> result, boolean duplicate) {
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+
+    private final int maxEntries;
+
+    public IdempotentResultCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 按幂等键执行，重复的键直接复用已有结果
+     * (Execute under an idempotency key, reusing the existing result for duplicate keys)
+     *
+     * @param key 幂等键 (Idempotency key)
+     * @param action 实际执行逻辑 (Actual execution)
+     * @param retain 判断结果是否应保留 (Decides whether a result should be retained)
+     * @return 执行结果 (Execution outcome)
+     */
+    public Outcome execute(String key, Supplier<Map<String, Object>> action,
+                           Predicate<Map<String, Object>> retain) {
+        Entry fresh = new Entry();
+        Entry existing = entries.putIfAbsent(key, fresh);
+        if (existing != null) {
+            if (existing.completedAt == 0 || !isExpired(existing, System.currentTimeMillis())) {
+                return new Outcome(existing.future.join(), true);
+            }
+            // 已过期，替换为新条目 (Expired, replace with a fresh entry)
+            if (!entries.replace(key, existing, fresh)) {
+                return execute(key, action, retain);
+            }
+        }
+
+        Map<String, Object> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            entries.remove(key, fresh);
+            fresh.future.completeExceptionally(e);
+            throw e;
+        }
+        if (retain.test(result)) {
+            fresh.completedAt = System.currentTimeMillis();
+            evictIfNeeded();
+        } else {
+            entries.remove(key, fresh);
+        }
+        fresh.future.complete(result);
+        return new Outcome(result, false);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return entry.completedAt != 0 && now - entry.completedAt > ttlMillis;
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // 先淘汰过期条目 (Evict expired entries first)
+        entries.values().removeIf(entry -> isExpired(entry, now));
+        // 仍超限时淘汰任意已完成条目 (Then any completed entry while still over the limit)
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext() && entries.size() > maxEntries) {
+            if (iterator.next().completedAt != 0) {
+                iterator.remove();
+            }
+        }
+    }
+}
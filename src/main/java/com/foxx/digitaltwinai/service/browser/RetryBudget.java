@@ -0,0 +1,63 @@
+package com.foxx.digitaltwinai.service.browser;
+
+/**
+ * 重试预算（令牌桶）
+ * (Retry budget, token bucket)
+ *
+ * <p>每个请求存入固定比例的令牌，每次重试消耗一个令牌，从而把重试流量限制在正常流量的一定比例内，
+ * 避免下游故障时重试放大。
+ * (Each request deposits a fraction of a token and each retry spends one, bounding retries to a
+ * fraction of regular traffic so retries cannot amplify a downstream outage.)</p>
+ */
+public class RetryBudget {
+
+    /**
+     * 每个请求存入的令牌数
+     * (Tokens deposited per request)
+     */
+    private final double depositPerRequest;
+
+    /**
+     * 令牌上限
+     * (Token capacity)
+     */
+    private final double capacity;
+
+    /**
+     * 当前令牌数
+     * (Current tokens)
+     */
+    private double tokens;
+
+    public RetryBudget(double depositPerRequest, double capacity) {
+        this.depositPerRequest = depositPerRequest;
+        this.capacity = capacity;
+        this.tokens = capacity;
+    }
+
+    /**
+     * 记录一次请求，存入令牌
+     * (Record a request, depositing tokens)
+     */
+    public synchronized void deposit() {
+        tokens = Math.min(capacity, tokens + depositPerRequest);
+    }
+
+    /**
+     * 尝试为一次重试取出令牌
+     * (Try to withdraw a token for one retry)
+     *
+     * @return 是否允许重试 (Whether the retry is allowed)
+     */
+    public synchronized boolean tryWithdraw() {
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+}
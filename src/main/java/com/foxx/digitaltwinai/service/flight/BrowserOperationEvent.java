@@ -0,0 +1,31 @@
+package com.foxx.digitaltwinai.service.flight;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * 一次浏览器操作的JFR事件，含全部重试
+ * (JFR event for one browser operation, including all retries)
+ */
+@Name("digital_twin.BrowserOperation")
+@Label("Browser Operation")
+@Category({"Digital Twin", "Browser"})
+@StackTrace(false)
+@Setter
+public class BrowserOperationEvent extends jdk.jfr.Event {
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Operation Type")
+    String operationType;
+
+    @Label("Target")
+    String target;
+
+    @Label("Success")
+    boolean success;
+}
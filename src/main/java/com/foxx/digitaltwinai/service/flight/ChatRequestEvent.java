@@ -0,0 +1,37 @@
+package com.foxx.digitaltwinai.service.flight;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * 一次聊天请求的JFR事件，覆盖HTTP和WebSocket入口
+ * (JFR event for one chat request, covering the HTTP and WebSocket entry points)
+ */
+@Name("digital_twin.ChatRequest")
+@Label("Chat Request")
+@Category({"Digital Twin", "Chat"})
+@Description("从收到消息到返回回答 (From receiving a message to returning the answer)")
+@StackTrace(false)
+@Setter
+public class ChatRequestEvent extends jdk.jfr.Event {
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Handling Path")
+    @Description("LOCAL、DIFY 或 FALLBACK (LOCAL, DIFY or FALLBACK)")
+    String handlingPath;
+
+    @Label("Operation Type")
+    String operationType;
+
+    @Label("Message Length")
+    int messageLength;
+
+    @Label("Success")
+    boolean success;
+}
@@ -0,0 +1,47 @@
+package com.foxx.digitaltwinai.service.flight;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+/**
+ * 一次Dify chat-messages 调用的JFR事件
+ * (JFR event for one Dify chat-messages call)
+ */
+@Name("digital_twin.DifyCall")
+@Label("Dify Call")
+@Category({"Digital Twin", "Chat"})
+@StackTrace(false)
+@Setter
+public class DifyCallEvent extends jdk.jfr.Event {
+
+    @Label("Response Mode")
+    String responseMode;
+
+    @Label("Request Bytes")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Bytes")
+    @Description("流式响应的原始字节数，阻塞模式为0 (Raw bytes of a streaming response; 0 in blocking mode)")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Chunks")
+    int chunkCount;
+
+    @Label("Time To First Chunk")
+    @Timespan(Timespan.MILLISECONDS)
+    long ttftMs;
+
+    @Label("Stalled")
+    boolean stalled;
+
+    @Label("Success")
+    boolean success;
+}
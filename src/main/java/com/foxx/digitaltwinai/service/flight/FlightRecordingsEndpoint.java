@@ -0,0 +1,38 @@
+package com.foxx.digitaltwinai.service.flight;
+
+import com.foxx.digitaltwinai.config.FlightRecorderConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 列出慢请求触发的JFR转储，路径为 /flightrecordings
+ * (Lists the JFR dumps captured for slow requests, served at /flightrecordings)
+ *
+ * <p>文件可用 {@code jfr print --events 'digital_twin.*'} 或 JDK Mission Control 打开。
+ * (Open the files with {@code jfr print --events 'digital_twin.*'} or JDK Mission Control.)</p>
+ */
+@Component
+@Endpoint(id = "flightrecordings")
+@RequiredArgsConstructor
+public class FlightRecordingsEndpoint {
+
+    private final SlowRequestRecorder slowRequestRecorder;
+
+    private final FlightRecorderConfig config;
+
+    @ReadOperation
+    public Map<String, Object> recordings() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("recording", slowRequestRecorder.isRecording());
+        result.put("windowMs", config.getMaxAge());
+        result.put("slowThresholdMs", config.getSlowThreshold());
+        result.put("directory", config.getDumpDirectory());
+        result.put("dumps", slowRequestRecorder.listDumps());
+        return result;
+    }
+}
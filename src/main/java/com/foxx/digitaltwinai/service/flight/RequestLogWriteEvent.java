@@ -0,0 +1,30 @@
+package com.foxx.digitaltwinai.service.flight;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * 一次请求日志写入的JFR事件
+ * (JFR event for one request log write)
+ */
+@Name("digital_twin.RequestLogWrite")
+@Label("Request Log Write")
+@Category({"Digital Twin", "Request Log"})
+@StackTrace(false)
+@Setter
+public class RequestLogWriteEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    @Description("record 请求线程记录，batch 后台批量写库，journal 写入本地日志文件 (record: request thread, batch: background database batch, journal: local journal)")
+    String path;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Written")
+    int written;
+}
@@ -0,0 +1,206 @@
+package com.foxx.digitaltwinai.service.flight;
+
+import com.foxx.digitaltwinai.config.FlightRecorderConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 慢请求飞行记录器
+ * (Slow-request flight recorder)
+ *
+ * <p>启动一个持续的JFR记录，只保留最近 maxAge 的滚动窗口。聊天请求超过 slowThreshold 时，
+ * 在后台线程把整个窗口转储为 .jfr 文件，窗口内含该请求的自定义事件以及同期的GC、线程、锁和IO事件；
+ * 冷却期内的其他慢请求不再重复转储。
+ * (Runs a continuous JFR recording that keeps only a rolling window of the last maxAge. When a chat
+ * request exceeds slowThreshold the whole window is dumped to a .jfr file on a background thread, so the
+ * dump holds the request's custom events alongside the GC, thread, lock and IO events of the same period;
+ * further slow requests within the cooldown do not dump again.)</p>
+ */
+@Slf4j
+@Component
+public class SlowRequestRecorder {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final String EXTENSION = ".jfr";
+
+    private final FlightRecorderConfig config;
+
+    private final Path directory;
+
+    private final ExecutorService dumpExecutor;
+
+    /**
+     * 上次触发转储的时间（毫秒时间戳），用于冷却
+     * (Time of the last triggered dump in epoch milliseconds, for the cooldown)
+     */
+    private final AtomicLong lastDumpAt = new AtomicLong();
+
+    private volatile Recording recording;
+
+    public SlowRequestRecorder(FlightRecorderConfig config) {
+        this.config = config;
+        this.directory = Paths.get(config.getDumpDirectory());
+        this.dumpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flight-recorder-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (!FlightRecorder.isAvailable()) {
+            log.warn("当前JVM不支持JFR，慢请求记录已禁用 (JFR is not available in this JVM, slow-request recording disabled)");
+            return;
+        }
+        try {
+            Recording continuous = new Recording(Configuration.getConfiguration(config.getSettings()));
+            continuous.setName("digital-twin-continuous");
+            continuous.setToDisk(true);
+            continuous.setMaxAge(Duration.ofMillis(config.getMaxAge()));
+            continuous.setMaxSize(config.getMaxSize());
+            continuous.enable(ChatRequestEvent.class);
+            continuous.enable(DifyCallEvent.class);
+            continuous.enable(BrowserOperationEvent.class);
+            continuous.enable(RequestLogWriteEvent.class);
+            continuous.start();
+            recording = continuous;
+            log.info("JFR持续记录已启动，窗口 {}ms，慢请求阈值 {}ms (Continuous JFR recording started, window {}ms, slow threshold {}ms)",
+                    config.getMaxAge(), config.getSlowThreshold(), config.getMaxAge(), config.getSlowThreshold());
+        } catch (Exception e) {
+            log.warn("启动JFR持续记录失败: {} (Failed to start the continuous JFR recording: {})", e.getMessage(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        dumpExecutor.shutdown();
+        Recording current = recording;
+        recording = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * 是否正在记录
+     * (Whether the recording is running)
+     */
+    public boolean isRecording() {
+        Recording current = recording;
+        return current != null && current.getState() == RecordingState.RUNNING;
+    }
+
+    /**
+     * 聊天请求结束时调用，超过阈值且不在冷却期内时在后台转储
+     * (Called when a chat request finishes; dumps in the background when it is over the threshold and outside the cooldown)
+     *
+     * @param durationMs 请求耗时 (Request duration)
+     * @param sessionId 会话ID，仅用于日志 (Session ID, for the log line only)
+     * @return 是否触发了转储 (Whether a dump was triggered)
+     */
+    public boolean onRequestFinished(long durationMs, String sessionId) {
+        if (durationMs < config.getSlowThreshold() || recording == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastDumpAt.get();
+        if (now - last < config.getDumpCooldown() || !lastDumpAt.compareAndSet(last, now)) {
+            return false;
+        }
+        log.warn("聊天请求耗时 {}ms 超过阈值，转储JFR记录，会话: {} (Chat request took {}ms, dumping the JFR recording, session: {})",
+                durationMs, sessionId, durationMs, sessionId);
+        dumpExecutor.execute(() -> dump("slow-" + durationMs + "ms"));
+        return true;
+    }
+
+    /**
+     * 立即把滚动窗口转储为文件并清理超出数量的旧文件
+     * (Dump the rolling window to a file right away and prune old files beyond the limit)
+     *
+     * @param reason 文件名中的原因 (Reason included in the file name)
+     * @return 转储文件，未在记录时为null (Dump file; null when not recording)
+     */
+    public Path dump(String reason) {
+        Recording current = recording;
+        if (current == null) {
+            return null;
+        }
+        Path file = directory.resolve(LocalDateTime.now().format(FILE_TIME) + "-" + reason + EXTENSION);
+        try {
+            Files.createDirectories(directory);
+            current.dump(file);
+            log.info("JFR记录已转储到 {} (JFR recording dumped to {})", file, file);
+            prune();
+            return file;
+        } catch (IOException e) {
+            log.error("转储JFR记录失败: {} (Failed to dump the JFR recording: {})", e.getMessage(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 已有的转储文件，最新的在前
+     * (Dump files on disk, newest first)
+     */
+    public List<Dump> listDumps() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Dump> dumps = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(path -> path.getFileName().toString().endsWith(EXTENSION)).toList()) {
+                try {
+                    dumps.add(new Dump(file.getFileName().toString(), Files.size(file),
+                            Files.getLastModifiedTime(file).toInstant()));
+                } catch (IOException e) {
+                    // 清理过程中被删除 (Deleted while pruning)
+                }
+            }
+        } catch (IOException e) {
+            log.warn("读取JFR转储目录失败: {} (Failed to list the JFR dump directory: {})", e.getMessage(), e.getMessage());
+        }
+        dumps.sort(Comparator.comparing(Dump::createdAt).thenComparing(Dump::name).reversed());
+        return dumps;
+    }
+
+    private void prune() throws IOException {
+        List<Dump> dumps = listDumps();
+        for (Dump dump : dumps.subList(Math.min(dumps.size(), Math.max(1, config.getMaxDumps())), dumps.size())) {
+            Files.deleteIfExists(directory.resolve(dump.name()));
+        }
+    }
+
+    /**
+     * 一个转储文件
+     * (One dump file)
+     */
+    public record Dump(String name, long sizeBytes, Instant createdAt) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import com.foxx.digitaltwinai.model.RequestLogPage;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import com.foxx.digitaltwinai.model.StreamStats;
+import com.foxx.digitaltwinai.service.DifyRequestLogService;
+import com.foxx.digitaltwinai.service.log.BinaryLogReader;
+import com.foxx.digitaltwinai.service.log.BinaryLogWriter;
+import com.foxx.digitaltwinai.service.log.RequestLogRollup;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Dify请求日志服务实现类，写入本地二进制文件
+ * (Dify Request Log Service Implementation, backed by local binary files)
+ *
+ * <p>request-log.store=binary 时启用。日志同步追加到内存映射文件，不经过数据库、异步队列和本地回放文件；
+ * 统计汇总照常更新。分页按ID倒序，导出按写入顺序。
+ * (Active with request-log.store=binary. Logs are appended synchronously to memory-mapped files, bypassing
+ * the database, the async queue and the journal; rollups are still updated. Pages are newest first by ID,
+ * exports are in write order.)</p>
+ *
+ * <p>分钟/小时汇总和统计接口仍在MySQL中，因此数据源、Flyway迁移和实体校验照常启用；
+ * 异步写入、回放文件、熔断器和日志清理只在 store=database 时装配，清理只回收过期的分钟级汇总。
+ * (Minute/hour rollups and the stats endpoints still live in MySQL, so the data source, Flyway migrations
+ * and entity validation stay active; the async writer, journal, circuit and row purge are only wired with
+ * store=database, and retention only reclaims expired minute rollups.)</p>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "request-log", name = "store", havingValue = "binary")
+public class BinaryRequestLogServiceImpl implements DifyRequestLogService {
+
+    private static final String CURSOR_PREFIX = "b:";
+
+    private final BinaryLogWriter writer;
+
+    private final BinaryLogReader reader;
+
+    private final ObjectMapper objectMapper;
+
+    private final RequestLogRollup requestLogRollup;
+
+    public BinaryRequestLogServiceImpl(RequestLogConfig requestLogConfig, ObjectMapper objectMapper,
+                                       RequestLogRollup requestLogRollup) {
+        try {
+            this.writer = new BinaryLogWriter(requestLogConfig.getBinary());
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法打开二进制日志目录 (Cannot open the binary log directory)", e);
+        }
+        this.reader = new BinaryLogReader(Path.of(requestLogConfig.getBinary().getDirectory()));
+        this.objectMapper = objectMapper;
+        this.requestLogRollup = requestLogRollup;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    @Override
+    public DifyRequestLog saveLog(DifyRequestLog logEntity) {
+        logEntity.setCreatedAt(LocalDateTime.now());
+        try {
+            logEntity.setId(writer.append(logEntity));
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入二进制日志失败 (Failed to write binary log)", e);
+        }
+        return logEntity;
+    }
+
+    @Override
+    public DifyRequestLog recordRequest(String userInstruction, String requestContent, String responseContent,
+                                        Long responseTime, Integer status, String errorMessage,
+                                        String operationType, String targetComponent, HandlingPath handlingPath,
+                                        StreamStats streamStats) {
+        DifyRequestLog entry = new DifyRequestLog();
+        // 与数据库实现相同的默认值 (Same defaults as the database implementation)
+        entry.setUserInstruction(userInstruction == null || userInstruction.trim().isEmpty() ? "无用户指令" : userInstruction);
+        entry.setRequestContent(requestContent != null ? requestContent : "无请求内容");
+        entry.setResponseContent(responseContent);
+        entry.setResponseTime(responseTime);
+        entry.setStatus(status != null ? status : 0);
+        entry.setErrorMessage(errorMessage != null && errorMessage.length() > 500 ? errorMessage.substring(0, 500) : errorMessage);
+        entry.setOperationType(operationType);
+        entry.setTargetComponent(targetComponent);
+        entry.setHandlingPath(handlingPath);
+        entry.applyStreamStats(streamStats);
+        try {
+            saveLog(entry);
+            requestLogRollup.record(entry);
+            return entry;
+        } catch (Exception e) {
+            // 记录日志错误，但不影响调用方
+            log.error("记录请求日志时出错: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    @Deprecated
+    public List<DifyRequestLog> getLogsByTimeRange(LocalDateTime start, LocalDateTime end) {
+        return scan(RequestLogQuery.builder().from(start).to(end).build());
+    }
+
+    @Override
+    @Deprecated
+    public List<DifyRequestLog> getLogsByOperationType(String operationType) {
+        return scan(RequestLogQuery.builder().operationType(operationType).build());
+    }
+
+    @Override
+    @Deprecated
+    public List<DifyRequestLog> getLogsByTargetComponent(String targetComponent) {
+        return scan(RequestLogQuery.builder().targetComponent(targetComponent).build());
+    }
+
+    @Override
+    @Deprecated
+    public List<DifyRequestLog> getFailedLogs() {
+        return scan(RequestLogQuery.builder().status(0).build());
+    }
+
+    @Override
+    public RequestLogPage getLogPage(RequestLogQuery query) {
+        int limit = Math.max(1, Math.min(query.getLimit(), DifyRequestLogServiceImpl.MAX_PAGE_SIZE));
+        long maxId = decodeCursor(query.getCursor());
+        List<DifyRequestLog> items = new ArrayList<>(limit);
+        try {
+            List<Path> segments = reader.segments();
+            // 从最新的文件往前读，每个文件只保留最后几条匹配记录 (Walk files newest first, keeping only the last few matches of each)
+            for (int i = segments.size() - 1; i >= 0 && items.size() < limit; i--) {
+                int needed = limit - items.size();
+                Deque<DifyRequestLog> tail = new ArrayDeque<>(needed);
+                reader.readSegment(segments.get(i), query, maxId, entry -> {
+                    if (tail.size() == needed) {
+                        tail.removeFirst();
+                    }
+                    tail.addLast(entry);
+                });
+                tail.descendingIterator().forEachRemaining(items::add);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取二进制日志失败 (Failed to read binary logs)", e);
+        }
+        String nextCursor = items.size() < limit ? null : encodeCursor(items.get(items.size() - 1).getId());
+        return new RequestLogPage(items, nextCursor);
+    }
+
+    @Override
+    public long exportLogs(RequestLogQuery query, OutputStream out) throws IOException {
+        long[] exported = {0};
+        reader.read(query, decodeCursor(query.getCursor()), entry -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(entry));
+                out.write('\n');
+                exported[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+        return exported[0];
+    }
+
+    private List<DifyRequestLog> scan(RequestLogQuery query) {
+        List<DifyRequestLog> items = new ArrayList<>();
+        try {
+            reader.read(query, Long.MAX_VALUE, items::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取二进制日志失败 (Failed to read binary logs)", e);
+        }
+        return items;
+    }
+
+    private static long decodeCursor(String value) {
+        if (value == null || value.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException();
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标 (Invalid page cursor)");
+        }
+    }
+
+    private static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
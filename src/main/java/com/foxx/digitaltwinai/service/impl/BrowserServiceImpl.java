@@ -3,22 +3,47 @@ package com.foxx.digitaltwinai.service.impl;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.foxx.digitaltwinai.config.BrowserServiceConfig;
+import com.foxx.digitaltwinai.operation.OperationHandler;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
 import com.foxx.digitaltwinai.service.BrowserService;
+import com.foxx.digitaltwinai.service.CameraStateService;
+import com.foxx.digitaltwinai.service.browser.BrowserInstance;
+import com.foxx.digitaltwinai.service.browser.BrowserInstancePool;
+import com.foxx.digitaltwinai.service.browser.IdempotentResultCache;
+import com.foxx.digitaltwinai.service.browser.RetryBudget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
 import com.foxx.digitaltwinai.service.WebSocketService;
+import com.foxx.digitaltwinai.service.flight.BrowserOperationEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Collections;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 浏览器服务实现类
@@ -51,12 +76,135 @@ public class BrowserServiceImpl implements BrowserService {
      */
     private final WebSocketService webSocketService;
     
+    /**
+     * 场景相机状态服务
+     * (Scene Camera State Service)
+     */
+    private final CameraStateService cameraStateService;
+    
+    /**
+     * 操作处理器注册表
+     * (Operation handler registry)
+     */
+    private final OperationRegistry operationRegistry;
+    
+    /**
+     * 浏览器服务实例池
+     * (Browser service instance pool)
+     */
+    private final BrowserInstancePool browserInstancePool;
+    
+    /**
+     * 指标注册表
+     * (Meter Registry)
+     */
+    private final MeterRegistry meterRegistry;
+    
+    /**
+     * 链路追踪
+     * (Tracer)
+     */
+    private final Tracer tracer;
+    
+    /**
+     * 幂等键请求头
+     * (Idempotency key request header)
+     */
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    
+    /**
+     * 操作数据中的幂等键字段
+     * (Idempotency key field in action data)
+     */
+    public static final String IDEMPOTENCY_KEY_FIELD = "idempotencyKey";
+    
+    /**
+     * 结果中标记传输失败的字段
+     * (Result field marking a transport failure)
+     */
+    private static final String TRANSPORT_ERROR_KEY = "transportError";
+    
+    /**
+     * 结果中标记可重试的字段：请求确定未开始执行（连接失败或配置的状态码）
+     * (Result field marking a retryable failure: the request provably never started, i.e. a connect failure
+     * or one of the configured status codes)
+     */
+    private static final String RETRYABLE_KEY = "retryable";
+    
+    /**
+     * 重试预算
+     * (Retry budget)
+     */
+    private RetryBudget retryBudget;
+    
+    /**
+     * 幂等结果缓存
+     * (Idempotent result cache)
+     */
+    private IdempotentResultCache resultCache;
+    
+    private Counter retryCounter;
+    
+    private Counter retryExhaustedCounter;
+    
+    private Counter retryBudgetExhaustedCounter;
+    
+    private Counter duplicateCounter;
+    
+    /**
+     * 单次浏览器服务请求耗时，按操作和结果打标签
+     * (Latency of a single browser service request, tagged by operation and outcome)
+     */
+    private Meter.MeterProvider<Timer> requestTimers;
+    
+    /**
+     * 初始化重试预算、幂等缓存和计数器
+     * (Initialize retry budget, idempotency cache and counters)
+     */
+    @PostConstruct
+    public void init() {
+        BrowserServiceConfig.RetryConfig retryConfig = browserServiceConfig.getRetry();
+        retryBudget = new RetryBudget(retryConfig.getBudgetRatio(), retryConfig.getBudgetMax());
+        resultCache = new IdempotentResultCache(browserServiceConfig.getIdempotency().getResultTtl(),
+                browserServiceConfig.getIdempotency().getMaxEntries());
+        
+        retryCounter = Counter.builder("digital_twin.browser.retries")
+                .description("浏览器操作重试次数 (Browser operation retries)")
+                .register(meterRegistry);
+        retryExhaustedCounter = Counter.builder("digital_twin.browser.retries.exhausted")
+                .description("达到最大尝试次数仍失败的操作 (Operations failing after max attempts)")
+                .register(meterRegistry);
+        retryBudgetExhaustedCounter = Counter.builder("digital_twin.browser.retries.budget_exhausted")
+                .description("因重试预算耗尽而放弃的重试 (Retries skipped because the budget was exhausted)")
+                .register(meterRegistry);
+        duplicateCounter = Counter.builder("digital_twin.browser.duplicates")
+                .description("按幂等键去重的重复操作 (Duplicate operations de-duplicated by idempotency key)")
+                .register(meterRegistry);
+        Gauge.builder("digital_twin.browser.retry_budget.tokens", retryBudget, RetryBudget::getTokens)
+                .register(meterRegistry);
+        requestTimers = Timer.builder("digital_twin.browser.request")
+                .description("单次浏览器服务请求耗时，不含重试等待 (Latency of one browser service request, excluding retry backoff)")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .withRegistry(meterRegistry);
+    }
+    
     /**
      * 执行模型操作
      * (Execute model operation)
      */
     @Override
     public Map<String, Object> executeModelOperation(Map<String, Object> action) {
+        return executeModelOperation(action, null);
+    }
+    
+    /**
+     * 在指定会话上执行模型操作
+     * (Execute model operation for a session)
+     */
+    @Override
+    public Map<String, Object> executeModelOperation(Map<String, Object> action, String sessionId) {
         try {
             if (action == null) {
                 throw new IllegalArgumentException("操作数据不能为空 (Action data cannot be null)");
@@ -69,33 +217,23 @@ public class BrowserServiceImpl implements BrowserService {
             }
             
             // 获取操作参数 (Get operation parameters)
-            Map<String, Object> parameters = action.containsKey("params") ? 
+            @SuppressWarnings("unchecked")
+            Map<String, Object> parameters = action.get("params") instanceof Map ?
                     (Map<String, Object>) action.get("params") : new HashMap<>();
             
-            // 根据操作类型执行相应的操作 (Execute operation based on operation type)
-            log.info("执行操作: {}, 参数: {} (Executing operation: {}, parameters: {})", 
-                    operationType, parameters, operationType, parameters);
+            // 目标部件优先取顶层target，其次取参数中的target (Prefer top-level target, then params.target)
+            Object target = action.get("target") != null ? action.get("target") : parameters.get("target");
             
-            switch (operationType) {
-                case "rotate":
-                    return executeRotate(parameters);
-                case "zoom":
-                    return executeZoom(parameters);
-                case "focus":
-                    String target = parameters.containsKey("target") ? 
-                            (String) parameters.get("target") : "center";
-                    return executeFocus(target);
-                case "reset":
-                    return executeReset();
-                default:
-                    throw new IllegalArgumentException("不支持的操作类型: " + operationType + 
-                            " (Unsupported operation type: " + operationType + ")");
-            }
+            Object idempotencyKey = action.get(IDEMPOTENCY_KEY_FIELD);
+            
+            return execute(operationRegistry.getHandler(operationType),
+                    target != null ? target.toString() : null, parameters, sessionId,
+                    idempotencyKey != null ? idempotencyKey.toString() : null);
         } catch (Exception e) {
             log.error("执行模型操作失败 (Failed to execute model operation)", e);
             
             // 发送WebSocket错误消息 (Send WebSocket error message)
-            webSocketService.sendError("执行模型操作失败: " + e.getMessage() + 
+            webSocketService.sendError(sessionId, "执行模型操作失败: " + e.getMessage() + 
                     " (Failed to execute model operation: " + e.getMessage() + ")");
             
             Map<String, Object> errorResponse = new HashMap<>();
@@ -111,45 +249,7 @@ public class BrowserServiceImpl implements BrowserService {
      */
     @Override
     public Map<String, Object> executeRotate(Map<String, Object> parameters) {
-        try {
-            // 确保参数不为空
-            if (parameters == null) {
-                parameters = new HashMap<>();
-            }
-            
-            // 获取旋转参数
-            String direction = parameters.containsKey("direction") ? 
-                               (String) parameters.get("direction") : "left";
-            
-            Number angleNumber = (Number) parameters.getOrDefault("angle", 30);
-            int angle = angleNumber.intValue();
-            
-            // 构建请求参数
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("action", "rotate");
-            requestBody.put("parameters", parameters);
-            
-            // 发送请求
-            Map<String, Object> result = sendRequest(requestBody);
-            log.info("旋转操作执行结果: {} (Rotate operation result: {})", result, result);
-            
-            // 发送WebSocket消息
-            webSocketService.sendLog("旋转操作执行完成，方向: " + direction + ", 角度: " + angle + 
-                    " (Rotate operation completed, direction: " + direction + ", angle: " + angle + ")");
-            
-            return result;
-        } catch (Exception e) {
-            log.error("执行旋转操作失败 (Failed to execute rotate operation)", e);
-            
-            // 发送WebSocket错误消息
-            webSocketService.sendError("旋转操作失败: " + e.getMessage() + 
-                    " (Rotate operation failed: " + e.getMessage() + ")");
-            
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "执行旋转操作失败: " + e.getMessage());
-            return errorResponse;
-        }
+        return execute(operationRegistry.getHandler("rotate"), null, parameters, null, null);
     }
     
     /**
@@ -158,129 +258,213 @@ public class BrowserServiceImpl implements BrowserService {
      */
     @Override
     public Map<String, Object> executeZoom(Map<String, Object> parameters) {
-        try {
+        return execute(operationRegistry.getHandler("zoom"), null, parameters, null, null);
+    }
+    
+    /**
+     * 执行聚焦操作
+     * (Execute focus operation)
+     */
+    @Override
+    public Map<String, Object> executeFocus(String target) {
+        return execute(operationRegistry.getHandler("focus"), target, null, null, null);
+    }
+    
+    /**
+     * 执行重置操作
+     * (Execute reset operation)
+     */
+    @Override
+    public Map<String, Object> executeReset() {
+        return execute(operationRegistry.getHandler("reset"), null, null, null, null);
+    }
+    
+    /**
+     * 通过操作处理器校验并执行操作
+     * (Validate and execute an operation through its handler)
+     *
+     * @param handler 操作处理器 (Operation handler)
+     * @param target 目标部件 (Target component)
+     * @param parameters 操作参数 (Operation parameters)
+     * @param sessionId 会话ID (Session ID)
+     * @param idempotencyKey 幂等键，为空时自动生成 (Idempotency key, generated when null)
+     * @return 操作结果 (Operation result)
+     */
+    private Map<String, Object> execute(OperationHandler handler, String target, Map<String, Object> parameters,
+                                        String sessionId, String idempotencyKey) {
+        String key = idempotencyKey != null && !idempotencyKey.isEmpty() ? idempotencyKey : UUID.randomUUID().toString();
+        long startNanos = System.nanoTime();
+        // 每次尝试的HTTP请求是其子span (Each attempt's HTTP request is a child span)
+        Span span = tracer.nextSpan().name("browser.operation")
+                .tag("operation.type", handler.getType())
+                .tag("idempotency_key", key)
+                .start();
+        if (target != null) {
+            span.tag("target", target);
+        }
+        BrowserOperationEvent event = new BrowserOperationEvent();
+        event.begin();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
             // 确保参数不为空
             if (parameters == null) {
                 parameters = new HashMap<>();
             }
             
-            // 获取缩放参数
-            Number scaleNumber = (Number) parameters.getOrDefault("scale", 1.5);
-            float scale = scaleNumber.floatValue();
+            log.info("执行操作: {}, 目标: {}, 参数: {} (Executing operation: {}, target: {}, parameters: {})",
+                    handler.getType(), target, parameters, handler.getType(), target, parameters);
             
-            // 构建请求参数
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("action", "zoom");
-            requestBody.put("parameters", Collections.singletonMap("scale", scale));
+            handler.validate(target, parameters);
+            // 执行前确定场景ID，数字等非字符串的值也能接受 (Resolve the scene ID before executing; non-string values such as numbers are accepted)
+            String sceneId = CameraStateService.normalizeSceneId(parameters.get(CameraStateService.SCENE_ID_FIELD));
             
             // 发送请求
-            Map<String, Object> result = sendRequest(requestBody);
-            log.info("缩放操作执行结果: {} (Zoom operation result: {})", result, result);
+            Map<String, Object> result = handler.execute(target, parameters,
+                    (operation, operationParameters) -> sendRequest(sessionId, key, operation, operationParameters));
+            log.info("{}操作执行结果: {} ({} operation result: {})", handler.getDisplayName(), result, handler.getType(), result);
+            handler.recordExecution(System.nanoTime() - startNanos, Boolean.TRUE.equals(result.get("success")));
             
             // 发送WebSocket消息
-            webSocketService.sendLog("缩放操作执行完成，比例: " + scale + 
-                    " (Zoom operation completed, scale: " + scale + ")");
+            boolean success = Boolean.TRUE.equals(result.get("success"));
+            if (success && !Boolean.TRUE.equals(result.get("duplicate"))) {
+                updateCameraState(sceneId, handler, target, parameters);
+            }
+            webSocketService.sendLog(sessionId, handler.describeCompletion(target, parameters));
+            webSocketService.sendOperationResult(sessionId, success,
+                    (String) result.getOrDefault("message", handler.getType()), result);
             
+            span.tag("success", success);
+            event.setSuccess(success);
             return result;
         } catch (Exception e) {
-            log.error("执行缩放操作失败 (Failed to execute zoom operation)", e);
+            span.error(e);
+            handler.recordExecution(System.nanoTime() - startNanos, false);
+            log.error("执行{}操作失败 (Failed to execute {} operation)", handler.getDisplayName(), handler.getType(), e);
             
             // 发送WebSocket错误消息
-            webSocketService.sendError("缩放操作失败: " + e.getMessage() + 
-                    " (Zoom operation failed: " + e.getMessage() + ")");
+            webSocketService.sendError(sessionId, handler.getDisplayName() + "操作失败: " + e.getMessage() + 
+                    " (" + handler.getType() + " operation failed: " + e.getMessage() + ")");
             
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
-            errorResponse.put("message", "执行缩放操作失败: " + e.getMessage());
+            errorResponse.put("message", "执行" + handler.getDisplayName() + "操作失败: " + e.getMessage());
             return errorResponse;
+        } finally {
+            span.end();
+            event.end();
+            if (event.shouldCommit()) {
+                event.setSessionId(sessionId);
+                event.setOperationType(handler.getType());
+                event.setTarget(target);
+                event.commit();
+            }
         }
     }
     
     /**
-     * 执行聚焦操作
-     * (Execute focus operation)
+     * 更新场景相机状态；操作已经成功执行，状态更新失败不能把结果变成失败
+     * (Update the scene camera state; the operation has already succeeded, so a failed update must not turn it into a failure)
      */
-    @Override
-    public Map<String, Object> executeFocus(String target) {
+    private void updateCameraState(String sceneId, OperationHandler handler, String target, Map<String, Object> parameters) {
         try {
-            // 构建请求参数
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("action", "focus");
-            requestBody.put("parameters", Collections.singletonMap("target", target));
-            
-            // 发送请求
-            Map<String, Object> result = sendRequest(requestBody);
-            log.info("聚焦操作执行结果: {} (Focus operation result: {})", result, result);
-            
-            // 发送WebSocket消息
-            webSocketService.sendLog("聚焦操作执行完成，目标: " + target + 
-                    " (Focus operation completed, target: " + target + ")");
-            
-            return result;
+            cameraStateService.apply(sceneId, handler, target, parameters);
         } catch (Exception e) {
-            log.error("执行聚焦操作失败 (Failed to execute focus operation)", e);
-            
-            // 发送WebSocket错误消息
-            webSocketService.sendError("聚焦操作失败: " + e.getMessage() + 
-                    " (Focus operation failed: " + e.getMessage() + ")");
-            
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "执行聚焦操作失败: " + e.getMessage());
-            return errorResponse;
+            log.warn("更新场景{}的相机状态失败 (Failed to update camera state of scene {})", sceneId, sceneId, e);
         }
     }
     
     /**
-     * 执行重置操作
-     * (Execute reset operation)
+     * 按幂等键发送请求到浏览器操作服务，重复的键直接返回已有结果
+     * (Send request to browser operation service under an idempotency key; duplicate keys reuse the existing result)
      */
-    @Override
-    public Map<String, Object> executeReset() {
-        try {
-            // 构建请求参数
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("action", "reset");
-            requestBody.put("parameters", Collections.emptyMap());
-            
-            // 发送请求
-            Map<String, Object> result = sendRequest(requestBody);
-            log.info("重置操作执行结果: {} (Reset operation result: {})", result, result);
-            
-            // 发送WebSocket消息
-            webSocketService.sendLog("视图重置操作执行完成 (View reset operation completed)");
-            
-            return result;
-        } catch (Exception e) {
-            log.error("执行重置操作失败 (Failed to execute reset operation)", e);
-            
-            // 发送WebSocket错误消息
-            webSocketService.sendError("重置操作失败: " + e.getMessage() + 
-                    " (Reset operation failed: " + e.getMessage() + ")");
+    private Map<String, Object> sendRequest(String sessionId, String idempotencyKey, String operation,
+                                            Map<String, Object> parameters) {
+        // 只有确定未执行的失败不保留；超时和5xx时操作可能已执行，保留结果，同一个键不再盲目重发
+        // (Only failures that provably never ran are dropped; after a timeout or 5xx the operation may have run,
+        // so the result is kept and the same key is not sent again blind)
+        IdempotentResultCache.Outcome outcome = resultCache.execute(idempotencyKey,
+                () -> sendWithRetry(sessionId, idempotencyKey, operation, parameters),
+                result -> !Boolean.TRUE.equals(result.get(RETRYABLE_KEY)));
+        
+        if (outcome.duplicate()) {
+            duplicateCounter.increment();
+            log.info("重复的操作请求，返回已有结果: {} (Duplicate operation request, returning existing result: {})",
+                    idempotencyKey, idempotencyKey);
+            Map<String, Object> duplicate = new HashMap<>(outcome.result());
+            duplicate.put("duplicate", true);
+            return duplicate;
+        }
+        return outcome.result();
+    }
+    
+    /**
+     * 在重试预算和总时限内，对确定未执行的失败进行带抖动的指数退避重试
+     * (Retry failures that provably never ran with jittered exponential backoff, within the retry budget and
+     * the overall deadline)
+     */
+    private Map<String, Object> sendWithRetry(String sessionId, String idempotencyKey, String operation,
+                                              Map<String, Object> parameters) {
+        BrowserServiceConfig.RetryConfig retryConfig = browserServiceConfig.getRetry();
+        int maxAttempts = Math.max(1, retryConfig.getMaxAttempts());
+        long deadline = System.currentTimeMillis() + retryConfig.getMaxTotalTime();
+        retryBudget.deposit();
+        
+        for (int attempt = 1; ; attempt++) {
+            Map<String, Object> result = sendOnce(sessionId, idempotencyKey, operation, parameters);
+            if (!Boolean.TRUE.equals(result.get(RETRYABLE_KEY))) {
+                return result;
+            }
+            if (attempt >= maxAttempts) {
+                retryExhaustedCounter.increment();
+                return result;
+            }
+            if (!retryBudget.tryWithdraw()) {
+                retryBudgetExhaustedCounter.increment();
+                log.warn("重试预算已耗尽，放弃重试: {} (Retry budget exhausted, giving up: {})", idempotencyKey, idempotencyKey);
+                return result;
+            }
             
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("message", "执行重置操作失败: " + e.getMessage());
-            return errorResponse;
+            long backoff = ThreadLocalRandom.current().nextLong(
+                    Math.min(retryConfig.getMaxBackoff(), retryConfig.getInitialBackoff() << (attempt - 1)) + 1);
+            if (System.currentTimeMillis() + backoff >= deadline) {
+                retryExhaustedCounter.increment();
+                log.warn("超过重试总时限，放弃重试: {} (Retry deadline exceeded, giving up: {})", idempotencyKey, idempotencyKey);
+                return result;
+            }
+            retryCounter.increment();
+            log.info("浏览器操作第{}次重试，{}ms后执行: {} (Retrying browser operation, attempt {}, in {}ms: {})",
+                    attempt, backoff, idempotencyKey, attempt, backoff, idempotencyKey);
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return result;
+            }
         }
     }
     
     /**
-     * 发送请求到浏览器操作服务
-     * (Send request to browser operation service)
+     * 发送单次请求到浏览器操作服务
+     * (Send a single request to browser operation service)
      */
-    private Map<String, Object> sendRequest(Map<String, Object> requestBody) {
+    private Map<String, Object> sendOnce(String sessionId, String idempotencyKey, String operation,
+                                         Map<String, Object> parameters) {
+        // 按会话亲和选择浏览器服务实例 (Pick a browser service instance with session affinity)
+        BrowserInstance instance = browserInstancePool.acquire(sessionId);
+        long startNanos = System.nanoTime();
+        boolean transportSucceeded = false;
+        String outcome = "error";
         try {
-            String requestUrl = browserServiceConfig.getUrl() + "/api/execute";
+            String requestUrl = instance.getUrl() + "/api/execute";
             log.debug("发送请求到浏览器操作服务: {} (Sending request to browser operation service: {})", requestUrl, requestUrl);
             
             // 打印请求参数 (Print request parameters)
-            log.debug("请求参数: {} (Request parameters: {})", requestBody, requestBody);
+            log.debug("请求参数: {} {} (Request parameters: {} {})", operation, parameters, operation, parameters);
             
             // 构建符合Python服务要求的请求结构
             Map<String, Object> apiRequestBody = new HashMap<>();
-            apiRequestBody.put("operation", requestBody.get("action"));
-            apiRequestBody.put("parameters", requestBody.get("parameters"));
+            apiRequestBody.put("operation", operation);
+            apiRequestBody.put("parameters", parameters);
+            apiRequestBody.put("idempotency_key", idempotencyKey);
             
             // 将对象序列化为JSON字符串 (Serialize object to JSON string)
             String requestBodyStr = objectMapper.writeValueAsString(apiRequestBody);
@@ -288,6 +472,7 @@ public class BrowserServiceImpl implements BrowserService {
             // 设置请求头 (Set request headers)
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
             
             // 创建请求实体 (Create request entity)
             HttpEntity<String> requestEntity = new HttpEntity<>(requestBodyStr, headers);
@@ -295,13 +480,15 @@ public class BrowserServiceImpl implements BrowserService {
             // 发送请求并获取响应 (Send request and get response)
             String responseBody = restTemplate.postForObject(requestUrl, requestEntity, String.class);
             
+            transportSucceeded = true;
+            
             // 解析响应 (Parse response)
             Map<String, Object> response = objectMapper.readValue(responseBody, new TypeReference<Map<String, Object>>() {});
             
-            // 检查响应是否包含error字段，但实际操作可能已执行
+            // 检查响应是否包含error字段
             if (response.containsKey("error")) {
-                log.warn("操作返回错误信息，但可能已执行: {} (Operation returned error, but may have executed: {})", 
-                        response.get("error"), response.get("error"));
+                log.warn("操作返回错误信息: {}, 幂等键: {} (Operation returned error: {}, idempotency key: {})", 
+                        response.get("error"), idempotencyKey, response.get("error"), idempotencyKey);
             }
             
             // 确保响应中包含必要的字段
@@ -310,14 +497,43 @@ public class BrowserServiceImpl implements BrowserService {
                 response.put("message", "服务未返回success字段");
             }
             
+            outcome = Boolean.TRUE.equals(response.get("success")) ? "success" : "failure";
             return response;
         } catch (ResourceAccessException e) {
-            // 处理连接异常，可能是服务未运行
-            log.error("无法连接到浏览器操作服务: {} (Cannot connect to browser operation service: {})", e.getMessage(), e.getMessage());
+            // 只有连接阶段的失败可以确定请求未到达服务；读超时时操作可能已执行，不重试
+            // (Only connect-phase failures prove the request never reached the service; after a read timeout
+            // the operation may already have run, so it is not retried)
+            boolean connectFailure = isConnectFailure(e);
+            log.error("{}浏览器操作服务: {} ({} browser operation service: {})",
+                    connectFailure ? "无法连接到" : "请求超时或中断，", e.getMessage(),
+                    connectFailure ? "Cannot connect to" : "Request timed out or was interrupted at", e.getMessage());
             
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
-            errorResponse.put("message", "无法连接到浏览器服务: " + e.getMessage() + "，请确保服务已启动");
+            errorResponse.put("message", connectFailure
+                    ? "无法连接到浏览器服务: " + e.getMessage() + "，请确保服务已启动"
+                    : "浏览器服务响应超时，操作结果未知: " + e.getMessage());
+            errorResponse.put(TRANSPORT_ERROR_KEY, true);
+            errorResponse.put(RETRYABLE_KEY, connectFailure);
+            return errorResponse;
+        } catch (HttpServerErrorException e) {
+            // 5xx时操作可能已执行（如504），只重试配置中声明为未执行的状态码
+            // (After a 5xx the operation may have run, e.g. a 504; only status codes configured as not-started are retried)
+            log.error("浏览器操作服务返回错误状态: {} (Browser operation service returned error status: {})", e.getStatusCode(), e.getStatusCode());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "浏览器服务错误: " + e.getStatusCode());
+            errorResponse.put(TRANSPORT_ERROR_KEY, true);
+            errorResponse.put(RETRYABLE_KEY,
+                    browserServiceConfig.getRetry().getRetryableStatusCodes().contains(e.getStatusCode().value()));
+            return errorResponse;
+        } catch (HttpClientErrorException e) {
+            // 4xx是请求本身的问题，实例正常应答，不计入剔除 (A 4xx is the request's fault; the instance answered, so it does not count toward ejection)
+            transportSucceeded = true;
+            log.warn("浏览器操作服务拒绝请求: {} (Browser operation service rejected the request: {})", e.getStatusCode(), e.getStatusCode());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "浏览器服务拒绝请求: " + e.getStatusCode());
             return errorResponse;
         } catch (RestClientException e) {
             // 处理REST客户端异常
@@ -332,6 +548,28 @@ public class BrowserServiceImpl implements BrowserService {
             errorResponse.put("success", false);
             errorResponse.put("message", "请求浏览器服务失败: " + e.getMessage() + " (Failed to request browser service)");
             return errorResponse;
+        } finally {
+            long elapsed = System.nanoTime() - startNanos;
+            browserInstancePool.release(instance, elapsed, transportSucceeded);
+            requestTimers.withTags("operation", operation != null ? operation : "none", "outcome", outcome).record(elapsed, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * 是否为建立连接阶段的失败：连接被拒、无路由、域名无法解析或连接超时
+     * (Whether the failure happened while connecting: refused, no route, unknown host or connect timeout)
+     */
+    static boolean isConnectFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+            if (cause instanceof SocketTimeoutException && cause.getMessage() != null
+                    && cause.getMessage().toLowerCase(Locale.ROOT).startsWith("connect")) {
+                return true;
+            }
         }
+        return false;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,69 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.foxx.digitaltwinai.model.CameraState;
+import com.foxx.digitaltwinai.operation.OperationHandler;
+import com.foxx.digitaltwinai.service.CameraStateService;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 场景相机状态服务实现，状态保存在本节点内存中
+ * (Scene Camera State Service Implementation keeping state in this node's memory)
+ *
+ * <p>仅用于 simple 单节点代理模式；多节点部署使用 {@link RedisCameraStateServiceImpl}，见 WebSocketRelayConfig。
+ * (Only used with the single-node simple broker; multi-node deployments use
+ * {@link RedisCameraStateServiceImpl}, see WebSocketRelayConfig.)</p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CameraStateServiceImpl implements CameraStateService {
+
+    /**
+     * WebSocket服务
+     * (WebSocket Service)
+     */
+    private final WebSocketService webSocketService;
+
+    /**
+     * 各场景的相机状态
+     * (Camera state per scene)
+     */
+    private final Map<String, CameraState> scenes = new ConcurrentHashMap<>();
+
+    @Override
+    public long apply(String sceneId, OperationHandler handler, String target, Map<String, Object> params) {
+        CameraState state = stateOf(sceneId);
+        // 在锁内发布，保证同一场景的增量按版本顺序进入代理
+        // (Publish under the lock so a scene's deltas reach the broker in version order)
+        synchronized (state) {
+            CameraState previous = state.copy();
+            handler.applyTo(state, target, params);
+            if (state.sameView(previous)) {
+                return state.getVersion();
+            }
+            state.setVersion(previous.getVersion() + 1);
+            webSocketService.sendCameraDelta(state.getSceneId(), state.deltaFrom(previous));
+            return state.getVersion();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getSnapshot(String sceneId) {
+        CameraState state = stateOf(sceneId);
+        synchronized (state) {
+            return state.toSnapshot();
+        }
+    }
+
+    private CameraState stateOf(String sceneId) {
+        return scenes.computeIfAbsent(CameraStateService.normalizeSceneId(sceneId), key -> {
+            CameraState state = new CameraState();
+            state.setSceneId(key);
+            return state;
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.foxx.digitaltwinai.config.WebSocketProperties;
+import com.foxx.digitaltwinai.model.ChatRequest;
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.service.ChatStreamListener;
+import com.foxx.digitaltwinai.service.ChatStreamService;
+import com.foxx.digitaltwinai.service.DifyService;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * STOMP聊天服务实现
+ * (STOMP Chat Service Implementation)
+ */
+@Slf4j
+@Service
+public class ChatStreamServiceImpl implements ChatStreamService {
+
+    /**
+     * Dify服务
+     * (Dify Service)
+     */
+    private final DifyService difyService;
+
+    /**
+     * WebSocket服务
+     * (WebSocket Service)
+     */
+    private final WebSocketService webSocketService;
+
+    /**
+     * 聊天执行线程池，队列满时拒绝新请求
+     * (Chat executor; new requests are rejected when its queue is full)
+     */
+    private final ThreadPoolExecutor executor;
+
+    private final Timer chatTimer;
+
+    private final Counter rejectedCounter;
+
+    public ChatStreamServiceImpl(DifyService difyService,
+                                 WebSocketService webSocketService,
+                                 WebSocketProperties webSocketProperties,
+                                 MeterRegistry meterRegistry) {
+        this.difyService = difyService;
+        this.webSocketService = webSocketService;
+
+        WebSocketProperties.Chat chat = webSocketProperties.getChat();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(chat.getConcurrency(), chat.getConcurrency(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(chat.getQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "stomp-chat-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.chatTimer = Timer.builder("digital_twin.api.latency")
+                .description("接口处理耗时 (Endpoint handling latency)")
+                .tag("endpoint", "stomp_chat")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("digital_twin.websocket.chat.rejected")
+                .description("队列已满被拒绝的STOMP聊天请求 (STOMP chat requests rejected because the queue was full)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void submit(String sessionId, String requestId, ChatRequest request) {
+        if (request == null) {
+            Map<String, Object> event = event("error", requestId);
+            event.put("content", "聊天请求不能为空 (Chat request cannot be empty)");
+            webSocketService.sendChatEvent(sessionId, event);
+            return;
+        }
+        try {
+            executor.execute(() -> process(sessionId, requestId, request));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("STOMP聊天请求过多，拒绝会话 {} 的请求 (Too many STOMP chat requests, rejecting session {})",
+                    sessionId, sessionId);
+            Map<String, Object> event = event("error", requestId);
+            event.put("content", "服务繁忙，请稍后重试 (Service busy, please retry later)");
+            webSocketService.sendChatEvent(sessionId, event);
+        }
+    }
+
+    private void process(String sessionId, String requestId, ChatRequest request) {
+        Timer.Sample sample = Timer.start();
+        try {
+            // 浏览器操作与日志按连接所属的会话路由，请求中的sessionId保留为Dify对话ID
+            // (Browser operations and logs follow the connection's session; the request's sessionId stays the Dify conversation ID)
+            ChatResponse response = difyService.sendChatMessage(request, sessionId, new ChatStreamListener() {
+                @Override
+                public void onDelta(String delta) {
+                    Map<String, Object> event = event("delta", requestId);
+                    event.put("content", delta);
+                    webSocketService.sendChatEvent(sessionId, event);
+                }
+
+                @Override
+                public void onAction(Map<String, Object> action) {
+                    Map<String, Object> event = event("action", requestId);
+                    event.put("action", action);
+                    webSocketService.sendChatEvent(sessionId, event);
+                }
+
+                @Override
+                public void onOperationResult(Map<String, Object> result) {
+                    Map<String, Object> event = event("result", requestId);
+                    event.put("result", result);
+                    webSocketService.sendChatEvent(sessionId, event);
+                }
+            });
+            Map<String, Object> event = event("done", requestId);
+            event.put("response", response);
+            webSocketService.sendChatEvent(sessionId, event);
+        } catch (Exception e) {
+            log.error("处理STOMP聊天请求时出错 (Error processing STOMP chat request)", e);
+            Map<String, Object> event = event("error", requestId);
+            event.put("content", "很抱歉，处理您的请求时出现了错误: " + e.getMessage());
+            webSocketService.sendChatEvent(sessionId, event);
+        } finally {
+            sample.stop(chatTimer);
+        }
+    }
+
+    private static Map<String, Object> event(String type, String requestId) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", type);
+        event.put("requestId", requestId);
+        event.put("timestamp", System.currentTimeMillis());
+        return event;
+    }
+
+    /**
+     * 关闭聊天线程池
+     * (Shut down the chat executor)
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
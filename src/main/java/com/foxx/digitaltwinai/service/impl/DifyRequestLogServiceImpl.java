@@ -1,30 +1,76 @@
 package com.foxx.digitaltwinai.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
 import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import com.foxx.digitaltwinai.model.RequestLogPage;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import com.foxx.digitaltwinai.model.StreamStats;
 import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
 import com.foxx.digitaltwinai.service.DifyRequestLogService;
+import com.foxx.digitaltwinai.service.log.AsyncRequestLogWriter;
+import com.foxx.digitaltwinai.service.log.DatabaseCircuit;
+import com.foxx.digitaltwinai.service.log.LogPayloadCodec;
+import com.foxx.digitaltwinai.service.log.RequestLogCaches;
+import com.foxx.digitaltwinai.service.log.RequestLogJournal;
+import com.foxx.digitaltwinai.service.log.RequestLogRollup;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 
 /**
- * Dify请求日志服务实现类
- * (Dify Request Log Service Implementation)
+ * Dify请求日志服务实现类，写入MySQL
+ * (Dify Request Log Service Implementation, backed by MySQL)
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "request-log", name = "store", havingValue = "database", matchIfMissing = true)
 public class DifyRequestLogServiceImpl implements DifyRequestLogService {
 
+    /**
+     * 单页最大条数，导出时也按此大小逐页读取
+     * (Largest page size; exports also read pages of this size)
+     */
+    static final int MAX_PAGE_SIZE = 500;
+
     private final DifyRequestLogRepository difyRequestLogRepository;
 
+    private final AsyncRequestLogWriter asyncRequestLogWriter;
+
+    private final RequestLogConfig requestLogConfig;
+
+    private final RequestLogJournal requestLogJournal;
+
+    private final DatabaseCircuit databaseCircuit;
+
+    private final ObjectMapper objectMapper;
+
+    private final RequestLogRollup requestLogRollup;
+
+    private final RequestLogCaches requestLogCaches;
+
+    private final LogPayloadCodec logPayloadCodec;
+
     @Override
     public DifyRequestLog saveLog(DifyRequestLog logEntity) {
         logEntity.setCreatedAt(LocalDateTime.now());
         DifyRequestLog saved = difyRequestLogRepository.save(logEntity);
+        requestLogCaches.onWritten(List.of(saved));
         log.info("保存Dify请求日志成功, ID: {}", saved.getId());
         return saved;
     }
@@ -36,7 +82,8 @@ public class DifyRequestLogServiceImpl implements DifyRequestLogService {
     @Override
     public DifyRequestLog recordRequest(String userInstruction, String requestContent, String responseContent,
                         Long responseTime, Integer status, String errorMessage,
-                        String operationType, String targetComponent) {
+                        String operationType, String targetComponent, HandlingPath handlingPath,
+                        StreamStats streamStats) {
         // 参数有效性验证
         try {
             // 防空检查 - 用户指令不能为空
@@ -54,6 +101,11 @@ public class DifyRequestLogServiceImpl implements DifyRequestLogService {
                 status = 0;  // 默认为失败状态
             }
             
+            // 错误信息截断到列长度 (Truncate the error message to the column length)
+            if (errorMessage != null && errorMessage.length() > 500) {
+                errorMessage = errorMessage.substring(0, 500);
+            }
+            
             // 创建并保存日志记录
             DifyRequestLog log = new DifyRequestLog();
             log.setUserInstruction(userInstruction);
@@ -64,9 +116,33 @@ public class DifyRequestLogServiceImpl implements DifyRequestLogService {
             log.setErrorMessage(errorMessage);
             log.setOperationType(operationType);
             log.setTargetComponent(targetComponent);
+            log.setHandlingPath(handlingPath);
+            log.applyStreamStats(streamStats);
             log.setCreatedAt(LocalDateTime.now());
             
-            return saveLog(log);
+            if (requestLogConfig.isAsync()) {
+                // 交给后台批量写入，ID在写入后才分配 (Hand off to the background writer; the ID is assigned once written)
+                asyncRequestLogWriter.submit(log);
+                return log;
+            }
+            // 数据库熔断期间直接写入本地，不等待连接超时 (Journal directly while the circuit is open instead of waiting for a connection timeout)
+            if (requestLogJournal.isEnabled() && !databaseCircuit.allowRequest() && requestLogJournal.append(log)) {
+                return log;
+            }
+            try {
+                DifyRequestLog saved = saveLog(log);
+                databaseCircuit.onSuccess();
+                requestLogRollup.record(saved);
+                return saved;
+            } catch (Exception e) {
+                if (requestLogJournal.isEnabled() && DatabaseCircuit.isConnectivityFailure(e)) {
+                    databaseCircuit.onFailure(e);
+                    if (requestLogJournal.append(log)) {
+                        return log;
+                    }
+                }
+                throw e;
+            }
         } catch (Exception e) {
             // 记录日志错误，但不影响调用方
             log.error("记录请求日志时出错: {}", e.getMessage(), e);
@@ -88,26 +164,135 @@ public class DifyRequestLogServiceImpl implements DifyRequestLogService {
     }
 
     @Override
+    @Deprecated
     public List<DifyRequestLog> getLogsByTimeRange(LocalDateTime start, LocalDateTime end) {
         log.debug("查询时间范围内的日志: {} 至 {}", start, end);
-        return difyRequestLogRepository.findByCreatedAtBetween(start, end);
+        return resolved(difyRequestLogRepository.findByCreatedAtBetween(start, end));
     }
 
     @Override
+    @Deprecated
     public List<DifyRequestLog> getLogsByOperationType(String operationType) {
         log.debug("查询操作类型的日志: {}", operationType);
-        return difyRequestLogRepository.findByOperationType(operationType);
+        return resolved(difyRequestLogRepository.findByOperationType(operationType));
     }
 
     @Override
+    @Deprecated
     public List<DifyRequestLog> getLogsByTargetComponent(String targetComponent) {
         log.debug("查询目标部件的日志: {}", targetComponent);
-        return difyRequestLogRepository.findByTargetComponent(targetComponent);
+        return resolved(difyRequestLogRepository.findByTargetComponent(targetComponent));
     }
 
     @Override
+    @Deprecated
     public List<DifyRequestLog> getFailedLogs() {
         log.debug("查询失败的请求日志");
-        return difyRequestLogRepository.findByStatus(0);
+        return resolved(difyRequestLogRepository.findByStatus(0));
+    }
+
+    @Override
+    @Caching(cacheable = {
+            // 首页随新日志变化，带游标的历史页不变，两者过期时间不同 (Head pages change with new logs and history pages do not, so their TTLs differ)
+            @Cacheable(cacheNames = RequestLogCaches.HEAD_PAGES, key = "@requestLogCaches.headPageKey(#query)",
+                    condition = "#query.cursor == null && @requestLogCaches.available"),
+            @Cacheable(cacheNames = RequestLogCaches.PAGES, key = "T(com.foxx.digitaltwinai.service.log.RequestLogCaches).pageKey(#query)",
+                    condition = "#query.cursor != null")
+    })
+    public RequestLogPage getLogPage(RequestLogQuery query) {
+        int limit = Math.max(1, Math.min(query.getLimit(), MAX_PAGE_SIZE));
+        Cursor cursor = Cursor.decode(query.getCursor());
+        List<DifyRequestLog> items = findPage(query, cursor, PageRequest.ofSize(limit));
+        String nextCursor = items.size() < limit ? null : Cursor.of(items.get(items.size() - 1)).encode();
+        return new RequestLogPage(items, nextCursor);
+    }
+
+    @Override
+    public long exportLogs(RequestLogQuery query, OutputStream out) throws IOException {
+        Pageable page = PageRequest.ofSize(MAX_PAGE_SIZE);
+        Cursor cursor = Cursor.decode(query.getCursor());
+        long exported = 0;
+        while (true) {
+            // 每页独立查询，不持有长事务和连接；open-in-view 已关闭，写出后实体即可回收
+            // (Each page is its own query with no long transaction or connection held; open-in-view is off, so entities can be collected once written)
+            List<DifyRequestLog> items = findPage(query, cursor, page);
+            for (DifyRequestLog item : items) {
+                out.write(objectMapper.writeValueAsBytes(item));
+                out.write('\n');
+            }
+            out.flush();
+            exported += items.size();
+            if (items.size() < MAX_PAGE_SIZE) {
+                return exported;
+            }
+            cursor = Cursor.of(items.get(items.size() - 1));
+        }
+    }
+
+    /**
+     * 查询一页并用一次批量查询还原其中的外置内容
+     * (Query one page and restore its offloaded content with one batched query)
+     */
+    private List<DifyRequestLog> findPage(RequestLogQuery query, Cursor cursor, Pageable page) {
+        return resolved(queryPage(query, cursor, page));
+    }
+
+    private List<DifyRequestLog> resolved(List<DifyRequestLog> items) {
+        logPayloadCodec.resolveReferences(items);
+        return items;
+    }
+
+    private List<DifyRequestLog> queryPage(RequestLogQuery query, Cursor cursor, Pageable page) {
+        int filters = (query.getStatus() != null ? 1 : 0)
+                + (query.getOperationType() != null ? 1 : 0)
+                + (query.getTargetComponent() != null ? 1 : 0);
+        if (filters > 1) {
+            throw new IllegalArgumentException("状态、操作类型、目标部件最多指定一个 (Specify at most one of status, operationType, targetComponent)");
+        }
+        LocalDateTime cursorTime = cursor != null ? cursor.createdAt() : null;
+        Long cursorId = cursor != null ? cursor.id() : null;
+        if (query.getStatus() != null) {
+            return difyRequestLogRepository.findPageByStatus(query.getStatus(),
+                    query.getFrom(), query.getTo(), cursorTime, cursorId, page);
+        }
+        if (query.getOperationType() != null) {
+            return difyRequestLogRepository.findPageByOperationType(query.getOperationType(),
+                    query.getFrom(), query.getTo(), cursorTime, cursorId, page);
+        }
+        if (query.getTargetComponent() != null) {
+            return difyRequestLogRepository.findPageByTargetComponent(query.getTargetComponent(),
+                    query.getFrom(), query.getTo(), cursorTime, cursorId, page);
+        }
+        return difyRequestLogRepository.findPage(query.getFrom(), query.getTo(), cursorTime, cursorId, page);
+    }
+
+    /**
+     * 分页游标：上一页最后一条的时间和ID
+     * (Page cursor: time and ID of the last row of the previous page)
+     */
+    record Cursor(LocalDateTime createdAt, Long id) {
+
+        static Cursor of(DifyRequestLog last) {
+            return new Cursor(last.getCreatedAt(), last.getId());
+        }
+
+        static Cursor decode(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf(',');
+                return new Cursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                        Long.parseLong(decoded.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("无效的分页游标 (Invalid page cursor)");
+            }
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((createdAt + "," + id).getBytes(StandardCharsets.UTF_8));
+        }
     }
-} 
\ No newline at end of file
+}
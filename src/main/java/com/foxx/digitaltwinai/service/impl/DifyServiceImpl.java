@@ -1,17 +1,31 @@
 package com.foxx.digitaltwinai.service.impl;
 
 import com.foxx.digitaltwinai.config.DifyApiConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
 import com.foxx.digitaltwinai.model.ChatRequest;
 import com.foxx.digitaltwinai.model.ChatResponse;
 import com.foxx.digitaltwinai.model.DifyRequest;
 import com.foxx.digitaltwinai.model.DifyResponse;
+import com.foxx.digitaltwinai.model.StreamStats;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
 import com.foxx.digitaltwinai.service.BrowserService;
+import com.foxx.digitaltwinai.service.ChatStreamListener;
 import com.foxx.digitaltwinai.service.DifyRequestLogService;
 import com.foxx.digitaltwinai.service.DifyService;
+import com.foxx.digitaltwinai.service.flight.ChatRequestEvent;
+import com.foxx.digitaltwinai.service.flight.DifyCallEvent;
+import com.foxx.digitaltwinai.service.flight.RequestLogWriteEvent;
+import com.foxx.digitaltwinai.service.flight.SlowRequestRecorder;
+import com.foxx.digitaltwinai.service.metrics.ChatPipelineMetrics;
+import com.foxx.digitaltwinai.service.metrics.DifyStreamMonitor;
 import com.foxx.digitaltwinai.util.HmacUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,12 +39,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Dify服务实现类
@@ -70,11 +89,53 @@ public class DifyServiceImpl implements DifyService {
      */
     private final BrowserService browserService;
     
+    /**
+     * 操作处理器注册表
+     * (Operation handler registry)
+     */
+    private final OperationRegistry operationRegistry;
+    
     /**
      * JSON对象映射器
      */
     private final ObjectMapper objectMapper;
     
+    /**
+     * 处理链路指标
+     * (Pipeline metrics)
+     */
+    private final ChatPipelineMetrics chatPipelineMetrics;
+    
+    /**
+     * 流式响应监控
+     * (Streaming response monitor)
+     */
+    private final DifyStreamMonitor difyStreamMonitor;
+    
+    /**
+     * 链路追踪
+     * (Tracer)
+     */
+    private final Tracer tracer;
+    
+    /**
+     * 慢请求飞行记录器
+     * (Slow-request flight recorder)
+     */
+    private final SlowRequestRecorder slowRequestRecorder;
+    
+    /**
+     * 当前线程正在处理的聊天请求事件，记录日志时补全处理路径和结果
+     * (Chat request event of the request on this thread; path and outcome are filled in when the log is recorded)
+     */
+    private static final ThreadLocal<ChatRequestEvent> CURRENT_CHAT_EVENT = new ThreadLocal<>();
+    
+    /**
+     * 当前线程正在处理的聊天请求的结果，请求结束时用于记录整次请求的耗时
+     * (Outcome of the chat request on this thread, used to record the whole request's latency when it ends)
+     */
+    private static final ThreadLocal<ChatOutcome> CURRENT_CHAT_OUTCOME = new ThreadLocal<>();
+    
     /**
      * 发送聊天消息
      * (Send Chat Message)
@@ -84,12 +145,67 @@ public class DifyServiceImpl implements DifyService {
      */
     @Override
     public ChatResponse sendChatMessage(ChatRequest request) {
+        return sendChatMessage(request, ChatStreamListener.NONE);
+    }
+    
+    @Override
+    public ChatResponse sendChatMessage(ChatRequest request, ChatStreamListener listener) {
+        return sendChatMessage(request, request != null ? request.getSessionId() : null, listener);
+    }
+    
+    @Override
+    public ChatResponse sendChatMessage(ChatRequest request, String sessionId, ChatStreamListener listener) {
+        // HTTP和WebSocket入口共用，WebSocket请求没有服务端span时这里即为根
+        // (Shared by the HTTP and WebSocket entry points; for WebSocket requests without a server span this is the root)
+        ChatRequestEvent event = new ChatRequestEvent();
+        event.begin();
+        CURRENT_CHAT_EVENT.set(event);
+        ChatOutcome outcome = new ChatOutcome();
+        CURRENT_CHAT_OUTCOME.set(outcome);
+        long started = System.nanoTime();
+        Span span = tracer.nextSpan().name("chat").start();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            if (sessionId != null) {
+                // 会话ID可用于接收该会话的私有消息，链路中只保留其摘要 (The session ID grants access to the session's private messages, so traces only keep a digest of it)
+                span.tag("session.hash", sessionHash(sessionId));
+            }
+            return handleChatMessage(request, sessionId, listener);
+        } catch (RuntimeException e) {
+            outcome.outcome = ChatPipelineMetrics.ERROR;
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+            CURRENT_CHAT_EVENT.remove();
+            CURRENT_CHAT_OUTCOME.remove();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            // 包含记录日志和监听器回调在内的端到端耗时，未记录日志的请求（如空消息）不计入
+            // (End-to-end latency including the record stage and listener callbacks; requests that never recorded
+            // a log, such as empty messages, are not counted)
+            if (outcome.path != null) {
+                chatPipelineMetrics.recordRequest(outcome.path, outcome.operationType, outcome.outcome, elapsedMillis);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.setSessionId(sessionId);
+                event.setMessageLength(request != null && request.getMessage() != null ? request.getMessage().length() : 0);
+                event.commit();
+            }
+            // 事件提交后再判断，转储中包含本次请求 (Checked after the commit so the dump contains this request)
+            slowRequestRecorder.onRequestFinished(elapsedMillis, sessionId);
+        }
+    }
+    
+    private ChatResponse handleChatMessage(ChatRequest request, String sessionId, ChatStreamListener listener) {
         long startTime = System.currentTimeMillis();
+        // 同一次聊天请求内相同的操作复用幂等键，避免回退到Dify后重复执行 (Reuse idempotency keys per chat request)
+        String requestId = UUID.randomUUID().toString();
         String requestJson = null;
         String responseJson = null;
         Map<String, Object> actionMap = null;
         String operationType = null;
         String targetComponent = null;
+        StreamStats streamStats = null;
         
         // 请求验证 - 防止空消息导致空指针异常
         if (request == null) {
@@ -114,10 +230,11 @@ public class DifyServiceImpl implements DifyService {
         // 先尝试本地解析指令
         if (difyApiConfig.getFallback().isEnabled()) {
             // 尝试本地解析指令
-            ChatResponse.ActionCommand actionCommand = parseInstruction(userMessage);
+            ChatResponse.ActionCommand actionCommand = parseInstruction(userMessage, HandlingPath.LOCAL);
             if (actionCommand != null) {
                 // 转换为Map用于后续操作
-                actionMap = convertActionCommandToMap(actionCommand);
+                actionMap = convertActionCommandToMap(actionCommand, requestId);
+                listener.onAction(actionMap);
                 
                 operationType = actionCommand.getType();
                 targetComponent = actionCommand.getTarget();
@@ -127,7 +244,8 @@ public class DifyServiceImpl implements DifyService {
                 
                 // 直接执行模型操作
                 try {
-                    Map<String, Object> operationResult = browserService.executeModelOperation(actionMap);
+                    Map<String, Object> operationResult = executeOperation(actionMap, sessionId, HandlingPath.LOCAL, operationType);
+                    listener.onOperationResult(operationResult);
                     boolean success = (boolean) operationResult.getOrDefault("success", false);
                     
                     if (success) {
@@ -136,7 +254,7 @@ public class DifyServiceImpl implements DifyService {
                         
                         // 记录成功请求（使用本地解析）
                         try {
-                            difyRequestLogService.recordRequest(
+                            recordRequest(
                                     userMessage,  // 确保用户指令不为空
                                     "本地解析指令: " + operationType,
                                     "直接执行操作: " + localResponse,
@@ -144,7 +262,9 @@ public class DifyServiceImpl implements DifyService {
                                     1, // 成功状态 (Success status)
                                     null,
                                     operationType,
-                                    targetComponent
+                                    targetComponent,
+                                    HandlingPath.LOCAL,
+                                    null
                             );
                         } catch (Exception e) {
                             log.error("记录请求日志失败", e);
@@ -203,13 +323,25 @@ public class DifyServiceImpl implements DifyService {
                 if ("streaming".equals(difyRequest.getResponseMode())) {
                     log.debug("使用流式响应模式 (Using streaming response mode)");
                     
-                    // 对于流式响应，我们需要获取所有消息块并合并结果
-                    // (For streaming responses, we need to get all message blocks and merge the results)
-                    String responseBody = restTemplate.postForObject(
-                            difyApiConfig.getChatMessagesUrl(),
-                            entity,
-                            String.class
-                    );
+                    // 对于流式响应，边读取边通知回答增量，读完后合并所有消息块
+                    // (For streaming responses, report answer deltas while reading, then merge all message blocks)
+                    DifyStreamMonitor.Tracker tracker = difyStreamMonitor.begin();
+                    Span difySpan = tracer.nextSpan().name("dify.chat_messages").tag("response_mode", "streaming").start();
+                    DifyCallEvent difyEvent = beginDifyCall("streaming", requestJson);
+                    String responseBody;
+                    try (Tracer.SpanInScope ignored = tracer.withSpan(difySpan)) {
+                        responseBody = readStream(entity, listener, tracker);
+                        difyEvent.setSuccess(true);
+                        difyEvent.setResponseBytes(utf8Length(responseBody));
+                    } catch (RuntimeException e) {
+                        difySpan.error(e);
+                        throw e;
+                    } finally {
+                        streamStats = tracker.finish();
+                        tagStreamStats(difySpan, streamStats);
+                        difySpan.end();
+                        commitDifyCall(difyEvent, streamStats);
+                    }
                     
                     if (responseBody != null && !responseBody.isEmpty()) {
                         log.debug("收到流式响应，长度为 (Received streaming response with length): {}", responseBody.length());
@@ -247,11 +379,27 @@ public class DifyServiceImpl implements DifyService {
                 } else {
                     // 对于非流式响应，直接使用常规方式解析
                     // (For non-streaming responses, parse in the regular way)
-                    response = restTemplate.postForObject(
-                    difyApiConfig.getChatMessagesUrl(),
-                    entity,
-                    DifyResponse.class
-            );
+                    long requestStarted = System.nanoTime();
+                    Span difySpan = tracer.nextSpan().name("dify.chat_messages").tag("response_mode", "blocking").start();
+                    DifyCallEvent difyEvent = beginDifyCall("blocking", requestJson);
+                    try (Tracer.SpanInScope ignored = tracer.withSpan(difySpan)) {
+                        response = restTemplate.postForObject(
+                                difyApiConfig.getChatMessagesUrl(),
+                                entity,
+                                DifyResponse.class
+                        );
+                        difyEvent.setSuccess(true);
+                        chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.DIFY_REQUEST, HandlingPath.DIFY, null,
+                                ChatPipelineMetrics.SUCCESS, System.nanoTime() - requestStarted);
+                    } catch (RuntimeException e) {
+                        chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.DIFY_REQUEST, HandlingPath.DIFY, null,
+                                ChatPipelineMetrics.ERROR, System.nanoTime() - requestStarted);
+                        difySpan.error(e);
+                        throw e;
+                    } finally {
+                        difySpan.end();
+                        commitDifyCall(difyEvent, null);
+                    }
                 }
             
             if (response == null) {
@@ -272,14 +420,16 @@ public class DifyServiceImpl implements DifyService {
                 
                 if (actionCommand != null) {
                     // 转换为Map用于后续操作
-                    actionMap = convertActionCommandToMap(actionCommand);
+                    actionMap = convertActionCommandToMap(actionCommand, requestId);
+                    listener.onAction(actionMap);
                     
                     operationType = actionCommand.getType();
                     targetComponent = actionCommand.getTarget();
                     
                     // 直接执行模型操作
                     try {
-                        Map<String, Object> operationResult = browserService.executeModelOperation(actionMap);
+                        Map<String, Object> operationResult = executeOperation(actionMap, sessionId, HandlingPath.DIFY, operationType);
+                        listener.onOperationResult(operationResult);
                         boolean success = (boolean) operationResult.getOrDefault("success", false);
                         
                         if (!success) {
@@ -312,6 +462,7 @@ public class DifyServiceImpl implements DifyService {
             } catch (ResourceAccessException e) {
                 log.warn("Dify API连接失败，将使用本地回退逻辑 (Dify API connection failed, will use local fallback logic)", e);
                 shouldFallback = true;
+                chatPipelineMetrics.recordFallback("connection");
                 // 继续执行，让本地回退逻辑处理
             } catch (Exception e) {
                 if (e.getMessage() != null && e.getMessage().contains("company_name is required")) {
@@ -323,23 +474,26 @@ public class DifyServiceImpl implements DifyService {
                 } else {
                     log.warn("Dify API调用失败，将使用本地回退逻辑 (Dify API call failed, will use local fallback logic)", e);
                     shouldFallback = true;
+                    chatPipelineMetrics.recordFallback("error");
                     // 继续执行，让本地回退逻辑处理
                 }
             }
             
             // 若Dify API调用失败，启用本地回退逻辑
             if (shouldFallback && difyApiConfig.getFallback().isAutoRetryOnFailure()) {
-                ChatResponse.ActionCommand actionCommand = parseInstruction(userMessage);
+                ChatResponse.ActionCommand actionCommand = parseInstruction(userMessage, HandlingPath.FALLBACK);
                 if (actionCommand != null) {
                     // 转换为Map用于后续操作
-                    actionMap = convertActionCommandToMap(actionCommand);
+                    actionMap = convertActionCommandToMap(actionCommand, requestId);
+                    listener.onAction(actionMap);
                     
                     operationType = actionCommand.getType();
                     targetComponent = actionCommand.getTarget();
                     
                     // 直接执行模型操作
                     try {
-                        Map<String, Object> operationResult = browserService.executeModelOperation(actionMap);
+                        Map<String, Object> operationResult = executeOperation(actionMap, sessionId, HandlingPath.FALLBACK, operationType);
+                        listener.onOperationResult(operationResult);
                         boolean success = (boolean) operationResult.getOrDefault("success", false);
                         
                         if (success) {
@@ -352,7 +506,7 @@ public class DifyServiceImpl implements DifyService {
                             
                             // 记录成功请求（使用本地回退）
                             try {
-                                difyRequestLogService.recordRequest(
+                                recordRequest(
                                         userMessage,
                                         requestJson != null ? requestJson : "无请求数据",
                                         "使用本地回退逻辑: " + localResponse,
@@ -360,7 +514,9 @@ public class DifyServiceImpl implements DifyService {
                                         1, // 成功状态 (Success status)
                                         null,
                                         operationType,
-                                        targetComponent
+                                        targetComponent,
+                                        HandlingPath.FALLBACK,
+                                        streamStats
                                 );
                             } catch (Exception e) {
                                 log.error("记录请求日志失败", e);
@@ -385,7 +541,7 @@ public class DifyServiceImpl implements DifyService {
             
             // 记录成功请求 (Record successful request)
             try {
-                difyRequestLogService.recordRequest(
+                recordRequest(
                         userMessage,
                         requestJson != null ? requestJson : "无请求数据",
                         responseJson != null ? responseJson : "无响应数据",
@@ -393,7 +549,9 @@ public class DifyServiceImpl implements DifyService {
                         1, // 成功状态 (Success status)
                         null,
                         operationType,
-                        targetComponent
+                        targetComponent,
+                        HandlingPath.DIFY,
+                        streamStats
                 );
             } catch (Exception e) {
                 log.error("记录请求日志失败", e);
@@ -428,19 +586,22 @@ public class DifyServiceImpl implements DifyService {
             }
             
             log.warn("Dify服务调用出错，尝试使用本地回退逻辑 (Dify service call error, trying local fallback logic)", e);
+            chatPipelineMetrics.recordFallback("error");
             
             // 尝试本地解析指令
-            ChatResponse.ActionCommand actionCommand = parseInstruction(userMessage);
+            ChatResponse.ActionCommand actionCommand = parseInstruction(userMessage, HandlingPath.FALLBACK);
             if (actionCommand != null) {
                 // 转换为Map用于后续操作
-                actionMap = convertActionCommandToMap(actionCommand);
+                actionMap = convertActionCommandToMap(actionCommand, requestId);
+                listener.onAction(actionMap);
                 
                 operationType = actionCommand.getType();
                 targetComponent = actionCommand.getTarget();
                 
                 // 直接执行模型操作
                 try {
-                    Map<String, Object> operationResult = browserService.executeModelOperation(actionMap);
+                    Map<String, Object> operationResult = executeOperation(actionMap, sessionId, HandlingPath.FALLBACK, operationType);
+                    listener.onOperationResult(operationResult);
                     boolean success = (boolean) operationResult.getOrDefault("success", false);
                     
                     if (success) {
@@ -452,7 +613,7 @@ public class DifyServiceImpl implements DifyService {
                         
                         // 记录成功请求（使用本地回退）
                         try {
-                            difyRequestLogService.recordRequest(
+                            recordRequest(
                                     userMessage,
                                     requestJson != null ? requestJson : "无请求数据",
                                     "使用本地回退逻辑: " + localResponse,
@@ -460,7 +621,9 @@ public class DifyServiceImpl implements DifyService {
                                     1, // 成功状态 (Success status)
                                     null,
                                     operationType,
-                                    targetComponent
+                                    targetComponent,
+                                    HandlingPath.FALLBACK,
+                                    streamStats
                             );
                         } catch (Exception ex) {
                             log.error("记录请求日志失败", ex);
@@ -482,6 +645,24 @@ public class DifyServiceImpl implements DifyService {
                 }
             }
             
+            // 记录失败请求，供成功率统计 (Record the failed request so it counts toward the success rate)
+            try {
+                recordRequest(
+                        userMessage,
+                        requestJson != null ? requestJson : "无请求数据",
+                        responseJson,
+                        System.currentTimeMillis() - startTime,
+                        0, // 失败状态 (Failed status)
+                        e.getMessage(),
+                        operationType,
+                        targetComponent,
+                        HandlingPath.DIFY,
+                        streamStats
+                );
+            } catch (Exception ex) {
+                log.error("记录请求日志失败", ex);
+            }
+            
             // 如果本地解析也失败，则继续抛出异常
             throw e;
         }
@@ -492,93 +673,140 @@ public class DifyServiceImpl implements DifyService {
      * (Parse user instruction locally)
      * 
      * @param instruction 用户指令 (User instruction)
+     * @param path 解析所处的处理路径 (Handling path the parse happens on)
      * @return 操作指令 (Action command)
      */
-    private ChatResponse.ActionCommand parseInstruction(String instruction) {
+    private ChatResponse.ActionCommand parseInstruction(String instruction, HandlingPath path) {
         // 防空检查
         if (instruction == null || instruction.isEmpty()) {
             log.warn("用户指令为空");
             return null;
         }
         
-        instruction = instruction.toLowerCase().trim();
-        
-        // 重置视图
-        if (instruction.contains("重置") || instruction.contains("reset")) {
-            return ChatResponse.ActionCommand.builder()
-                    .type("reset")
-                    .build();
+        // 依次交给各操作处理器解析 (Let each operation handler try to parse in turn)
+        long started = System.nanoTime();
+        ChatResponse.ActionCommand command = operationRegistry.parseInstruction(instruction);
+        chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.PARSE, path,
+                command != null ? command.getType() : null,
+                command != null ? ChatPipelineMetrics.SUCCESS : ChatPipelineMetrics.FAILURE, System.nanoTime() - started);
+        chatPipelineMetrics.recordLocalParse(command != null);
+        return command;
+    }
+    
+    /**
+     * 通过浏览器服务执行操作并记录耗时
+     * (Execute an operation through the browser service and record its latency)
+     */
+    private Map<String, Object> executeOperation(Map<String, Object> actionMap, String sessionId,
+                                                 HandlingPath path, String operationType) {
+        long started = System.nanoTime();
+        try {
+            Map<String, Object> result = browserService.executeModelOperation(actionMap, sessionId);
+            chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.BROWSER, path, operationType,
+                    Boolean.TRUE.equals(result.get("success")) ? ChatPipelineMetrics.SUCCESS : ChatPipelineMetrics.FAILURE,
+                    System.nanoTime() - started);
+            return result;
+        } catch (RuntimeException e) {
+            chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.BROWSER, path, operationType,
+                    ChatPipelineMetrics.ERROR, System.nanoTime() - started);
+            throw e;
         }
-        
-        // 聚焦操作
-        Pattern focusPattern = Pattern.compile("聚焦(?:到|)?(\\w+[\\d_]*)", Pattern.CASE_INSENSITIVE);
-        Matcher focusMatcher = focusPattern.matcher(instruction);
-        if (focusMatcher.find()) {
-            String target = focusMatcher.group(1);
-            return ChatResponse.ActionCommand.builder()
-                    .type("focus")
-                    .target(target)
-                    .build();
+    }
+    
+    /**
+     * 记录请求日志和日志阶段的耗时，整次请求的耗时在请求结束时记录
+     * (Record the request log and the record stage's latency; the whole request's latency is recorded when it ends)
+     */
+    private void recordRequest(String userInstruction, String requestContent, String responseContent,
+                               Long responseTime, Integer status, String errorMessage,
+                               String operationType, String targetComponent, HandlingPath handlingPath,
+                               StreamStats streamStats) {
+        ChatOutcome outcome = CURRENT_CHAT_OUTCOME.get();
+        if (outcome != null) {
+            outcome.path = handlingPath;
+            outcome.operationType = operationType;
+            outcome.outcome = Integer.valueOf(1).equals(status) ? ChatPipelineMetrics.SUCCESS : ChatPipelineMetrics.FAILURE;
         }
-        
-        // 旋转操作
-        Pattern rotatePattern = Pattern.compile("(?:向|)(左|右)(?:旋转|)(?:(\\d+)(?:度|))?", Pattern.CASE_INSENSITIVE);
-        Matcher rotateMatcher = rotatePattern.matcher(instruction);
-        if (rotateMatcher.find() || instruction.contains("旋转")) {
-            String direction = "left"; // 默认方向
-            int angle = 30; // 默认角度
-            
-            if (rotateMatcher.find()) {
-                direction = rotateMatcher.group(1).equals("右") ? "right" : "left";
-                if (rotateMatcher.group(2) != null) {
-                    try {
-                        angle = Integer.parseInt(rotateMatcher.group(2));
-                    } catch (NumberFormatException e) {
-                        // 使用默认角度
-                    }
-                }
+        Span chatSpan = tracer.currentSpan();
+        if (chatSpan != null) {
+            chatSpan.tag("handling_path", handlingPath.name());
+            if (operationType != null) {
+                chatSpan.tag("operation.type", operationType);
             }
-            
-            Map<String, Object> params = new HashMap<>();
-            params.put("direction", direction);
-            params.put("angle", angle);
-            
-            return ChatResponse.ActionCommand.builder()
-                    .type("rotate")
-                    .params(params)
-                    .build();
         }
-        
-        // 缩放操作
-        Pattern zoomPattern = Pattern.compile("(?:放大|缩小)(\\d+(?:\\.\\d+)?)(?:倍|)", Pattern.CASE_INSENSITIVE);
-        Matcher zoomMatcher = zoomPattern.matcher(instruction);
-        if (zoomMatcher.find() || instruction.contains("放大") || instruction.contains("缩小")) {
-            float scale = 1.5f; // 默认比例
-            
-            if (zoomMatcher.find()) {
-                try {
-                    scale = Float.parseFloat(zoomMatcher.group(1));
-                } catch (NumberFormatException e) {
-                    // 使用默认比例
-                }
-            }
-            
-            // 如果是缩小，将比例设为小于1
-            if (instruction.contains("缩小") && scale > 1) {
-                scale = 1 / scale;
+        ChatRequestEvent chatEvent = CURRENT_CHAT_EVENT.get();
+        if (chatEvent != null) {
+            chatEvent.setHandlingPath(handlingPath.name());
+            chatEvent.setOperationType(operationType);
+            chatEvent.setSuccess(Integer.valueOf(1).equals(status));
+        }
+        long started = System.nanoTime();
+        Span span = tracer.nextSpan().name("request_log.record").start();
+        RequestLogWriteEvent writeEvent = new RequestLogWriteEvent();
+        writeEvent.begin();
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+            DifyRequestLog saved = difyRequestLogService.recordRequest(userInstruction, requestContent, responseContent,
+                    responseTime, status, errorMessage, operationType, targetComponent, handlingPath, streamStats);
+            writeEvent.setWritten(saved != null ? 1 : 0);
+            chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.RECORD, handlingPath, operationType,
+                    saved != null ? ChatPipelineMetrics.SUCCESS : ChatPipelineMetrics.FAILURE, System.nanoTime() - started);
+        } catch (RuntimeException e) {
+            chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.RECORD, handlingPath, operationType,
+                    ChatPipelineMetrics.ERROR, System.nanoTime() - started);
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+            writeEvent.end();
+            if (writeEvent.shouldCommit()) {
+                writeEvent.setPath("record");
+                writeEvent.setRows(1);
+                writeEvent.commit();
             }
-            
-            Map<String, Object> params = new HashMap<>();
-            params.put("scale", scale);
-            
-            return ChatResponse.ActionCommand.builder()
-                    .type("zoom")
-                    .params(params)
-                    .build();
         }
-        
-        // 没有匹配的指令
-        return null;
+    }
+    
+    private static DifyCallEvent beginDifyCall(String responseMode, String requestJson) {
+        DifyCallEvent event = new DifyCallEvent();
+        if (event.isEnabled()) {
+            event.setResponseMode(responseMode);
+            event.setRequestBytes(utf8Length(requestJson));
+        }
+        event.begin();
+        return event;
+    }
+    
+    private static void commitDifyCall(DifyCallEvent event, StreamStats stats) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        if (stats != null) {
+            event.setChunkCount(stats.getChunkCount() != null ? stats.getChunkCount() : 0);
+            event.setTtftMs(stats.getTtftMs() != null ? stats.getTtftMs() : 0);
+            event.setStalled(stats.isStalled());
+        }
+        event.commit();
+    }
+    
+    private static long utf8Length(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0;
+    }
+    
+    /**
+     * 把流式响应统计写入span标签
+     * (Copy streaming statistics onto span tags)
+     */
+    private static void tagStreamStats(Span span, StreamStats stats) {
+        if (stats == null) {
+            return;
+        }
+        if (stats.getTtftMs() != null) {
+            span.tag("stream.ttft_ms", stats.getTtftMs());
+        }
+        span.tag("stream.chunks", stats.getChunkCount());
+        span.tag("stream.max_chunk_gap_ms", stats.getMaxChunkGapMs());
+        span.tag("stream.stalled", stats.isStalled());
     }
     
     /**
@@ -589,40 +817,7 @@ public class DifyServiceImpl implements DifyService {
      * @return 响应文本 (Response text)
      */
     private String generateLocalResponse(ChatResponse.ActionCommand actionCommand) {
-        if (actionCommand == null) {
-            return "很抱歉，我无法理解您的指令。";
-        }
-        
-        switch (actionCommand.getType()) {
-            case "reset":
-                return "已为您重置视图，恢复到默认状态。";
-            case "focus":
-                return "已聚焦到" + actionCommand.getTarget() + "区域，您可以近距离查看该区域的细节。";
-            case "rotate":
-                Map<String, Object> rotateParams = actionCommand.getParams();
-                String direction = (String) rotateParams.getOrDefault("direction", "left");
-                Object angle = rotateParams.getOrDefault("angle", 30);
-                return "已将视图向" + (direction.equals("left") ? "左" : "右") + "旋转" + angle + "度。";
-            case "zoom":
-                Map<String, Object> zoomParams = actionCommand.getParams();
-                Object scale = zoomParams.getOrDefault("scale", 1.5);
-                float scaleValue = 0;
-                if (scale instanceof Integer) {
-                    scaleValue = ((Integer) scale).floatValue();
-                } else if (scale instanceof Float) {
-                    scaleValue = (Float) scale;
-                } else if (scale instanceof Double) {
-                    scaleValue = ((Double) scale).floatValue();
-                }
-                
-                if (scaleValue > 1) {
-                    return "已将视图放大" + scaleValue + "倍。";
-                } else {
-                    return "已将视图缩小至原来的" + scaleValue + "倍。";
-                }
-            default:
-                return "操作已执行。";
-        }
+        return operationRegistry.generateLocalResponse(actionCommand);
     }
     
     /**
@@ -719,9 +914,10 @@ public class DifyServiceImpl implements DifyService {
      * (Convert ActionCommand to Map)
      *
      * @param actionCommand 操作指令对象
+     * @param requestId 聊天请求ID，用于派生幂等键
      * @return 操作指令Map
      */
-    private Map<String, Object> convertActionCommandToMap(ChatResponse.ActionCommand actionCommand) {
+    private Map<String, Object> convertActionCommandToMap(ChatResponse.ActionCommand actionCommand, String requestId) {
         if (actionCommand == null) {
             return null;
         }
@@ -734,9 +930,119 @@ public class DifyServiceImpl implements DifyService {
         if (actionCommand.getParams() != null) {
             actionMap.put("params", actionCommand.getParams());
         }
+        // 幂等键由请求ID和操作内容派生，同一请求内的相同操作只执行一次
+        // (Key derived from request ID and operation content so the same operation runs once per request)
+        actionMap.put(BrowserServiceImpl.IDEMPOTENCY_KEY_FIELD, idempotencyKey(objectMapper, requestId, actionCommand));
         return actionMap;
     }
     
+    /**
+     * 按请求ID和操作内容生成幂等键：目标和参数按键排序序列化后取SHA-256，与Map的遍历顺序无关，不同操作不会碰撞
+     * (Build the idempotency key from the request ID and the operation content: target and parameters are
+     * serialized with sorted keys and hashed with SHA-256, so the key is independent of map order and
+     * different operations do not collide)
+     */
+    static String idempotencyKey(ObjectMapper objectMapper, String requestId, ChatResponse.ActionCommand actionCommand) {
+        Map<String, Object> content = new HashMap<>();
+        content.put("target", actionCommand.getTarget());
+        content.put("params", actionCommand.getParams());
+        try {
+            byte[] canonical = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                    .writeValueAsBytes(content);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical);
+            return requestId + ":" + actionCommand.getType() + ":" + HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            // 无法序列化时每次生成新键，宁可重复执行也不误判为重复 (When serialization fails use a fresh key: rather run twice than drop a distinct operation)
+            log.warn("生成幂等键失败: {} (Failed to build idempotency key: {})", e.getMessage(), e.getMessage());
+            return requestId + ":" + actionCommand.getType() + ":" + UUID.randomUUID();
+        }
+    }
+    
+    /**
+     * 会话ID的SHA-256前16位十六进制，足以在链路间关联同一会话，又不能还原出会话ID
+     * (First 16 hex digits of the session ID's SHA-256: enough to correlate one session across traces without
+     * revealing the session ID)
+     */
+    static String sessionHash(String sessionId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sessionId.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 逐行读取Dify流式响应，把每个 answer 片段通知给监听器，并返回完整的响应文本
+     * (Read the Dify streaming response line by line, report each answer chunk to the listener and
+     * return the full response text)
+     *
+     * @param entity 请求实体 (Request entity)
+     * @param listener 增量事件监听器 (Incremental event listener)
+     * @param tracker 流式响应跟踪器 (Stream tracker)
+     * @return 完整的流式响应文本 (Full streaming response text)
+     */
+    private String readStream(HttpEntity<DifyRequest> entity, ChatStreamListener listener,
+                              DifyStreamMonitor.Tracker tracker) {
+        long started = System.nanoTime();
+        long[] firstByte = {0};
+        try {
+            String result = restTemplate.execute(difyApiConfig.getChatMessagesUrl(), HttpMethod.POST,
+                restTemplate.httpEntityCallback(entity), response -> {
+                    // 进入回调时已收到响应头 (Response headers have arrived once the callback runs)
+                    firstByte[0] = System.nanoTime();
+                    chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.DIFY_FIRST_BYTE, HandlingPath.DIFY, null,
+                            ChatPipelineMetrics.SUCCESS, firstByte[0] - started);
+                    StringBuilder body = new StringBuilder();
+                    try (BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            body.append(line).append('\n');
+                            if (line.startsWith("data: ")) {
+                                notifyDelta(line.substring("data: ".length()), listener, tracker);
+                            }
+                        }
+                    }
+                    return body.toString();
+                });
+            chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.DIFY_STREAM, HandlingPath.DIFY, null,
+                    ChatPipelineMetrics.SUCCESS, System.nanoTime() - firstByte[0]);
+            return result;
+        } catch (RuntimeException e) {
+            long now = System.nanoTime();
+            if (firstByte[0] == 0) {
+                chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.DIFY_FIRST_BYTE, HandlingPath.DIFY, null,
+                        ChatPipelineMetrics.ERROR, now - started);
+            } else {
+                chatPipelineMetrics.recordStage(ChatPipelineMetrics.Stage.DIFY_STREAM, HandlingPath.DIFY, null,
+                        ChatPipelineMetrics.ERROR, now - firstByte[0]);
+            }
+            throw e;
+        }
+    }
+    
+    private void notifyDelta(String chunk, ChatStreamListener listener, DifyStreamMonitor.Tracker tracker) {
+        try {
+            JsonNode jsonNode = objectMapper.readTree(chunk);
+            if (jsonNode.hasNonNull("answer")) {
+                String answerPart = jsonNode.get("answer").asText();
+                if (!answerPart.isEmpty()) {
+                    tracker.onChunk(answerPart);
+                    listener.onDelta(answerPart);
+                }
+            }
+            // 结束事件携带token用量 (The end event carries token usage)
+            JsonNode completionTokens = jsonNode.path("metadata").path("usage").path("completion_tokens");
+            if (completionTokens.isNumber()) {
+                tracker.onUsage(completionTokens.asInt());
+            }
+        } catch (Exception e) {
+            // 非JSON数据行（如ping）忽略 (Ignore non-JSON data lines such as pings)
+            log.trace("忽略无法解析的流式数据行 (Ignoring unparseable stream line): {}", chunk);
+        }
+    }
+    
     /**
      * 从流式响应中提取最后一个有效的消息对象
      * (Extract the last valid message object from streaming response)
@@ -878,4 +1184,17 @@ public class DifyServiceImpl implements DifyService {
         
         return null;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 聊天请求的处理路径和结果，记录日志时填写
+     * (Handling path and outcome of a chat request, filled in when the log is recorded)
+     */
+    private static final class ChatOutcome {
+        
+        private HandlingPath path;
+        
+        private String operationType;
+        
+        private String outcome;
+    }
+}
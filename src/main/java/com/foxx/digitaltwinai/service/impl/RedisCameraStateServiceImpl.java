@@ -0,0 +1,112 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.model.CameraState;
+import com.foxx.digitaltwinai.operation.OperationHandler;
+import com.foxx.digitaltwinai.service.CameraStateService;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 场景相机状态服务实现，状态保存在Redis中，供多节点共享
+ * (Scene Camera State Service Implementation keeping state in Redis, shared by all nodes)
+ *
+ * <p>每个场景一个哈希，包含 version 与 state（JSON）。更新时读取状态、在本地应用操作，再用脚本
+ * 按版本号比较并写入；版本已被其他节点推进时重新读取重试，保证各节点看到同一个递增的版本序列。
+ * (One hash per scene holding version and state (JSON). An update reads the state, applies the
+ * operation locally and writes it back with a compare-and-set script on the version; when another node
+ * has moved the version on, it re-reads and retries, so every node sees one increasing version sequence.)</p>
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RedisCameraStateServiceImpl implements CameraStateService {
+
+    /**
+     * 版本号一致时写入新状态
+     * (Write the new state only when the version still matches)
+     */
+    static final RedisScript<Long> COMPARE_AND_SET = new DefaultRedisScript<>(
+            "if (redis.call('HGET', KEYS[1], 'version') or '0') == ARGV[1] then "
+                    + "redis.call('HSET', KEYS[1], 'version', ARGV[2], 'state', ARGV[3]) return 1 end return 0",
+            Long.class);
+
+    static final String VERSION_FIELD = "version";
+
+    static final String STATE_FIELD = "state";
+
+    /**
+     * 版本冲突时的最大重试次数
+     * (Maximum retries on version conflicts)
+     */
+    private static final int MAX_ATTEMPTS = 16;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final WebSocketService webSocketService;
+
+    /**
+     * 键前缀
+     * (Key prefix)
+     */
+    private final String keyPrefix;
+
+    @Override
+    public long apply(String sceneId, OperationHandler handler, String target, Map<String, Object> params) {
+        String id = CameraStateService.normalizeSceneId(sceneId);
+        String key = keyPrefix + id;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            CameraState previous = load(id, key);
+            CameraState state = previous.copy();
+            handler.applyTo(state, target, params);
+            if (state.sameView(previous)) {
+                return previous.getVersion();
+            }
+            state.setVersion(previous.getVersion() + 1);
+            Long written = redisTemplate.execute(COMPARE_AND_SET, List.of(key),
+                    String.valueOf(previous.getVersion()), String.valueOf(state.getVersion()), write(state));
+            if (written != null && written == 1L) {
+                webSocketService.sendCameraDelta(id, state.deltaFrom(previous));
+                return state.getVersion();
+            }
+        }
+        throw new IllegalStateException("相机状态更新冲突过多 (Too many conflicting camera state updates): " + id);
+    }
+
+    @Override
+    public Map<String, Object> getSnapshot(String sceneId) {
+        String id = CameraStateService.normalizeSceneId(sceneId);
+        return load(id, keyPrefix + id).toSnapshot();
+    }
+
+    private CameraState load(String id, String key) {
+        Object json = redisTemplate.opsForHash().get(key, STATE_FIELD);
+        if (json != null) {
+            try {
+                return objectMapper.readValue(json.toString(), CameraState.class);
+            } catch (JsonProcessingException e) {
+                log.warn("相机状态无法解析，按初始状态处理: {} (Unreadable camera state, treating as initial: {})", id, id);
+            }
+        }
+        CameraState state = new CameraState();
+        state.setSceneId(id);
+        return state;
+    }
+
+    private String write(CameraState state) {
+        try {
+            return objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.foxx.digitaltwinai.service.RequestLogStatsService;
+import com.foxx.digitaltwinai.service.log.LatencyHistogram;
+import com.foxx.digitaltwinai.service.log.RequestLogCaches;
+import com.foxx.digitaltwinai.service.log.RequestLogRollup;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 请求日志统计服务实现类
+ * (Request Log Statistics Service Implementation)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RequestLogStatsServiceImpl implements RequestLogStatsService {
+
+    /**
+     * 分钟粒度最大查询范围
+     * (Largest range for minute granularity)
+     */
+    static final Duration MAX_MINUTE_RANGE = Duration.ofDays(1);
+
+    /**
+     * 小时粒度最大查询范围
+     * (Largest range for hour granularity)
+     */
+    static final Duration MAX_HOUR_RANGE = Duration.ofDays(90);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Cacheable(cacheNames = RequestLogCaches.STATS,
+            key = "@requestLogCaches.statsKey(#granularity, #from, #to, #operationType, #handlingPath)",
+            condition = "@requestLogCaches.available")
+    public Map<String, Object> getStats(RequestLogRollup.Granularity granularity, LocalDateTime from, LocalDateTime to,
+                                        String operationType, String handlingPath) {
+        boolean minute = granularity == RequestLogRollup.Granularity.MINUTE;
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(minute ? Duration.ofHours(1) : Duration.ofDays(1));
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("开始时间必须早于结束时间 (from must be before to)");
+        }
+        Duration maxRange = minute ? MAX_MINUTE_RANGE : MAX_HOUR_RANGE;
+        if (Duration.between(start, end).compareTo(maxRange) > 0) {
+            throw new IllegalArgumentException("查询范围过大，" + granularity + " 粒度最多 " + maxRange.toDays()
+                    + " 天 (Range too large for " + granularity + " granularity)");
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT bucket_start, operation_type, handling_path, request_count, "
+                + "success_count, latency_sum, latency_max, " + String.join(", ", LatencyHistogram.COLUMNS)
+                + " FROM request_log_rollups WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?");
+        List<Object> args = new ArrayList<>(List.of(granularity.name(), Timestamp.valueOf(start), Timestamp.valueOf(end)));
+        if (operationType != null) {
+            sql.append(" AND operation_type = ?");
+            args.add(operationType);
+        }
+        if (handlingPath != null) {
+            sql.append(" AND handling_path = ?");
+            args.add(handlingPath);
+        }
+
+        Map<LocalDateTime, Stats> buckets = new TreeMap<>();
+        Map<String, Stats> breakdown = new TreeMap<>();
+        Stats total = new Stats();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Stats row = Stats.fromRow(rs);
+            LocalDateTime bucket = rs.getTimestamp("bucket_start").toLocalDateTime();
+            String group = rs.getString("operation_type") + "|" + rs.getString("handling_path");
+            buckets.computeIfAbsent(bucket, b -> new Stats()).merge(row);
+            breakdown.computeIfAbsent(group, g -> new Stats()).merge(row);
+            total.merge(row);
+        }, args.toArray());
+
+        List<Map<String, Object>> series = new ArrayList<>(buckets.size());
+        buckets.forEach((bucket, stats) -> {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("bucketStart", bucket.toString());
+            point.putAll(stats.toMap());
+            series.add(point);
+        });
+        List<Map<String, Object>> groups = new ArrayList<>(breakdown.size());
+        breakdown.forEach((group, stats) -> {
+            int separator = group.lastIndexOf('|');
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("operationType", group.substring(0, separator));
+            item.put("handlingPath", group.substring(separator + 1));
+            item.putAll(stats.toMap());
+            groups.add(item);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", true);
+        result.put("granularity", granularity.name());
+        result.put("from", start.toString());
+        result.put("to", end.toString());
+        result.put("total", total.toMap());
+        result.put("buckets", series);
+        result.put("breakdown", groups);
+        return result;
+    }
+
+    /**
+     * 可合并的统计值
+     * (Mergeable statistics)
+     */
+    static final class Stats {
+
+        private long count;
+
+        private long success;
+
+        private long latencySum;
+
+        private long latencyMax;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        static Stats fromRow(ResultSet rs) throws SQLException {
+            Stats stats = new Stats();
+            stats.count = rs.getLong("request_count");
+            stats.success = rs.getLong("success_count");
+            stats.latencySum = rs.getLong("latency_sum");
+            stats.latencyMax = rs.getLong("latency_max");
+            long[] counts = new long[LatencyHistogram.COLUMNS.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = rs.getLong(LatencyHistogram.COLUMNS[i]);
+            }
+            stats.histogram.merge(new LatencyHistogram(counts));
+            return stats;
+        }
+
+        void merge(Stats other) {
+            count += other.count;
+            success += other.success;
+            latencySum += other.latencySum;
+            latencyMax = Math.max(latencyMax, other.latencyMax);
+            histogram.merge(other.histogram);
+        }
+
+        Map<String, Object> toMap() {
+            long measured = histogram.total();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count);
+            map.put("successRate", count > 0 ? (double) success / count : null);
+            map.put("avgLatency", measured > 0 ? latencySum / measured : null);
+            map.put("p50", histogram.percentile(0.5, latencyMax));
+            map.put("p95", histogram.percentile(0.95, latencyMax));
+            map.put("p99", histogram.percentile(0.99, latencyMax));
+            map.put("maxLatency", measured > 0 ? latencyMax : null);
+            return map;
+        }
+    }
+}
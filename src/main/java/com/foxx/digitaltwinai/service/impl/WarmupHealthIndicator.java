@@ -0,0 +1,32 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.foxx.digitaltwinai.service.WarmupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 预热与必需依赖的健康指标，名称为 warmup，纳入 /health/readiness 分组
+ * (Health indicator for warm-up and required dependencies, named warmup and included in the /health/readiness group)
+ *
+ * <p>就绪判断直接读取预热结果，不依赖可用性事件的发布顺序。
+ * (Readiness is read straight from the warm-up result and does not depend on the order in which availability
+ * events are published.)</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final WarmupService warmupService;
+
+    @Override
+    public Health health() {
+        Map<String, Object> report = warmupService.getReadinessReport();
+        Health.Builder builder = Boolean.TRUE.equals(report.get("ready")) ? Health.up() : Health.status(Status.OUT_OF_SERVICE);
+        return builder.withDetails(report).build();
+    }
+}
@@ -0,0 +1,430 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.DifyApiConfig;
+import com.foxx.digitaltwinai.config.WarmupConfig;
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.model.DifyRequest;
+import com.foxx.digitaltwinai.model.DifyResponse;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
+import com.foxx.digitaltwinai.service.WarmupService;
+import com.foxx.digitaltwinai.service.browser.BrowserInstance;
+import com.foxx.digitaltwinai.service.browser.BrowserInstancePool;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 启动预热与就绪服务实现类
+ * (Startup Warm-up and Readiness Service Implementation)
+ *
+ * <p>应用启动后预热序列化与指令解析热点路径，并用独立的短超时客户端探测各依赖（MySQL和Redis的探测会让连接池建立连接）；
+ * 预热完成且必需依赖可用前，就绪状态保持为未就绪。Spring Boot在 ApplicationReadyEvent 之后会发布 ACCEPTING_TRAFFIC，
+ * 覆盖这里发布的状态，因此 /health/readiness 还通过 {@link WarmupHealthIndicator} 纳入预热结果，预热结束时也会再发布一次最终状态。
+ * (After startup, warms the serializer and instruction parser hot paths and probes every dependency with a
+ * separate short-timeout client; the MySQL and Redis probes make their pools open connections. Readiness stays
+ * false until warm-up completes and the required dependencies are up. Spring Boot publishes ACCEPTING_TRAFFIC
+ * after ApplicationReadyEvent, overwriting the state published here, so /health/readiness also includes the
+ * warm-up result through {@link WarmupHealthIndicator}, and the final state is published again when warm-up ends.)</p>
+ */
+@Slf4j
+@Service
+public class WarmupServiceImpl implements WarmupService {
+
+    /**
+     * 依赖状态
+     * (Dependency status)
+     */
+    private record DependencyStatus(boolean up, long latencyMs, String error, long checkedAt) {
+    }
+
+    private static final String DIFY = "dify";
+    private static final String BROWSER_SERVICE = "browser-service";
+    private static final String MYSQL = "mysql";
+    private static final String REDIS = "redis";
+
+    /**
+     * 预热用的示例指令
+     * (Sample instructions used for warm-up)
+     */
+    private static final List<String> SAMPLE_INSTRUCTIONS = List.of(
+            "向左旋转30度", "向右旋转45度", "放大2倍", "缩小1.5倍", "聚焦到Area_1", "重置视图", "介绍一下这个设备");
+
+    /**
+     * 预热用的示例流式响应块
+     * (Sample streaming response chunk used for warm-up)
+     */
+    private static final String SAMPLE_STREAM_CHUNK = "{\"event\":\"message\",\"task_id\":\"t\",\"id\":\"m\"," +
+            "\"message_id\":\"m\",\"conversation_id\":\"c\",\"answer\":\"预热\",\"created_at\":0}";
+
+    private final WarmupConfig warmupConfig;
+    private final DifyApiConfig difyApiConfig;
+    private final ObjectMapper objectMapper;
+    private final OperationRegistry operationRegistry;
+    private final BrowserInstancePool browserInstancePool;
+    private final ObjectProvider<DataSource> dataSourceProvider;
+    private final ObjectProvider<RedisConnectionFactory> redisConnectionFactoryProvider;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 探测专用的短超时RestTemplate
+     * (Short-timeout RestTemplate dedicated to probes)
+     */
+    private final RestTemplate probeTemplate;
+
+    /**
+     * 并行探测线程池
+     * (Parallel probe executor)
+     */
+    private final ExecutorService probeExecutor;
+
+    /**
+     * 各依赖最近一次探测结果
+     * (Latest probe result per dependency)
+     */
+    private volatile Map<String, DependencyStatus> dependencies = Collections.emptyMap();
+
+    private volatile boolean warmupComplete;
+
+    private volatile long warmupDurationMs;
+
+    private volatile boolean lastReady;
+
+    /**
+     * 预热结束并发布最终就绪状态后完成
+     * (Completes once warm-up has ended and the final readiness state is published)
+     */
+    private final CompletableFuture<Void> warmupCompletion = new CompletableFuture<>();
+
+    public WarmupServiceImpl(WarmupConfig warmupConfig,
+                             DifyApiConfig difyApiConfig,
+                             ObjectMapper objectMapper,
+                             OperationRegistry operationRegistry,
+                             BrowserInstancePool browserInstancePool,
+                             ObjectProvider<DataSource> dataSourceProvider,
+                             ObjectProvider<RedisConnectionFactory> redisConnectionFactoryProvider,
+                             ApplicationEventPublisher eventPublisher) {
+        this.warmupConfig = warmupConfig;
+        this.difyApiConfig = difyApiConfig;
+        this.objectMapper = objectMapper;
+        this.operationRegistry = operationRegistry;
+        this.browserInstancePool = browserInstancePool;
+        this.dataSourceProvider = dataSourceProvider;
+        this.redisConnectionFactoryProvider = redisConnectionFactoryProvider;
+        this.eventPublisher = eventPublisher;
+
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(warmupConfig.getProbeTimeout());
+        factory.setReadTimeout(warmupConfig.getProbeTimeout());
+        this.probeTemplate = new RestTemplate(factory);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.probeExecutor = Executors.newFixedThreadPool(8, runnable -> {
+            Thread thread = new Thread(runnable, "warmup-probe-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 应用启动完成后开始异步预热
+     * (Start asynchronous warm-up once the application is ready)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!warmupConfig.isEnabled()) {
+            log.info("预热已禁用，直接就绪 (Warm-up disabled, marking ready immediately)");
+            warmupComplete = true;
+            publishReadiness();
+            warmupCompletion.complete(null);
+            return;
+        }
+        // 预热完成前拒绝流量 (Refuse traffic until warm-up completes)
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        Thread warmupThread = new Thread(this::warmUp, "warmup");
+        warmupThread.setDaemon(true);
+        warmupThread.start();
+    }
+
+    /**
+     * 执行预热
+     * (Run warm-up)
+     */
+    private void warmUp() {
+        long start = System.currentTimeMillis();
+        log.info("开始预热 (Starting warm-up)");
+        try {
+            // 并行探测依赖，同时预热本地热点路径 (Probe dependencies in parallel while warming local hot paths)
+            CompletableFuture<Map<String, DependencyStatus>> probes = CompletableFuture.supplyAsync(this::probeAll, probeExecutor);
+            warmSerializer();
+            warmParser();
+            dependencies = probes.join();
+        } catch (Exception e) {
+            log.error("预热过程中出错 (Error during warm-up)", e);
+        } finally {
+            warmupDurationMs = System.currentTimeMillis() - start;
+            warmupComplete = true;
+            log.info("预热完成，耗时{}ms，依赖状态: {} (Warm-up finished in {}ms, dependencies: {})",
+                    warmupDurationMs, summarize(), warmupDurationMs, summarize());
+            publishReadiness();
+            warmupCompletion.complete(null);
+        }
+    }
+
+    /**
+     * 预热完成后定时刷新依赖状态
+     * (Refresh dependency status periodically after warm-up)
+     */
+    @Scheduled(fixedDelayString = "${warmup.refresh-interval:15000}")
+    public void refreshDependencies() {
+        if (!warmupComplete || !warmupConfig.isEnabled()) {
+            return;
+        }
+        dependencies = probeAll();
+        updateReadiness();
+    }
+
+    @Override
+    public boolean isReady() {
+        if (!warmupComplete) {
+            return false;
+        }
+        // 禁用预热时不探测依赖，不能据此判定未就绪 (Dependencies are never probed when warm-up is disabled)
+        if (!warmupConfig.isEnabled()) {
+            return true;
+        }
+        Map<String, DependencyStatus> current = dependencies;
+        for (String required : warmupConfig.getRequiredDependencies()) {
+            DependencyStatus status = current.get(required);
+            if (status == null || !status.up()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<Void> warmupCompletion() {
+        return warmupCompletion;
+    }
+
+    @Override
+    public Map<String, Object> getReadinessReport() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("ready", isReady());
+        report.put("warmupComplete", warmupComplete);
+        report.put("warmupDurationMs", warmupDurationMs);
+
+        Map<String, Object> dependencyReport = new LinkedHashMap<>();
+        dependencies.forEach((name, status) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("status", status.up() ? "up" : "down");
+            entry.put("latencyMs", status.latencyMs());
+            entry.put("required", warmupConfig.getRequiredDependencies().contains(name));
+            entry.put("checkedAt", status.checkedAt());
+            if (status.error() != null) {
+                entry.put("error", status.error());
+            }
+            dependencyReport.put(name, entry);
+        });
+        report.put("dependencies", dependencyReport);
+        report.put("timestamp", System.currentTimeMillis());
+        return report;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        probeExecutor.shutdownNow();
+    }
+
+    /**
+     * 并行探测全部依赖
+     * (Probe all dependencies in parallel)
+     */
+    private Map<String, DependencyStatus> probeAll() {
+        Map<String, CompletableFuture<DependencyStatus>> futures = new LinkedHashMap<>();
+        futures.put(DIFY, probeAsync(this::probeDify));
+        futures.put(BROWSER_SERVICE, probeAsync(this::probeBrowserService));
+        if (dataSourceProvider.getIfAvailable() != null) {
+            futures.put(MYSQL, probeAsync(this::probeMysql));
+        }
+        if (redisConnectionFactoryProvider.getIfAvailable() != null) {
+            futures.put(REDIS, probeAsync(this::probeRedis));
+        }
+
+        Map<String, DependencyStatus> results = new HashMap<>();
+        futures.forEach((name, future) -> results.put(name, future.join()));
+        return results;
+    }
+
+    /**
+     * 异步执行单个探测，带超时
+     * (Run a single probe asynchronously with a timeout)
+     */
+    private CompletableFuture<DependencyStatus> probeAsync(Runnable probe) {
+        long start = System.nanoTime();
+        return CompletableFuture.runAsync(probe, probeExecutor)
+                .orTimeout(warmupConfig.getProbeTimeout(), TimeUnit.MILLISECONDS)
+                .handle((ignored, error) -> {
+                    long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    if (error == null) {
+                        return new DependencyStatus(true, latencyMs, null, System.currentTimeMillis());
+                    }
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    String message = cause instanceof TimeoutException ? "探测超时 (Probe timed out)" : cause.getMessage();
+                    return new DependencyStatus(false, latencyMs, message, System.currentTimeMillis());
+                });
+    }
+
+    /**
+     * 探测Dify，任何HTTP响应都表示可达
+     * (Probe Dify; any HTTP response means reachable)
+     */
+    private void probeDify() {
+        try {
+            probeTemplate.getForEntity(difyApiConfig.getBaseUrl(), String.class);
+        } catch (HttpStatusCodeException e) {
+            // 返回了HTTP状态码，说明服务可达 (An HTTP status means the service is reachable)
+        }
+    }
+
+    /**
+     * 探测全部浏览器服务实例，至少一个可用即视为可用
+     * (Probe all browser service instances; up when at least one is healthy)
+     */
+    private void probeBrowserService() {
+        List<String> failed = new ArrayList<>();
+        for (BrowserInstance instance : browserInstancePool.getInstances()) {
+            if (!browserInstancePool.probe(instance)) {
+                failed.add(instance.getUrl());
+            }
+        }
+        if (failed.size() == browserInstancePool.getInstances().size()) {
+            throw new IllegalStateException("全部浏览器服务实例不可用 (All browser service instances are down): " + failed);
+        }
+    }
+
+    /**
+     * 探测MySQL，同时让连接池建立连接
+     * (Probe MySQL, letting the pool open its connections)
+     */
+    private void probeMysql() {
+        try (Connection connection = dataSourceProvider.getObject().getConnection()) {
+            if (!connection.isValid(Math.max(1, warmupConfig.getProbeTimeout() / 1000))) {
+                throw new IllegalStateException("数据库连接无效 (Database connection is not valid)");
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 探测Redis
+     * (Probe Redis)
+     */
+    private void probeRedis() {
+        try (RedisConnection connection = redisConnectionFactoryProvider.getObject().getConnection()) {
+            connection.ping();
+        }
+    }
+
+    /**
+     * 预热Jackson序列化热点路径
+     * (Warm the Jackson serializer hot paths)
+     */
+    private void warmSerializer() throws Exception {
+        DifyRequest request = DifyRequest.builder()
+                .inputs(new HashMap<>())
+                .query("预热")
+                .user("warmup")
+                .responseMode("streaming")
+                .build();
+        ChatResponse response = ChatResponse.builder()
+                .text("预热")
+                .action(Map.of("type", "rotate", "params", Map.of("direction", "left", "angle", 30)))
+                .result(Map.of("success", true))
+                .build();
+        for (int i = 0; i < warmupConfig.getIterations(); i++) {
+            objectMapper.writeValueAsString(request);
+            objectMapper.writeValueAsString(response);
+            DifyResponse parsed = objectMapper.readValue(SAMPLE_STREAM_CHUNK, DifyResponse.class);
+            objectMapper.writeValueAsString(parsed);
+            JsonNode node = objectMapper.readTree(SAMPLE_STREAM_CHUNK);
+            node.get("answer").asText();
+        }
+    }
+
+    /**
+     * 预热本地指令解析热点路径
+     * (Warm the local instruction parser hot paths)
+     */
+    private void warmParser() {
+        for (int i = 0; i < warmupConfig.getIterations(); i++) {
+            for (String instruction : SAMPLE_INSTRUCTIONS) {
+                ChatResponse.ActionCommand command = operationRegistry.parseInstruction(instruction);
+                operationRegistry.generateLocalResponse(command);
+            }
+        }
+    }
+
+    /**
+     * 无条件发布当前就绪状态，覆盖此前发布的任何状态
+     * (Publish the current readiness unconditionally, overriding whatever was published before)
+     */
+    private synchronized void publishReadiness() {
+        boolean ready = isReady();
+        AvailabilityChangeEvent.publish(eventPublisher, this,
+                ready ? ReadinessState.ACCEPTING_TRAFFIC : ReadinessState.REFUSING_TRAFFIC);
+        log.info("预热结束，就绪状态: {} (Warm-up ended, ready: {})", ready, ready);
+        lastReady = ready;
+    }
+
+    /**
+     * 就绪状态变化时发布可用性事件
+     * (Publish an availability event when readiness changes)
+     */
+    private synchronized void updateReadiness() {
+        boolean ready = isReady();
+        if (ready != lastReady) {
+            AvailabilityChangeEvent.publish(eventPublisher, this,
+                    ready ? ReadinessState.ACCEPTING_TRAFFIC : ReadinessState.REFUSING_TRAFFIC);
+            log.info("就绪状态变更: {} (Readiness changed: {})", ready, ready);
+        }
+        lastReady = ready;
+    }
+
+    private String summarize() {
+        StringBuilder summary = new StringBuilder();
+        dependencies.forEach((name, status) -> summary.append(name).append('=')
+                .append(status.up() ? "up" : "down").append('(').append(status.latencyMs()).append("ms) "));
+        return summary.toString().trim();
+    }
+}
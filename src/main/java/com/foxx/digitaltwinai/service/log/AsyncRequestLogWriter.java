@@ -0,0 +1,319 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
+import com.foxx.digitaltwinai.service.flight.RequestLogWriteEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求日志异步批量写入器
+ * (Asynchronous batched writer for request logs)
+ *
+ * <p>请求线程只把日志放入有界队列；后台线程在攒满一批或等待超过刷新间隔后，
+ * 在一个事务中批量插入。批量失败时逐条重试，单条坏数据不会丢掉整批。
+ * 数据库连接失败时打开熔断，日志改写到本地日志文件，由回放器在恢复后写回。
+ * (Request threads only put logs on a bounded queue; a background thread inserts them in one transaction
+ * once a batch fills up or the flush interval passes. A failed batch is retried row by row, so one bad
+ * row does not lose the whole batch. When the database cannot be reached the circuit opens and logs go
+ * to the local journal, which the replayer writes back once it recovers.)</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "request-log", name = "store", havingValue = "database", matchIfMissing = true)
+public class AsyncRequestLogWriter {
+
+    private final RequestLogConfig config;
+
+    private final DifyRequestLogRepository difyRequestLogRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RequestLogJournal journal;
+
+    private final DatabaseCircuit circuit;
+
+    private final RequestLogRollup rollup;
+
+    private final RequestLogCaches caches;
+
+    private final Tracer tracer;
+
+    private final BlockingQueue<DifyRequestLog> queue;
+
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    private final Counter writtenCounter;
+
+    private final Counter droppedCounter;
+
+    private final Counter failedCounter;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer flushTimer;
+
+    public AsyncRequestLogWriter(RequestLogConfig config,
+                                 DifyRequestLogRepository difyRequestLogRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 RequestLogSequenceInitializer sequenceInitializer,
+                                 RequestLogJournal journal,
+                                 DatabaseCircuit circuit,
+                                 RequestLogRollup rollup,
+                                 RequestLogCaches caches,
+                                 Tracer tracer,
+                                 MeterRegistry meterRegistry) {
+        this.config = config;
+        this.difyRequestLogRepository = difyRequestLogRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.journal = journal;
+        this.circuit = circuit;
+        this.rollup = rollup;
+        this.caches = caches;
+        this.tracer = tracer;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.writerThread = new Thread(this::run, "request-log-writer");
+        this.writerThread.setDaemon(true);
+
+        Gauge.builder("digital_twin.request_log.queue", queue, BlockingQueue::size)
+                .description("等待写入的请求日志数 (Request logs waiting to be written)")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("digital_twin.request_log.written")
+                .description("已写入的请求日志 (Request logs written)")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("digital_twin.request_log.dropped")
+                .description("队列已满被丢弃的请求日志 (Request logs dropped because the queue was full)")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("digital_twin.request_log.failed")
+                .description("写入失败的请求日志 (Request logs that failed to write)")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("digital_twin.request_log.batch.size")
+                .description("每批写入的日志数 (Logs per written batch)")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("digital_twin.request_log.flush")
+                .description("每批写入耗时 (Time to write one batch)")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread.start();
+    }
+
+    /**
+     * 提交一条日志
+     * (Submit one log)
+     *
+     * @param entry 日志 (Log)
+     * @return 是否已接收（写入或入队） (Whether it was accepted, either written or queued)
+     */
+    public boolean submit(DifyRequestLog entry) {
+        if (!running) {
+            // 关闭过程中直接同步写入 (Write synchronously while shutting down)
+            return write(List.of(entry)) > 0;
+        }
+        if (queue.offer(entry)) {
+            return true;
+        }
+        switch (config.getOverflowPolicy()) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(entry, config.getOfferTimeout(), TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            case CALLER_RUNS -> {
+                return write(List.of(entry)) > 0;
+            }
+            default -> {
+            }
+        }
+        // 队列满时先落到本地日志文件 (Spill to the journal when the queue is full)
+        if (journal.append(entry)) {
+            return true;
+        }
+        droppedCounter.increment();
+        log.warn("请求日志队列已满，丢弃一条日志 (Request log queue full, dropping one log)");
+        return false;
+    }
+
+    /**
+     * 当前排队的日志数
+     * (Logs currently queued)
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * 停止接收新日志并写完队列中的日志
+     * (Stop accepting new logs and write out the queue)
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            writerThread.join(config.getShutdownTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("关闭时仍有 {} 条请求日志未写入 ({} request logs left unwritten at shutdown)",
+                    queue.size(), queue.size());
+        }
+    }
+
+    private void run() {
+        List<DifyRequestLog> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                DifyRequestLog first = queue.poll(config.getFlushInterval(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getFlushInterval());
+                while (batch.size() < config.getBatchSize()) {
+                    queue.drainTo(batch, config.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= config.getBatchSize() || remaining <= 0 || !running) {
+                        break;
+                    }
+                    DifyRequestLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                // 批量写入不属于某一个聊天请求，单独成为一条链路 (A batch belongs to no single chat request, so it is its own trace)
+                Span span = tracer.nextSpan().name("request_log.flush").tag("batch.size", batch.size()).start();
+                try (Tracer.SpanInScope ignored = tracer.withSpan(span)) {
+                    span.tag("written", write(batch));
+                } catch (RuntimeException e) {
+                    span.error(e);
+                    throw e;
+                } finally {
+                    span.end();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("请求日志写入线程出错 (Request log writer error)", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在一个事务中批量插入，失败时逐条重试；数据库不可达时写入本地日志文件
+     * (Insert in one transaction, retrying row by row on failure; journal locally when the database is unreachable)
+     *
+     * @return 成功写入（含写入本地日志文件）的条数 (Rows written, including those journaled)
+     */
+    private int write(List<DifyRequestLog> batch) {
+        RequestLogWriteEvent event = new RequestLogWriteEvent();
+        event.begin();
+        int written = 0;
+        try {
+            written = doWrite(batch, event);
+            return written;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.setRows(batch.size());
+                event.setWritten(written);
+                event.commit();
+            }
+        }
+    }
+
+    private int doWrite(List<DifyRequestLog> batch, RequestLogWriteEvent event) {
+        event.setPath("batch");
+        if (journal.isEnabled() && !circuit.allowRequest()) {
+            event.setPath("journal");
+            return spill(batch);
+        }
+        Timer.Sample sample = Timer.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> difyRequestLogRepository.saveAll(batch));
+            circuit.onSuccess();
+            rollup.record(batch);
+            caches.onWritten(batch);
+            writtenCounter.increment(batch.size());
+            batchSizeSummary.record(batch.size());
+            return batch.size();
+        } catch (Exception e) {
+            if (journal.isEnabled() && DatabaseCircuit.isConnectivityFailure(e)) {
+                circuit.onFailure(e);
+                event.setPath("journal");
+                return spill(batch);
+            }
+            log.warn("批量写入请求日志失败，逐条重试: {} (Batch write of request logs failed, retrying row by row: {})",
+                    e.getMessage(), e.getMessage());
+            int written = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                DifyRequestLog entry = batch.get(i);
+                // 回滚后ID已分配但未落库，清空后重新生成 (IDs were assigned but rolled back; regenerate them)
+                entry.setId(null);
+                try {
+                    difyRequestLogRepository.save(entry);
+                    rollup.record(entry);
+                    written++;
+                } catch (Exception ex) {
+                    if (journal.isEnabled() && DatabaseCircuit.isConnectivityFailure(ex)) {
+                        circuit.onFailure(ex);
+                        writtenCounter.increment(written);
+                        return written + spill(batch.subList(i, batch.size()));
+                    }
+                    failedCounter.increment();
+                    log.error("写入请求日志失败: {} (Failed to write request log: {})", ex.getMessage(), ex.getMessage());
+                }
+            }
+            writtenCounter.increment(written);
+            caches.onWritten(batch);
+            return written;
+        } finally {
+            sample.stop(flushTimer);
+        }
+    }
+
+    private int spill(List<DifyRequestLog> batch) {
+        int journaled = 0;
+        for (DifyRequestLog entry : batch) {
+            if (journal.append(entry)) {
+                journaled++;
+            } else {
+                failedCounter.increment();
+            }
+        }
+        // 每批落地后刷盘 (Force once per spilled batch)
+        journal.force();
+        return journaled;
+    }
+}
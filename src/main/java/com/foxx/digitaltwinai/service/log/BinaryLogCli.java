@@ -0,0 +1,109 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * 二进制日志命令行工具，按条件筛选并转换为CSV或NDJSON输出到标准输出
+ * (Binary log command-line tool; filters and converts to CSV or NDJSON on standard output)
+ *
+ * <pre>
+ * java -cp digital-twin-ai.jar -Dloader.main=com.foxx.digitaltwinai.service.log.BinaryLogCli \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     --dir data/request-log-binary --from 2024-01-01T00:00 --status 0 --format csv
+ * </pre>
+ *
+ * <p>参数 (Options): --dir, --from, --to, --operation-type, --target-component, --status, --format csv|ndjson</p>
+ */
+public final class BinaryLogCli {
+
+    private static final String CSV_HEADER = "id,createdAt,operationType,targetComponent,status,handlingPath,"
+            + "responseTime,userInstruction,errorMessage,requestContent,responseContent\n";
+
+    private BinaryLogCli() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String directory = "data/request-log-binary";
+        String format = "ndjson";
+        RequestLogQuery query = new RequestLogQuery();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--dir" -> directory = value;
+                case "--from" -> query.setFrom(LocalDateTime.parse(value));
+                case "--to" -> query.setTo(LocalDateTime.parse(value));
+                case "--operation-type" -> query.setOperationType(value);
+                case "--target-component" -> query.setTargetComponent(value);
+                case "--status" -> query.setStatus(Integer.parseInt(value));
+                case "--format" -> format = value;
+                default -> {
+                    System.err.println("未知参数 (Unknown option): " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        OutputStream out = new BufferedOutputStream(System.out, 1 << 16);
+        write(new BinaryLogReader(Path.of(directory)), query, "csv".equalsIgnoreCase(format), out);
+    }
+
+    /**
+     * 读取并写出匹配的记录
+     * (Read and write out matching records)
+     *
+     * @return 写出的条数 (Records written)
+     */
+    public static long write(BinaryLogReader reader, RequestLogQuery query, boolean csv, OutputStream out) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        long[] written = {0};
+        if (csv) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            reader.read(query, Long.MAX_VALUE, entry -> {
+                try {
+                    out.write(csv ? toCsv(entry) : objectMapper.writeValueAsBytes(entry));
+                    out.write('\n');
+                    written[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+        return written[0];
+    }
+
+    private static byte[] toCsv(DifyRequestLog entry) {
+        Object[] fields = {entry.getId(), entry.getCreatedAt(), entry.getOperationType(), entry.getTargetComponent(),
+                entry.getStatus(), entry.getHandlingPath(), entry.getResponseTime(), entry.getUserInstruction(),
+                entry.getErrorMessage(), entry.getRequestContent(), entry.getResponseContent()};
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (fields[i] != null) {
+                String value = fields[i].toString();
+                boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                        || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+                line.append(quote ? '"' + value.replace("\"", "\"\"") + '"' : value);
+            }
+        }
+        return line.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
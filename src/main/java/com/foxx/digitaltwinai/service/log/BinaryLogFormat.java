@@ -0,0 +1,163 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 请求日志紧凑二进制格式
+ * (Compact binary format for request logs)
+ *
+ * <p>文件以8字节文件头开始（魔数 "DTRL" + 版本号），之后每条记录为 [长度][CRC32][内容]，长度为0表示文件结束。
+ * 内容依次为：创建时间（本地时间按UTC换算的毫秒数）、耗时、状态、处理路径，然后是各字符串字段。
+ * 筛选用的字段排在前面，读取时可以先判断是否匹配再解码大字段。
+ * 数值和字符串长度使用变长整数；null 编码为0，其余值加1后编码。版本2在末尾追加流式响应统计。
+ * (A file starts with an 8-byte header, magic "DTRL" plus a version, followed by records of
+ * [length][CRC32][body]; a length of 0 ends the file. The body holds the creation time as milliseconds
+ * of the local time read as UTC, then latency, status and handling path, then the string fields.
+ * Filter fields come first so a reader can test a record before decoding the large fields.
+ * Numbers and string lengths are varints; null encodes as 0 and every other value as value + 1.
+ * Version 2 appends the streaming statistics at the end.)</p>
+ */
+public final class BinaryLogFormat {
+
+    public static final int MAGIC = 0x4454524C;
+
+    public static final int VERSION = 2;
+
+    public static final int FILE_HEADER_SIZE = 8;
+
+    public static final int RECORD_HEADER_SIZE = 8;
+
+    private static final HandlingPath[] PATHS = HandlingPath.values();
+
+    private BinaryLogFormat() {
+    }
+
+    /**
+     * 编码一条日志的内容部分
+     * (Encode the body of one log)
+     */
+    public static byte[] encode(DifyRequestLog entry) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        LocalDateTime createdAt = entry.getCreatedAt() != null ? entry.getCreatedAt() : LocalDateTime.now();
+        writeVarLong(out, createdAt.toInstant(ZoneOffset.UTC).toEpochMilli());
+        writeNullable(out, entry.getResponseTime());
+        writeNullable(out, entry.getStatus() != null ? entry.getStatus().longValue() : null);
+        writeNullable(out, entry.getHandlingPath() != null ? (long) entry.getHandlingPath().ordinal() : null);
+        writeString(out, entry.getOperationType());
+        writeString(out, entry.getTargetComponent());
+        writeString(out, entry.getUserInstruction());
+        writeString(out, entry.getErrorMessage());
+        writeString(out, entry.getRequestContent());
+        writeString(out, entry.getResponseContent());
+        writeNullable(out, entry.getTtftMs());
+        writeNullable(out, entry.getStreamDurationMs());
+        writeNullable(out, entry.getChunkCount() != null ? entry.getChunkCount().longValue() : null);
+        writeNullable(out, entry.getMaxChunkGapMs());
+        writeNullable(out, entry.getAnswerLength() != null ? entry.getAnswerLength().longValue() : null);
+        writeNullable(out, entry.getCompletionTokens() != null ? entry.getCompletionTokens().longValue() : null);
+        writeNullable(out, entry.getStreamStalled() != null ? (entry.getStreamStalled() ? 1L : 0L) : null);
+        return out.toByteArray();
+    }
+
+    /**
+     * 只解码筛选字段，缓冲区位置停在字符串字段之后的大字段之前
+     * (Decode only the filter fields, leaving the buffer positioned before the large fields)
+     */
+    public static DifyRequestLog decodeHeader(ByteBuffer body) {
+        DifyRequestLog entry = new DifyRequestLog();
+        entry.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(readVarLong(body)), ZoneOffset.UTC));
+        entry.setResponseTime(readNullable(body));
+        Long status = readNullable(body);
+        entry.setStatus(status != null ? status.intValue() : null);
+        Long path = readNullable(body);
+        entry.setHandlingPath(path != null && path < PATHS.length ? PATHS[path.intValue()] : null);
+        entry.setOperationType(readString(body));
+        entry.setTargetComponent(readString(body));
+        return entry;
+    }
+
+    /**
+     * 在已解码筛选字段的基础上解码其余字段
+     * (Decode the remaining fields on top of the filter fields)
+     *
+     * @param version 文件头中的版本号 (Version from the file header)
+     */
+    public static DifyRequestLog decodeRest(DifyRequestLog entry, ByteBuffer body, int version) {
+        entry.setUserInstruction(readString(body));
+        entry.setErrorMessage(readString(body));
+        entry.setRequestContent(readString(body));
+        entry.setResponseContent(readString(body));
+        if (version >= 2) {
+            entry.setTtftMs(readNullable(body));
+            entry.setStreamDurationMs(readNullable(body));
+            entry.setChunkCount(toInteger(readNullable(body)));
+            entry.setMaxChunkGapMs(readNullable(body));
+            entry.setAnswerLength(toInteger(readNullable(body)));
+            entry.setCompletionTokens(toInteger(readNullable(body)));
+            Long stalled = readNullable(body);
+            entry.setStreamStalled(stalled != null ? stalled == 1 : null);
+        }
+        return entry;
+    }
+
+    private static Integer toInteger(Long value) {
+        return value != null ? value.intValue() : null;
+    }
+
+    private static void writeNullable(ByteArrayOutputStream out, Long value) {
+        writeVarLong(out, value == null ? 0 : value + 1);
+    }
+
+    private static Long readNullable(ByteBuffer in) {
+        long value = readVarLong(in);
+        return value == 0 ? null : value - 1;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("变长整数过长 (Varint too long)");
+    }
+}
@@ -0,0 +1,138 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 二进制日志流式读取器
+ * (Streaming reader for binary logs)
+ *
+ * <p>逐条读取记录，先用筛选字段判断是否匹配，匹配后才解码大字段，内存占用与文件大小无关。
+ * 遇到长度为0或校验失败的记录即停止读取该文件。
+ * (Reads record by record, testing the filter fields first and decoding the large fields only for
+ * matches, so memory does not depend on file size. Reading a file stops at a zero length or a
+ * checksum failure.)</p>
+ */
+@Slf4j
+public class BinaryLogReader {
+
+    static final String SUFFIX = ".dtrl";
+
+    private final Path directory;
+
+    public BinaryLogReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * 按写入顺序读取匹配的记录
+     * (Read matching records in write order)
+     *
+     * @param query 筛选条件，忽略游标和条数 (Filter; cursor and limit are ignored)
+     * @param maxId 只读取ID小于该值的记录 (Only records with an ID below this are read)
+     * @param consumer 记录处理 (Record consumer)
+     */
+    public void read(RequestLogQuery query, long maxId, Consumer<DifyRequestLog> consumer) throws IOException {
+        for (Path segment : segments(directory)) {
+            if ((sequenceOf(segment) << 32) >= maxId) {
+                break;
+            }
+            readSegment(segment, query, maxId, consumer);
+        }
+    }
+
+    /**
+     * 读取单个文件中匹配的记录
+     * (Read the matching records of one file)
+     */
+    public void readSegment(Path segment, RequestLogQuery query, long maxId, Consumer<DifyRequestLog> consumer) throws IOException {
+        long sequence = sequenceOf(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < BinaryLogFormat.FILE_HEADER_SIZE || buffer.getInt() != BinaryLogFormat.MAGIC) {
+                log.warn("不是二进制日志文件: {} (Not a binary log file: {})", segment.getFileName(), segment.getFileName());
+                return;
+            }
+            int version = buffer.getInt();
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= BinaryLogFormat.RECORD_HEADER_SIZE) {
+                int position = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    return;
+                }
+                long id = (sequence << 32) | position;
+                if (id >= maxId) {
+                    return;
+                }
+                ByteBuffer body = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("二进制日志 {} 校验失败，忽略其后的记录 (Checksum mismatch in {}, ignoring the rest)",
+                            segment.getFileName(), segment.getFileName());
+                    return;
+                }
+                DifyRequestLog entry = BinaryLogFormat.decodeHeader(body);
+                if (matches(entry, query)) {
+                    entry.setId(id);
+                    consumer.accept(BinaryLogFormat.decodeRest(entry, body, version));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // 文件已因磁盘上限被删除 (File was deleted for the disk budget)
+            log.debug("二进制日志文件已删除: {}", segment.getFileName());
+        }
+    }
+
+    /**
+     * 目录中的文件，按写入顺序排列
+     * (Files in the directory, oldest first)
+     */
+    public List<Path> segments() throws IOException {
+        return segments(directory);
+    }
+
+    static boolean matches(DifyRequestLog entry, RequestLogQuery query) {
+        return (query.getFrom() == null || !entry.getCreatedAt().isBefore(query.getFrom()))
+                && (query.getTo() == null || entry.getCreatedAt().isBefore(query.getTo()))
+                && (query.getStatus() == null || query.getStatus().equals(entry.getStatus()))
+                && (query.getOperationType() == null || query.getOperationType().equals(entry.getOperationType()))
+                && (query.getTargetComponent() == null || query.getTargetComponent().equals(entry.getTargetComponent()));
+    }
+
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList());
+        }
+    }
+
+    static String fileName(long sequence) {
+        return String.format("requests-%010d%s", sequence, SUFFIX);
+    }
+
+    static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("requests-".length(), name.length() - SUFFIX.length()));
+    }
+}
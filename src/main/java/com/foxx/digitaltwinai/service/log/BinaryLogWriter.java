@@ -0,0 +1,107 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 二进制日志滚动写入器
+ * (Rolling writer for binary logs)
+ *
+ * <p>追加到内存映射文件，写满后滚动到新文件，超出磁盘上限时删除最旧的文件。
+ * 记录ID为 (文件序号 << 32) | 文件内偏移，按写入顺序递增。
+ * (Appends to a memory-mapped file, rolls to a new file once full and deletes the oldest files beyond
+ * the disk budget. A record ID is (file sequence << 32) | offset in the file and grows in write order.)</p>
+ */
+@Slf4j
+public class BinaryLogWriter implements AutoCloseable {
+
+    private final RequestLogConfig.Binary config;
+
+    private final Path directory;
+
+    private final CRC32 crc = new CRC32();
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private long sequence;
+
+    public BinaryLogWriter(RequestLogConfig.Binary config) throws IOException {
+        this.config = config;
+        this.directory = Path.of(config.getDirectory());
+        Files.createDirectories(directory);
+        List<Path> existing = BinaryLogReader.segments(directory);
+        this.sequence = existing.isEmpty() ? 0 : BinaryLogReader.sequenceOf(existing.get(existing.size() - 1));
+    }
+
+    /**
+     * 追加一条日志
+     * (Append one log)
+     *
+     * @return 记录ID (Record ID)
+     */
+    public synchronized long append(DifyRequestLog entry) throws IOException {
+        byte[] body = BinaryLogFormat.encode(entry);
+        int size = BinaryLogFormat.RECORD_HEADER_SIZE + body.length;
+        if (size > config.getSegmentSize() - BinaryLogFormat.FILE_HEADER_SIZE) {
+            throw new IOException("日志记录超过文件大小 (Log record larger than a file)");
+        }
+        if (buffer == null || buffer.remaining() < size) {
+            roll();
+        }
+        crc.reset();
+        crc.update(body);
+        int position = buffer.position();
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + BinaryLogFormat.RECORD_HEADER_SIZE, body);
+        // 长度最后写入，读取方看到非0长度时内容已完整 (Length goes last so a reader seeing a non-zero length sees the whole body)
+        buffer.putInt(position, body.length);
+        buffer.position(position + size);
+        return (sequence << 32) | position;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            channel.close();
+            buffer = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        close();
+        enforceBudget();
+        sequence++;
+        Path path = directory.resolve(BinaryLogReader.fileName(sequence));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, config.getSegmentSize());
+        buffer.putInt(BinaryLogFormat.MAGIC);
+        buffer.putInt(BinaryLogFormat.VERSION);
+    }
+
+    private void enforceBudget() throws IOException {
+        List<Path> segments = BinaryLogReader.segments(directory);
+        long used = 0;
+        for (Path segment : segments) {
+            used += Files.size(segment);
+        }
+        for (int i = 0; i < segments.size() && used + config.getSegmentSize() > config.getMaxDiskBytes(); i++) {
+            used -= Files.size(segments.get(i));
+            Files.deleteIfExists(segments.get(i));
+            log.warn("二进制日志超出磁盘上限，删除 {} (Binary log over its disk budget, deleted {})",
+                    segments.get(i).getFileName(), segments.get(i).getFileName());
+        }
+    }
+}
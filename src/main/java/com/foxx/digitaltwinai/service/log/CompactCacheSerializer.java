@@ -0,0 +1,122 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 缓存值的紧凑序列化
+ * (Compact serialization for cached values)
+ *
+ * <p>使用带类型信息的JSON，省略null字段，超过阈值的值再用Deflate压缩。首字节标明格式：0为JSON原文，1为压缩后的JSON。
+ * 日志实体未实现 Serializable，且JDK序列化体积远大于JSON，因此不使用默认的JDK序列化。
+ * (Typed JSON with null fields omitted; values above the threshold are also deflated. The first byte marks
+ * the format: 0 for plain JSON, 1 for deflated JSON. The log entity is not Serializable and JDK
+ * serialization is far larger than JSON, so the default JDK serializer is not used.)</p>
+ */
+public class CompactCacheSerializer implements RedisSerializer<Object> {
+
+    private static final byte PLAIN = 0;
+
+    private static final byte DEFLATED = 1;
+
+    private final ObjectMapper objectMapper;
+
+    private final int compressThreshold;
+
+    public CompactCacheSerializer(ObjectMapper objectMapper, int compressThreshold) {
+        BasicPolymorphicTypeValidator validator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.foxx.digitaltwinai.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType("java.lang.")
+                .build();
+        this.objectMapper = objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .activateDefaultTyping(validator, ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            if (json.length < compressThreshold) {
+                return withMarker(PLAIN, json);
+            }
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(json);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 16);
+                out.write(DEFLATED);
+                byte[] chunk = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(chunk, 0, deflater.deflate(chunk));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        } catch (Exception e) {
+            throw new SerializationException("缓存值序列化失败 (Failed to serialize cached value)", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            if (bytes[0] == PLAIN) {
+                return objectMapper.readValue(bytes, 1, bytes.length - 1, Object.class);
+            }
+            byte[] json = inflate(bytes);
+            return objectMapper.readValue(json, Object.class);
+        } catch (Exception e) {
+            throw new SerializationException("缓存值反序列化失败 (Failed to deserialize cached value)", e);
+        }
+    }
+
+    private static byte[] withMarker(byte marker, byte[] body) {
+        byte[] result = new byte[body.length + 1];
+        result[0] = marker;
+        System.arraycopy(body, 0, result, 1, body.length);
+        return result;
+    }
+
+    private static byte[] inflate(byte[] bytes) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            byte[] out = new byte[Math.max(bytes.length * 4, 1024)];
+            int length = 0;
+            while (!inflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                int read = inflater.inflate(out, length, out.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("缓存值不完整 (Truncated cached value)");
+                }
+                length += read;
+            }
+            return Arrays.copyOf(out, length);
+        } finally {
+            inflater.end();
+        }
+    }
+}
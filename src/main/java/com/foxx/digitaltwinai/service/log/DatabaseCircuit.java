@@ -0,0 +1,112 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.net.ConnectException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求日志数据库熔断器
+ * (Database circuit for request logs)
+ *
+ * <p>数据库连接失败后打开一段时间，期间日志直接写入本地日志文件，不再为每条日志等待连接超时；
+ * 时间到后只放行一个探测，成功即关闭，失败重新计时；探测方未报告结果时，再过一个周期放行下一个探测。
+ * (Opens for a while after a connection failure so logs go straight to the journal instead of each
+ * one waiting out the connection timeout; once the time is up a single probe is let through, a success
+ * closes it and a failure restarts the timer. If the probe never reports back, another probe is let
+ * through one period later.)</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "request-log", name = "store", havingValue = "database", matchIfMissing = true)
+public class DatabaseCircuit {
+
+    private final long openDurationMillis;
+
+    private volatile long openedAt = -1;
+
+    /**
+     * 最近一次放行探测的时间
+     * (When the latest probe was let through)
+     */
+    private final AtomicLong probeStartedAt = new AtomicLong(-1);
+
+    public DatabaseCircuit(RequestLogConfig config, MeterRegistry meterRegistry) {
+        this.openDurationMillis = config.getJournal().getCircuitOpenDuration();
+        Gauge.builder("digital_twin.request_log.circuit", this, circuit -> circuit.isOpen() ? 1 : 0)
+                .description("请求日志数据库熔断状态，1为打开 (Request log database circuit, 1 when open)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 是否可以访问数据库
+     * (Whether the database may be tried)
+     */
+    public boolean allowRequest() {
+        long opened = openedAt;
+        if (opened < 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - opened < openDurationMillis) {
+            return false;
+        }
+        // 半开：并发调用者中只有抢到探测的一个放行 (Half-open: only the caller that wins the probe is let through)
+        long probe = probeStartedAt.get();
+        return (probe < opened || now - probe >= openDurationMillis) && probeStartedAt.compareAndSet(probe, now);
+    }
+
+    /**
+     * 熔断器是否打开
+     * (Whether the circuit is open)
+     */
+    public boolean isOpen() {
+        return openedAt >= 0;
+    }
+
+    public void onSuccess() {
+        if (openedAt >= 0) {
+            openedAt = -1;
+            log.info("请求日志数据库已恢复 (Request log database recovered)");
+        }
+    }
+
+    public void onFailure(Throwable cause) {
+        if (openedAt < 0) {
+            log.warn("请求日志数据库不可用，改写本地日志文件: {} (Request log database unavailable, journaling locally: {})",
+                    cause.getMessage(), cause.getMessage());
+        }
+        openedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 是否为数据库连接类故障，数据本身的错误不算
+     * (Whether the failure is about reaching the database rather than the data itself)
+     */
+    public static boolean isConnectivityFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof CannotCreateTransactionException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof SQLTransientConnectionException
+                    || t instanceof SQLNonTransientConnectionException
+                    || t instanceof SQLRecoverableException
+                    || t instanceof ConnectException) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,93 @@
+package com.foxx.digitaltwinai.service.log;
+
+import java.util.Arrays;
+
+/**
+ * 固定分桶的耗时直方图，可合并，用于估算分位数
+ * (Fixed-bucket latency histogram that can be merged and used to estimate percentiles)
+ *
+ * <p>分桶上界与 request_log_rollups 表的 le_* 列一一对应。
+ * (Bucket upper bounds match the le_* columns of request_log_rollups one to one.)</p>
+ */
+public class LatencyHistogram {
+
+    /**
+     * 各分桶上界（毫秒），最后一个分桶无上界
+     * (Bucket upper bounds in milliseconds; the last bucket is unbounded)
+     */
+    public static final long[] BOUNDS = {50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    /**
+     * 对应的数据库列名
+     * (Matching database column names)
+     */
+    public static final String[] COLUMNS = {
+            "le_50", "le_100", "le_250", "le_500", "le_1000",
+            "le_2500", "le_5000", "le_10000", "le_30000", "le_inf"
+    };
+
+    private final long[] counts;
+
+    public LatencyHistogram() {
+        this.counts = new long[BOUNDS.length + 1];
+    }
+
+    public LatencyHistogram(long[] counts) {
+        if (counts.length != BOUNDS.length + 1) {
+            throw new IllegalArgumentException("分桶数量不匹配 (Bucket count mismatch)");
+        }
+        this.counts = counts.clone();
+    }
+
+    public void record(long latencyMillis) {
+        int index = 0;
+        while (index < BOUNDS.length && latencyMillis > BOUNDS[index]) {
+            index++;
+        }
+        counts[index]++;
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public long total() {
+        return Arrays.stream(counts).sum();
+    }
+
+    public long[] counts() {
+        return counts.clone();
+    }
+
+    /**
+     * 在分桶内线性插值估算分位数
+     * (Estimate a percentile by linear interpolation within its bucket)
+     *
+     * @param quantile 分位，如0.95 (Quantile, e.g. 0.95)
+     * @param max 观测到的最大值，作为最后一个分桶的上界 (Observed maximum, used as the last bucket's upper bound)
+     * @return 估算值（毫秒），无数据时为null (Estimate in milliseconds, or null without data)
+     */
+    public Long percentile(double quantile, long max) {
+        long total = total();
+        if (total == 0) {
+            return null;
+        }
+        double rank = quantile * total;
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (cumulative + counts[i] >= rank) {
+                long lower = i == 0 ? 0 : BOUNDS[i - 1];
+                long upper = i < BOUNDS.length ? Math.min(BOUNDS[i], Math.max(max, lower)) : Math.max(max, lower);
+                double fraction = (rank - cumulative) / counts[i];
+                return Math.round(lower + (upper - lower) * fraction);
+            }
+            cumulative += counts[i];
+        }
+        return max;
+    }
+}
@@ -0,0 +1,291 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 请求/响应日志内容编解码器
+ * (Codec for request/response log content)
+ *
+ * <p>存储格式由前缀区分：无前缀为原文；{@code z1:} 为使用 v1 预置字典压缩后的 Base64；
+ * {@code ref:} 后跟原文的 SHA-256，内容按哈希去重存放在 request_log_payloads 表。
+ * 预置字典由Dify请求/响应JSON中的高频片段组成，短内容也能获得较好的压缩率。
+ * (The stored form is told apart by prefix: no prefix is plain text; {@code z1:} is Base64 of content
+ * deflated with the v1 preset dictionary; {@code ref:} is followed by the SHA-256 of the original, whose
+ * content is stored once per hash in request_log_payloads. The preset dictionary is made of frequent
+ * fragments of Dify request/response JSON, so short content still compresses well.)</p>
+ *
+ * <p>{@link #decode} 不访问数据库，外置引用原样返回；查询日志的服务层对每页或每批导出调用一次
+ * {@link #resolveReferences}，用一条 IN 查询还原其中全部外置内容，避免逐行查询。
+ * ({@link #decode} never touches the database and returns references as they are; the services reading logs
+ * call {@link #resolveReferences} once per page or export chunk, which restores all of its offloaded content
+ * with one IN query instead of a query per row.)</p>
+ */
+@Slf4j
+@Component
+public class LogPayloadCodec {
+
+    /**
+     * 字典压缩前缀，数字为字典版本
+     * (Dictionary-compressed prefix; the digit is the dictionary version)
+     */
+    public static final String COMPRESSED_PREFIX = "z1:";
+
+    /**
+     * 外置存储引用前缀
+     * (Offloaded reference prefix)
+     */
+    public static final String REFERENCE_PREFIX = "ref:";
+
+    /**
+     * 外置存储中的编码标识
+     * (Codec identifier in the offload store)
+     */
+    public static final String CODEC_DEFLATE_V1 = "deflate-v1";
+
+    private static final String DICTIONARY_RESOURCE = "log/payload-dictionary-v1.txt";
+
+    private final RequestLogConfig.Payload config;
+
+    private final byte[] dictionary;
+
+    private final PayloadOffloadStore offloadStore;
+
+    /**
+     * 每个线程复用一个压缩器，避免每次分配原生缓冲区
+     * (One deflater per thread, avoiding a native buffer allocation per call)
+     */
+    private final ThreadLocal<Deflater> deflaters;
+
+    private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+
+    private final AtomicLong rawBytes = new AtomicLong();
+
+    private final AtomicLong storedBytes = new AtomicLong();
+
+    private final Counter offloadedCounter;
+
+    private final Counter deduplicatedCounter;
+
+    private final Timer encodeTimer;
+
+    private final Timer decodeTimer;
+
+    public LogPayloadCodec(RequestLogConfig config, PayloadOffloadStore offloadStore, MeterRegistry meterRegistry) {
+        this.config = config.getPayload();
+        this.offloadStore = offloadStore;
+        this.dictionary = loadDictionary();
+        this.deflaters = ThreadLocal.withInitial(() -> new Deflater(this.config.getLevel()));
+        FunctionCounter.builder("digital_twin.request_log.payload.raw_bytes", rawBytes, AtomicLong::get)
+                .description("压缩前的日志内容字节数 (Log content bytes before compression)")
+                .register(meterRegistry);
+        FunctionCounter.builder("digital_twin.request_log.payload.stored_bytes", storedBytes, AtomicLong::get)
+                .description("实际存储的日志内容字节数 (Log content bytes actually stored)")
+                .register(meterRegistry);
+        Gauge.builder("digital_twin.request_log.payload.ratio", this, LogPayloadCodec::compressionRatio)
+                .description("累计压缩率，原始字节/存储字节 (Cumulative compression ratio, raw bytes / stored bytes)")
+                .register(meterRegistry);
+        this.offloadedCounter = Counter.builder("digital_twin.request_log.payload.offloaded")
+                .description("外置存储的日志内容 (Log contents offloaded)")
+                .register(meterRegistry);
+        this.deduplicatedCounter = Counter.builder("digital_twin.request_log.payload.deduplicated")
+                .description("外置存储中已存在而复用的内容 (Offloaded contents that already existed and were reused)")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("digital_twin.request_log.payload.encode")
+                .description("日志内容编码耗时 (Log content encode time)")
+                .register(meterRegistry);
+        this.decodeTimer = Timer.builder("digital_twin.request_log.payload.decode")
+                .description("日志内容解码耗时 (Log content decode time)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 编码为存储形式
+     * (Encode into the stored form)
+     */
+    public String encode(String content) {
+        if (content == null) {
+            return null;
+        }
+        // 原文恰好以前缀开头时必须编码，否则读取时会被误判 (Content that happens to start with a prefix must be encoded or it would be misread)
+        boolean ambiguous = content.startsWith(COMPRESSED_PREFIX) || content.startsWith(REFERENCE_PREFIX);
+        if (!ambiguous && (config.getMode() == RequestLogConfig.Payload.Mode.RAW || content.length() < config.getMinSize())) {
+            return content;
+        }
+        return encodeTimer.record(() -> {
+            byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+            byte[] compressed = deflate(raw);
+            rawBytes.addAndGet(raw.length);
+            if (compressed.length >= config.getOffloadThreshold()) {
+                String hash = sha256(raw);
+                if (!offloadStore.save(hash, CODEC_DEFLATE_V1, compressed, raw.length)) {
+                    deduplicatedCounter.increment();
+                }
+                offloadedCounter.increment();
+                String reference = REFERENCE_PREFIX + hash;
+                storedBytes.addAndGet(reference.length());
+                return reference;
+            }
+            String encoded = COMPRESSED_PREFIX + Base64.getEncoder().encodeToString(compressed);
+            if (encoded.length() >= raw.length && !ambiguous) {
+                // 压缩无收益时保留原文 (Keep the original when compression does not help)
+                storedBytes.addAndGet(raw.length);
+                return content;
+            }
+            storedBytes.addAndGet(encoded.length());
+            return encoded;
+        });
+    }
+
+    /**
+     * 从存储形式解码，未带前缀的历史数据和外置引用原样返回
+     * (Decode from the stored form; legacy values without a prefix and offloaded references are returned as they are)
+     */
+    public String decode(String stored) {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.startsWith(COMPRESSED_PREFIX)) {
+            return decodeTimer.record(() -> inflate(Base64.getDecoder().decode(stored.substring(COMPRESSED_PREFIX.length()))));
+        }
+        return stored;
+    }
+
+    /**
+     * 用一次批量查询还原一批日志中的外置内容，找不到的内容保留引用
+     * (Restore the offloaded content of a batch of logs with one batched query; content that cannot be found keeps
+     * its reference)
+     */
+    public void resolveReferences(Collection<DifyRequestLog> entries) {
+        Set<String> hashes = new HashSet<>();
+        for (DifyRequestLog entry : entries) {
+            addHash(hashes, entry.getRequestContent());
+            addHash(hashes, entry.getResponseContent());
+        }
+        if (hashes.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> contents = offloadStore.loadAll(hashes);
+        Map<String, String> resolved = new HashMap<>();
+        decodeTimer.record(() -> {
+            for (DifyRequestLog entry : entries) {
+                entry.setRequestContent(resolve(entry.getRequestContent(), contents, resolved));
+                entry.setResponseContent(resolve(entry.getResponseContent(), contents, resolved));
+            }
+        });
+    }
+
+    private static void addHash(Set<String> hashes, String content) {
+        if (content != null && content.startsWith(REFERENCE_PREFIX)) {
+            hashes.add(content.substring(REFERENCE_PREFIX.length()));
+        }
+    }
+
+    private String resolve(String content, Map<String, byte[]> contents, Map<String, String> resolved) {
+        if (content == null || !content.startsWith(REFERENCE_PREFIX)) {
+            return content;
+        }
+        String hash = content.substring(REFERENCE_PREFIX.length());
+        byte[] compressed = contents.get(hash);
+        if (compressed == null) {
+            log.warn("外置日志内容不存在: {} (Offloaded log content missing: {})", hash, hash);
+            return content;
+        }
+        // 同一批中重复的内容只解压一次 (Content repeated within the batch is inflated once)
+        return resolved.computeIfAbsent(hash, ignored -> inflate(compressed));
+    }
+
+    /**
+     * 累计压缩率
+     * (Cumulative compression ratio)
+     */
+    public double compressionRatio() {
+        long stored = storedBytes.get();
+        return stored == 0 ? 1.0 : (double) rawBytes.get() / stored;
+    }
+
+    byte[] deflate(byte[] raw) {
+        Deflater deflater = deflaters.get();
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.reset();
+        }
+    }
+
+    String inflate(byte[] compressed) {
+        Inflater inflater = inflaters.get();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalStateException("日志内容压缩数据不完整 (Truncated compressed log content)");
+                    }
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("日志内容压缩数据损坏 (Corrupt compressed log content)", e);
+        } finally {
+            inflater.reset();
+        }
+    }
+
+    private static byte[] loadDictionary() {
+        try (InputStream in = new ClassPathResource(DICTIONARY_RESOURCE).getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法加载日志压缩字典 (Unable to load the log compression dictionary)", e);
+        }
+    }
+
+    private static String sha256(byte[] raw) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(raw));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.foxx.digitaltwinai.service.log;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 日志内容列的JPA转换器，写入时压缩/外置，读取时解压；外置内容由服务层按批还原，见 {@link LogPayloadCodec#resolveReferences}
+ * (JPA converter for log content columns, compressing or offloading on write and inflating on read; offloaded
+ * content is restored in batches by the service layer, see {@link LogPayloadCodec#resolveReferences})
+ */
+@Component
+@Converter
+@RequiredArgsConstructor
+public class LogPayloadConverter implements AttributeConverter<String, String> {
+
+    private final LogPayloadCodec codec;
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return codec.encode(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return codec.decode(dbData);
+    }
+}
@@ -0,0 +1,72 @@
+package com.foxx.digitaltwinai.service.log;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 按内容哈希寻址的日志内容外置存储
+ * (Content-addressed offload store for log content)
+ *
+ * <p>相同内容只存一份；日志行中只保留 {@code ref:<sha256>}。每次引用都会刷新 last_used_at，
+ * 保留清理据此删除不再被任何未过期日志引用的内容。
+ * (Identical content is stored once; the log row keeps only {@code ref:<sha256>}. Every reference
+ * refreshes last_used_at, which retention uses to delete content no unexpired log refers to.)</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class PayloadOffloadStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 保存压缩后的内容
+     * (Save compressed content)
+     *
+     * @return 是否新写入，已存在时为false (Whether it was newly written; false when it already existed)
+     */
+    public boolean save(String hash, String codec, byte[] compressed, int rawSize) {
+        // MySQL 对新插入返回1，对更新已有行返回2 (MySQL reports 1 for a new row and 2 for an updated existing row)
+        return jdbcTemplate.update("INSERT INTO request_log_payloads (hash, codec, content, raw_size, created_at, last_used_at) "
+                + "VALUES (?, ?, ?, ?, NOW(), NOW()) ON DUPLICATE KEY UPDATE last_used_at = NOW()",
+                hash, codec, compressed, rawSize) == 1;
+    }
+
+    /**
+     * 一次查询读取一批压缩后的内容
+     * (Load a batch of compressed content in one query)
+     *
+     * @return 按哈希索引的内容，不存在的哈希不在其中 (Content by hash; missing hashes are absent)
+     */
+    public Map<String, byte[]> loadAll(Collection<String> hashes) {
+        Map<String, byte[]> contents = new HashMap<>();
+        if (hashes.isEmpty()) {
+            return contents;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(hashes.size(), "?"));
+        jdbcTemplate.query("SELECT hash, content FROM request_log_payloads WHERE hash IN (" + placeholders + ")",
+                rs -> {
+                    contents.put(rs.getString(1), rs.getBytes(2));
+                },
+                hashes.toArray());
+        return contents;
+    }
+
+    /**
+     * 删除一批自指定时间起未被引用的内容
+     * (Delete one chunk of content not referenced since the given time)
+     *
+     * @return 删除的条数 (Rows deleted)
+     */
+    public int deleteUnusedSince(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update("DELETE FROM request_log_payloads WHERE last_used_at < ? LIMIT ?",
+                Timestamp.valueOf(cutoff), limit);
+    }
+}
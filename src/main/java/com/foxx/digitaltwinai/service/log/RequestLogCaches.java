@@ -0,0 +1,268 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 请求日志查询缓存的名称、键和失效
+ * (Names, keys and invalidation of the request log query caches)
+ *
+ * <p>只缓存有上限的键集分页：新日志只会出现在首页，因此首页与带游标的历史页分开缓存，历史页只在回放旧日志或
+ * 清理过期日志时清空。缓存在Redis中共享，任一节点的失效所有节点都能看到。Redis不可用时失效失败只记录调试日志，
+ * 陈旧数据最长保留到各自的过期时间。
+ * (Only bounded keyset pages are cached. New logs only ever land on the head page, so head pages and history
+ * pages with a cursor are cached separately, and history pages are cleared only when old logs are replayed or
+ * expired logs are purged. The caches live in Redis and are shared, so an invalidation on any node is seen by
+ * all of them. When Redis is unavailable a failed invalidation is only logged at debug level, and stale data
+ * lives at most until its TTL.)</p>
+ *
+ * <p>首页和统计不逐个清空（清空要SCAN整个缓存），而是在键前加代数：失效只需对Redis中的代数计数器做一次INCR，
+ * 旧代的条目不再被读到，按过期时间自然淘汰。持续写入时首页每个 {@code head-refresh-interval} 最多换代一次，
+ * 其间的缓存可以命中；间隔内被跳过的最后几次写入由首页的过期时间兜底。失效在单独的线程上执行，写入线程只登记。
+ * 读不到代数时不使用缓存，直接查询数据库。
+ * (Head pages and stats are not cleared one by one (a clear has to SCAN the whole cache); their keys carry a
+ * generation instead. Invalidating is one INCR of the generation counter in Redis, after which entries of older
+ * generations are never read again and simply expire. Under a steady stream of writes the head pages move to a
+ * new generation at most once per {@code head-refresh-interval}, so they can be hit in between; the last writes
+ * skipped inside an interval are covered by the head page TTL. Invalidation runs on its own thread and the writer
+ * thread only records it. When the generation cannot be read the caches are bypassed and the database is queried.)</p>
+ */
+@Slf4j
+@Component
+public class RequestLogCaches {
+
+    public static final String HEAD_PAGES = "requestLogs:headPages";
+
+    public static final String PAGES = "requestLogs:pages";
+
+    public static final String STATS = "requestLogs:stats";
+
+    /**
+     * Redis中各代数计数器的键前缀
+     * (Key prefix of the generation counters in Redis)
+     */
+    static final String GENERATION_PREFIX = "digital-twin:request-log:generation:";
+
+    /**
+     * 首页随写入换代 (Head pages move to a new generation as logs are written)
+     */
+    static final String HEAD_GENERATION = GENERATION_PREFIX + "head";
+
+    static final String STATS_GENERATION = GENERATION_PREFIX + "stats";
+
+    /**
+     * 读取代数失败后暂停使用缓存的时长（毫秒）
+     * (How long the caches are bypassed after a generation read failed, in milliseconds)
+     */
+    static final long BYPASS_AFTER_FAILURE_MILLIS = 1000;
+
+    private final CacheManager cacheManager;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final Executor invalidator;
+
+    private final long headRefreshInterval;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicBoolean headPending = new AtomicBoolean();
+
+    private final AtomicBoolean statsPending = new AtomicBoolean();
+
+    /**
+     * 上次首页换代的时间，只在失效线程上读写
+     * (When head pages last moved to a new generation; only touched on the invalidation thread)
+     */
+    private long lastHeadBumpMillis;
+
+    /**
+     * 上次读取代数失败的时间
+     * (When a generation read last failed)
+     */
+    private volatile long generationFailedAtMillis;
+
+    @Autowired
+    public RequestLogCaches(CacheManager cacheManager, StringRedisTemplate redisTemplate, RequestLogConfig config) {
+        this(cacheManager, redisTemplate, config.getCache().getHeadRefreshInterval(),
+                Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "request-log-cache-invalidator");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    RequestLogCaches(CacheManager cacheManager, StringRedisTemplate redisTemplate, long headRefreshInterval,
+                     Executor invalidator) {
+        this.cacheManager = cacheManager;
+        this.redisTemplate = redisTemplate;
+        this.headRefreshInterval = headRefreshInterval;
+        this.invalidator = invalidator;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (invalidator instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 分页查询的缓存键，包含全部筛选条件、条数和游标
+     * (Cache key of a page query, covering every filter, the limit and the cursor)
+     */
+    public static String pageKey(RequestLogQuery query) {
+        return new StringJoiner("|")
+                .add(String.valueOf(query.getFrom()))
+                .add(String.valueOf(query.getTo()))
+                .add(String.valueOf(query.getStatus()))
+                .add(String.valueOf(query.getOperationType()))
+                .add(String.valueOf(query.getTargetComponent()))
+                .add(String.valueOf(query.getLimit()))
+                .add(String.valueOf(query.getCursor()))
+                .toString();
+    }
+
+    /**
+     * 首页的缓存键 (Cache key of a head page)
+     */
+    public String headPageKey(RequestLogQuery query) {
+        return generation(HEAD_GENERATION) + ":" + pageKey(query);
+    }
+
+    /**
+     * 统计结果的缓存键，参数按顺序拼接
+     * (Cache key of a stats result, joining the arguments in order)
+     */
+    public String statsKey(Object... parts) {
+        StringJoiner key = new StringJoiner("|", generation(STATS_GENERATION) + ":", "");
+        for (Object part : parts) {
+            key.add(String.valueOf(part));
+        }
+        return key.toString();
+    }
+
+    /**
+     * 缓存当前是否可用：最近读取代数失败时返回false，查询绕过缓存
+     * (Whether the caches can be used; false right after a generation read failed, so queries bypass them)
+     */
+    public boolean isAvailable() {
+        return System.currentTimeMillis() - generationFailedAtMillis >= BYPASS_AFTER_FAILURE_MILLIS;
+    }
+
+    /**
+     * 新日志写入后失效首页，只登记，不在调用线程上访问Redis
+     * (Invalidate the head pages once new logs are written; this only records it and never touches Redis on the
+     * calling thread)
+     */
+    public void onWritten(Collection<DifyRequestLog> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        headPending.set(true);
+        schedule();
+    }
+
+    /**
+     * 历史数据变化（回放旧日志或清理过期日志）后清空全部日志分页，只在回放和清理时发生
+     * (Clear every log page once history changes, after replaying old logs or purging expired ones; this only
+     * happens on replay and purge)
+     */
+    public void onHistoryChanged() {
+        clear(PAGES);
+        bump(HEAD_GENERATION);
+    }
+
+    /**
+     * 汇总合并后统计换代
+     * (Move stats to a new generation once rollups are merged)
+     */
+    public void onRollupFlushed() {
+        statsPending.set(true);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                invalidator.execute(this::invalidatePending);
+            } catch (RuntimeException e) {
+                // 关闭期间的写入不再失效，陈旧数据最长保留到过期时间 (Writes during shutdown are not invalidated; stale data lives until its TTL)
+                scheduled.set(false);
+                log.debug("请求日志缓存失效未执行: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 执行积累的失效：每个代数最多INCR一次，首页每个刷新间隔最多换代一次
+     * (Run the accumulated invalidations: at most one INCR per generation, and at most one head page generation
+     * per refresh interval)
+     */
+    void invalidatePending() {
+        // 先复位，之后登记的失效会再安排一次 (Reset first so anything recorded afterwards schedules another run)
+        scheduled.set(false);
+        if (headPending.getAndSet(false)) {
+            long now = System.currentTimeMillis();
+            if (now - lastHeadBumpMillis >= headRefreshInterval) {
+                lastHeadBumpMillis = now;
+                bump(HEAD_GENERATION);
+            }
+        }
+        if (statsPending.getAndSet(false)) {
+            bump(STATS_GENERATION);
+        }
+    }
+
+    /**
+     * 读取代数；失败时暂停使用缓存，并返回一个一次性的前缀，本次写入的条目不会被任何读取命中
+     * (Read a generation; on failure the caches are bypassed for a while and a one-off prefix is returned, so an
+     * entry written by this call is never read back)
+     */
+    private String generation(String key) {
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            return value != null ? value : "0";
+        } catch (RuntimeException e) {
+            generationFailedAtMillis = System.currentTimeMillis();
+            log.debug("读取缓存代数 {} 失败: {}", key, e.getMessage());
+            return "?" + UUID.randomUUID();
+        }
+    }
+
+    private void bump(String key) {
+        try {
+            redisTemplate.opsForValue().increment(key);
+        } catch (RuntimeException e) {
+            log.debug("缓存代数 {} 递增失败: {}", key, e.getMessage());
+        }
+    }
+
+    private void clear(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.clear();
+        } catch (RuntimeException e) {
+            log.debug("缓存 {} 清空失败: {}", name, e.getMessage());
+        }
+    }
+}
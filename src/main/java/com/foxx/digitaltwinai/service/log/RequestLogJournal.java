@@ -0,0 +1,386 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 请求日志本地日志文件
+ * (Local journal for request logs)
+ *
+ * <p>数据库不可用时的预写落地点：只追加、内存映射的分段文件，每条记录为
+ * [长度][CRC32][JSON]。长度最后写入，进程崩溃时半写的记录长度为0或校验失败，读取到此为止。
+ * 写满后切换到新分段；总占用超过磁盘上限时删除最旧的已封存分段并计数。
+ * (Write-ahead sink while the database is unavailable: append-only, memory-mapped segment files where
+ * each record is [length][CRC32][JSON]. The length is written last, so a record torn by a crash reads
+ * as length 0 or fails its checksum and reading stops there. A full segment rolls over to a new one;
+ * beyond the disk budget the oldest sealed segment is deleted and counted.)</p>
+ *
+ * <p>写入映射内存的记录在进程崩溃后仍由操作系统写回磁盘；操作系统崩溃或断电时只有已强制刷盘的记录可靠。
+ * 每批溢出写入后都会刷盘，逐条写入时最多间隔 {@code force-interval} 毫秒刷盘一次，这是断电时可能丢失的窗口。
+ * 正在回放的分段不会因磁盘上限被删除。
+ * (Records written to the mapped memory survive a process crash because the OS writes the pages back; after an
+ * OS crash or power loss only forced records are durable. The journal is forced after every spilled batch, and
+ * single appends force at most {@code force-interval} milliseconds apart, which is the window that can be lost on
+ * power loss. The segment being replayed is never deleted for the disk budget.)</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "request-log", name = "store", havingValue = "database", matchIfMissing = true)
+public class RequestLogJournal {
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    static final String CHECKPOINT_SUFFIX = ".replayed";
+
+    /**
+     * 无法写入数据库的记录，每行一条JSON，不参与回放
+     * (Records the database rejected, one JSON per line, never replayed)
+     */
+    static final String QUARANTINE_FILE = "quarantine.jsonl";
+
+    private static final int HEADER_SIZE = 8;
+
+    private final RequestLogConfig.Journal config;
+
+    private final ObjectMapper objectMapper;
+
+    private final Path directory;
+
+    private FileChannel activeChannel;
+
+    private MappedByteBuffer active;
+
+    private Path activePath;
+
+    private long nextSequence;
+
+    /**
+     * 上次强制刷盘后是否有新写入
+     * (Whether anything was appended since the last force)
+     */
+    private boolean dirty;
+
+    private long lastForceMillis;
+
+    /**
+     * 回放器正在读取的分段，磁盘上限清理时跳过
+     * (Segment the replayer is reading, skipped by the disk budget cleanup)
+     */
+    private Path replaying;
+
+    private final Counter appendedCounter;
+
+    private final Counter lostCounter;
+
+    public RequestLogJournal(RequestLogConfig config, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.config = config.getJournal();
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(this.config.getDirectory());
+        this.appendedCounter = Counter.builder("digital_twin.request_log.journal.appended")
+                .description("写入本地日志文件的请求日志 (Request logs appended to the journal)")
+                .register(meterRegistry);
+        this.lostCounter = Counter.builder("digital_twin.request_log.journal.lost")
+                .description("超出磁盘上限被删除的请求日志 (Request logs deleted to stay within the disk budget)")
+                .register(meterRegistry);
+        Gauge.builder("digital_twin.request_log.journal.segments", this, RequestLogJournal::segmentCount)
+                .description("待回放的分段文件数 (Segment files waiting for replay)")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 打开日志目录，旧分段保留待回放，新记录写入新分段
+     * (Open the journal directory; existing segments are kept for replay and new records go to a new segment)
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!config.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> existing = listSegments();
+        nextSequence = existing.isEmpty() ? 1 : sequenceOf(existing.get(existing.size() - 1)) + 1;
+        if (!existing.isEmpty()) {
+            log.info("发现 {} 个待回放的请求日志分段 (Found {} request log segments to replay)",
+                    existing.size(), existing.size());
+        }
+    }
+
+    /**
+     * 追加一条日志
+     * (Append one log)
+     *
+     * @param entry 日志 (Log)
+     * @return 是否写入成功 (Whether it was written)
+     */
+    public synchronized boolean append(DifyRequestLog entry) {
+        if (!config.isEnabled()) {
+            return false;
+        }
+        try {
+            Long id = entry.getId();
+            entry.setId(null);
+            byte[] payload = objectMapper.writeValueAsBytes(entry);
+            entry.setId(id);
+            if (payload.length + HEADER_SIZE > config.getSegmentSize()) {
+                log.error("请求日志超过分段大小，无法写入本地日志文件 (Request log larger than a segment, cannot journal it)");
+                return false;
+            }
+            if (active == null || active.remaining() < payload.length + HEADER_SIZE) {
+                rotate();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            int position = active.position();
+            active.putInt(position + 4, (int) crc.getValue());
+            active.put(position + HEADER_SIZE, payload);
+            active.putInt(position, payload.length);
+            active.position(position + HEADER_SIZE + payload.length);
+            dirty = true;
+            appendedCounter.increment();
+            if (System.currentTimeMillis() - lastForceMillis >= config.getForceInterval()) {
+                force();
+            }
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            log.error("写入本地日志文件失败: {} (Failed to append to the journal: {})", e.getMessage(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 把当前分段的新写入强制刷到磁盘
+     * (Force the active segment's new records to disk)
+     */
+    public synchronized void force() {
+        if (active != null && dirty) {
+            active.force();
+        }
+        dirty = false;
+        lastForceMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 标记回放器开始读取某个分段，使其不会因磁盘上限被删除
+     * (Mark a segment as being read by the replayer so the disk budget cannot delete it)
+     */
+    public synchronized void beginReplay(Path segment) {
+        replaying = segment;
+    }
+
+    /**
+     * 回放器结束读取分段
+     * (The replayer finished with its segment)
+     */
+    public synchronized void endReplay() {
+        replaying = null;
+    }
+
+    /**
+     * 封存当前分段，使其中的记录可以回放
+     * (Seal the active segment so its records can be replayed)
+     */
+    public synchronized void seal() throws IOException {
+        if (active != null && active.position() > 0) {
+            closeActive();
+        }
+    }
+
+    /**
+     * 已封存的分段，按写入顺序排列
+     * (Sealed segments, oldest first)
+     */
+    public synchronized List<Path> sealedSegments() throws IOException {
+        if (!config.isEnabled() || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Path> segments = listSegments();
+        segments.remove(activePath);
+        return segments;
+    }
+
+    /**
+     * 读取分段中的有效记录，遇到空记录或校验失败即停止
+     * (Read the valid records of a segment, stopping at an empty record or a checksum failure)
+     */
+    public List<DifyRequestLog> read(Path segment) throws IOException {
+        List<DifyRequestLog> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("请求日志分段 {} 校验失败，忽略其后的记录 (Checksum mismatch in segment {}, ignoring the rest)",
+                            segment.getFileName(), segment.getFileName());
+                    break;
+                }
+                records.add(objectMapper.readValue(payload, DifyRequestLog.class));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 已回放的记录数，回放中断后从这里继续
+     * (Records already replayed, where an interrupted replay resumes)
+     */
+    public int replayedCount(Path segment) throws IOException {
+        Path checkpoint = checkpointOf(segment);
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        return Integer.parseInt(Files.readString(checkpoint, StandardCharsets.UTF_8).trim());
+    }
+
+    public void markReplayed(Path segment, int count) throws IOException {
+        Files.writeString(checkpointOf(segment), Integer.toString(count), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 删除已全部回放的分段
+     * (Delete a fully replayed segment)
+     */
+    public synchronized void delete(Path segment) throws IOException {
+        Files.deleteIfExists(segment);
+        Files.deleteIfExists(checkpointOf(segment));
+    }
+
+    /**
+     * 隔离一条数据库拒绝写入的记录，供人工排查
+     * (Quarantine a record the database rejected, for manual inspection)
+     *
+     * @param entry 日志 (Log)
+     * @return 是否写入成功 (Whether it was written)
+     */
+    public synchronized boolean quarantine(DifyRequestLog entry) {
+        try {
+            Long id = entry.getId();
+            entry.setId(null);
+            byte[] line = objectMapper.writeValueAsBytes(entry);
+            entry.setId(id);
+            try (OutputStream out = Files.newOutputStream(directory.resolve(QUARANTINE_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                out.write(line);
+                out.write('\n');
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("写入隔离文件失败: {} (Failed to write the quarantine file: {})", e.getMessage(), e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            closeActive();
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (active != null) {
+            closeActive();
+        }
+        enforceBudget();
+        activePath = directory.resolve(String.format("segment-%020d%s", nextSequence++, SEGMENT_SUFFIX));
+        activeChannel = FileChannel.open(activePath,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, config.getSegmentSize());
+    }
+
+    private void closeActive() throws IOException {
+        active.force();
+        dirty = false;
+        activeChannel.close();
+        active = null;
+        activeChannel = null;
+        activePath = null;
+    }
+
+    /**
+     * 为新分段腾出空间，超出磁盘上限时删除最旧的分段
+     * (Make room for a new segment, deleting the oldest ones beyond the disk budget)
+     */
+    private void enforceBudget() throws IOException {
+        List<Path> segments = listSegments();
+        long used = 0;
+        for (Path segment : segments) {
+            used += Files.size(segment);
+        }
+        int index = 0;
+        while (used + config.getSegmentSize() > config.getMaxDiskBytes() && index < segments.size()) {
+            Path oldest = segments.get(index++);
+            if (oldest.equals(replaying)) {
+                // 回放中的分段即将删除，跳过它而不是丢掉正在写库的记录 (About to be removed by the replayer; skip rather than lose rows it is writing)
+                continue;
+            }
+            int lost = read(oldest).size() - replayedCount(oldest);
+            used -= Files.size(oldest);
+            delete(oldest);
+            lostCounter.increment(Math.max(lost, 0));
+            log.error("本地日志文件超出磁盘上限，删除分段 {}，丢失 {} 条请求日志 (Journal over its disk budget, deleted segment {} losing {} request logs)",
+                    oldest.getFileName(), lost, oldest.getFileName(), lost);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private int segmentCount() {
+        try {
+            return Files.isDirectory(directory) ? listSegments().size() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static Path checkpointOf(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + CHECKPOINT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("segment-".length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
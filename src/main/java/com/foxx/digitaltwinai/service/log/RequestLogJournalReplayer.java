@@ -0,0 +1,189 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 本地日志文件回放器
+ * (Journal replayer)
+ *
+ * <p>定时把已封存分段中的记录批量写回MySQL，每批提交后记录进度，全部写完即删除分段。
+ * 熔断打开期间不尝试；连接失败时打开熔断，下次从进度处继续。与写入器一样，批量因数据错误失败时逐条重试，
+ * 数据库拒绝的记录移入隔离文件并计数，回放继续向前，不会反复重试同一分段。
+ * (Periodically writes the records of sealed segments back to MySQL in batches, saving progress after
+ * each batch and deleting a segment once it is fully written. It does not try while the circuit is
+ * open; a connection failure opens the circuit and the next run resumes from the saved progress. Like
+ * the writer, a batch failing on bad data is retried row by row; rows the database rejects are moved
+ * to the quarantine file and counted, and replay moves on instead of retrying the segment forever.)</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "request-log", name = "store", havingValue = "database", matchIfMissing = true)
+public class RequestLogJournalReplayer {
+
+    private final RequestLogJournal journal;
+
+    private final DatabaseCircuit circuit;
+
+    private final RequestLogRollup rollup;
+
+    private final RequestLogCaches caches;
+
+    private final DifyRequestLogRepository difyRequestLogRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    private final Counter replayedCounter;
+
+    private final Counter quarantinedCounter;
+
+    public RequestLogJournalReplayer(RequestLogJournal journal,
+                                     DatabaseCircuit circuit,
+                                     RequestLogRollup rollup,
+                                     RequestLogCaches caches,
+                                     DifyRequestLogRepository difyRequestLogRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     RequestLogConfig config,
+                                     MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.circuit = circuit;
+        this.rollup = rollup;
+        this.caches = caches;
+        this.difyRequestLogRepository = difyRequestLogRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = config.getBatchSize();
+        this.replayedCounter = Counter.builder("digital_twin.request_log.journal.replayed")
+                .description("从本地日志文件回放到数据库的请求日志 (Request logs replayed from the journal into the database)")
+                .register(meterRegistry);
+        this.quarantinedCounter = Counter.builder("digital_twin.request_log.journal.quarantined")
+                .description("回放时被数据库拒绝、移入隔离文件的请求日志 (Request logs rejected by the database during replay and quarantined)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 回放全部已封存分段
+     * (Replay all sealed segments)
+     *
+     * @return 本次回放的条数 (Records replayed in this run)
+     */
+    @Scheduled(fixedDelayString = "${request-log.journal.replay-interval:5000}")
+    public int replay() {
+        if (!journal.isEnabled() || !circuit.allowRequest()) {
+            return 0;
+        }
+        int replayed = 0;
+        try {
+            // 数据库可用时当前分段不会再增长，封存后一并回放 (The active segment stops growing once the database is back, so seal it too)
+            if (!circuit.isOpen()) {
+                journal.seal();
+            }
+            for (Path segment : journal.sealedSegments()) {
+                replayed += replaySegment(segment);
+            }
+            if (replayed > 0) {
+                // 回放的日志时间较早，可能落在已缓存的历史页中 (Replayed logs are older and may fall inside cached history pages)
+                caches.onHistoryChanged();
+                log.info("已从本地日志文件回放 {} 条请求日志 (Replayed {} request logs from the journal)", replayed, replayed);
+            }
+        } catch (NoSuchFileException e) {
+            // 分段已因磁盘上限被删除 (Segment was deleted for the disk budget)
+            log.debug("回放时分段已删除: {}", e.getMessage());
+        } catch (IOException e) {
+            log.error("读取本地日志文件失败: {} (Failed to read the journal: {})", e.getMessage(), e.getMessage());
+        } catch (Exception e) {
+            if (DatabaseCircuit.isConnectivityFailure(e)) {
+                circuit.onFailure(e);
+            } else {
+                log.error("回放请求日志失败: {} (Failed to replay request logs: {})", e.getMessage(), e.getMessage());
+            }
+        }
+        return replayed;
+    }
+
+    private int replaySegment(Path segment) throws IOException {
+        journal.beginReplay(segment);
+        try {
+            return replayRecords(segment);
+        } finally {
+            journal.endReplay();
+        }
+    }
+
+    private int replayRecords(Path segment) throws IOException {
+        List<DifyRequestLog> records = journal.read(segment);
+        int done = Math.min(journal.replayedCount(segment), records.size());
+        int replayed = 0;
+        while (done < records.size()) {
+            List<DifyRequestLog> batch = records.subList(done, Math.min(done + batchSize, records.size()));
+            int written;
+            try {
+                transactionTemplate.executeWithoutResult(status -> difyRequestLogRepository.saveAll(batch));
+                circuit.onSuccess();
+                rollup.record(batch);
+                written = batch.size();
+            } catch (RuntimeException e) {
+                if (DatabaseCircuit.isConnectivityFailure(e)) {
+                    throw e;
+                }
+                log.warn("批量回放请求日志失败，逐条重试: {} (Batch replay of request logs failed, retrying row by row: {})",
+                        e.getMessage(), e.getMessage());
+                written = replayRowByRow(segment, batch, done);
+            }
+            done += batch.size();
+            replayed += written;
+            replayedCounter.increment(written);
+            journal.markReplayed(segment, done);
+        }
+        journal.delete(segment);
+        return replayed;
+    }
+
+    /**
+     * 逐条回放一批记录，数据库拒绝的记录移入隔离文件；连接失败时记录进度后抛出
+     * (Replay a batch row by row, quarantining rows the database rejects; on a connection failure save
+     * progress and rethrow)
+     *
+     * @return 写入的条数 (Rows written)
+     */
+    private int replayRowByRow(Path segment, List<DifyRequestLog> batch, int offset) throws IOException {
+        int written = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            DifyRequestLog entry = batch.get(i);
+            // 回滚后ID已分配但未落库，清空后重新生成 (IDs were assigned but rolled back; regenerate them)
+            entry.setId(null);
+            try {
+                difyRequestLogRepository.save(entry);
+                circuit.onSuccess();
+                rollup.record(entry);
+                written++;
+            } catch (RuntimeException e) {
+                if (DatabaseCircuit.isConnectivityFailure(e)) {
+                    replayedCounter.increment(written);
+                    journal.markReplayed(segment, offset + i);
+                    throw e;
+                }
+                quarantinedCounter.increment();
+                journal.quarantine(entry);
+                log.error("回放请求日志被数据库拒绝，已隔离: {} (Replayed request log rejected by the database, quarantined: {})",
+                        e.getMessage(), e.getMessage());
+            }
+        }
+        return written;
+    }
+}
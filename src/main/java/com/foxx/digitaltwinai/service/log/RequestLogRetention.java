@@ -0,0 +1,276 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 请求日志保留清理
+ * (Request log retention)
+ *
+ * <p>按 (createdAt, id) 升序每次取最早的一小批过期日志：先追加到gzip压缩的NDJSON归档并落盘，
+ * 再按ID在短事务中删除。批与批之间至少暂停上一批的耗时，数据库占用不超过一半，不影响聊天请求。
+ * 随后分批回收不再被引用的外置内容和过期的分钟级汇总。
+ * (Takes the oldest small chunk of expired logs in (createdAt, id) order at a time: the chunk is first
+ * appended to a gzip-compressed NDJSON archive and synced to disk, then deleted by ID in a short
+ * transaction. Between chunks it pauses at least as long as the previous chunk took, keeping its share
+ * of the database under half so chat requests are unaffected. Offloaded content no longer referenced
+ * and expired minute rollups are then reclaimed in chunks as well.)</p>
+ *
+ * <p>request-log.store=binary 时日志不在数据库中，只清理分钟级汇总。
+ * (With request-log.store=binary the logs are not in the database, so only minute rollups are purged.)</p>
+ */
+@Slf4j
+@Component
+public class RequestLogRetention {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final RequestLogConfig.Retention config;
+
+    private final boolean logsInDatabase;
+
+    private final DifyRequestLogRepository difyRequestLogRepository;
+
+    private final PayloadOffloadStore payloadOffloadStore;
+
+    private final LogPayloadCodec logPayloadCodec;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final RequestLogCaches caches;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean stopping;
+
+    /**
+     * 当前进度与截止时间的差距（秒），运行结束归零
+     * (Distance in seconds between the current position and the cutoff; zero when not running)
+     */
+    private final AtomicLong backlogSeconds = new AtomicLong();
+
+    private final Counter archivedCounter;
+
+    private final Counter deletedCounter;
+
+    private final Counter payloadsDeletedCounter;
+
+    private final Timer chunkTimer;
+
+    public RequestLogRetention(RequestLogConfig config,
+                               DifyRequestLogRepository difyRequestLogRepository,
+                               PayloadOffloadStore payloadOffloadStore,
+                               LogPayloadCodec logPayloadCodec,
+                               JdbcTemplate jdbcTemplate,
+                               ObjectMapper objectMapper,
+                               RequestLogCaches caches,
+                               MeterRegistry meterRegistry) {
+        this.config = config.getRetention();
+        this.logsInDatabase = config.getStore() == RequestLogConfig.Store.DATABASE;
+        this.difyRequestLogRepository = difyRequestLogRepository;
+        this.payloadOffloadStore = payloadOffloadStore;
+        this.logPayloadCodec = logPayloadCodec;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.caches = caches;
+        this.archivedCounter = Counter.builder("digital_twin.request_log.retention.archived")
+                .description("已归档的过期日志 (Expired logs archived)")
+                .register(meterRegistry);
+        this.deletedCounter = Counter.builder("digital_twin.request_log.retention.deleted")
+                .description("已删除的过期日志 (Expired logs deleted)")
+                .register(meterRegistry);
+        this.payloadsDeletedCounter = Counter.builder("digital_twin.request_log.retention.payloads_deleted")
+                .description("已回收的外置内容 (Offloaded contents reclaimed)")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("digital_twin.request_log.retention.chunk")
+                .description("每批归档和删除耗时 (Time to archive and delete one chunk)")
+                .register(meterRegistry);
+        Gauge.builder("digital_twin.request_log.retention.backlog", backlogSeconds, AtomicLong::get)
+                .description("清理进度距截止时间的秒数 (Seconds between the purge position and the cutoff)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${request-log.retention.cron:0 30 3 * * *}")
+    public void scheduledPurge() {
+        if (config.isEnabled()) {
+            purge(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * 清理截止到保留期之前的日志
+     * (Purge logs older than the retention period)
+     *
+     * @param now 当前时间 (Current time)
+     * @return 删除的日志条数 (Logs deleted)
+     */
+    public long purge(LocalDateTime now) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("请求日志清理正在进行，跳过本次 (Request log purge already running, skipping)");
+            return 0;
+        }
+        LocalDateTime cutoff = now.minusDays(config.getRetainDays());
+        long deadline = System.currentTimeMillis() + config.getMaxRunDuration();
+        long deleted = 0;
+        try (Archive archive = logsInDatabase && config.isArchive() ? Archive.open(Paths.get(config.getArchiveDirectory()), cutoff, now) : null) {
+            while (logsInDatabase && !stopping && System.currentTimeMillis() < deadline) {
+                long started = System.nanoTime();
+                List<DifyRequestLog> chunk = difyRequestLogRepository.findExpiredChunk(cutoff,
+                        PageRequest.ofSize(config.getChunkSize()));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                if (archive != null) {
+                    // 归档保存完整内容，外置内容随后可能被回收 (Archive the full content, since offloaded content may be reclaimed afterwards)
+                    logPayloadCodec.resolveReferences(chunk);
+                    archive.write(chunk, objectMapper);
+                    archivedCounter.increment(chunk.size());
+                }
+                difyRequestLogRepository.deleteAllByIdInBatch(chunk.stream().map(DifyRequestLog::getId).toList());
+                deleted += chunk.size();
+                deletedCounter.increment(chunk.size());
+                backlogSeconds.set(Math.max(0, Duration.between(chunk.get(chunk.size() - 1).getCreatedAt(), cutoff).getSeconds()));
+                long elapsed = System.nanoTime() - started;
+                chunkTimer.record(Duration.ofNanos(elapsed));
+                if (chunk.size() < config.getChunkSize()) {
+                    break;
+                }
+                pause(Math.max(config.getPauseBetweenChunks(), Duration.ofNanos(elapsed).toMillis()));
+            }
+            if (logsInDatabase && !stopping && System.currentTimeMillis() < deadline) {
+                reclaimPayloads(cutoff);
+            }
+            if (!stopping && System.currentTimeMillis() < deadline) {
+                purgeMinuteRollups(now.minusDays(config.getMinuteRollupDays()));
+            }
+            log.info("请求日志清理完成: 删除 {} 条，截止 {} (Request log purge finished: {} deleted, cutoff {})",
+                    deleted, cutoff, deleted, cutoff);
+        } catch (IOException e) {
+            log.error("写入请求日志归档失败，停止清理: {} (Failed to write the request log archive, stopping: {})",
+                    e.getMessage(), e.getMessage());
+        } catch (Exception e) {
+            log.error("请求日志清理出错: {} (Request log purge failed: {})", e.getMessage(), e.getMessage());
+        } finally {
+            if (deleted > 0) {
+                caches.onHistoryChanged();
+            }
+            backlogSeconds.set(0);
+            running.set(false);
+        }
+        return deleted;
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    /**
+     * 回收截止时间之后再未被引用的外置内容；截止时间之后写入的日志都会刷新其引用时间
+     * (Reclaim offloaded content not referenced since the cutoff; every log written after the cutoff refreshed its reference time)
+     */
+    private void reclaimPayloads(LocalDateTime cutoff) {
+        int count;
+        do {
+            count = payloadOffloadStore.deleteUnusedSince(cutoff, config.getChunkSize());
+            payloadsDeletedCounter.increment(count);
+            pause(config.getPauseBetweenChunks());
+        } while (count == config.getChunkSize() && !stopping);
+    }
+
+    private void purgeMinuteRollups(LocalDateTime cutoff) {
+        int count;
+        do {
+            count = jdbcTemplate.update("DELETE FROM request_log_rollups WHERE granularity = 'MINUTE' AND bucket_start < ? LIMIT ?",
+                    Timestamp.valueOf(cutoff), config.getChunkSize());
+            pause(config.getPauseBetweenChunks());
+        } while (count == config.getChunkSize() && !stopping);
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopping = true;
+        }
+    }
+
+    /**
+     * 一次清理对应的归档文件，每批写完即同步落盘，之后才删除
+     * (Archive file for one purge run; each chunk is synced to disk before it is deleted)
+     */
+    static final class Archive implements AutoCloseable {
+
+        private final FileOutputStream file;
+
+        private final GZIPOutputStream gzip;
+
+        private final Path path;
+
+        private boolean empty = true;
+
+        private Archive(Path path) throws IOException {
+            this.path = path;
+            this.file = new FileOutputStream(path.toFile());
+            this.gzip = new GZIPOutputStream(file, 64 * 1024, true);
+        }
+
+        static Archive open(Path directory, LocalDateTime cutoff, LocalDateTime now) throws IOException {
+            Files.createDirectories(directory);
+            return new Archive(directory.resolve("dify_request_logs-before-" + cutoff.format(FILE_TIME)
+                    + "-at-" + now.format(FILE_TIME) + ".ndjson.gz"));
+        }
+
+        void write(List<DifyRequestLog> chunk, ObjectMapper objectMapper) throws IOException {
+            OutputStream out = gzip;
+            for (DifyRequestLog entry : chunk) {
+                out.write(objectMapper.writeValueAsBytes(entry));
+                out.write('\n');
+            }
+            gzip.flush();
+            file.getFD().sync();
+            empty = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            gzip.close();
+            if (empty) {
+                Files.deleteIfExists(path);
+            } else {
+                log.info("请求日志已归档到 {} (Request logs archived to {})", path, path);
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 请求日志增量汇总
+ * (Incremental request log rollups)
+ *
+ * <p>日志写入数据库后在内存中按 (粒度, 时间桶, 操作类型, 处理路径) 累加，定时以
+ * INSERT ... ON DUPLICATE KEY UPDATE 合并进 request_log_rollups；写入失败时把增量放回内存，下次再合并。
+ * (Once logs are written, they are accumulated in memory per (granularity, bucket, operation type,
+ * handling path) and periodically merged into request_log_rollups with INSERT ... ON DUPLICATE KEY
+ * UPDATE; a failed write puts the increments back in memory for the next merge.)</p>
+ *
+ * <p>内存中的增量最多滞后一个 {@code flush-interval}。正常关闭时会在 {@link #close()} 中合并；进程崩溃或关闭时
+ * 数据库不可用会丢失这部分增量，日志本身仍在 dify_request_logs 中，统计只会少计这一窗口内的请求。
+ * (In-memory increments lag by at most one {@code flush-interval}. A graceful shutdown merges them in
+ * {@link #close()}; a process crash, or a database outage during shutdown, loses them. The logs themselves stay in
+ * dify_request_logs, so the stats only under-count requests from that window.)</p>
+ */
+@Slf4j
+@Component
+public class RequestLogRollup {
+
+    /**
+     * 汇总粒度
+     * (Rollup granularity)
+     */
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime bucketOf(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+    }
+
+    /**
+     * 未记录处理路径时的取值
+     * (Value used when no handling path was recorded)
+     */
+    public static final String UNKNOWN_PATH = "UNKNOWN";
+
+    private static final String UPSERT_SQL = buildUpsert();
+
+    private final boolean enabled;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final RequestLogCaches caches;
+
+    private final Map<Key, Aggregate> pending = new ConcurrentHashMap<>();
+
+    public RequestLogRollup(RequestLogConfig config, JdbcTemplate jdbcTemplate, RequestLogCaches caches,
+                            MeterRegistry meterRegistry) {
+        this.enabled = config.getRollup().isEnabled();
+        this.jdbcTemplate = jdbcTemplate;
+        this.caches = caches;
+        Gauge.builder("digital_twin.request_log.rollup.pending", pending, Map::size)
+                .description("待合并的汇总行数 (Rollup rows waiting to be merged)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 累加已写入数据库的日志
+     * (Accumulate logs that were written to the database)
+     */
+    public void record(Collection<DifyRequestLog> entries) {
+        if (!enabled) {
+            return;
+        }
+        for (DifyRequestLog entry : entries) {
+            record(entry);
+        }
+    }
+
+    public void record(DifyRequestLog entry) {
+        if (!enabled || entry == null || entry.getCreatedAt() == null) {
+            return;
+        }
+        accumulate(pending, entry);
+    }
+
+    /**
+     * 把一条日志累加到它所属的分钟行和小时行
+     * (Add one log to the minute and hour rows it belongs to)
+     */
+    static void accumulate(Map<Key, Aggregate> aggregates, DifyRequestLog entry) {
+        String operationType = entry.getOperationType() != null ? entry.getOperationType() : "";
+        String path = entry.getHandlingPath() != null ? entry.getHandlingPath().name() : UNKNOWN_PATH;
+        for (Granularity granularity : Granularity.values()) {
+            Key key = new Key(granularity, granularity.bucketOf(entry.getCreatedAt()), operationType, path);
+            aggregates.compute(key, (k, aggregate) -> {
+                Aggregate result = aggregate != null ? aggregate : new Aggregate();
+                result.add(entry);
+                return result;
+            });
+        }
+    }
+
+    /**
+     * 把内存中的增量合并进数据库
+     * (Merge in-memory increments into the database)
+     *
+     * @return 合并的行数 (Rows merged)
+     */
+    @Scheduled(fixedDelayString = "${request-log.rollup.flush-interval:5000}")
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Map.Entry<Key, Aggregate>> drained = new ArrayList<>();
+        for (Key key : List.copyOf(pending.keySet())) {
+            Aggregate aggregate = pending.remove(key);
+            if (aggregate != null) {
+                drained.add(Map.entry(key, aggregate));
+            }
+        }
+        try {
+            upsert(jdbcTemplate, drained);
+            caches.onRollupFlushed();
+            return drained.size();
+        } catch (Exception e) {
+            log.warn("合并请求日志汇总失败，稍后重试: {} (Failed to merge request log rollups, will retry: {})",
+                    e.getMessage(), e.getMessage());
+            for (Map.Entry<Key, Aggregate> item : drained) {
+                pending.merge(item.getKey(), item.getValue(), Aggregate::merge);
+            }
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.error("关闭时无法合并 {} 行请求日志汇总，这部分统计将丢失 (Could not merge {} request log rollup rows on shutdown; those stats are lost)",
+                    pending.size(), pending.size());
+        }
+    }
+
+    /**
+     * 把汇总行以增量方式合并进数据库
+     * (Merge rollup rows into the database as increments)
+     */
+    static void upsert(JdbcTemplate jdbcTemplate, Collection<Map.Entry<Key, Aggregate>> rows) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, rows.size(), (ps, item) -> {
+            Key key = item.getKey();
+            Aggregate aggregate = item.getValue();
+            int i = 1;
+            ps.setString(i++, key.granularity().name());
+            ps.setTimestamp(i++, Timestamp.valueOf(key.bucketStart()));
+            ps.setString(i++, key.operationType());
+            ps.setString(i++, key.handlingPath());
+            ps.setLong(i++, aggregate.count);
+            ps.setLong(i++, aggregate.success);
+            ps.setLong(i++, aggregate.latencySum);
+            ps.setLong(i++, aggregate.latencyMax);
+            for (long count : aggregate.histogram.counts()) {
+                ps.setLong(i++, count);
+            }
+        });
+    }
+
+    private static String buildUpsert() {
+        StringBuilder columns = new StringBuilder(
+                "granularity, bucket_start, operation_type, handling_path, request_count, success_count, latency_sum, latency_max");
+        StringBuilder updates = new StringBuilder(
+                "request_count = request_count + VALUES(request_count), "
+                        + "success_count = success_count + VALUES(success_count), "
+                        + "latency_sum = latency_sum + VALUES(latency_sum), "
+                        + "latency_max = GREATEST(latency_max, VALUES(latency_max))");
+        for (String column : LatencyHistogram.COLUMNS) {
+            columns.append(", ").append(column);
+            updates.append(", ").append(column).append(" = ").append(column).append(" + VALUES(").append(column).append(")");
+        }
+        String placeholders = String.join(", ", Collections.nCopies(8 + LatencyHistogram.COLUMNS.length, "?"));
+        return "INSERT INTO request_log_rollups (" + columns + ") VALUES (" + placeholders + ")"
+                + " ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    /**
+     * 汇总行主键
+     * (Rollup row key)
+     */
+    record Key(Granularity granularity, LocalDateTime bucketStart, String operationType, String handlingPath) {
+    }
+
+    /**
+     * 一个汇总行的增量
+     * (Increment for one rollup row)
+     */
+    static final class Aggregate {
+
+        long count;
+
+        long success;
+
+        long latencySum;
+
+        long latencyMax;
+
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        void add(DifyRequestLog entry) {
+            count++;
+            if (Integer.valueOf(1).equals(entry.getStatus())) {
+                success++;
+            }
+            Long latency = entry.getResponseTime();
+            if (latency != null) {
+                latencySum += latency;
+                latencyMax = Math.max(latencyMax, latency);
+                histogram.record(latency);
+            }
+        }
+
+        Aggregate merge(Aggregate other) {
+            count += other.count;
+            success += other.success;
+            latencySum += other.latencySum;
+            latencyMax = Math.max(latencyMax, other.latencyMax);
+            histogram.merge(other.histogram);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 把汇总功能上线前的已有日志分批累加进 request_log_rollups
+ * (Adds the logs written before rollups existed to request_log_rollups in batches)
+ *
+ * <p>V7迁移记录需要回填的主键区间，这里每次处理一小段区间：在同一事务中锁定进度行、合并该区间的汇总并推进进度，
+ * 因此中断后从断点继续，多个节点也不会重复累加。之后写入的日志由 {@link RequestLogRollup} 增量汇总。
+ * (The V7 migration records the primary-key range to backfill, and each run handles a small slice of it: it locks
+ * the progress row, merges that slice's aggregates and advances the progress in one transaction, so an
+ * interruption resumes where it stopped and several nodes never add the same rows twice. Logs written afterwards
+ * are rolled up incrementally by {@link RequestLogRollup}.)</p>
+ */
+@Slf4j
+@Component
+public class RequestLogRollupBackfill {
+
+    private static final String PROGRESS_TABLE = "request_log_rollup_backfill";
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RequestLogCaches caches;
+
+    /**
+     * 回填已完成或无需回填
+     * (Backfill finished or not needed)
+     */
+    private volatile boolean done;
+
+    public RequestLogRollupBackfill(RequestLogConfig config, JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager, RequestLogCaches caches) {
+        this.enabled = config.getRollup().isEnabled();
+        this.batchSize = Math.max(1, config.getRollup().getBackfillBatchSize());
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.caches = caches;
+    }
+
+    /**
+     * 回填下一批
+     * (Backfill the next batch)
+     *
+     * @return 本批累加的日志数 (Logs added in this batch)
+     */
+    @Scheduled(fixedDelayString = "${request-log.rollup.backfill-interval:1000}")
+    public int backfill() {
+        if (!enabled || done) {
+            return 0;
+        }
+        try {
+            Integer added = transactionTemplate.execute(status -> backfillBatch());
+            if (added != null && added > 0) {
+                caches.onRollupFlushed();
+            }
+            return added != null ? added : 0;
+        } catch (Exception e) {
+            log.warn("回填请求日志汇总失败，稍后重试: {} (Failed to backfill request log rollups, will retry: {})",
+                    e.getMessage(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private int backfillBatch() {
+        List<Map<String, Object>> progress = jdbcTemplate.queryForList(
+                "SELECT next_id, end_id FROM " + PROGRESS_TABLE + " WHERE id = 1 FOR UPDATE");
+        if (progress.isEmpty()) {
+            done = true;
+            return 0;
+        }
+        long nextId = ((Number) progress.get(0).get("next_id")).longValue();
+        long endId = ((Number) progress.get(0).get("end_id")).longValue();
+        if (nextId > endId) {
+            jdbcTemplate.update("DELETE FROM " + PROGRESS_TABLE + " WHERE id = 1");
+            done = true;
+            log.info("请求日志汇总回填完成 (Request log rollup backfill finished)");
+            return 0;
+        }
+        long upTo = Math.min(endId, nextId + batchSize - 1);
+        List<DifyRequestLog> logs = jdbcTemplate.query(
+                "SELECT created_at, operation_type, handling_path, status, response_time FROM dify_request_logs"
+                        + " WHERE id BETWEEN ? AND ? AND created_at IS NOT NULL",
+                (rs, rowNum) -> {
+                    DifyRequestLog entry = new DifyRequestLog();
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    entry.setCreatedAt(createdAt.toLocalDateTime());
+                    entry.setOperationType(rs.getString("operation_type"));
+                    entry.setHandlingPath(handlingPath(rs.getString("handling_path")));
+                    entry.setStatus(rs.getObject("status", Integer.class));
+                    entry.setResponseTime(rs.getObject("response_time", Long.class));
+                    return entry;
+                },
+                nextId, upTo);
+        Map<RequestLogRollup.Key, RequestLogRollup.Aggregate> aggregates = new HashMap<>();
+        for (DifyRequestLog entry : logs) {
+            RequestLogRollup.accumulate(aggregates, entry);
+        }
+        if (!aggregates.isEmpty()) {
+            RequestLogRollup.upsert(jdbcTemplate, aggregates.entrySet());
+        }
+        jdbcTemplate.update("UPDATE " + PROGRESS_TABLE + " SET next_id = ? WHERE id = 1", upTo + 1);
+        log.debug("请求日志汇总回填到ID {} (Request log rollups backfilled up to ID {})", upTo, upTo);
+        return logs.size();
+    }
+
+    /**
+     * 无法识别的旧值按未记录处理，计入 UNKNOWN
+     * (Unrecognised legacy values are treated as missing and counted as UNKNOWN)
+     */
+    private static HandlingPath handlingPath(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return HandlingPath.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.foxx.digitaltwinai.service.log;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时把日志ID序列表推进到现有最大ID之后
+ * (Moves the log ID sequence table past the existing maximum ID on startup)
+ *
+ * <p>ID原先由自增列生成，切换到池化序列后新表从1开始，会与已有记录冲突。
+ * 序列表由Flyway迁移创建；Spring Boot让JdbcTemplate依赖Flyway，注入它即可保证迁移已执行。
+ * (IDs used to come from the auto-increment column; the new pooled sequence table starts at 1 and would
+ * collide with existing rows. The sequence table is created by the Flyway migrations; Spring Boot makes
+ * JdbcTemplate depend on Flyway, so injecting it guarantees the migrations have run.)</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "request-log", name = "store", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RequestLogSequenceInitializer {
+
+    /**
+     * 序列表名称，与实体上的 @SequenceGenerator 一致
+     * (Sequence table name, matching the entity's @SequenceGenerator)
+     */
+    public static final String SEQUENCE_TABLE = "dify_request_logs_seq";
+
+    /**
+     * 序列分配步长，与实体上的 @SequenceGenerator 一致
+     * (Sequence allocation size, matching the entity's @SequenceGenerator)
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void alignSequence() {
+        try {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM dify_request_logs", Long.class);
+            Long nextVal = jdbcTemplate.queryForObject("SELECT next_val FROM " + SEQUENCE_TABLE, Long.class);
+            long required = (maxId != null ? maxId : 0) + ALLOCATION_SIZE + 1;
+            if (nextVal == null || nextVal < required) {
+                jdbcTemplate.update("UPDATE " + SEQUENCE_TABLE + " SET next_val = ?", required);
+                log.info("日志ID序列已推进到 {} (Log ID sequence advanced to {})", required, required);
+            }
+        } catch (Exception e) {
+            log.warn("无法校准日志ID序列: {} (Unable to align log ID sequence: {})", e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.foxx.digitaltwinai.service.metrics;
+
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import com.foxx.digitaltwinai.operation.OperationHandler;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天处理链路各阶段指标
+ * (Metrics for each stage of the chat pipeline)
+ *
+ * <p>阶段耗时记录在 {@value #STAGE_METRIC}，整次请求耗时记录在 {@value #REQUEST_METRIC}，
+ * 都按处理路径、操作类型和结果打标签并发布百分位直方图，可在Prometheus中跨实例聚合。
+ * 操作类型只取已注册的类型，其余记为 other，避免Dify返回任意值导致标签膨胀。
+ * (Stage latency goes to {@value #STAGE_METRIC} and whole-request latency to {@value #REQUEST_METRIC},
+ * both tagged by handling path, operation type and outcome and published as percentile histograms that
+ * aggregate across instances in Prometheus. Only registered operation types are used as tag values; anything
+ * else becomes other, so arbitrary values returned by Dify cannot blow up the tag cardinality.)</p>
+ */
+@Component
+public class ChatPipelineMetrics {
+
+    public static final String STAGE_METRIC = "digital_twin.chat.stage";
+
+    public static final String REQUEST_METRIC = "digital_twin.chat.request";
+
+    public static final String FALLBACK_METRIC = "digital_twin.chat.fallbacks";
+
+    public static final String LOCAL_PARSE_METRIC = "digital_twin.chat.local_parse";
+
+    public static final String SUCCESS = "success";
+
+    public static final String FAILURE = "failure";
+
+    public static final String ERROR = "error";
+
+    private static final String NONE = "none";
+
+    private static final String OTHER = "other";
+
+    /**
+     * 处理链路阶段
+     * (Pipeline stage)
+     */
+    public enum Stage {
+        /** 本地解析指令 (Local instruction parsing) */
+        PARSE,
+        /** 发出Dify请求到收到响应头 (From sending the Dify request to receiving response headers) */
+        DIFY_FIRST_BYTE,
+        /** 读取Dify流式响应体 (Reading the Dify streaming body) */
+        DIFY_STREAM,
+        /** 非流式Dify请求 (Blocking Dify request) */
+        DIFY_REQUEST,
+        /** 浏览器服务执行操作，含重试 (Browser service operation including retries) */
+        BROWSER,
+        /** 记录请求日志 (Recording the request log) */
+        RECORD;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final OperationRegistry operationRegistry;
+
+    private final Meter.MeterProvider<Timer> stageTimers;
+
+    private final Meter.MeterProvider<Timer> requestTimers;
+
+    private final Meter.MeterProvider<Counter> fallbackCounters;
+
+    private final Counter localParseHits;
+
+    private final Counter localParseMisses;
+
+    public ChatPipelineMetrics(OperationRegistry operationRegistry, MeterRegistry meterRegistry) {
+        this.operationRegistry = operationRegistry;
+        this.stageTimers = Timer.builder(STAGE_METRIC)
+                .description("聊天处理各阶段耗时 (Latency of each chat pipeline stage)")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .withRegistry(meterRegistry);
+        this.requestTimers = Timer.builder(REQUEST_METRIC)
+                .description("聊天请求端到端耗时 (End-to-end chat request latency)")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .withRegistry(meterRegistry);
+        this.fallbackCounters = Counter.builder(FALLBACK_METRIC)
+                .description("Dify失败后转入本地回退的请求 (Requests falling back to local handling after Dify failed)")
+                .withRegistry(meterRegistry);
+        this.localParseHits = Counter.builder(LOCAL_PARSE_METRIC)
+                .description("本地解析指令的结果，命中时不调用Dify (Local parsing results; a hit skips Dify)")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.localParseMisses = Counter.builder(LOCAL_PARSE_METRIC)
+                .description("本地解析指令的结果，命中时不调用Dify (Local parsing results; a hit skips Dify)")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一个阶段的耗时
+     * (Record the latency of one stage)
+     */
+    public void recordStage(Stage stage, HandlingPath path, String operationType, String outcome, long elapsedNanos) {
+        stageTimers.withTags(tags(path, operationType, outcome).and("stage", stage.tag))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录整次请求的耗时
+     * (Record the latency of a whole request)
+     */
+    public void recordRequest(HandlingPath path, String operationType, String outcome, long elapsedMillis) {
+        requestTimers.withTags(tags(path, operationType, outcome)).record(elapsedMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录一次本地解析
+     * (Record one local parse)
+     */
+    public void recordLocalParse(boolean hit) {
+        (hit ? localParseHits : localParseMisses).increment();
+    }
+
+    /**
+     * 记录一次转入本地回退
+     * (Record one fallback to local handling)
+     *
+     * @param reason 原因：connection 连接失败，error 调用出错 (Reason: connection failure or call error)
+     */
+    public void recordFallback(String reason) {
+        fallbackCounters.withTags("reason", reason).increment();
+    }
+
+    private Tags tags(HandlingPath path, String operationType, String outcome) {
+        return Tags.of("path", path != null ? path.name().toLowerCase(Locale.ROOT) : NONE,
+                "operation", operationTag(operationType),
+                "outcome", outcome);
+    }
+
+    private String operationTag(String operationType) {
+        if (operationType == null) {
+            return NONE;
+        }
+        OperationHandler handler = operationRegistry.find(operationType);
+        return handler != null ? handler.getType() : OTHER;
+    }
+}
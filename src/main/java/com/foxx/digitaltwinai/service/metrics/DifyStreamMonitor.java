@@ -0,0 +1,238 @@
+package com.foxx.digitaltwinai.service.metrics;
+
+import com.foxx.digitaltwinai.config.DifyApiConfig;
+import com.foxx.digitaltwinai.model.StreamStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dify流式响应监控
+ * (Dify streaming response monitor)
+ *
+ * <p>记录首个片段耗时、片段间隔、片段数、回答长度、流耗时和生成速率的直方图，并定期检查进行中的流：
+ * 超过停滞阈值没有新片段的流计入停滞计数并记录告警日志，每个流只计一次。
+ * 可在Prometheus上对 {@value #STALLED_METRIC} 或 {@value #STALLS_METRIC} 的增长设置告警。
+ * (Records histograms of time to first chunk, chunk gaps, chunk count, answer length, stream duration and
+ * generation rate, and periodically checks streams in progress: a stream with no chunk for longer than the
+ * stall threshold is counted as stalled and logged as a warning, once per stream. Alert in Prometheus on
+ * {@value #STALLED_METRIC} or on increases of {@value #STALLS_METRIC}.)</p>
+ */
+@Slf4j
+@Component
+public class DifyStreamMonitor {
+
+    public static final String STALLS_METRIC = "digital_twin.dify.stream.stalls";
+
+    public static final String STALLED_METRIC = "digital_twin.dify.stream.stalled";
+
+    private final long stallThresholdNanos;
+
+    private final Set<Tracker> active = ConcurrentHashMap.newKeySet();
+
+    private final Timer ttftTimer;
+
+    private final Timer chunkGapTimer;
+
+    private final Timer durationTimer;
+
+    private final DistributionSummary chunksSummary;
+
+    private final DistributionSummary answerLengthSummary;
+
+    private final DistributionSummary tokenRateSummary;
+
+    private final Counter stallCounter;
+
+    public DifyStreamMonitor(DifyApiConfig difyApiConfig, MeterRegistry meterRegistry) {
+        this.stallThresholdNanos = TimeUnit.MILLISECONDS.toNanos(difyApiConfig.getStream().getStallThreshold());
+        this.ttftTimer = Timer.builder("digital_twin.dify.stream.ttft")
+                .description("首个回答片段耗时 (Time to the first answer chunk)")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(meterRegistry);
+        this.chunkGapTimer = Timer.builder("digital_twin.dify.stream.chunk_gap")
+                .description("相邻回答片段的间隔 (Gap between consecutive answer chunks)")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.durationTimer = Timer.builder("digital_twin.dify.stream.duration")
+                .description("流式响应总耗时 (Total streaming response duration)")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(meterRegistry);
+        this.chunksSummary = DistributionSummary.builder("digital_twin.dify.stream.chunks")
+                .description("每次响应的回答片段数 (Answer chunks per response)")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(10000.0)
+                .register(meterRegistry);
+        this.answerLengthSummary = DistributionSummary.builder("digital_twin.dify.stream.answer_length")
+                .description("每次响应的回答字符数 (Answer characters per response)")
+                .baseUnit("characters")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(100000.0)
+                .register(meterRegistry);
+        this.tokenRateSummary = DistributionSummary.builder("digital_twin.dify.stream.tokens_per_second")
+                .description("首个片段之后的生成速率，Dify未报告token数时按片段数计 (Generation rate after the first chunk; chunks stand in for tokens when Dify reports none)")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry);
+        this.stallCounter = Counter.builder(STALLS_METRIC)
+                .description("停滞的流式响应 (Streaming responses that stalled)")
+                .register(meterRegistry);
+        Gauge.builder("digital_twin.dify.stream.active", active, Set::size)
+                .description("进行中的流式响应 (Streaming responses in progress)")
+                .register(meterRegistry);
+        Gauge.builder(STALLED_METRIC, this, DifyStreamMonitor::stalledCount)
+                .description("当前停滞中的流式响应 (Streaming responses currently stalled)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 开始跟踪一次流式响应，应在发出请求前调用
+     * (Start tracking one streaming response; call before sending the request)
+     */
+    public Tracker begin() {
+        Tracker tracker = new Tracker(System.nanoTime());
+        active.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * 检查进行中的流是否停滞
+     * (Check streams in progress for stalls)
+     *
+     * @return 新发现的停滞数 (Newly detected stalls)
+     */
+    @Scheduled(fixedDelayString = "${dify.api.stream.stall-check-interval:1000}")
+    public int checkStalls() {
+        long now = System.nanoTime();
+        int detected = 0;
+        for (Tracker tracker : active) {
+            if (now - tracker.lastActivity > stallThresholdNanos && tracker.markStalled()) {
+                detected++;
+                stallCounter.increment();
+                log.warn("Dify流式响应已 {}ms 没有新片段，已收到 {} 个片段 (Dify stream has had no chunk for {}ms after {} chunks)",
+                        TimeUnit.NANOSECONDS.toMillis(now - tracker.lastActivity), tracker.chunks,
+                        TimeUnit.NANOSECONDS.toMillis(now - tracker.lastActivity), tracker.chunks);
+            }
+        }
+        return detected;
+    }
+
+    private double stalledCount() {
+        long now = System.nanoTime();
+        return active.stream().filter(tracker -> now - tracker.lastActivity > stallThresholdNanos).count();
+    }
+
+    /**
+     * 单次流式响应的跟踪器，由读取响应的线程更新
+     * (Tracker for one streaming response, updated by the thread reading it)
+     */
+    public class Tracker {
+
+        private final long started;
+
+        private volatile long lastActivity;
+
+        private volatile int chunks;
+
+        private long firstChunk;
+
+        private long maxGap;
+
+        private int answerLength;
+
+        private Integer completionTokens;
+
+        private boolean stalled;
+
+        private boolean finished;
+
+        private Tracker(long started) {
+            this.started = started;
+            this.lastActivity = started;
+        }
+
+        /**
+         * 收到一个回答片段
+         * (An answer chunk arrived)
+         */
+        public void onChunk(String answerPart) {
+            long now = System.nanoTime();
+            if (chunks == 0) {
+                firstChunk = now;
+                ttftTimer.record(now - started, TimeUnit.NANOSECONDS);
+            } else {
+                long gap = now - lastActivity;
+                maxGap = Math.max(maxGap, gap);
+                chunkGapTimer.record(gap, TimeUnit.NANOSECONDS);
+            }
+            lastActivity = now;
+            chunks++;
+            answerLength += answerPart.length();
+        }
+
+        /**
+         * Dify在结束事件中报告的token用量
+         * (Token usage reported by Dify in the end event)
+         */
+        public void onUsage(int tokens) {
+            completionTokens = tokens;
+        }
+
+        private synchronized boolean markStalled() {
+            if (stalled || finished) {
+                return false;
+            }
+            stalled = true;
+            return true;
+        }
+
+        /**
+         * 结束跟踪并记录直方图，重复调用返回null
+         * (Stop tracking and record histograms; repeated calls return null)
+         */
+        public StreamStats finish() {
+            synchronized (this) {
+                if (finished) {
+                    return null;
+                }
+                finished = true;
+            }
+            active.remove(this);
+            long now = System.nanoTime();
+            durationTimer.record(now - started, TimeUnit.NANOSECONDS);
+            chunksSummary.record(chunks);
+            answerLengthSummary.record(answerLength);
+            // 首个片段之后至少经过1毫秒才计算速率，避免除以接近0的时长 (Only compute a rate after at least 1ms past the first chunk to avoid dividing by almost nothing)
+            long generating = now - firstChunk;
+            if (chunks > 0 && generating >= TimeUnit.MILLISECONDS.toNanos(1)) {
+                int tokens = completionTokens != null ? completionTokens : chunks;
+                tokenRateSummary.record(tokens * (double) TimeUnit.SECONDS.toNanos(1) / generating);
+            }
+            return StreamStats.builder()
+                    .ttftMs(chunks > 0 ? TimeUnit.NANOSECONDS.toMillis(firstChunk - started) : null)
+                    .durationMs(TimeUnit.NANOSECONDS.toMillis(now - started))
+                    .chunkCount(chunks)
+                    .maxChunkGapMs(TimeUnit.NANOSECONDS.toMillis(maxGap))
+                    .answerLength(answerLength)
+                    .completionTokens(completionTokens)
+                    .stalled(stalled)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.foxx.digitaltwinai.service.tracing;
+
+import com.foxx.digitaltwinai.config.TracingConfig;
+import com.foxx.digitaltwinai.model.TraceSummary;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把导出的span按链路保存在内存环形缓冲中，无需外部收集器即可查看慢请求
+ * (Keeps exported spans in an in-memory ring buffer grouped by trace, so slow requests can be
+ * inspected without an external collector)
+ *
+ * <p>由Spring Boot的OpenTelemetry自动配置经批量处理器调用，span在结束后数秒内可见。
+ * 超过 maxTraces 时丢弃最早出现的链路。
+ * (Called by Spring Boot's OpenTelemetry auto-configuration through the batch processor, so spans
+ * show up within a few seconds of ending. Beyond maxTraces the trace seen first is dropped.)</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class RingBufferSpanExporter implements SpanExporter {
+
+    private final TracingConfig config;
+
+    private final Map<String, TraceEntry> traces = new LinkedHashMap<>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TraceEntry> eldest) {
+            return size() > config.getMaxTraces();
+        }
+    };
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        if (!config.isEnabled()) {
+            return CompletableResultCode.ofSuccess();
+        }
+        synchronized (traces) {
+            for (SpanData span : spans) {
+                traces.computeIfAbsent(span.getTraceId(), TraceEntry::new).add(span, config.getMaxSpansPerTrace());
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * 耗时不低于 minDurationMs 的链路，按耗时倒序
+     * (Traces lasting at least minDurationMs, slowest first)
+     */
+    public List<TraceSummary> slowest(long minDurationMs, int limit) {
+        List<TraceSummary> result = new ArrayList<>();
+        synchronized (traces) {
+            for (TraceEntry entry : traces.values()) {
+                if (entry.durationMs() >= minDurationMs) {
+                    result.add(entry.summary(false));
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong(TraceSummary::getDurationMs).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 按ID查找链路及其span，不在缓冲中时返回null
+     * (Find a trace and its spans by ID; null when it is not buffered)
+     */
+    public TraceSummary find(String traceId) {
+        synchronized (traces) {
+            TraceEntry entry = traces.get(traceId);
+            return entry != null ? entry.summary(true) : null;
+        }
+    }
+
+    /**
+     * 缓冲中的链路数
+     * (Traces currently buffered)
+     */
+    public int size() {
+        synchronized (traces) {
+            return traces.size();
+        }
+    }
+
+    private static final class TraceEntry {
+
+        private final String traceId;
+
+        private final List<SpanData> spans = new ArrayList<>();
+
+        private SpanData root;
+
+        private int spanCount;
+
+        private long startNanos = Long.MAX_VALUE;
+
+        private long endNanos;
+
+        private boolean error;
+
+        TraceEntry(String traceId) {
+            this.traceId = traceId;
+        }
+
+        void add(SpanData span, int maxSpans) {
+            spanCount++;
+            startNanos = Math.min(startNanos, span.getStartEpochNanos());
+            endNanos = Math.max(endNanos, span.getEndEpochNanos());
+            error |= span.getStatus().getStatusCode() == StatusCode.ERROR;
+            // 父span无效或来自上游时为本进程内的根 (A span whose parent is invalid or remote is the local root)
+            if (!span.getParentSpanContext().isValid() || span.getParentSpanContext().isRemote()) {
+                root = span;
+            }
+            if (spans.size() < maxSpans) {
+                spans.add(span);
+            }
+        }
+
+        long durationMs() {
+            return TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+        }
+
+        TraceSummary summary(boolean withSpans) {
+            String rootName = root != null ? root.getName()
+                    : spans.stream().min(Comparator.comparingLong(SpanData::getStartEpochNanos)).map(SpanData::getName).orElse(null);
+            return TraceSummary.builder()
+                    .traceId(traceId)
+                    .rootName(rootName)
+                    .startTime(toInstant(startNanos))
+                    .durationMs(durationMs())
+                    .spanCount(spanCount)
+                    .error(error)
+                    .spans(withSpans ? spans.stream()
+                            .sorted(Comparator.comparingLong(SpanData::getStartEpochNanos))
+                            .map(TraceEntry::toSpan)
+                            .toList() : null)
+                    .build();
+        }
+
+        private static TraceSummary.Span toSpan(SpanData span) {
+            Map<String, String> attributes = new LinkedHashMap<>();
+            span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+            return TraceSummary.Span.builder()
+                    .spanId(span.getSpanId())
+                    .parentSpanId(span.getParentSpanContext().isValid() ? span.getParentSpanId() : null)
+                    .name(span.getName())
+                    .kind(span.getKind().name())
+                    .startTime(toInstant(span.getStartEpochNanos()))
+                    .durationMs(TimeUnit.NANOSECONDS.toMillis(span.getEndEpochNanos() - span.getStartEpochNanos()))
+                    .error(span.getStatus().getStatusCode() == StatusCode.ERROR)
+                    .attributes(attributes.isEmpty() ? null : attributes)
+                    .build();
+        }
+
+        private static Instant toInstant(long epochNanos) {
+            return Instant.ofEpochSecond(0, epochNanos);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.foxx.digitaltwinai.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket消息批量发布器
+ * (Batching WebSocket message publisher)
+ *
+ * <p>按（会话, 目标）缓冲消息，达到数量阈值或时间阈值时合并为一帧发出；时间窗口内重复的错误消息
+ * 只发送一次并累计次数；每个会话按令牌桶限流，超出的消息被丢弃并计数。
+ * (Buffers messages per (session, destination) and flushes them as one frame on a size or time
+ * threshold. Identical errors within a window are sent once with a repeat count, and each session
+ * is rate limited by a token bucket; excess messages are dropped and counted.)</p>
+ */
+@Slf4j
+public class BatchingMessagePublisher {
+
+    /**
+     * 实际的消息投递
+     * (Actual message delivery)
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * 投递一帧消息
+         * (Deliver one frame)
+         *
+         * @param sessionId 会话ID，可为空 (Session ID, may be null)
+         * @param destination 目标 (Destination)
+         * @param payload 消息内容 (Payload)
+         */
+        void send(String sessionId, String destination, Object payload);
+    }
+
+    /**
+     * 缓冲区键
+     * (Buffer key)
+     */
+    private record BufferKey(String sessionId, String destination) {
+    }
+
+    /**
+     * 单个（会话, 目标）的待发送消息
+     * (Pending messages of one (session, destination))
+     */
+    private static final class Buffer {
+        private final List<Map<String, Object>> items = new ArrayList<>();
+        private final Map<String, Map<String, Object>> errorsByContent = new HashMap<>();
+        private boolean retired;
+    }
+
+    /**
+     * 空闲令牌桶的回收时间（毫秒）
+     * (Idle token buckets are evicted after this many milliseconds)
+     */
+    private static final long BUCKET_IDLE_MILLIS = 60_000;
+
+    private final Sink sink;
+    private final int maxBatchSize;
+    private final long errorDedupWindowMillis;
+    private final double ratePerSecond;
+    private final double burst;
+
+    private final Map<BufferKey, Buffer> buffers = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Long> recentErrors = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter droppedCounter;
+    private final Counter mergedCounter;
+    private final DistributionSummary batchSizeSummary;
+
+    public BatchingMessagePublisher(Sink sink, int maxBatchSize, long flushIntervalMillis, long errorDedupWindowMillis,
+                                    double ratePerSecond, double burst, MeterRegistry meterRegistry) {
+        this.sink = sink;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.errorDedupWindowMillis = errorDedupWindowMillis;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+
+        this.droppedCounter = Counter.builder("digital_twin.websocket.batch.dropped")
+                .description("因会话限流被丢弃的消息 (Messages dropped by the per-session rate limit)")
+                .register(meterRegistry);
+        this.mergedCounter = Counter.builder("digital_twin.websocket.batch.merged")
+                .description("时间窗口内被合并的重复错误消息 (Duplicate error messages merged within the window)")
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("digital_twin.websocket.batch.size")
+                .description("每帧包含的消息数 (Messages per flushed frame)")
+                .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ws-batch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flushAll, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 发布一条消息
+     * (Publish one message)
+     *
+     * @param sessionId 会话ID，可为空 (Session ID, may be null)
+     * @param destination 目标 (Destination)
+     * @param message 消息内容，需包含 content 字段 (Message, expected to carry a content field)
+     * @param dedupe 是否在时间窗口内去重 (Whether to de-duplicate within the window)
+     */
+    public void publish(String sessionId, String destination, Map<String, Object> message, boolean dedupe) {
+        String sessionKey = sessionId != null ? sessionId : "";
+        long now = System.currentTimeMillis();
+
+        String dedupeKey = null;
+        if (dedupe) {
+            String content = String.valueOf(message.get("content"));
+            dedupeKey = sessionKey + '\u0000' + destination + '\u0000' + content;
+            Long lastSent = recentErrors.get(dedupeKey);
+            if (lastSent != null && now - lastSent < errorDedupWindowMillis) {
+                merge(new BufferKey(sessionId, destination), content);
+                return;
+            }
+        }
+
+        TokenBucket bucket = buckets.computeIfAbsent(sessionKey, key -> new TokenBucket(ratePerSecond, burst));
+        if (!bucket.tryAcquire()) {
+            droppedCounter.increment();
+            return;
+        }
+        if (dedupeKey != null) {
+            // 被限流丢弃的错误不计入去重窗口，否则窗口内的重发会被合并到一条从未发出的消息上
+            // (Errors dropped by the rate limit are not recorded, or resends within the window would merge into a
+            // message that was never sent)
+            recentErrors.put(dedupeKey, now);
+        }
+
+        BufferKey key = new BufferKey(sessionId, destination);
+        List<Map<String, Object>> ready = null;
+        while (true) {
+            Buffer buffer = buffers.computeIfAbsent(key, k -> new Buffer());
+            synchronized (buffer) {
+                if (buffer.retired) {
+                    // 缓冲区刚被回收，重新获取 (Buffer was just retired, fetch again)
+                    continue;
+                }
+                buffer.items.add(message);
+                if (dedupe) {
+                    buffer.errorsByContent.put(String.valueOf(message.get("content")), message);
+                }
+                if (buffer.items.size() >= maxBatchSize) {
+                    ready = drain(buffer);
+                }
+            }
+            break;
+        }
+        if (ready != null) {
+            emit(key, ready);
+        }
+    }
+
+    /**
+     * 刷新全部缓冲区
+     * (Flush every buffer)
+     */
+    public void flushAll() {
+        try {
+            for (Map.Entry<BufferKey, Buffer> entry : buffers.entrySet()) {
+                List<Map<String, Object>> ready;
+                Buffer buffer = entry.getValue();
+                synchronized (buffer) {
+                    ready = drain(buffer);
+                    if (ready.isEmpty()) {
+                        // 空闲缓冲区回收 (Retire idle buffers)
+                        buffer.retired = true;
+                        buffers.remove(entry.getKey(), buffer);
+                    }
+                }
+                if (!ready.isEmpty()) {
+                    emit(entry.getKey(), ready);
+                }
+            }
+            evictIdle();
+        } catch (Exception e) {
+            log.error("刷新WebSocket消息批次失败 (Failed to flush WebSocket message batches)", e);
+        }
+    }
+
+    /**
+     * 停止定时刷新并发送剩余消息
+     * (Stop periodic flushing and send remaining messages)
+     */
+    public void shutdown() {
+        scheduler.shutdown();
+        flushAll();
+    }
+
+    /**
+     * 合并重复错误：仍在缓冲区中则累计次数，否则只计数
+     * (Merge a duplicate error: bump its repeat count while still buffered, otherwise just count it)
+     */
+    private void merge(BufferKey key, String content) {
+        mergedCounter.increment();
+        Buffer buffer = buffers.get(key);
+        if (buffer == null) {
+            return;
+        }
+        synchronized (buffer) {
+            Map<String, Object> pending = buffer.errorsByContent.get(content);
+            if (pending != null) {
+                pending.merge("repeat", 2, (previous, ignored) -> ((Integer) previous) + 1);
+            }
+        }
+    }
+
+    private List<Map<String, Object>> drain(Buffer buffer) {
+        List<Map<String, Object>> ready = new ArrayList<>(buffer.items);
+        buffer.items.clear();
+        buffer.errorsByContent.clear();
+        return ready;
+    }
+
+    /**
+     * 单条消息直接发送，多条合并为一个批次帧
+     * (Send a single message as is and merge several into one batch frame)
+     */
+    private void emit(BufferKey key, List<Map<String, Object>> items) {
+        batchSizeSummary.record(items.size());
+        if (items.size() == 1) {
+            sink.send(key.sessionId(), key.destination(), items.get(0));
+            return;
+        }
+        Map<String, Object> batch = new HashMap<>();
+        batch.put("type", "batch");
+        batch.put("items", items);
+        batch.put("timestamp", System.currentTimeMillis());
+        sink.send(key.sessionId(), key.destination(), batch);
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        buckets.values().removeIf(bucket -> now - bucket.getLastUsedMillis() > BUCKET_IDLE_MILLIS);
+        recentErrors.values().removeIf(sentAt -> now - sentAt > errorDedupWindowMillis);
+    }
+}
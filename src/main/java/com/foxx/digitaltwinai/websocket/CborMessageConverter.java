@@ -0,0 +1,27 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * CBOR消息转换器
+ * (CBOR message converter)
+ *
+ * <p>以 application/octet-stream 作为内容类型，这样STOMP处理器会以WebSocket二进制帧发送；
+ * 帧上的 payload-encoding 头标明实际编码。只在消息明确携带该内容类型时使用，JSON仍为默认编码。
+ * (Uses application/octet-stream as its content type so the STOMP handler sends binary WebSocket
+ * frames; the payload-encoding frame header names the actual encoding. It only applies when a
+ * message carries that content type explicitly, so JSON stays the default.)</p>
+ */
+public class CborMessageConverter extends MappingJackson2MessageConverter {
+
+    public CborMessageConverter() {
+        super(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        CBORMapper mapper = new CBORMapper();
+        mapper.registerModule(new JavaTimeModule());
+        setObjectMapper(mapper);
+        setStrictContentTypeMatch(true);
+    }
+}
@@ -0,0 +1,48 @@
+package com.foxx.digitaltwinai.websocket;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录消息通道处理耗时
+ * (Records message handling time on a message channel)
+ */
+public class ChannelMetricsInterceptor implements ExecutorChannelInterceptor {
+
+    private final ThreadLocal<Long> handleStartNanos = new ThreadLocal<>();
+
+    private final Timer sendTimer;
+
+    /**
+     * @param channelName 通道名称，作为指标标签 (Channel name, used as the metric tag)
+     * @param meterRegistry 指标注册表 (Meter registry)
+     */
+    public ChannelMetricsInterceptor(String channelName, MeterRegistry meterRegistry) {
+        this.sendTimer = Timer.builder("digital_twin.websocket.channel.send")
+                .description("消息通道处理耗时 (Message channel handling time)")
+                .tag("channel", channelName)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        handleStartNanos.set(System.nanoTime());
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Long started = handleStartNanos.get();
+        if (started != null) {
+            sendTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            handleStartNanos.remove();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.UUID;
+
+/**
+ * 多节点消息转发：先投递给本节点的会话，再经传输通道发布给其他节点
+ * (Multi-node relay: delivers to this node's sessions first, then publishes to the other nodes over the transport)
+ *
+ * <p>每个节点的用户注册表只包含本节点的连接，因此各节点收到转发消息后只会投递给自己的会话，
+ * 不会重复发送。传输通道不可用时本节点的会话仍能收到消息。
+ * (Each node's user registry only holds its own connections, so a relayed message is delivered
+ * once, by the node that owns the session. Sessions on this node still receive messages while the
+ * transport is unavailable.)</p>
+ */
+@Slf4j
+public class ClusteredMessageRelay implements MessageRelay {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final RelayTransport transport;
+
+    private final PayloadEncodingRegistry payloadEncodingRegistry;
+
+    /**
+     * 本节点标识，用于忽略自己发布的消息
+     * (Node identifier, used to ignore messages this node published)
+     */
+    @Getter
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Counter publishedCounter;
+
+    private final Counter receivedCounter;
+
+    private final Counter failedCounter;
+
+    public ClusteredMessageRelay(SimpMessagingTemplate messagingTemplate, ObjectMapper objectMapper,
+                                 RelayTransport transport, PayloadEncodingRegistry payloadEncodingRegistry,
+                                 MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.transport = transport;
+        this.payloadEncodingRegistry = payloadEncodingRegistry;
+        this.publishedCounter = Counter.builder("digital_twin.websocket.relay.published")
+                .description("发布给其他节点的消息 (Messages published to other nodes)")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("digital_twin.websocket.relay.received")
+                .description("从其他节点收到的消息 (Messages received from other nodes)")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("digital_twin.websocket.relay.failed")
+                .description("转发失败的消息 (Messages that failed to relay)")
+                .register(meterRegistry);
+        transport.subscribe(this::onMessage);
+    }
+
+    @Override
+    public void send(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload, payloadEncodingRegistry.topicHeadersFor(destination));
+        publish(null, destination, payload);
+    }
+
+    @Override
+    public void sendToUser(String user, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(user, destination, payload, payloadEncodingRegistry.headersFor(user));
+        publish(user, destination, payload);
+    }
+
+    private void publish(String user, String destination, Object payload) {
+        try {
+            ObjectNode envelope = objectMapper.createObjectNode();
+            envelope.put("origin", nodeId);
+            envelope.put("destination", destination);
+            if (user != null) {
+                envelope.put("user", user);
+            }
+            envelope.set("payload", objectMapper.valueToTree(payload));
+            transport.publish(objectMapper.writeValueAsString(envelope));
+            publishedCounter.increment();
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.warn("WebSocket消息转发到其他节点失败: {} (Failed to relay WebSocket message to other nodes: {})",
+                    e.getMessage(), e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        try {
+            JsonNode envelope = objectMapper.readTree(message);
+            if (nodeId.equals(envelope.path("origin").asText())) {
+                return;
+            }
+            receivedCounter.increment();
+            String destination = envelope.path("destination").asText();
+            Object payload = objectMapper.treeToValue(envelope.path("payload"), Object.class);
+            if (envelope.hasNonNull("user")) {
+                String user = envelope.get("user").asText();
+                messagingTemplate.convertAndSendToUser(user, destination, payload,
+                        payloadEncodingRegistry.headersFor(user));
+            } else {
+                messagingTemplate.convertAndSend(destination, payload, payloadEncodingRegistry.topicHeadersFor(destination));
+            }
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.warn("处理其他节点的WebSocket消息失败: {} (Failed to handle WebSocket message from another node: {})",
+                    e.getMessage(), e.getMessage());
+        }
+    }
+}
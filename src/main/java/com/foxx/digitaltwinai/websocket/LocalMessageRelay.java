@@ -0,0 +1,29 @@
+package com.foxx.digitaltwinai.websocket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+/**
+ * 直接交给本节点代理的消息发送
+ * (Hands messages straight to this node's broker)
+ *
+ * <p>用于 simple 模式，以及由外部STOMP代理负责跨节点分发的 stomp-relay 模式。
+ * (Used in simple mode, and in stomp-relay mode where the external STOMP broker fans out across nodes.)</p>
+ */
+@RequiredArgsConstructor
+public class LocalMessageRelay implements MessageRelay {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final PayloadEncodingRegistry payloadEncodingRegistry;
+
+    @Override
+    public void send(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload, payloadEncodingRegistry.topicHeadersFor(destination));
+    }
+
+    @Override
+    public void sendToUser(String user, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(user, destination, payload, payloadEncodingRegistry.headersFor(user));
+    }
+}
@@ -0,0 +1,27 @@
+package com.foxx.digitaltwinai.websocket;
+
+/**
+ * 服务端消息发送入口，屏蔽单节点与多节点部署的差异
+ * (Entry point for server-side messages, hiding the difference between single- and multi-node deployments)
+ */
+public interface MessageRelay {
+
+    /**
+     * 发送到广播主题
+     * (Send to a broadcast destination)
+     *
+     * @param destination 目标 (Destination)
+     * @param payload 消息内容 (Payload)
+     */
+    void send(String destination, Object payload);
+
+    /**
+     * 发送到会话的用户目标
+     * (Send to a session's user destination)
+     *
+     * @param user 会话ID (Session ID)
+     * @param destination 用户目标 (User destination)
+     * @param payload 消息内容 (Payload)
+     */
+    void sendToUser(String user, String destination, Object payload);
+}
@@ -0,0 +1,178 @@
+package com.foxx.digitaltwinai.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录每个会话协商的负载编码
+ * (Tracks the payload encoding negotiated by each session)
+ *
+ * <p>客户端在STOMP CONNECT帧中携带 {@code payload-encoding: cbor} 请求CBOR编码。
+ * SockJS会话只能传输文本帧，始终使用JSON。同一聊天会话下所有连接都协商了CBOR时，
+ * 发往该会话用户目标的消息才使用CBOR。广播主题的一条消息由代理原样发给所有订阅者，无法按订阅者编码，
+ * 因此需要CBOR的广播以 {@value #CBOR_TOPIC_SUFFIX} 结尾的并行主题发布，客户端按自己的编码选择订阅哪一个；
+ * 不能接收二进制帧的会话订阅CBOR主题会被拒绝。
+ * (Clients request CBOR with a {@code payload-encoding: cbor} header on the STOMP CONNECT frame.
+ * SockJS sessions can only carry text frames and always get JSON. Messages to a chat session's user
+ * destinations use CBOR only when every connection of that session negotiated it. The broker hands one
+ * topic message to every subscriber as is and cannot encode per subscriber, so broadcasts that offer CBOR
+ * are published on a parallel topic ending in {@value #CBOR_TOPIC_SUFFIX}, and each client subscribes to the
+ * one matching its encoding; sessions that cannot receive binary frames are refused on CBOR topics.)</p>
+ */
+@Slf4j
+@Component
+public class PayloadEncodingRegistry implements ChannelInterceptor {
+
+    /**
+     * 负载编码头
+     * (Payload encoding header)
+     */
+    public static final String ENCODING_HEADER = "payload-encoding";
+
+    /**
+     * CBOR编码名称
+     * (CBOR encoding name)
+     */
+    public static final String CBOR = "cbor";
+
+    /**
+     * CBOR并行主题的后缀
+     * (Suffix of the parallel CBOR topics)
+     */
+    public static final String CBOR_TOPIC_SUFFIX = "/cbor";
+
+    /**
+     * 可以接收二进制帧的WebSocket会话
+     * (WebSocket sessions able to receive binary frames)
+     */
+    private final Map<String, Boolean> binaryCapable = new ConcurrentHashMap<>();
+
+    /**
+     * 每个用户的连接及其是否使用CBOR
+     * (Each user's connections and whether they use CBOR)
+     */
+    private final Map<String, Map<String, Boolean>> encodingsByUser = new ConcurrentHashMap<>();
+
+    private final Map<String, String> userBySession = new ConcurrentHashMap<>();
+
+    /**
+     * 装饰WebSocket处理器以记录会话能否接收二进制帧
+     * (Decorate the WebSocket handler to record whether sessions can receive binary frames)
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                binaryCapable.put(session.getId(), !(WebSocketSessionDecorator.unwrap(session) instanceof SockJsSession));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && StompCommand.SUBSCRIBE.equals(accessor.getCommand())
+                && isCborTopic(accessor.getDestination())
+                && !binaryCapable.getOrDefault(accessor.getSessionId(), false)) {
+            throw new MessageDeliveryException(message,
+                    "会话不能接收二进制帧，请订阅JSON主题 (Session cannot receive binary frames, subscribe to the JSON topic)");
+        }
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+        Principal user = accessor.getUser();
+        String sessionId = accessor.getSessionId();
+        if (user == null || sessionId == null) {
+            return message;
+        }
+        boolean requested = CBOR.equalsIgnoreCase(accessor.getFirstNativeHeader(ENCODING_HEADER));
+        boolean cbor = requested && binaryCapable.getOrDefault(sessionId, false);
+        if (requested && !cbor) {
+            log.debug("会话 {} 不支持二进制帧，使用JSON (Session {} cannot receive binary frames, using JSON)",
+                    sessionId, sessionId);
+        }
+        userBySession.put(sessionId, user.getName());
+        encodingsByUser.computeIfAbsent(user.getName(), key -> new ConcurrentHashMap<>()).put(sessionId, cbor);
+        return message;
+    }
+
+    /**
+     * 用户的所有连接是否都使用CBOR
+     * (Whether every connection of the user uses CBOR)
+     */
+    public boolean isCbor(String user) {
+        Map<String, Boolean> sessions = encodingsByUser.get(user);
+        return sessions != null && !sessions.isEmpty() && !sessions.containsValue(false);
+    }
+
+    /**
+     * 发往用户目标时使用的消息头，使用JSON时返回null
+     * (Headers for a message to the user's destinations, or null when JSON is used)
+     */
+    public MessageHeaders headersFor(String user) {
+        return isCbor(user) ? cborHeaders() : null;
+    }
+
+    /**
+     * 目标是否为CBOR并行主题
+     * (Whether the destination is a parallel CBOR topic)
+     */
+    public static boolean isCborTopic(String destination) {
+        return destination != null && destination.endsWith(CBOR_TOPIC_SUFFIX);
+    }
+
+    /**
+     * 发往广播主题时使用的消息头，非CBOR主题返回null
+     * (Headers for a message to a broadcast topic, or null unless it is a CBOR topic)
+     */
+    public MessageHeaders topicHeadersFor(String destination) {
+        return isCborTopic(destination) ? cborHeaders() : null;
+    }
+
+    private static MessageHeaders cborHeaders() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(ENCODING_HEADER, CBOR);
+        accessor.setLeaveMutable(true);
+        return accessor.getMessageHeaders();
+    }
+
+    private void remove(String sessionId) {
+        binaryCapable.remove(sessionId);
+        String user = userBySession.remove(sessionId);
+        if (user != null) {
+            encodingsByUser.computeIfPresent(user, (key, sessions) -> {
+                sessions.remove(sessionId);
+                return sessions.isEmpty() ? null : sessions;
+            });
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.foxx.digitaltwinai.websocket;
+
+import java.util.function.Consumer;
+
+/**
+ * 节点间转发消息的传输通道
+ * (Transport that carries messages between nodes)
+ */
+public interface RelayTransport {
+
+    /**
+     * 向所有节点发布一条消息（包括本节点）
+     * (Publish a message to every node, this one included)
+     *
+     * @param message 序列化后的消息 (Serialized message)
+     */
+    void publish(String message);
+
+    /**
+     * 订阅其他节点发布的消息
+     * (Subscribe to messages published by the nodes)
+     *
+     * @param listener 消息监听器 (Message listener)
+     */
+    void subscribe(Consumer<String> listener);
+}
@@ -0,0 +1,50 @@
+package com.foxx.digitaltwinai.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.security.Principal;
+
+/**
+ * 校验STOMP CONNECT帧的 session-id 头与握手时绑定的身份一致
+ * (Checks that the session-id header of the STOMP CONNECT frame matches the identity bound at handshake)
+ *
+ * <p>身份只在握手时由 {@link SessionHandshakeHandler} 在服务端确定，CONNECT帧不能再更改；
+ * 否则客户端可以冒用其他会话的ID，收到其他会话的私有消息。头缺省时沿用握手身份，不一致时拒绝连接。
+ * (The identity is decided server-side by {@link SessionHandshakeHandler} during the handshake and
+ * cannot be changed by the CONNECT frame; otherwise a client could claim another session's ID and
+ * receive its private messages. A missing header keeps the handshake identity, a mismatch rejects
+ * the connection.)</p>
+ */
+public class SessionChannelInterceptor implements ChannelInterceptor {
+
+    /**
+     * 会话ID头
+     * (Session ID header)
+     */
+    public static final String SESSION_ID_HEADER = "session-id";
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || !StompCommand.CONNECT.equals(accessor.getCommand())) {
+            return message;
+        }
+        Principal user = accessor.getUser();
+        if (user == null) {
+            throw new MessageDeliveryException(message,
+                    "握手未绑定会话身份 (No session identity was bound during the handshake)");
+        }
+        String sessionId = accessor.getFirstNativeHeader(SESSION_ID_HEADER);
+        if (sessionId != null && !sessionId.isBlank() && !sessionId.equals(user.getName())) {
+            throw new MessageDeliveryException(message,
+                    "session-id 与握手身份不一致 (session-id does not match the handshake identity)");
+        }
+        return message;
+    }
+}
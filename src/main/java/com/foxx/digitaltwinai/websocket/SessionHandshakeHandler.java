@@ -0,0 +1,57 @@
+package com.foxx.digitaltwinai.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 握手时在服务端确定WebSocket用户
+ * (Decides the WebSocket user server-side during the handshake)
+ *
+ * <p>会话ID总是由服务端分配，客户端不能指定：新连接获得随机身份，并可订阅 {@code /app/session} 取得会话ID和令牌；
+ * 重连时携带查询参数 sessionToken 恢复原身份，令牌无效或过期时分配新身份。身份在握手后固定，
+ * STOMP CONNECT帧的 session-id 头只能与之一致，见 {@link SessionChannelInterceptor}。
+ * (The session ID is always assigned by the server and cannot be chosen by the client: a new connection gets a
+ * random identity and may subscribe to {@code /app/session} for its session ID and token; a reconnect passes the
+ * sessionToken query parameter to resume that identity, and an invalid or expired token gets a new identity. The
+ * identity is fixed after the handshake; the session-id header of the STOMP CONNECT frame may only repeat it,
+ * see {@link SessionChannelInterceptor}.)</p>
+ */
+@Slf4j
+public class SessionHandshakeHandler extends DefaultHandshakeHandler {
+
+    /**
+     * 会话令牌查询参数
+     * (Session token query parameter)
+     */
+    public static final String SESSION_TOKEN_PARAM = "sessionToken";
+
+    private final SessionTokens sessionTokens;
+
+    public SessionHandshakeHandler(SessionTokens sessionTokens) {
+        this.sessionTokens = sessionTokens;
+    }
+
+    @Override
+    protected Principal determineUser(ServerHttpRequest request, WebSocketHandler wsHandler,
+                                      Map<String, Object> attributes) {
+        String token = UriComponentsBuilder.fromUri(request.getURI())
+                .build()
+                .getQueryParams()
+                .getFirst(SESSION_TOKEN_PARAM);
+        String sessionId = sessionTokens.verify(token);
+        if (sessionId == null) {
+            if (token != null) {
+                log.debug("会话令牌无效或已过期，分配新身份 (Invalid or expired session token, assigning a new identity)");
+            }
+            sessionId = UUID.randomUUID().toString();
+        }
+        return new SessionPrincipal(sessionId);
+    }
+}
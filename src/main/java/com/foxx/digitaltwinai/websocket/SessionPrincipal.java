@@ -0,0 +1,17 @@
+package com.foxx.digitaltwinai.websocket;
+
+import java.security.Principal;
+
+/**
+ * 以聊天会话ID作为身份的WebSocket用户
+ * (WebSocket user identified by the chat session ID)
+ *
+ * @param name 聊天会话ID (Chat session ID)
+ */
+public record SessionPrincipal(String name) implements Principal {
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,94 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.foxx.digitaltwinai.config.WebSocketProperties;
+import com.foxx.digitaltwinai.util.HmacUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * 签发和校验WebSocket会话令牌
+ * (Issues and verifies WebSocket session tokens)
+ *
+ * <p>令牌形如 {@code <sessionId>.<过期时间毫秒>.<HMAC-SHA256>}，只由服务端为已建立的会话签发，
+ * 客户端重连时凭令牌恢复原会话身份，无法伪造其他会话的令牌。
+ * (A token looks like {@code <sessionId>.<expiry millis>.<HMAC-SHA256>} and is only issued by the server for a
+ * session it already established; a reconnecting client presents it to resume that identity and cannot forge
+ * a token for another session.)</p>
+ */
+@Slf4j
+@Component
+public class SessionTokens {
+
+    private final HmacUtils hmacUtils;
+
+    private final String secret;
+
+    private final long ttl;
+
+    public SessionTokens(HmacUtils hmacUtils, WebSocketProperties properties) {
+        this.hmacUtils = hmacUtils;
+        this.ttl = properties.getSession().getTokenTtl();
+        String configured = properties.getSession().getTokenSecret();
+        if (configured == null || configured.isBlank()) {
+            byte[] random = new byte[32];
+            new SecureRandom().nextBytes(random);
+            configured = HexFormat.of().formatHex(random);
+            log.warn("未配置 websocket.session.token-secret，使用随机密钥：重启后或其他节点上会话令牌无效 "
+                    + "(websocket.session.token-secret not set, using a random key: session tokens are invalid after a restart or on other nodes)");
+        }
+        this.secret = configured;
+    }
+
+    /**
+     * 为会话签发令牌
+     * (Issue a token for a session)
+     */
+    public String issue(String sessionId) {
+        return issue(sessionId, System.currentTimeMillis());
+    }
+
+    String issue(String sessionId, long nowMillis) {
+        String payload = sessionId + "." + (nowMillis + ttl);
+        return payload + "." + hmacUtils.sign(payload, secret);
+    }
+
+    /**
+     * 校验令牌
+     * (Verify a token)
+     *
+     * @return 令牌所属的会话ID，无效或过期时为null (Session ID the token belongs to, or null when invalid or expired)
+     */
+    public String verify(String token) {
+        return verify(token, System.currentTimeMillis());
+    }
+
+    String verify(String token, long nowMillis) {
+        if (token == null) {
+            return null;
+        }
+        int signatureStart = token.lastIndexOf('.');
+        int expiryStart = signatureStart > 0 ? token.lastIndexOf('.', signatureStart - 1) : -1;
+        if (expiryStart <= 0) {
+            return null;
+        }
+        String payload = token.substring(0, signatureStart);
+        byte[] expected = hmacUtils.sign(payload, secret).getBytes(StandardCharsets.UTF_8);
+        // 定长比较，不泄露签名前缀是否匹配 (Constant-time comparison so no prefix of the signature leaks)
+        if (!MessageDigest.isEqual(expected, token.substring(signatureStart + 1).getBytes(StandardCharsets.UTF_8))) {
+            return null;
+        }
+        try {
+            if (Long.parseLong(token.substring(expiryStart + 1, signatureStart)) < nowMillis) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return token.substring(0, expiryStart);
+    }
+}
@@ -0,0 +1,185 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.foxx.digitaltwinai.config.WebSocketProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 慢消费者保护
+ * (Slow consumer protection)
+ *
+ * <p>作为出站通道拦截器统计每个会话排队中的消息，并通过会话装饰器记录正在进行的发送。
+ * 会话排队消息过多或单次发送过慢时，按配置丢弃新消息或关闭会话，避免一个慢客户端占满出站线程池。
+ * 发送缓冲和发送时间的硬上限仍由 {@code websocket.transport} 控制。
+ * (As an outbound channel interceptor it counts messages queued per session, and a session decorator
+ * tracks the send in progress. When a session has too many queued messages or a send is too slow,
+ * new messages are dropped or the session is closed, so one slow client cannot tie up the outbound
+ * pool. Hard send buffer and send time limits still come from {@code websocket.transport}.)</p>
+ */
+@Slf4j
+@Component
+public class SlowConsumerGuard implements ExecutorChannelInterceptor {
+
+    private final WebSocketProperties.SlowConsumer config;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    private final Counter droppedCounter;
+
+    private final Counter closedCounter;
+
+    public SlowConsumerGuard(WebSocketProperties webSocketProperties, MeterRegistry meterRegistry) {
+        this.config = webSocketProperties.getSlowConsumer();
+        this.droppedCounter = Counter.builder("digital_twin.websocket.slow_consumer")
+                .description("慢消费者处理次数 (Slow consumer actions)")
+                .tag("action", "dropped")
+                .register(meterRegistry);
+        this.closedCounter = Counter.builder("digital_twin.websocket.slow_consumer")
+                .description("慢消费者处理次数 (Slow consumer actions)")
+                .tag("action", "closed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 装饰WebSocket处理器以跟踪会话的发送
+     * (Decorate the WebSocket handler to track sends per session)
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(state.session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SessionState state = stateOf(message);
+        if (state == null) {
+            return message;
+        }
+        // 只限制订阅消息，连接确认、回执和错误帧总是放行
+        // (Only subscription messages are limited; connect acks, receipts and errors always pass)
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE
+                && isSlow(state)) {
+            handleSlowConsumer(state);
+            return null;
+        }
+        state.pending.incrementAndGet();
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || ex != null) {
+            release(message);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        release(message);
+    }
+
+    /**
+     * 当前跟踪的会话数
+     * (Number of tracked sessions)
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private boolean isSlow(SessionState state) {
+        return state.pending.get() >= config.getMaxPendingMessages()
+                || state.sendingForMillis() > config.getSlowSendThreshold();
+    }
+
+    private void handleSlowConsumer(SessionState state) {
+        if (config.getPolicy() == WebSocketProperties.SlowConsumerPolicy.CLOSE) {
+            if (sessions.remove(state.session.getId()) != null) {
+                closedCounter.increment();
+                log.warn("关闭慢消费者会话: {} (Closing slow consumer session: {})",
+                        state.session.getId(), state.session.getId());
+                try {
+                    state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException e) {
+                    log.debug("关闭会话失败: {} (Failed to close session: {})", e.getMessage(), e.getMessage());
+                }
+            }
+        } else {
+            droppedCounter.increment();
+        }
+    }
+
+    private void release(Message<?> message) {
+        SessionState state = stateOf(message);
+        if (state != null) {
+            state.pending.updateAndGet(pending -> Math.max(0, pending - 1));
+        }
+    }
+
+    private SessionState stateOf(Message<?> message) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    /**
+     * 会话状态：排队消息数与正在进行的发送
+     * (Session state: queued messages and the send in progress)
+     */
+    private static final class SessionState {
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final WebSocketSession session;
+
+        private volatile long sendStartedNanos;
+
+        private SessionState(WebSocketSession delegate) {
+            this.session = new WebSocketSessionDecorator(delegate) {
+                @Override
+                public void sendMessage(WebSocketMessage<?> message) throws IOException {
+                    sendStartedNanos = System.nanoTime();
+                    try {
+                        super.sendMessage(message);
+                    } finally {
+                        sendStartedNanos = 0;
+                    }
+                }
+            };
+        }
+
+        private long sendingForMillis() {
+            long started = sendStartedNanos;
+            return started == 0 ? 0 : (System.nanoTime() - started) / 1_000_000;
+        }
+    }
+}
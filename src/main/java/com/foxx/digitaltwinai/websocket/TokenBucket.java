@@ -0,0 +1,60 @@
+package com.foxx.digitaltwinai.websocket;
+
+/**
+ * 令牌桶限流器
+ * (Token bucket rate limiter)
+ */
+public class TokenBucket {
+
+    /**
+     * 每秒补充的令牌数
+     * (Tokens refilled per second)
+     */
+    private final double refillPerSecond;
+
+    /**
+     * 桶容量（突发上限）
+     * (Bucket capacity, i.e. burst size)
+     */
+    private final double capacity;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    private volatile long lastUsedMillis;
+
+    public TokenBucket(double refillPerSecond, double capacity) {
+        this.refillPerSecond = refillPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastUsedMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * 尝试获取一个令牌
+     * (Try to acquire one token)
+     *
+     * @return 是否获取成功 (Whether a token was acquired)
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) / 1_000_000_000.0 * refillPerSecond);
+        lastRefillNanos = now;
+        lastUsedMillis = System.currentTimeMillis();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 最近一次使用时间
+     * (Last time the bucket was used)
+     */
+    public long getLastUsedMillis() {
+        return lastUsedMillis;
+    }
+}
@@ -0,0 +1,137 @@
+package com.foxx.digitaltwinai.websocket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.session.PollingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.StreamingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.WebSocketServerSockJsSession;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按传输方式统计连接数与出站消息延迟
+ * (Connection counts and outbound message latency per transport)
+ *
+ * <p>传输方式：websocket（原生）、sockjs-websocket、sockjs-streaming、sockjs-polling。
+ * 延迟从消息进入出站通道开始，到写入会话结束。
+ * (Transports: websocket (native), sockjs-websocket, sockjs-streaming, sockjs-polling. Latency runs
+ * from the message entering the outbound channel until it has been written to the session.)</p>
+ */
+@Component
+public class TransportMetrics implements ExecutorChannelInterceptor {
+
+    /**
+     * 传输方式
+     * (Transports)
+     */
+    public static final List<String> TRANSPORTS = List.of(
+            "websocket", "sockjs-websocket", "sockjs-streaming", "sockjs-polling");
+
+    private static final String ENQUEUED_HEADER = "enqueuedNanos";
+
+    private final Map<String, String> transportBySession = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> connections = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> latencyTimers = new ConcurrentHashMap<>();
+
+    public TransportMetrics(MeterRegistry meterRegistry) {
+        for (String transport : TRANSPORTS) {
+            AtomicInteger count = new AtomicInteger();
+            connections.put(transport, count);
+            Gauge.builder("digital_twin.websocket.connections", count, AtomicInteger::get)
+                    .description("当前连接数 (Open connections)")
+                    .tag("transport", transport)
+                    .register(meterRegistry);
+            latencyTimers.put(transport, Timer.builder("digital_twin.websocket.transport.latency")
+                    .description("出站消息从入队到写出的耗时 (Outbound message time from enqueue to write)")
+                    .tag("transport", transport)
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 装饰WebSocket处理器以记录会话的传输方式
+     * (Decorate the WebSocket handler to record each session's transport)
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                String transport = transportOf(session);
+                transportBySession.put(session.getId(), transport);
+                connections.get(transport).incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                String transport = transportBySession.remove(session.getId());
+                if (transport != null) {
+                    connections.get(transport).decrementAndGet();
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, SimpMessageHeaderAccessor.class);
+        if (accessor != null && accessor.isMutable()) {
+            accessor.setHeader(ENQUEUED_HEADER, System.nanoTime());
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Object enqueued = message.getHeaders().get(ENQUEUED_HEADER);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String transport = sessionId != null ? transportBySession.get(sessionId) : null;
+        if (enqueued instanceof Long started && transport != null) {
+            latencyTimers.get(transport).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 某种传输方式的当前连接数
+     * (Open connections for a transport)
+     */
+    public int getConnectionCount(String transport) {
+        AtomicInteger count = connections.get(transport);
+        return count != null ? count.get() : 0;
+    }
+
+    static String transportOf(WebSocketSession session) {
+        WebSocketSession target = WebSocketSessionDecorator.unwrap(session);
+        if (target instanceof WebSocketServerSockJsSession) {
+            return "sockjs-websocket";
+        }
+        if (target instanceof StreamingSockJsSession) {
+            return "sockjs-streaming";
+        }
+        if (target instanceof PollingSockJsSession) {
+            return "sockjs-polling";
+        }
+        return "websocket";
+    }
+}
@@ -0,0 +1,23 @@
+-- Dify请求日志表 (Dify request log table)
+-- 可重复执行：已有库中由 ddl-auto 建好的表保持不变 (Idempotent: tables already created by ddl-auto are left as they are)
+CREATE TABLE IF NOT EXISTS dify_request_logs (
+    id               BIGINT       NOT NULL,
+    user_instruction VARCHAR(500) NOT NULL,
+    request_content  TEXT,
+    response_content TEXT,
+    response_time    BIGINT,
+    status           INT,
+    error_message    VARCHAR(500),
+    operation_type   VARCHAR(50),
+    target_component VARCHAR(100),
+    created_at       DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 池化ID序列表 (Pooled ID sequence table)
+CREATE TABLE IF NOT EXISTS dify_request_logs_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+
+INSERT INTO dify_request_logs_seq (next_val)
+SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM dify_request_logs_seq);
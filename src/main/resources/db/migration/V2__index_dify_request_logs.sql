@@ -0,0 +1,7 @@
+-- 按时间倒序的键集分页，id 作为同一时刻的次序 (Keyset pagination newest first, with id breaking ties within the same instant)
+CREATE INDEX idx_dify_request_logs_created ON dify_request_logs (created_at, id);
+
+-- 各筛选条件均以 created_at, id 结尾，过滤后仍按索引顺序分页 (Each filter index ends with created_at, id so filtered pages still follow index order)
+CREATE INDEX idx_dify_request_logs_status ON dify_request_logs (status, created_at, id);
+CREATE INDEX idx_dify_request_logs_operation ON dify_request_logs (operation_type, created_at, id);
+CREATE INDEX idx_dify_request_logs_target ON dify_request_logs (target_component, created_at, id);
@@ -0,0 +1,28 @@
+-- 请求处理路径 (Request handling path: LOCAL, DIFY, FALLBACK)
+ALTER TABLE dify_request_logs ADD COLUMN handling_path VARCHAR(20);
+
+-- 按分钟/小时预先汇总的请求统计，耗时按固定上界分桶，未记录耗时的请求不计入分桶 (Per-minute/per-hour request aggregates; latency is counted into fixed upper-bound buckets, requests without a latency are left out of them)
+CREATE TABLE request_log_rollups (
+    granularity    VARCHAR(8)  NOT NULL,
+    bucket_start   DATETIME    NOT NULL,
+    operation_type VARCHAR(50) NOT NULL,
+    handling_path  VARCHAR(20) NOT NULL,
+    request_count  BIGINT      NOT NULL DEFAULT 0,
+    success_count  BIGINT      NOT NULL DEFAULT 0,
+    latency_sum    BIGINT      NOT NULL DEFAULT 0,
+    latency_max    BIGINT      NOT NULL DEFAULT 0,
+    le_50          BIGINT      NOT NULL DEFAULT 0,
+    le_100         BIGINT      NOT NULL DEFAULT 0,
+    le_250         BIGINT      NOT NULL DEFAULT 0,
+    le_500         BIGINT      NOT NULL DEFAULT 0,
+    le_1000        BIGINT      NOT NULL DEFAULT 0,
+    le_2500        BIGINT      NOT NULL DEFAULT 0,
+    le_5000        BIGINT      NOT NULL DEFAULT 0,
+    le_10000       BIGINT      NOT NULL DEFAULT 0,
+    le_30000       BIGINT      NOT NULL DEFAULT 0,
+    le_inf         BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start, operation_type, handling_path)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 已有日志的回填由应用按主键区间分批执行，见 V7 和 RequestLogRollupBackfill
+-- (Existing logs are backfilled by the application in primary-key batches; see V7 and RequestLogRollupBackfill)
@@ -0,0 +1,9 @@
+-- 按内容哈希寻址的日志内容外置存储，相同内容只存一份 (Content-addressed offload store for log content; identical content is stored once)
+CREATE TABLE request_log_payloads (
+    hash       CHAR(64)    NOT NULL,
+    codec      VARCHAR(16) NOT NULL,
+    content    MEDIUMBLOB  NOT NULL,
+    raw_size   INT         NOT NULL,
+    created_at DATETIME    NOT NULL,
+    PRIMARY KEY (hash)
+) ENGINE = InnoDB;
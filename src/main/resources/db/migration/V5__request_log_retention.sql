@@ -0,0 +1,6 @@
+-- 外置内容最后一次被引用的时间，保留清理据此回收 (Last time offloaded content was referenced, used by retention to reclaim it)
+ALTER TABLE request_log_payloads ADD COLUMN last_used_at DATETIME NULL;
+UPDATE request_log_payloads SET last_used_at = created_at WHERE last_used_at IS NULL;
+ALTER TABLE request_log_payloads MODIFY last_used_at DATETIME NOT NULL;
+CREATE INDEX idx_request_log_payloads_last_used ON request_log_payloads (last_used_at);
+
@@ -0,0 +1,9 @@
+-- Dify流式响应统计，非流式请求为空 (Dify streaming statistics; null for non-streaming requests)
+ALTER TABLE dify_request_logs
+    ADD COLUMN ttft_ms            BIGINT NULL,
+    ADD COLUMN stream_duration_ms BIGINT NULL,
+    ADD COLUMN chunk_count        INT    NULL,
+    ADD COLUMN max_chunk_gap_ms   BIGINT NULL,
+    ADD COLUMN answer_length      INT    NULL,
+    ADD COLUMN completion_tokens  INT    NULL,
+    ADD COLUMN stream_stalled     BIT(1) NULL;
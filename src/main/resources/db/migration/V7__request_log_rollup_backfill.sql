@@ -0,0 +1,16 @@
+-- 汇总回填进度：应用按主键区间分批把 [next_id, end_id] 内的已有日志累加进 request_log_rollups，完成后删除该行
+-- (Rollup backfill progress: the application adds the existing logs in [next_id, end_id] to request_log_rollups in
+-- primary-key batches and deletes the row when done)
+CREATE TABLE request_log_rollup_backfill (
+    id      INT    NOT NULL,
+    next_id BIGINT NOT NULL,
+    end_id  BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4;
+
+-- 只在尚无汇总数据时回填；更早的迁移已回填过的库会跳过 (Only backfill while no rollups exist; databases an earlier migration already backfilled skip it)
+INSERT INTO request_log_rollup_backfill (id, next_id, end_id)
+SELECT 1, MIN(id), MAX(id)
+FROM dify_request_logs
+HAVING COUNT(*) > 0
+   AND NOT EXISTS (SELECT 1 FROM request_log_rollups);
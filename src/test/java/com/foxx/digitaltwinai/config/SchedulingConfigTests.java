@@ -0,0 +1,64 @@
+package com.foxx.digitaltwinai.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchedulingConfigTests {
+
+	@Test
+	void scheduledJobsDoNotRunOnTheBrokerScheduler() throws Exception {
+		try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(TestConfig.class)) {
+			String thread = context.getBean(Job.class).thread.get(5, TimeUnit.SECONDS);
+
+			assertTrue(thread.startsWith("scheduling-"), thread);
+		}
+	}
+
+	@Configuration
+	@EnableScheduling
+	@Import(SchedulingConfig.class)
+	static class TestConfig {
+
+		@Bean
+		ThreadPoolTaskSchedulerBuilder threadPoolTaskSchedulerBuilder() {
+			return new ThreadPoolTaskSchedulerBuilder().poolSize(2).threadNamePrefix("scheduling-");
+		}
+
+		/**
+		 * 与STOMP心跳调度器一样，容器中唯一的 TaskScheduler (Like the STOMP heartbeat scheduler, the only TaskScheduler in the context)
+		 */
+		@Bean
+		ThreadPoolTaskScheduler messageBrokerTaskScheduler() {
+			ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+			scheduler.setThreadNamePrefix("broker-");
+			return scheduler;
+		}
+
+		@Bean
+		Job job() {
+			return new Job();
+		}
+	}
+
+	static class Job {
+
+		final CompletableFuture<String> thread = new CompletableFuture<>();
+
+		@Scheduled(fixedDelay = 10)
+		void run() {
+			thread.complete(Thread.currentThread().getName());
+		}
+	}
+}
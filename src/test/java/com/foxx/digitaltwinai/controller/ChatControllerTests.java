@@ -0,0 +1,141 @@
+package com.foxx.digitaltwinai.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.exception.GlobalExceptionHandler;
+import com.foxx.digitaltwinai.model.OperationBatchRequest;
+import com.foxx.digitaltwinai.model.OperationRequest;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
+import com.foxx.digitaltwinai.operation.handler.FocusOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ResetOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.RotateOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ZoomOperationHandler;
+import com.foxx.digitaltwinai.service.BrowserService;
+import com.foxx.digitaltwinai.service.DifyService;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ChatControllerTests {
+
+	private final BrowserService browserService = mock(BrowserService.class);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		OperationRegistry registry = new OperationRegistry(List.of(
+				new ZoomOperationHandler(), new RotateOperationHandler(),
+				new FocusOperationHandler(), new ResetOperationHandler()));
+		WebSocketService webSocketService = mock(WebSocketService.class);
+		ChatController controller = new ChatController(mock(DifyService.class), browserService, webSocketService,
+				registry, new SimpleMeterRegistry());
+		controller.initMetrics();
+		mockMvc = MockMvcBuilders.standaloneSetup(controller)
+				.setControllerAdvice(new GlobalExceptionHandler(webSocketService))
+				.build();
+	}
+
+	private static OperationRequest operation(String type, String target) {
+		return OperationRequest.builder().type(type).target(target).sessionId("session-1").build();
+	}
+
+	private static Map<String, Object> ofTarget(String target) {
+		return argThat(action -> action != null && target.equals(action.get("target")));
+	}
+
+	private String batch(List<OperationRequest> operations, boolean stopOnFailure) throws Exception {
+		return objectMapper.writeValueAsString(new OperationBatchRequest(operations, stopOnFailure));
+	}
+
+	@Test
+	void executesInOrderAndReportsPartialFailure() throws Exception {
+		when(browserService.executeModelOperation(any(), any()))
+				.thenReturn(Map.of("success", true), Map.of("success", false, "message", "busy"), Map.of("success", true));
+
+		mockMvc.perform(post("/api/operations/batch").contentType(MediaType.APPLICATION_JSON)
+						.content(batch(List.of(operation("focus", "area_1"), operation("focus", "area_2"),
+								operation("focus", "area_3")), false)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.executed").value(3))
+				.andExpect(jsonPath("$.results[1].message").value("busy"))
+				.andExpect(jsonPath("$.results[2].success").value(true));
+
+		InOrder order = inOrder(browserService);
+		order.verify(browserService).executeModelOperation(ofTarget("area_1"), any());
+		order.verify(browserService).executeModelOperation(ofTarget("area_2"), any());
+		order.verify(browserService).executeModelOperation(ofTarget("area_3"), any());
+	}
+
+	@Test
+	void stopsAtFirstFailureWhenRequested() throws Exception {
+		when(browserService.executeModelOperation(any(), any()))
+				.thenReturn(Map.of("success", false, "message", "busy"));
+
+		mockMvc.perform(post("/api/operations/batch").contentType(MediaType.APPLICATION_JSON)
+						.content(batch(List.of(operation("focus", "area_1"), operation("reset", null)), true)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.executed").value(1));
+
+		verify(browserService, times(1)).executeModelOperation(any(), any());
+	}
+
+	@Test
+	void rejectsWholeBatchWhenAnyOperationIsInvalid() throws Exception {
+		mockMvc.perform(post("/api/operations/batch").contentType(MediaType.APPLICATION_JSON)
+						.content(batch(List.of(operation("focus", "area_1"), operation("pan", null)), false)))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.success").value(false))
+				.andExpect(jsonPath("$.index").value(1));
+
+		verify(browserService, never()).executeModelOperation(any(), any());
+	}
+
+	@Test
+	void rejectsBatchesOverTheSizeLimit() throws Exception {
+		List<OperationRequest> operations = new ArrayList<>();
+		for (int i = 0; i < 51; i++) {
+			operations.add(operation("reset", null));
+		}
+
+		mockMvc.perform(post("/api/operations/batch").contentType(MediaType.APPLICATION_JSON)
+						.content(batch(operations, false)))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.errors.operations").exists());
+
+		verify(browserService, never()).executeModelOperation(any(), any());
+	}
+
+	@Test
+	void rejectsEmptyBatch() throws Exception {
+		mockMvc.perform(post("/api/operations/batch").contentType(MediaType.APPLICATION_JSON)
+						.content(batch(List.of(), false)))
+				.andExpect(status().isBadRequest());
+
+		verify(browserService, never()).executeModelOperation(any(), any());
+	}
+}
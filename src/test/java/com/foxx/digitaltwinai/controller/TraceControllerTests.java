@@ -0,0 +1,51 @@
+package com.foxx.digitaltwinai.controller;
+
+import com.foxx.digitaltwinai.config.TracingConfig;
+import com.foxx.digitaltwinai.model.TraceSummary;
+import com.foxx.digitaltwinai.service.tracing.RingBufferSpanExporter;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TraceControllerTests {
+
+	private final RingBufferSpanExporter exporter = mock(RingBufferSpanExporter.class);
+
+	private final TracingConfig tracingConfig = new TracingConfig();
+
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new TraceController(exporter, tracingConfig)).build();
+
+	{
+		when(exporter.find("abc")).thenReturn(TraceSummary.builder().traceId("abc").build());
+	}
+
+	@Test
+	void servesLoopbackClientsWhenNoTokenIsConfigured() throws Exception {
+		mockMvc.perform(get("/api/traces/abc"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.traceId").value("abc"));
+
+		mockMvc.perform(get("/api/traces/abc").with(request -> {
+					request.setRemoteAddr("10.0.0.5");
+					return request;
+				}))
+				.andExpect(status().isForbidden());
+	}
+
+	@Test
+	void requiresTheConfiguredToken() throws Exception {
+		tracingConfig.setAccessToken("s3cret");
+
+		mockMvc.perform(get("/api/traces/abc")).andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/traces/slow").header(TraceController.ACCESS_TOKEN_HEADER, "wrong"))
+				.andExpect(status().isForbidden());
+		mockMvc.perform(get("/api/traces/abc").header(TraceController.ACCESS_TOKEN_HEADER, "s3cret"))
+				.andExpect(status().isOk());
+	}
+}
@@ -0,0 +1,195 @@
+package com.foxx.digitaltwinai.entity;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.service.log.LogPayloadCodec;
+import com.foxx.digitaltwinai.service.log.LogPayloadConverter;
+import com.foxx.digitaltwinai.service.log.PayloadOffloadStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.ResourceProvider;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.resource.beans.container.spi.BeanContainer;
+import org.hibernate.resource.beans.container.spi.ContainedBean;
+import org.hibernate.resource.beans.spi.BeanInstanceProducer;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 用MySQL兼容模式的H2执行全部迁移脚本，再按生产配置（MySQL方言、ddl-auto=validate）校验实体映射
+ * (Runs every migration on H2 in MySQL mode, then validates the entity mappings the way production does:
+ * MySQL dialect with ddl-auto=validate)
+ */
+class SchemaValidationTests {
+
+	/**
+	 * 一条ALTER TABLE中的多个ADD COLUMN，H2只接受每条语句一个
+	 * (Several ADD COLUMN clauses in one ALTER TABLE; H2 accepts only one per statement)
+	 */
+	private static final Pattern MULTI_ADD_COLUMN =
+			Pattern.compile("ALTER TABLE\\s+(\\w+)\\s+(ADD COLUMN[^;]+);", Pattern.CASE_INSENSITIVE);
+
+	@Test
+	void migrationsMatchTheEntityMappings() throws Exception {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:schema-validation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		Flyway.configure().dataSource(dataSource).resourceProvider(new H2Migrations()).load().migrate();
+
+		LogPayloadConverter converter = new LogPayloadConverter(
+				new LogPayloadCodec(new RequestLogConfig(), mock(PayloadOffloadStore.class), new SimpleMeterRegistry()));
+		StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+				.applySettings(Map.of(
+						AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource,
+						AvailableSettings.DIALECT, MySQLDialect.class.getName(),
+						AvailableSettings.PHYSICAL_NAMING_STRATEGY, CamelCaseToUnderscoresNamingStrategy.class.getName(),
+						AvailableSettings.HBM2DDL_AUTO, "validate",
+						AvailableSettings.BEAN_CONTAINER, new ConverterContainer(converter)))
+				.build();
+		try {
+			assertDoesNotThrow(() -> {
+				try (SessionFactory ignored = new MetadataSources(registry)
+						.addAnnotatedClass(DifyRequestLog.class)
+						.buildMetadata()
+						.buildSessionFactory()) {
+					// 构建成功即校验通过 (Building successfully means validation passed)
+				}
+			});
+		} finally {
+			StandardServiceRegistryBuilder.destroy(registry);
+		}
+	}
+
+	/**
+	 * 把多列ALTER拆成单列语句，不改动已发布的迁移文件（否则校验和会变）
+	 * (Splits multi-column ALTERs into single-column statements without touching the released migrations,
+	 * whose checksums must not change)
+	 */
+	static String toH2(String sql) {
+		Matcher matcher = MULTI_ADD_COLUMN.matcher(sql);
+		StringBuilder result = new StringBuilder();
+		while (matcher.find()) {
+			StringBuilder statements = new StringBuilder();
+			for (String column : matcher.group(2).split(",\\s*(?=ADD COLUMN)")) {
+				statements.append("ALTER TABLE ").append(matcher.group(1)).append(' ').append(column.trim()).append(";\n");
+			}
+			matcher.appendReplacement(result, Matcher.quoteReplacement(statements.toString()));
+		}
+		matcher.appendTail(result);
+		return result.toString();
+	}
+
+	/**
+	 * 从classpath:db/migration读取迁移脚本并转换为H2可执行的形式
+	 * (Reads the scripts under classpath:db/migration and rewrites them into a form H2 can run)
+	 */
+	private static final class H2Migrations implements ResourceProvider {
+
+		private final List<LoadableResource> migrations = new ArrayList<>();
+
+		H2Migrations() throws IOException {
+			for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/*.sql")) {
+				migrations.add(new Migration(resource.getFilename(),
+						toH2(resource.getContentAsString(StandardCharsets.UTF_8))));
+			}
+		}
+
+		@Override
+		public LoadableResource getResource(String name) {
+			return migrations.stream().filter(migration -> migration.getFilename().equals(name)).findFirst().orElse(null);
+		}
+
+		@Override
+		public Collection<LoadableResource> getResources(String prefix, String[] suffixes) {
+			return migrations.stream()
+					.filter(migration -> migration.getFilename().startsWith(prefix))
+					.filter(migration -> Arrays.stream(suffixes).anyMatch(migration.getFilename()::endsWith))
+					.toList();
+		}
+	}
+
+	private static final class Migration extends LoadableResource {
+
+		private final String filename;
+
+		private final String sql;
+
+		Migration(String filename, String sql) {
+			this.filename = filename;
+			this.sql = sql;
+		}
+
+		@Override
+		public Reader read() {
+			return new StringReader(sql);
+		}
+
+		@Override
+		public String getAbsolutePath() {
+			return "db/migration/" + filename;
+		}
+
+		@Override
+		public String getAbsolutePathOnDisk() {
+			return getAbsolutePath();
+		}
+
+		@Override
+		public String getFilename() {
+			return filename;
+		}
+
+		@Override
+		public String getRelativePath() {
+			return filename;
+		}
+	}
+
+	/**
+	 * 提供需要构造参数的JPA转换器，其余交给Hibernate创建
+	 * (Supplies the JPA converter that needs constructor arguments; everything else is created by Hibernate)
+	 */
+	private record ConverterContainer(LogPayloadConverter converter) implements BeanContainer {
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <B> ContainedBean<B> getBean(Class<B> beanType, LifecycleOptions lifecycleOptions,
+											BeanInstanceProducer fallbackProducer) {
+			B bean = beanType == LogPayloadConverter.class ? (B) converter : fallbackProducer.produceBeanInstance(beanType);
+			return () -> bean;
+		}
+
+		@Override
+		public <B> ContainedBean<B> getBean(String name, Class<B> beanType, LifecycleOptions lifecycleOptions,
+											BeanInstanceProducer fallbackProducer) {
+			B bean = fallbackProducer.produceBeanInstance(name, beanType);
+			return () -> bean;
+		}
+
+		@Override
+		public void stop() {
+		}
+	}
+}
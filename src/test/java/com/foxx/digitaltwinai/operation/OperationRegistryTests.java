@@ -0,0 +1,74 @@
+package com.foxx.digitaltwinai.operation;
+
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.operation.handler.FocusOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ResetOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.RotateOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ZoomOperationHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OperationRegistryTests {
+
+	private final OperationRegistry registry = new OperationRegistry(List.of(
+			new ZoomOperationHandler(), new RotateOperationHandler(),
+			new FocusOperationHandler(), new ResetOperationHandler()));
+
+	@Test
+	void parsesInstructionsInHandlerOrder() {
+		assertEquals("reset", registry.parseInstruction("重置视图").getType());
+		assertEquals("area_1", registry.parseInstruction("聚焦到Area_1").getTarget());
+
+		ChatResponse.ActionCommand rotate = registry.parseInstruction("向右旋转45度");
+		assertEquals("rotate", rotate.getType());
+		assertEquals("right", rotate.getParams().get("direction"));
+		assertEquals(45, rotate.getParams().get("angle"));
+
+		ChatResponse.ActionCommand zoom = registry.parseInstruction("缩小2倍");
+		assertEquals("zoom", zoom.getType());
+		assertEquals(0.5f, zoom.getParams().get("scale"));
+
+		assertNull(registry.parseInstruction("你好"));
+	}
+
+	@Test
+	void dispatchesByCaseInsensitiveLookup() {
+		assertSame(registry.getHandler("rotate"), registry.getHandler("ROTATE"));
+		assertThrows(IllegalArgumentException.class, () -> registry.getHandler("pan"));
+	}
+
+	@Test
+	void executesThroughGateway() {
+		Map<String, Object> result = registry.getHandler("focus")
+				.execute(null, Map.of(), (operation, parameters) -> Map.of("success", true, "target", parameters.get("target")));
+		assertEquals("center", result.get("target"));
+	}
+
+	@Test
+	void rejectsNonFiniteZoomScales() {
+		OperationHandler zoom = registry.getHandler("zoom");
+		for (Object scale : List.of(Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, "NaN", "Infinity", 1e300, 0)) {
+			assertThrows(IllegalArgumentException.class, () -> zoom.validate(null, Map.of("scale", scale)), String.valueOf(scale));
+		}
+		assertDoesNotThrow(() -> zoom.validate(null, Map.of("scale", 2.5)));
+	}
+
+	@Test
+	void rejectsNonFiniteOrOutOfRangeRotateAngles() {
+		OperationHandler rotate = registry.getHandler("rotate");
+		for (Object angle : List.of(Double.NaN, Double.POSITIVE_INFINITY, "-Infinity", -1, 361)) {
+			assertThrows(IllegalArgumentException.class,
+					() -> rotate.validate(null, Map.of("direction", "left", "angle", angle)), String.valueOf(angle));
+		}
+		assertDoesNotThrow(() -> rotate.validate(null, Map.of("direction", "right", "angle", 360)));
+		assertDoesNotThrow(() -> rotate.validate(null, Map.of()));
+	}
+}
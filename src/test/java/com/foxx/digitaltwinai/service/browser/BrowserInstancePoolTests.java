@@ -0,0 +1,152 @@
+package com.foxx.digitaltwinai.service.browser;
+
+import com.foxx.digitaltwinai.config.BrowserServiceConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+class BrowserInstancePoolTests {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+	private final BrowserServiceConfig config = new BrowserServiceConfig();
+
+	@BeforeEach
+	void setUp() {
+		config.setUrls(List.of("http://browser-1:9000", "http://browser-2:9000/"));
+		config.setEjectionFailureThreshold(3);
+		config.setEjectionLatencyThreshold(5000);
+		config.setEjectionDuration(60000);
+	}
+
+	private BrowserInstancePool pool() {
+		return new BrowserInstancePool(config, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void keepsSessionOnTheSameInstance() {
+		BrowserInstancePool pool = pool();
+
+		BrowserInstance first = pool.acquire("session-1");
+		// 另一会话分到空闲实例 (Another session goes to the idle instance)
+		BrowserInstance other = pool.acquire("session-2");
+		pool.release(first, FAST, true);
+		BrowserInstance again = pool.acquire("session-1");
+
+		assertNotSame(first, other);
+		assertSame(first, again);
+		assertEquals("http://browser-2:9000", pool.getInstances().get(1).getUrl());
+	}
+
+	@Test
+	void ejectsAfterConsecutiveFailuresAndMovesTheSession() {
+		BrowserInstancePool pool = pool();
+		BrowserInstance bound = pool.acquire("session-1");
+		pool.release(bound, FAST, false);
+		pool.release(pool.acquire("session-1"), FAST, false);
+		assertFalse(bound.isEjected());
+
+		pool.release(pool.acquire("session-1"), FAST, false);
+
+		assertTrue(bound.isEjected());
+		BrowserInstance moved = pool.acquire("session-1");
+		assertNotSame(bound, moved);
+		// 新的绑定在原实例恢复后仍保持 (The new binding sticks once the old instance recovers)
+		pool.release(moved, FAST, true);
+		assertSame(moved, pool.acquire("session-1"));
+	}
+
+	@Test
+	void successResetsTheFailureCount() {
+		BrowserInstancePool pool = pool();
+		BrowserInstance bound = pool.acquire("session-1");
+		pool.release(bound, FAST, false);
+		pool.release(pool.acquire("session-1"), FAST, false);
+		pool.release(pool.acquire("session-1"), FAST, true);
+		pool.release(pool.acquire("session-1"), FAST, false);
+
+		assertFalse(bound.isEjected());
+		assertEquals(1, bound.getConsecutiveFailures());
+	}
+
+	@Test
+	void ejectsSlowInstances() {
+		config.setEjectionLatencyThreshold(100);
+		BrowserInstancePool pool = pool();
+		BrowserInstance bound = pool.acquire("session-1");
+
+		pool.release(bound, TimeUnit.MILLISECONDS.toNanos(500), true);
+
+		assertTrue(bound.isEjected());
+	}
+
+	@Test
+	void neverEjectsTheOnlyInstance() {
+		config.setUrls(List.of("http://browser-1:9000"));
+		BrowserInstancePool pool = pool();
+		for (int i = 0; i < 5; i++) {
+			pool.release(pool.acquire("session-1"), FAST, false);
+		}
+
+		assertFalse(pool.getInstances().get(0).isEjected());
+	}
+
+	@Test
+	void readmitsAfterTheEjectionWindow() throws Exception {
+		config.setEjectionDuration(20);
+		BrowserInstancePool pool = pool();
+		BrowserInstance bound = pool.acquire("session-1");
+		for (int i = 0; i < 3; i++) {
+			pool.release(bound, FAST, false);
+			bound.begin();
+		}
+		pool.release(bound, FAST, true);
+		Thread.sleep(40);
+
+		assertFalse(bound.isEjected());
+		assertTrue(bound.isAvailable(System.currentTimeMillis()));
+	}
+
+	@Test
+	void healthCheckRestoresRecoveredAndEjectsUnresponsiveInstances() {
+		BrowserInstancePool pool = spy(pool());
+		BrowserInstance first = pool.getInstances().get(0);
+		BrowserInstance second = pool.getInstances().get(1);
+		for (int i = 0; i < 3; i++) {
+			pool.release(pool.acquire("session-1"), FAST, false);
+		}
+		BrowserInstance ejected = first.isEjected() ? first : second;
+		BrowserInstance healthy = ejected == first ? second : first;
+		doReturn(true).when(pool).probe(ejected);
+		doReturn(false).when(pool).probe(healthy);
+
+		pool.checkHealth();
+
+		assertFalse(ejected.isEjected());
+		assertEquals(0, ejected.getConsecutiveFailures());
+		assertTrue(healthy.isEjected());
+	}
+
+	@Test
+	void triesAnInstanceWhenAllAreEjected() {
+		BrowserInstancePool pool = spy(pool());
+		doReturn(false).when(pool).probe(any());
+		pool.checkHealth();
+
+		BrowserInstance picked = pool.acquire("session-1");
+
+		assertTrue(pool.getInstances().contains(picked));
+	}
+}
@@ -0,0 +1,109 @@
+package com.foxx.digitaltwinai.service.browser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotentResultCacheTests {
+
+	private static final Map<String, Object> OK = Map.of("success", true);
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private Map<String, Object> call(Map<String, Object> result) {
+		calls.incrementAndGet();
+		return result;
+	}
+
+	@Test
+	void returnsRetainedResultForDuplicateKey() {
+		IdempotentResultCache cache = new IdempotentResultCache(60000, 100);
+
+		IdempotentResultCache.Outcome first = cache.execute("key-1", () -> call(OK), result -> true);
+		IdempotentResultCache.Outcome second = cache.execute("key-1", () -> call(OK), result -> true);
+
+		assertFalse(first.duplicate());
+		assertTrue(second.duplicate());
+		assertSame(first.result(), second.result());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void doesNotRetainRejectedResults() {
+		IdempotentResultCache cache = new IdempotentResultCache(60000, 100);
+
+		cache.execute("key-1", () -> call(Map.of("success", false)), result -> false);
+		IdempotentResultCache.Outcome retry = cache.execute("key-1", () -> call(OK), result -> true);
+
+		assertFalse(retry.duplicate());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void forgetsKeyWhenActionThrows() {
+		IdempotentResultCache cache = new IdempotentResultCache(60000, 100);
+
+		assertThrows(IllegalStateException.class, () -> cache.execute("key-1", () -> {
+			throw new IllegalStateException("boom");
+		}, result -> true));
+
+		assertFalse(cache.execute("key-1", () -> call(OK), result -> true).duplicate());
+	}
+
+	@Test
+	void reExecutesAfterTtl() throws Exception {
+		IdempotentResultCache cache = new IdempotentResultCache(10, 100);
+		cache.execute("key-1", () -> call(OK), result -> true);
+		Thread.sleep(30);
+
+		assertFalse(cache.execute("key-1", () -> call(OK), result -> true).duplicate());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	void concurrentDuplicateJoinsTheRunningExecution() throws Exception {
+		IdempotentResultCache cache = new IdempotentResultCache(60000, 100);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<IdempotentResultCache.Outcome> first = CompletableFuture.supplyAsync(() ->
+				cache.execute("key-1", () -> {
+					started.countDown();
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return call(OK);
+				}, result -> true));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<IdempotentResultCache.Outcome> second = CompletableFuture.supplyAsync(() ->
+				cache.execute("key-1", () -> call(OK), result -> true));
+
+		release.countDown();
+
+		assertFalse(first.get(5, TimeUnit.SECONDS).duplicate());
+		assertTrue(second.get(5, TimeUnit.SECONDS).duplicate());
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	void boundsTheNumberOfEntries() {
+		IdempotentResultCache cache = new IdempotentResultCache(60000, 3);
+		for (int i = 0; i < 10; i++) {
+			String key = "key-" + i;
+			cache.execute(key, () -> call(OK), result -> true);
+		}
+
+		assertTrue(cache.size() <= 3);
+	}
+}
@@ -0,0 +1,37 @@
+package com.foxx.digitaltwinai.service.browser;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTests {
+
+	@Test
+	void startsFullAndSpendsOneTokenPerRetry() {
+		RetryBudget budget = new RetryBudget(0.5, 2);
+
+		assertTrue(budget.tryWithdraw());
+		assertTrue(budget.tryWithdraw());
+		assertFalse(budget.tryWithdraw());
+		assertEquals(0, budget.getTokens(), 0.0001);
+	}
+
+	@Test
+	void depositsRefillUpToCapacity() {
+		RetryBudget budget = new RetryBudget(0.5, 2);
+		budget.tryWithdraw();
+		budget.tryWithdraw();
+
+		budget.deposit();
+		assertFalse(budget.tryWithdraw());
+		budget.deposit();
+		assertTrue(budget.tryWithdraw());
+
+		for (int i = 0; i < 10; i++) {
+			budget.deposit();
+		}
+		assertEquals(2, budget.getTokens(), 0.0001);
+	}
+}
@@ -0,0 +1,105 @@
+package com.foxx.digitaltwinai.service.flight;
+
+import com.foxx.digitaltwinai.config.FlightRecorderConfig;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SlowRequestRecorderTests {
+
+	@TempDir
+	Path directory;
+
+	private final FlightRecorderConfig config = new FlightRecorderConfig();
+
+	private SlowRequestRecorder recorder;
+
+	@BeforeEach
+	void configure() {
+		config.setDumpDirectory(directory.toString());
+		config.setMaxAge(60000);
+	}
+
+	@AfterEach
+	void stop() {
+		if (recorder != null) {
+			recorder.stop();
+		}
+	}
+
+	private SlowRequestRecorder startRecorder() {
+		recorder = new SlowRequestRecorder(config);
+		recorder.start();
+		return recorder;
+	}
+
+	@Test
+	void dumpContainsCustomEvents() throws Exception {
+		startRecorder();
+		assertTrue(recorder.isRecording());
+		ChatRequestEvent event = new ChatRequestEvent();
+		event.begin();
+		event.setSessionId("session-1");
+		event.setHandlingPath("DIFY");
+		event.setOperationType("rotate");
+		event.setSuccess(true);
+		event.commit();
+
+		Path dump = recorder.dump("test");
+
+		assertNotNull(dump);
+		assertTrue(Files.size(dump) > 0);
+		List<RecordedEvent> chats = RecordingFile.readAllEvents(dump).stream()
+				.filter(recorded -> recorded.getEventType().getName().equals("digital_twin.ChatRequest"))
+				.toList();
+		assertEquals(1, chats.size());
+		assertEquals("session-1", chats.get(0).getString("sessionId"));
+		assertEquals("rotate", chats.get(0).getString("operationType"));
+	}
+
+	@Test
+	void triggersOnlyAboveThresholdAndOutsideCooldown() {
+		config.setSlowThreshold(100);
+		config.setDumpCooldown(60000);
+		startRecorder();
+
+		assertFalse(recorder.onRequestFinished(50, "fast"));
+		assertTrue(recorder.onRequestFinished(150, "slow"));
+		assertFalse(recorder.onRequestFinished(200, "slow-again"));
+	}
+
+	@Test
+	void keepsAtMostMaxDumps() {
+		config.setMaxDumps(2);
+		startRecorder();
+
+		recorder.dump("first");
+		recorder.dump("second");
+		recorder.dump("third");
+
+		assertEquals(2, recorder.listDumps().size());
+	}
+
+	@Test
+	void doesNothingWhenDisabled() {
+		config.setEnabled(false);
+		config.setSlowThreshold(0);
+		startRecorder();
+
+		assertFalse(recorder.isRecording());
+		assertFalse(recorder.onRequestFinished(1000, "slow"));
+		assertEquals(0, recorder.listDumps().size());
+	}
+}
@@ -0,0 +1,255 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.BrowserServiceConfig;
+import com.foxx.digitaltwinai.operation.AbstractOperationHandler;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
+import com.foxx.digitaltwinai.operation.handler.FocusOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ResetOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.RotateOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ZoomOperationHandler;
+import com.foxx.digitaltwinai.service.CameraStateService;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import com.foxx.digitaltwinai.service.browser.BrowserInstance;
+import com.foxx.digitaltwinai.service.browser.BrowserInstancePool;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BrowserServiceImplTests {
+
+	private static final String OK = "{\"success\":true,\"message\":\"done\"}";
+
+	private final BrowserServiceConfig config = new BrowserServiceConfig();
+
+	private final RestTemplate restTemplate = mock(RestTemplate.class);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final CameraStateService cameraStateService = mock(CameraStateService.class);
+
+	private BrowserInstancePool pool;
+
+	private BrowserServiceImpl browserService;
+
+	@BeforeEach
+	void setUp() {
+		config.setUrls(List.of("http://browser-1:9000"));
+		config.getRetry().setInitialBackoff(1);
+		config.getRetry().setMaxBackoff(1);
+	}
+
+	private BrowserServiceImpl service() {
+		List<AbstractOperationHandler> handlers = List.of(new ZoomOperationHandler(), new RotateOperationHandler(),
+				new FocusOperationHandler(), new ResetOperationHandler());
+		handlers.forEach(handler -> handler.bindTo(meterRegistry));
+		OperationRegistry registry = new OperationRegistry(new ArrayList<>(handlers));
+		pool = new BrowserInstancePool(config, meterRegistry);
+		browserService = new BrowserServiceImpl(config, restTemplate, new ObjectMapper(), mock(WebSocketService.class),
+				cameraStateService, registry, pool,
+				meterRegistry, Tracer.NOOP);
+		browserService.init();
+		return browserService;
+	}
+
+	private static ResourceAccessException connectRefused() {
+		return new ResourceAccessException("I/O error", new ConnectException("Connection refused"));
+	}
+
+	private void givenResponses(Object... responses) {
+		var stubbing = when(restTemplate.postForObject(anyString(), any(), eq(String.class)));
+		for (Object response : responses) {
+			stubbing = response instanceof RuntimeException e ? stubbing.thenThrow(e) : stubbing.thenReturn((String) response);
+		}
+	}
+
+	private double count(String name) {
+		return meterRegistry.counter(name).count();
+	}
+
+	@Test
+	void retriesConnectFailures() {
+		givenResponses(connectRefused(), OK);
+
+		Map<String, Object> result = service().executeReset();
+
+		assertEquals(true, result.get("success"));
+		verify(restTemplate, times(2)).postForObject(anyString(), any(), eq(String.class));
+		assertEquals(1, count("digital_twin.browser.retries"));
+	}
+
+	@Test
+	void doesNotRetryReadTimeouts() {
+		givenResponses(new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")), OK);
+
+		Map<String, Object> result = service().executeReset();
+
+		assertFalse((Boolean) result.get("success"));
+		verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(String.class));
+	}
+
+	@Test
+	void retriesConfiguredNotStartedStatusUpToMaxAttempts() {
+		config.getRetry().setMaxAttempts(3);
+		config.getRetry().setRetryableStatusCodes(List.of(503));
+		HttpServerErrorException unavailable = HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE,
+				"unavailable", null, null, null);
+		givenResponses(unavailable, unavailable, unavailable, OK);
+
+		Map<String, Object> result = service().executeReset();
+
+		assertFalse((Boolean) result.get("success"));
+		verify(restTemplate, times(3)).postForObject(anyString(), any(), eq(String.class));
+		assertEquals(1, count("digital_twin.browser.retries.exhausted"));
+	}
+
+	@Test
+	void doesNotRetryGatewayErrorsByDefault() {
+		givenResponses(HttpServerErrorException.create(HttpStatus.GATEWAY_TIMEOUT, "timeout", null, null, null),
+				HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "unavailable", null, null, null), OK);
+		BrowserServiceImpl service = service();
+
+		service.executeReset();
+		service.executeReset();
+
+		verify(restTemplate, times(2)).postForObject(anyString(), any(), eq(String.class));
+		assertEquals(0, count("digital_twin.browser.retries"));
+	}
+
+	@Test
+	void keepsTimeoutResultsSoTheSameKeyIsNotSentAgain() {
+		givenResponses(new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")), OK);
+		BrowserServiceImpl service = service();
+		Map<String, Object> action = Map.of("type", "reset", BrowserServiceImpl.IDEMPOTENCY_KEY_FIELD, "request-1:reset");
+
+		service.executeModelOperation(action, "session-1");
+		Map<String, Object> again = service.executeModelOperation(action, "session-1");
+
+		assertFalse((Boolean) again.get("success"));
+		assertEquals(true, again.get("duplicate"));
+		verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(String.class));
+	}
+
+	@Test
+	void resendsTheSameKeyAfterAConnectFailure() {
+		config.getRetry().setMaxAttempts(1);
+		givenResponses(connectRefused(), OK);
+		BrowserServiceImpl service = service();
+		Map<String, Object> action = Map.of("type", "reset", BrowserServiceImpl.IDEMPOTENCY_KEY_FIELD, "request-1:reset");
+
+		service.executeModelOperation(action, "session-1");
+		Map<String, Object> again = service.executeModelOperation(action, "session-1");
+
+		assertEquals(true, again.get("success"));
+		verify(restTemplate, times(2)).postForObject(anyString(), any(), eq(String.class));
+	}
+
+	@Test
+	void doesNotRetryNonTransientServerErrors() {
+		givenResponses(HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "error", null, null, null), OK);
+
+		service().executeReset();
+
+		verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(String.class));
+	}
+
+	@Test
+	void stopsRetryingAtTheTotalDeadline() {
+		config.getRetry().setMaxTotalTime(0);
+		givenResponses(connectRefused(), OK);
+
+		Map<String, Object> result = service().executeReset();
+
+		assertFalse((Boolean) result.get("success"));
+		verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(String.class));
+		assertEquals(1, count("digital_twin.browser.retries.exhausted"));
+	}
+
+	@Test
+	void stopsRetryingWhenTheBudgetIsEmpty() {
+		config.getRetry().setBudgetRatio(0);
+		config.getRetry().setBudgetMax(1);
+		givenResponses(connectRefused(), connectRefused(), connectRefused(), connectRefused());
+		BrowserServiceImpl service = service();
+
+		service.executeReset();
+		service.executeReset();
+
+		// 第一次调用重试一次用掉唯一的令牌，之后都不再重试 (The first call's single retry spends the only token; nothing retries after that)
+		verify(restTemplate, times(3)).postForObject(anyString(), any(), eq(String.class));
+		assertEquals(2, count("digital_twin.browser.retries.budget_exhausted"));
+	}
+
+	@Test
+	void acceptsNumericSceneIdAndUpdatesCameraStateOnce() {
+		givenResponses(OK);
+
+		Map<String, Object> result = service().executeModelOperation(
+				Map.of("type", "zoom", "params", Map.of("scale", 2.0, "sceneId", 7)), "session-1");
+
+		assertEquals(true, result.get("success"));
+		verify(cameraStateService).apply(eq("7"), any(), any(), any());
+		// 执行耗时只记录一次，且记为成功 (Execution latency is recorded exactly once, as a success)
+		assertEquals(1, meterRegistry.get(AbstractOperationHandler.EXECUTION_METRIC).tag("type", "zoom").timers().stream()
+				.mapToLong(Timer::count).sum());
+		assertEquals(1, meterRegistry.get(AbstractOperationHandler.EXECUTION_METRIC).tag("type", "zoom")
+				.tag("outcome", "success").timer().count());
+	}
+
+	@Test
+	void cameraStateFailureDoesNotFailTheOperation() {
+		givenResponses(OK);
+		when(cameraStateService.apply(any(), any(), any(), any())).thenThrow(new IllegalStateException("redis down"));
+
+		Map<String, Object> result = service().executeReset();
+
+		assertEquals(true, result.get("success"));
+	}
+
+	@Test
+	void clientErrorsDoNotCountTowardEjection() {
+		config.setUrls(List.of("http://browser-1:9000", "http://browser-2:9000"));
+		config.setEjectionFailureThreshold(1);
+		givenResponses(HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "bad request", null, null, null));
+		BrowserServiceImpl service = service();
+
+		Map<String, Object> result = service.executeModelOperation(Map.of("type", "reset"), "session-1");
+
+		assertFalse((Boolean) result.get("success"));
+		assertTrue(pool.getInstances().stream().noneMatch(BrowserInstance::isEjected));
+		assertEquals(0, pool.getInstances().get(0).getConsecutiveFailures() + pool.getInstances().get(1).getConsecutiveFailures());
+	}
+
+	@Test
+	void recognisesConnectFailuresInTheCauseChain() {
+		assertTrue(BrowserServiceImpl.isConnectFailure(connectRefused()));
+		assertTrue(BrowserServiceImpl.isConnectFailure(
+				new ResourceAccessException("I/O error", new SocketTimeoutException("Connect timed out"))));
+		assertFalse(BrowserServiceImpl.isConnectFailure(
+				new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out"))));
+	}
+}
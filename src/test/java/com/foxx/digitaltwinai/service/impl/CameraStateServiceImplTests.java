@@ -0,0 +1,52 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.foxx.digitaltwinai.operation.handler.FocusOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.RotateOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ZoomOperationHandler;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CameraStateServiceImplTests {
+
+	private final WebSocketService webSocketService = mock(WebSocketService.class);
+
+	private final CameraStateServiceImpl service = new CameraStateServiceImpl(webSocketService);
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void publishesVersionedDeltasWithOnlyChangedFields() {
+		assertEquals(1, service.apply("hall", new RotateOperationHandler(), null, Map.of("direction", "left", "angle", 30)));
+		assertEquals(2, service.apply("hall", new ZoomOperationHandler(), null, Map.of("scale", 2.0)));
+		assertEquals(3, service.apply("hall", new FocusOperationHandler(), "pump_1", Map.of()));
+		// 聚焦到同一目标不产生新版本 (Focusing the same target does not create a version)
+		assertEquals(3, service.apply("hall", new FocusOperationHandler(), "pump_1", Map.of()));
+
+		ArgumentCaptor<Map<String, Object>> deltas = ArgumentCaptor.forClass(Map.class);
+		verify(webSocketService, times(3)).sendCameraDelta(eq("hall"), deltas.capture());
+		Map<String, Object> rotate = deltas.getAllValues().get(0);
+		assertEquals(330.0, rotate.get("rotation"));
+		assertFalse(rotate.containsKey("scale"));
+		assertEquals(Map.of("type", "delta", "sceneId", "hall", "version", 3L, "focus", "pump_1"),
+				deltas.getAllValues().get(2));
+
+		Map<String, Object> snapshot = service.getSnapshot("hall");
+		assertEquals(3L, snapshot.get("version"));
+		assertEquals(2.0, snapshot.get("scale"));
+	}
+
+	@Test
+	void invalidSceneIdsFallBackToTheDefaultScene() {
+		service.apply("../../topic/other", new ZoomOperationHandler(), null, Map.of("scale", 2.0));
+		assertEquals(1L, service.getSnapshot("default").get("version"));
+	}
+}
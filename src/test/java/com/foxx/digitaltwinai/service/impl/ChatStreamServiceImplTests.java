@@ -0,0 +1,143 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.foxx.digitaltwinai.config.WebSocketProperties;
+import com.foxx.digitaltwinai.model.ChatRequest;
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.service.ChatStreamListener;
+import com.foxx.digitaltwinai.service.DifyService;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatStreamServiceImplTests {
+
+	private final DifyService difyService = mock(DifyService.class);
+
+	private final WebSocketService webSocketService = mock(WebSocketService.class);
+
+	private final WebSocketProperties properties = new WebSocketProperties();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final List<Map<String, Object>> events = new CopyOnWriteArrayList<>();
+
+	private ChatStreamServiceImpl chatStreamService;
+
+	@BeforeEach
+	void setUp() {
+		doAnswer(invocation -> events.add(invocation.getArgument(1)))
+				.when(webSocketService).sendChatEvent(eq("connection-1"), any());
+	}
+
+	@AfterEach
+	void tearDown() {
+		chatStreamService.shutdown();
+	}
+
+	private ChatStreamServiceImpl service() {
+		chatStreamService = new ChatStreamServiceImpl(difyService, webSocketService, properties, meterRegistry);
+		return chatStreamService;
+	}
+
+	private void awaitEvents(int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+		while (events.size() < count) {
+			assertTrue(System.currentTimeMillis() < deadline, "事件未送达 (Events were not delivered)");
+			Thread.sleep(10);
+		}
+	}
+
+	private List<Object> types() {
+		return events.stream().map(event -> event.get("type")).toList();
+	}
+
+	@Test
+	void streamsEventsInOrderToTheConnectionSession() throws Exception {
+		ChatResponse response = ChatResponse.builder().text("已向左旋转30度").build();
+		when(difyService.sendChatMessage(any(), eq("connection-1"), any())).thenAnswer(invocation -> {
+			ChatStreamListener listener = invocation.getArgument(2);
+			listener.onAction(Map.of("type", "rotate"));
+			listener.onOperationResult(Map.of("success", true));
+			listener.onDelta("已向左");
+			listener.onDelta("旋转30度");
+			return response;
+		});
+		ChatRequest request = ChatRequest.builder().message("向左旋转30度").sessionId("conversation-1").build();
+
+		service().submit("connection-1", "request-1", request);
+		awaitEvents(5);
+
+		assertEquals(List.of("action", "result", "delta", "delta", "done"), types());
+		assertTrue(events.stream().allMatch(event -> "request-1".equals(event.get("requestId"))));
+		assertEquals("旋转30度", events.get(3).get("content"));
+		assertEquals(response, events.get(4).get("response"));
+		// 客户端的对话ID保持不变 (The client's conversation ID is left untouched)
+		assertEquals("conversation-1", request.getSessionId());
+		verify(difyService).sendChatMessage(eq(request), eq("connection-1"), any());
+	}
+
+	@Test
+	void reportsPipelineFailureAsErrorEvent() throws Exception {
+		when(difyService.sendChatMessage(any(), any(), any())).thenThrow(new IllegalStateException("boom"));
+
+		service().submit("connection-1", "request-1", ChatRequest.builder().message("你好").build());
+		awaitEvents(1);
+
+		assertEquals(List.of("error"), types());
+		assertTrue(events.get(0).get("content").toString().contains("boom"));
+	}
+
+	@Test
+	void rejectsWhenTheQueueIsFull() throws Exception {
+		properties.getChat().setConcurrency(1);
+		properties.getChat().setQueueCapacity(1);
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(difyService.sendChatMessage(any(), any(), any())).thenAnswer(invocation -> {
+			running.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return ChatResponse.builder().text("ok").build();
+		});
+		ChatStreamServiceImpl service = service();
+
+		service.submit("connection-1", "request-1", ChatRequest.builder().message("1").build());
+		assertTrue(running.await(5, TimeUnit.SECONDS));
+		service.submit("connection-1", "request-2", ChatRequest.builder().message("2").build());
+		service.submit("connection-1", "request-3", ChatRequest.builder().message("3").build());
+
+		assertEquals(1, events.size());
+		assertEquals("error", events.get(0).get("type"));
+		assertEquals("request-3", events.get(0).get("requestId"));
+		assertEquals(1, meterRegistry.counter("digital_twin.websocket.chat.rejected").count());
+
+		release.countDown();
+		awaitEvents(3);
+		assertEquals(List.of("error", "done", "done"), types());
+	}
+
+	@Test
+	void rejectsNullRequest() {
+		service().submit("connection-1", "request-1", null);
+
+		assertEquals(List.of("error"), types());
+		verify(difyService, never()).sendChatMessage(any(), any(), any());
+	}
+}
@@ -0,0 +1,98 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.model.RequestLogPage;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
+import com.foxx.digitaltwinai.service.log.AsyncRequestLogWriter;
+import com.foxx.digitaltwinai.service.log.DatabaseCircuit;
+import com.foxx.digitaltwinai.service.log.LogPayloadCodec;
+import com.foxx.digitaltwinai.service.log.RequestLogCaches;
+import com.foxx.digitaltwinai.service.log.RequestLogJournal;
+import com.foxx.digitaltwinai.service.log.RequestLogRollup;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DifyRequestLogServiceImplTests {
+
+	private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+	private final DifyRequestLogRepository repository = mock(DifyRequestLogRepository.class);
+
+	private final LogPayloadCodec codec = mock(LogPayloadCodec.class);
+
+	private final DifyRequestLogServiceImpl service = new DifyRequestLogServiceImpl(repository,
+			mock(AsyncRequestLogWriter.class), new RequestLogConfig(), mock(RequestLogJournal.class),
+			mock(DatabaseCircuit.class), new ObjectMapper().registerModule(new JavaTimeModule()),
+			mock(RequestLogRollup.class), mock(RequestLogCaches.class), codec);
+
+	private static List<DifyRequestLog> rows(int from, int count) {
+		List<DifyRequestLog> rows = new ArrayList<>();
+		IntStream.range(from, from + count).forEach(i -> {
+			DifyRequestLog row = new DifyRequestLog();
+			row.setId((long) (10_000 - i));
+			row.setUserInstruction("row " + i);
+			row.setCreatedAt(BASE.minusSeconds(i));
+			rows.add(row);
+		});
+		return rows;
+	}
+
+	@Test
+	void returnsACursorThatResumesAfterTheLastRow() {
+		when(repository.findPageByStatus(eq(0), isNull(), isNull(), isNull(), isNull(), any())).thenReturn(rows(0, 2));
+		RequestLogPage first = service.getLogPage(RequestLogQuery.builder().status(0).limit(2).build());
+
+		when(repository.findPageByStatus(eq(0), isNull(), isNull(), eq(BASE.minusSeconds(1)), eq(9_999L), any()))
+				.thenReturn(rows(2, 1));
+		RequestLogPage second = service.getLogPage(RequestLogQuery.builder().status(0).limit(2).cursor(first.getNextCursor()).build());
+
+		assertEquals("row 2", second.getItems().get(0).getUserInstruction());
+		assertNull(second.getNextCursor());
+	}
+
+	@Test
+	void exportsEveryPageAsOneJsonLinePerLog() throws Exception {
+		int pageSize = DifyRequestLogServiceImpl.MAX_PAGE_SIZE;
+		when(repository.findPage(isNull(), isNull(), isNull(), isNull(), any())).thenReturn(rows(0, pageSize));
+		when(repository.findPage(isNull(), isNull(), eq(BASE.minusSeconds(pageSize - 1)), eq(10_000L - pageSize + 1), any()))
+				.thenReturn(rows(pageSize, 3));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		assertEquals(pageSize + 3, service.exportLogs(new RequestLogQuery(), out));
+		String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(pageSize + 3, lines.length);
+		verify(repository, times(2)).findPage(any(), any(), any(), any(), any());
+		// 每页只批量还原一次外置内容 (Offloaded content is resolved in one batch per page)
+		verify(codec, times(2)).resolveReferences(anyList());
+	}
+
+	@Test
+	void rejectsMoreThanOneFilterAndBadCursors() {
+		assertThrows(IllegalArgumentException.class, () -> service.getLogPage(
+				RequestLogQuery.builder().status(0).operationType("rotate").build()));
+		assertThrows(IllegalArgumentException.class, () -> service.getLogPage(
+				RequestLogQuery.builder().cursor("not-a-cursor").build()));
+	}
+}
@@ -0,0 +1,100 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.DifyApiConfig;
+import com.foxx.digitaltwinai.model.ChatRequest;
+import com.foxx.digitaltwinai.model.ChatResponse;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
+import com.foxx.digitaltwinai.operation.handler.ResetOperationHandler;
+import com.foxx.digitaltwinai.service.BrowserService;
+import com.foxx.digitaltwinai.service.ChatStreamListener;
+import com.foxx.digitaltwinai.service.DifyRequestLogService;
+import com.foxx.digitaltwinai.service.flight.SlowRequestRecorder;
+import com.foxx.digitaltwinai.service.metrics.ChatPipelineMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DifyServiceImplTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void endToEndTimerIncludesRecordingTheLog() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		OperationRegistry registry = new OperationRegistry(List.of(new ResetOperationHandler()));
+		BrowserService browserService = mock(BrowserService.class);
+		when(browserService.executeModelOperation(any(), any())).thenReturn(Map.of("success", true));
+		AtomicLong recordDelayMillis = new AtomicLong();
+		DifyRequestLogService logService = mock(DifyRequestLogService.class);
+		when(logService.recordRequest(any(), any(), any(), any(), any(), any(), any(), any(), any(), any()))
+				.thenAnswer(invocation -> {
+					Thread.sleep(recordDelayMillis.get());
+					return null;
+				});
+		DifyServiceImpl service = new DifyServiceImpl(new DifyApiConfig(), null, null, logService, browserService,
+				registry, objectMapper, new ChatPipelineMetrics(registry, meterRegistry), null, Tracer.NOOP,
+				mock(SlowRequestRecorder.class));
+		ChatRequest request = new ChatRequest();
+		request.setMessage("重置视图");
+
+		// 第一次调用只用于预热类加载 (The first call only warms up class loading)
+		service.sendChatMessage(request, "session-1", ChatStreamListener.NONE);
+		Timer timer = meterRegistry.get(ChatPipelineMetrics.REQUEST_METRIC).tag("path", "local").timer();
+		double warmupMillis = timer.totalTime(TimeUnit.MILLISECONDS);
+		recordDelayMillis.set(300);
+		service.sendChatMessage(request, "session-1", ChatStreamListener.NONE);
+
+		assertEquals(2, timer.count());
+		assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) - warmupMillis >= 300,
+				"端到端耗时应包含记录日志 (End-to-end latency should include recording the log)");
+	}
+
+	private static ChatResponse.ActionCommand command(String type, String target, Map<String, Object> params) {
+		return ChatResponse.ActionCommand.builder().type(type).target(target).params(params).build();
+	}
+
+	@Test
+	void idempotencyKeyIgnoresMapOrder() {
+		Map<String, Object> first = new LinkedHashMap<>();
+		first.put("direction", "left");
+		first.put("angle", 30);
+		Map<String, Object> second = new LinkedHashMap<>();
+		second.put("angle", 30);
+		second.put("direction", "left");
+
+		String key = DifyServiceImpl.idempotencyKey(objectMapper, "request-1", command("rotate", null, first));
+
+		assertEquals(key, DifyServiceImpl.idempotencyKey(objectMapper, "request-1", command("rotate", null, second)));
+		assertTrue(key.matches("request-1:rotate:[0-9a-f]{64}"), key);
+	}
+
+	@Test
+	void idempotencyKeySeparatesDifferentOperations() {
+		Map<String, Object> params = new HashMap<>(Map.of("direction", "left", "angle", 30));
+		String key = DifyServiceImpl.idempotencyKey(objectMapper, "request-1", command("rotate", null, params));
+
+		params.put("angle", 31);
+		assertNotEquals(key, DifyServiceImpl.idempotencyKey(objectMapper, "request-1", command("rotate", null, params)));
+		assertNotEquals(key, DifyServiceImpl.idempotencyKey(objectMapper, "request-1",
+				command("rotate", "area_1", Map.of("direction", "left", "angle", 30))));
+		// 旧实现中 "Aa" 与 "BB" 的哈希相同 (In the old scheme "Aa" and "BB" hashed alike)
+		assertNotEquals(DifyServiceImpl.idempotencyKey(objectMapper, "request-1", command("focus", "Aa", null)),
+				DifyServiceImpl.idempotencyKey(objectMapper, "request-1", command("focus", "BB", null)));
+	}
+}
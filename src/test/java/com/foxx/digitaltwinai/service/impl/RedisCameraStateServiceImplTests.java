@@ -0,0 +1,126 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.operation.handler.FocusOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.RotateOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ZoomOperationHandler;
+import com.foxx.digitaltwinai.service.WebSocketService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisCameraStateServiceImplTests {
+
+	private static final String PREFIX = "digital-twin:camera:";
+
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+	private final WebSocketService webSocketService = mock(WebSocketService.class);
+
+	/**
+	 * 模拟Redis中的哈希 (Simulated Redis hashes)
+	 */
+	private final Map<String, Map<String, String>> hashes = new ConcurrentHashMap<>();
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final RedisCameraStateServiceImpl service =
+			new RedisCameraStateServiceImpl(redisTemplate, objectMapper, webSocketService, PREFIX);
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	void setUp() {
+		HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+		when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+		when(hashOperations.get(anyString(), eq(RedisCameraStateServiceImpl.STATE_FIELD))).thenAnswer(invocation ->
+				hashes.getOrDefault(invocation.<String>getArgument(0), Map.of()).get(RedisCameraStateServiceImpl.STATE_FIELD));
+		when(redisTemplate.execute(eq(RedisCameraStateServiceImpl.COMPARE_AND_SET), anyList(), any(), any(), any()))
+				.thenAnswer(invocation -> compareAndSet(invocation.getArgument(1), invocation.getArgument(2),
+						invocation.getArgument(3), invocation.getArgument(4)));
+	}
+
+	private Long compareAndSet(List<String> keys, String expected, String version, String state) {
+		Map<String, String> hash = hashes.computeIfAbsent(keys.get(0), key -> new ConcurrentHashMap<>());
+		if (!hash.getOrDefault(RedisCameraStateServiceImpl.VERSION_FIELD, "0").equals(expected)) {
+			return 0L;
+		}
+		hash.put(RedisCameraStateServiceImpl.VERSION_FIELD, version);
+		hash.put(RedisCameraStateServiceImpl.STATE_FIELD, state);
+		return 1L;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void sharesVersionedStateThroughRedis() {
+		assertEquals(1, service.apply("hall", new RotateOperationHandler(), null, Map.of("direction", "left", "angle", 30)));
+		// 另一个节点上的实例看到同一份状态 (An instance on another node sees the same state)
+		RedisCameraStateServiceImpl otherNode =
+				new RedisCameraStateServiceImpl(redisTemplate, objectMapper, webSocketService, PREFIX);
+		assertEquals(2, otherNode.apply("hall", new ZoomOperationHandler(), null, Map.of("scale", 2.0)));
+		assertEquals(2, service.apply("hall", new ZoomOperationHandler(), null, Map.of("scale", 1.0)));
+
+		Map<String, Object> snapshot = service.getSnapshot("hall");
+		assertEquals(2L, snapshot.get("version"));
+		assertEquals(330.0, snapshot.get("rotation"));
+		assertEquals(2.0, snapshot.get("scale"));
+
+		ArgumentCaptor<Map<String, Object>> deltas = ArgumentCaptor.forClass(Map.class);
+		verify(webSocketService, times(2)).sendCameraDelta(eq("hall"), deltas.capture());
+		assertFalse(deltas.getAllValues().get(1).containsKey("rotation"));
+	}
+
+	@Test
+	void retriesWhenAnotherNodeWinsTheVersion() {
+		AtomicBoolean raced = new AtomicBoolean();
+		when(redisTemplate.execute(eq(RedisCameraStateServiceImpl.COMPARE_AND_SET), anyList(), any(), any(), any()))
+				.thenAnswer(invocation -> {
+					if (raced.compareAndSet(false, true)) {
+						// 其他节点先写入了版本1 (Another node wrote version 1 first)
+						compareAndSet(invocation.getArgument(1), "0", "1",
+								"{\"sceneId\":\"hall\",\"version\":1,\"rotation\":0.0,\"scale\":1.0,\"focus\":\"pump_2\"}");
+					}
+					return compareAndSet(invocation.getArgument(1), invocation.getArgument(2),
+							invocation.getArgument(3), invocation.getArgument(4));
+				});
+
+		assertEquals(2, service.apply("hall", new FocusOperationHandler(), "pump_1", Map.of()));
+		assertEquals("pump_1", service.getSnapshot("hall").get("focus"));
+		verify(webSocketService, times(1)).sendCameraDelta(eq("hall"), any());
+	}
+
+	@Test
+	void unchangedViewDoesNotWrite() {
+		service.apply("hall", new FocusOperationHandler(), "pump_1", Map.of());
+
+		assertEquals(1, service.apply("hall", new FocusOperationHandler(), "pump_1", Map.of()));
+		verify(redisTemplate, times(1)).execute(eq(RedisCameraStateServiceImpl.COMPARE_AND_SET), anyList(), any(), any(), any());
+	}
+
+	@Test
+	void invalidSceneIdsUseTheDefaultKey() {
+		service.apply("../other", new ZoomOperationHandler(), null, Map.of("scale", 2.0));
+
+		assertEquals("1", hashes.get(PREFIX + "default").get(RedisCameraStateServiceImpl.VERSION_FIELD));
+		verify(webSocketService, never()).sendCameraDelta(eq("../other"), any());
+	}
+}
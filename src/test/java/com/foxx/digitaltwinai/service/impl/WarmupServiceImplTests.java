@@ -0,0 +1,208 @@
+package com.foxx.digitaltwinai.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.BrowserServiceConfig;
+import com.foxx.digitaltwinai.config.DifyApiConfig;
+import com.foxx.digitaltwinai.config.WarmupConfig;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
+import com.foxx.digitaltwinai.operation.handler.FocusOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ResetOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.RotateOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ZoomOperationHandler;
+import com.foxx.digitaltwinai.service.browser.BrowserInstancePool;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.AvailabilityState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class WarmupServiceImplTests {
+
+	private final WarmupConfig warmupConfig = new WarmupConfig();
+
+	private final List<AvailabilityState> states = new CopyOnWriteArrayList<>();
+
+	private BrowserInstancePool browserInstancePool;
+
+	private WarmupServiceImpl warmupService;
+
+	@BeforeEach
+	void setUp() {
+		warmupConfig.setIterations(1);
+		warmupConfig.setProbeTimeout(500);
+		warmupConfig.setRequiredDependencies(List.of("browser-service"));
+
+		BrowserServiceConfig browserConfig = new BrowserServiceConfig();
+		browserConfig.setUrls(List.of("http://browser-1:9000"));
+		browserInstancePool = spy(new BrowserInstancePool(browserConfig, new SimpleMeterRegistry()));
+
+		// Dify不是必需依赖，指向不可达地址 (Dify is not required; point it at an unreachable address)
+		DifyApiConfig difyApiConfig = new DifyApiConfig();
+		difyApiConfig.setBaseUrl("http://127.0.0.1:1");
+
+		ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+		doAnswer(invocation -> states.add(((AvailabilityChangeEvent<?>) invocation.getArgument(0)).getState()))
+				.when(eventPublisher).publishEvent(any(ApplicationEvent.class));
+
+		OperationRegistry registry = new OperationRegistry(List.of(
+				new ZoomOperationHandler(), new RotateOperationHandler(),
+				new FocusOperationHandler(), new ResetOperationHandler()));
+		warmupService = new WarmupServiceImpl(warmupConfig, difyApiConfig, new ObjectMapper(), registry,
+				browserInstancePool, emptyProvider(), emptyProvider(), eventPublisher);
+	}
+
+	@AfterEach
+	void tearDown() {
+		warmupService.shutdown();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> ObjectProvider<T> emptyProvider() {
+		return mock(ObjectProvider.class);
+	}
+
+	private void awaitWarmup() throws Exception {
+		warmupService.warmupCompletion().get(10, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void becomesReadyImmediatelyWhenDisabled() {
+		warmupConfig.setEnabled(false);
+
+		warmupService.onApplicationReady();
+
+		assertTrue(warmupService.isReady());
+		assertTrue(warmupService.warmupCompletion().isDone());
+		assertEquals(List.of(ReadinessState.ACCEPTING_TRAFFIC), states);
+		verify(browserInstancePool, never()).probe(any());
+	}
+
+	@Test
+	void refusesTrafficUntilWarmupCompletes() throws Exception {
+		doReturn(true).when(browserInstancePool).probe(any());
+		assertFalse(warmupService.isReady());
+
+		warmupService.onApplicationReady();
+		awaitWarmup();
+
+		assertTrue(warmupService.isReady());
+		assertEquals(List.of(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC), states);
+	}
+
+	@Test
+	void staysNotReadyWhenRequiredDependencyIsDown() throws Exception {
+		doReturn(false).when(browserInstancePool).probe(any());
+
+		warmupService.onApplicationReady();
+		awaitWarmup();
+
+		assertFalse(warmupService.isReady());
+		// 最终状态无条件再发布一次，覆盖Boot启动完成后发布的ACCEPTING_TRAFFIC
+		// (The final state is published again unconditionally, overriding the ACCEPTING_TRAFFIC Boot publishes after startup)
+		assertEquals(List.of(ReadinessState.REFUSING_TRAFFIC, ReadinessState.REFUSING_TRAFFIC), states);
+		@SuppressWarnings("unchecked")
+		Map<String, Object> browser = (Map<String, Object>) ((Map<String, Object>)
+				warmupService.getReadinessReport().get("dependencies")).get("browser-service");
+		assertEquals("down", browser.get("status"));
+		assertEquals(true, browser.get("required"));
+	}
+
+	@Test
+	void optionalDependencyFailureDoesNotBlockReadiness() throws Exception {
+		doReturn(true).when(browserInstancePool).probe(any());
+
+		warmupService.onApplicationReady();
+		awaitWarmup();
+
+		@SuppressWarnings("unchecked")
+		Map<String, Object> dify = (Map<String, Object>) ((Map<String, Object>)
+				warmupService.getReadinessReport().get("dependencies")).get("dify");
+		assertEquals("down", dify.get("status"));
+		assertTrue(warmupService.isReady());
+	}
+
+	@Test
+	void refreshMovesBetweenWarmAndCold() throws Exception {
+		doReturn(false).when(browserInstancePool).probe(any());
+		warmupService.onApplicationReady();
+		awaitWarmup();
+
+		doReturn(true).when(browserInstancePool).probe(any());
+		warmupService.refreshDependencies();
+		assertTrue(warmupService.isReady());
+
+		doReturn(false).when(browserInstancePool).probe(any());
+		warmupService.refreshDependencies();
+		assertFalse(warmupService.isReady());
+
+		assertEquals(List.of(ReadinessState.REFUSING_TRAFFIC, ReadinessState.REFUSING_TRAFFIC,
+				ReadinessState.ACCEPTING_TRAFFIC, ReadinessState.REFUSING_TRAFFIC), states);
+	}
+
+	@Test
+	void healthIndicatorGatesReadinessOnWarmup() throws Exception {
+		doReturn(true).when(browserInstancePool).probe(any());
+		WarmupHealthIndicator indicator = new WarmupHealthIndicator(warmupService);
+		assertEquals(Status.OUT_OF_SERVICE, indicator.health().getStatus());
+
+		warmupService.onApplicationReady();
+		awaitWarmup();
+		assertEquals(Status.UP, indicator.health().getStatus());
+
+		doReturn(false).when(browserInstancePool).probe(any());
+		warmupService.refreshDependencies();
+		Health health = indicator.health();
+		assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+		assertEquals(false, health.getDetails().get("ready"));
+	}
+
+	@Test
+	void refreshDoesNothingBeforeWarmup() {
+		warmupService.refreshDependencies();
+
+		verify(browserInstancePool, never()).probe(any());
+		assertFalse(warmupService.isReady());
+		assertTrue(states.isEmpty());
+	}
+
+	@Test
+	void marksHangingProbeAsTimedOut() throws Exception {
+		warmupConfig.setProbeTimeout(50);
+		doAnswer(invocation -> {
+			Thread.sleep(1000);
+			return true;
+		}).when(browserInstancePool).probe(any());
+
+		warmupService.onApplicationReady();
+		awaitWarmup();
+
+		assertFalse(warmupService.isReady());
+		@SuppressWarnings("unchecked")
+		Map<String, Object> browser = (Map<String, Object>) ((Map<String, Object>)
+				warmupService.getReadinessReport().get("dependencies")).get("browser-service");
+		assertEquals("探测超时 (Probe timed out)", browser.get("error"));
+	}
+}
@@ -0,0 +1,85 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AsyncRequestLogWriterTests {
+
+	private final DifyRequestLogRepository repository = mock(DifyRequestLogRepository.class);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private AsyncRequestLogWriter writer(RequestLogConfig config) {
+		return new AsyncRequestLogWriter(config, repository, mock(PlatformTransactionManager.class),
+				mock(RequestLogSequenceInitializer.class), mock(RequestLogJournal.class),
+				new DatabaseCircuit(config, meterRegistry), mock(RequestLogRollup.class), mock(RequestLogCaches.class), Tracer.NOOP,
+				meterRegistry);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void drainsQueuedLogsInBatchesOnShutdown() {
+		RequestLogConfig config = new RequestLogConfig();
+		config.setBatchSize(4);
+		config.setFlushInterval(50);
+		AsyncRequestLogWriter writer = writer(config);
+		for (int i = 0; i < 10; i++) {
+			writer.submit(new DifyRequestLog());
+		}
+		writer.start();
+		writer.shutdown();
+
+		verify(repository, times(3)).saveAll(anyList());
+		assertEquals(0, writer.getQueueSize());
+		assertEquals(10.0, meterRegistry.get("digital_twin.request_log.written").counter().count());
+	}
+
+	@Test
+	void dropsWhenTheQueueIsFull() {
+		RequestLogConfig config = new RequestLogConfig();
+		config.setQueueCapacity(1);
+		AsyncRequestLogWriter writer = writer(config);
+		writer.submit(new DifyRequestLog());
+
+		assertFalse(writer.submit(new DifyRequestLog()));
+		assertEquals(1.0, meterRegistry.get("digital_twin.request_log.dropped").counter().count());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void retriesRowByRowWhenTheBatchFails() {
+		when(repository.saveAll(anyList())).thenThrow(new IllegalStateException("batch failed"));
+		when(repository.save(any(DifyRequestLog.class)))
+				.thenReturn(new DifyRequestLog())
+				.thenThrow(new IllegalStateException("bad row"));
+		RequestLogConfig config = new RequestLogConfig();
+		config.setOverflowPolicy(RequestLogConfig.OverflowPolicy.CALLER_RUNS);
+		config.setQueueCapacity(1);
+		AsyncRequestLogWriter writer = writer(config);
+		writer.submit(new DifyRequestLog());
+
+		// 队列已满，在调用线程写入 (Queue is full, so the caller writes)
+		writer.submit(new DifyRequestLog());
+		writer.submit(new DifyRequestLog());
+
+		verify(repository, times(2)).save(any(DifyRequestLog.class));
+		assertEquals(1.0, meterRegistry.get("digital_twin.request_log.written").counter().count());
+		assertEquals(1.0, meterRegistry.get("digital_twin.request_log.failed").counter().count());
+	}
+}
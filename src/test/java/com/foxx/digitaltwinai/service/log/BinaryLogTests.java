@@ -0,0 +1,128 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryLogTests {
+
+	@TempDir
+	Path directory;
+
+	private BinaryLogWriter writer(int segmentSize, long maxDiskBytes) throws Exception {
+		RequestLogConfig.Binary config = new RequestLogConfig.Binary();
+		config.setDirectory(directory.toString());
+		config.setSegmentSize(segmentSize);
+		config.setMaxDiskBytes(maxDiskBytes);
+		return new BinaryLogWriter(config);
+	}
+
+	private static DifyRequestLog entry(int i) {
+		DifyRequestLog entry = new DifyRequestLog();
+		entry.setUserInstruction("旋转 " + i);
+		entry.setRequestContent("{\"query\":\"rotate " + i + "\"}");
+		entry.setStatus(i % 2);
+		entry.setResponseTime(i == 0 ? null : (long) i * 10);
+		entry.setOperationType(i % 3 == 0 ? "rotate" : "zoom");
+		entry.setHandlingPath(HandlingPath.DIFY);
+		entry.setTtftMs(i % 2 == 0 ? (long) i * 3 : null);
+		entry.setStreamStalled(i % 2 == 0 ? i % 4 == 0 : null);
+		entry.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(i));
+		return entry;
+	}
+
+	private List<DifyRequestLog> read(RequestLogQuery query) throws Exception {
+		List<DifyRequestLog> result = new ArrayList<>();
+		new BinaryLogReader(directory).read(query, Long.MAX_VALUE, result::add);
+		return result;
+	}
+
+	@Test
+	void roundTripsRecordsAcrossRolledFiles() throws Exception {
+		try (BinaryLogWriter writer = writer(512, 1 << 20)) {
+			for (int i = 0; i < 20; i++) {
+				writer.append(entry(i));
+			}
+		}
+		assertTrue(new BinaryLogReader(directory).segments().size() > 1);
+
+		List<DifyRequestLog> all = read(new RequestLogQuery());
+		assertEquals(20, all.size());
+		for (int i = 0; i < 20; i++) {
+			DifyRequestLog expected = entry(i);
+			DifyRequestLog actual = all.get(i);
+			assertEquals(expected.getUserInstruction(), actual.getUserInstruction());
+			assertEquals(expected.getRequestContent(), actual.getRequestContent());
+			assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+			assertEquals(expected.getResponseTime(), actual.getResponseTime());
+			assertEquals(HandlingPath.DIFY, actual.getHandlingPath());
+			assertEquals(expected.getTtftMs(), actual.getTtftMs());
+			assertEquals(expected.getStreamStalled(), actual.getStreamStalled());
+			assertNull(actual.getResponseContent());
+			if (i > 0) {
+				assertTrue(actual.getId() > all.get(i - 1).getId());
+			}
+		}
+	}
+
+	@Test
+	void filtersByTimeOperationAndStatus() throws Exception {
+		try (BinaryLogWriter writer = writer(4096, 1 << 20)) {
+			for (int i = 0; i < 12; i++) {
+				writer.append(entry(i));
+			}
+		}
+		LocalDateTime base = LocalDateTime.of(2024, 1, 1, 12, 0);
+		assertEquals(4, read(RequestLogQuery.builder().from(base.plusMinutes(2)).to(base.plusMinutes(6)).build()).size());
+		assertEquals(4, read(RequestLogQuery.builder().operationType("rotate").build()).size());
+		assertEquals(2, read(RequestLogQuery.builder().operationType("rotate").status(1).build()).size());
+	}
+
+	@Test
+	void continuesAfterExistingFilesAndEvictsOldestOverBudget() throws Exception {
+		try (BinaryLogWriter writer = writer(512, 2048)) {
+			for (int i = 0; i < 10; i++) {
+				writer.append(entry(i));
+			}
+		}
+		try (BinaryLogWriter writer = writer(512, 2048)) {
+			for (int i = 10; i < 40; i++) {
+				writer.append(entry(i));
+			}
+		}
+		BinaryLogReader reader = new BinaryLogReader(directory);
+		assertTrue(reader.segments().size() <= 4);
+		List<DifyRequestLog> remaining = read(new RequestLogQuery());
+		assertEquals("旋转 39", remaining.get(remaining.size() - 1).getUserInstruction());
+		assertTrue(remaining.size() < 40);
+	}
+
+	@Test
+	void cliWritesQuotedCsv() throws Exception {
+		DifyRequestLog entry = entry(3);
+		entry.setErrorMessage("bad, \"quoted\"");
+		try (BinaryLogWriter writer = writer(4096, 1 << 20)) {
+			writer.append(entry);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long written = BinaryLogCli.write(new BinaryLogReader(directory), new RequestLogQuery(), true, out);
+		assertEquals(1, written);
+		String csv = out.toString(StandardCharsets.UTF_8);
+		assertTrue(csv.startsWith("id,createdAt,"));
+		assertTrue(csv.contains(",\"bad, \"\"quoted\"\"\","));
+	}
+}
@@ -0,0 +1,119 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DatabaseCircuitTests {
+
+	private static final long OPEN_DURATION = 50;
+
+	private DatabaseCircuit circuit() {
+		RequestLogConfig config = new RequestLogConfig();
+		config.getJournal().setCircuitOpenDuration(OPEN_DURATION);
+		return new DatabaseCircuit(config, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void rejectsWhileOpen() {
+		DatabaseCircuit circuit = circuit();
+		assertTrue(circuit.allowRequest());
+
+		circuit.onFailure(new ConnectException("refused"));
+
+		assertTrue(circuit.isOpen());
+		assertFalse(circuit.allowRequest());
+	}
+
+	@Test
+	void letsExactlyOneConcurrentProbeThrough() throws Exception {
+		DatabaseCircuit circuit = circuit();
+		circuit.onFailure(new ConnectException("refused"));
+		Thread.sleep(OPEN_DURATION + 20);
+
+		int callers = 16;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < callers; i++) {
+				Callable<Boolean> caller = () -> {
+					start.await();
+					return circuit.allowRequest();
+				};
+				results.add(executor.submit(caller));
+			}
+			start.countDown();
+			int allowed = 0;
+			for (Future<Boolean> result : results) {
+				allowed += result.get() ? 1 : 0;
+			}
+			assertEquals(1, allowed);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void successfulProbeClosesTheCircuit() throws Exception {
+		DatabaseCircuit circuit = circuit();
+		circuit.onFailure(new ConnectException("refused"));
+		Thread.sleep(OPEN_DURATION + 20);
+		assertTrue(circuit.allowRequest());
+
+		circuit.onSuccess();
+
+		assertFalse(circuit.isOpen());
+		assertTrue(circuit.allowRequest());
+		assertTrue(circuit.allowRequest());
+	}
+
+	@Test
+	void failedProbeRestartsTheTimer() throws Exception {
+		DatabaseCircuit circuit = circuit();
+		circuit.onFailure(new ConnectException("refused"));
+		Thread.sleep(OPEN_DURATION + 20);
+		assertTrue(circuit.allowRequest());
+
+		circuit.onFailure(new ConnectException("still refused"));
+
+		assertFalse(circuit.allowRequest());
+		Thread.sleep(OPEN_DURATION + 20);
+		assertTrue(circuit.allowRequest());
+	}
+
+	@Test
+	void letsAnotherProbeThroughWhenTheFirstNeverReports() throws Exception {
+		DatabaseCircuit circuit = circuit();
+		circuit.onFailure(new ConnectException("refused"));
+		Thread.sleep(OPEN_DURATION + 20);
+		assertTrue(circuit.allowRequest());
+		assertFalse(circuit.allowRequest());
+
+		Thread.sleep(OPEN_DURATION + 20);
+
+		assertTrue(circuit.allowRequest());
+	}
+
+	@Test
+	void classifiesConnectivityFailures() {
+		assertTrue(DatabaseCircuit.isConnectivityFailure(new DataAccessResourceFailureException("down")));
+		assertTrue(DatabaseCircuit.isConnectivityFailure(new RuntimeException(new ConnectException("refused"))));
+		assertFalse(DatabaseCircuit.isConnectivityFailure(new DataIntegrityViolationException("too long")));
+	}
+}
@@ -0,0 +1,217 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.model.DifyRequest;
+import com.foxx.digitaltwinai.model.DifyResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 日志内容编解码，并报告压缩率和编解码耗时
+ * (Log content codec, reporting compression ratio and encode/decode cost)
+ */
+class LogPayloadCodecTests {
+
+	private static final int ITERATIONS = 2_000;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final Map<String, byte[]> offloaded = new HashMap<>();
+
+	private PayloadOffloadStore store;
+
+	private LogPayloadCodec codec(RequestLogConfig config) {
+		PayloadOffloadStore store = mock(PayloadOffloadStore.class);
+		when(store.save(anyString(), anyString(), any(byte[].class), anyInt()))
+				.thenAnswer(invocation -> offloaded.putIfAbsent(invocation.getArgument(0), invocation.getArgument(2)) == null);
+		when(store.loadAll(anyCollection())).thenAnswer(invocation -> {
+			Map<String, byte[]> contents = new HashMap<>();
+			for (String hash : invocation.<Collection<String>>getArgument(0)) {
+				if (offloaded.containsKey(hash)) {
+					contents.put(hash, offloaded.get(hash));
+				}
+			}
+			return contents;
+		});
+		this.store = store;
+		return new LogPayloadCodec(config, store, new SimpleMeterRegistry());
+	}
+
+	private static DifyRequestLog entry(String requestContent, String responseContent) {
+		DifyRequestLog entry = new DifyRequestLog();
+		entry.setRequestContent(requestContent);
+		entry.setResponseContent(responseContent);
+		return entry;
+	}
+
+	@Test
+	void compressesDifyPayloadsWithThePresetDictionary() throws Exception {
+		RequestLogConfig config = new RequestLogConfig();
+		config.getPayload().setMinSize(0);
+		LogPayloadCodec codec = codec(config);
+		Map<String, String> payloads = Map.of(
+				"request", objectMapper.writeValueAsString(request()),
+				"response", objectMapper.writeValueAsString(response(3)),
+				"retriever", objectMapper.writeValueAsString(response(12)));
+
+		payloads.forEach((name, payload) -> {
+			String stored = codec.encode(payload);
+
+			assertTrue(stored.startsWith(LogPayloadCodec.COMPRESSED_PREFIX), name);
+			assertTrue(stored.length() < payload.getBytes(StandardCharsets.UTF_8).length, name);
+			assertEquals(payload, codec.decode(stored), name);
+		});
+		assertTrue(codec.compressionRatio() > 2.0);
+	}
+
+	@Test
+	@Tag("benchmark")
+	void reportsRatioAndCostForDifyPayloads() throws Exception {
+		RequestLogConfig config = new RequestLogConfig();
+		config.getPayload().setMinSize(0);
+		LogPayloadCodec codec = codec(config);
+		Map<String, String> payloads = Map.of(
+				"request", objectMapper.writeValueAsString(request()),
+				"response", objectMapper.writeValueAsString(response(3)),
+				"retriever", objectMapper.writeValueAsString(response(12)));
+
+		payloads.forEach((name, payload) -> {
+			String stored = codec.encode(payload);
+			long encodeNanos = cost(() -> codec.encode(payload));
+			long decodeNanos = cost(() -> codec.decode(stored));
+			int raw = payload.getBytes(StandardCharsets.UTF_8).length;
+			System.out.printf("%-10s raw %6d bytes | stored %6d bytes (x%.1f) | deflate without dictionary %6d bytes | encode %7d ns | decode %7d ns%n",
+					name, raw, stored.length(), (double) raw / stored.length(),
+					deflateWithoutDictionary(payload), encodeNanos, decodeNanos);
+		});
+	}
+
+	@Test
+	void offloadsLargePayloadsOnceByContentHash() throws Exception {
+		RequestLogConfig config = new RequestLogConfig();
+		config.getPayload().setOffloadThreshold(512);
+		LogPayloadCodec codec = codec(config);
+		String payload = objectMapper.writeValueAsString(response(40));
+
+		String first = codec.encode(payload);
+		String second = codec.encode(payload);
+
+		assertTrue(first.startsWith(LogPayloadCodec.REFERENCE_PREFIX));
+		assertEquals(first, second);
+		assertEquals(1, offloaded.size());
+		// 转换器读取时不访问数据库 (The converter never touches the database when reading)
+		assertEquals(first, codec.decode(first));
+		verify(store, never()).loadAll(anyCollection());
+	}
+
+	@Test
+	void resolvesTheReferencesOfABatchWithOneQuery() throws Exception {
+		RequestLogConfig config = new RequestLogConfig();
+		config.getPayload().setOffloadThreshold(512);
+		LogPayloadCodec codec = codec(config);
+		String large = objectMapper.writeValueAsString(response(40));
+		String larger = objectMapper.writeValueAsString(response(60));
+		String missing = LogPayloadCodec.REFERENCE_PREFIX + "0".repeat(64);
+		List<DifyRequestLog> page = List.of(
+				entry("short", codec.encode(large)),
+				entry(codec.encode(larger), codec.encode(large)),
+				entry("short", missing));
+
+		codec.resolveReferences(page);
+
+		verify(store, times(1)).loadAll(anyCollection());
+		assertEquals(large, page.get(0).getResponseContent());
+		assertEquals(larger, page.get(1).getRequestContent());
+		assertEquals(large, page.get(1).getResponseContent());
+		assertEquals("short", page.get(2).getRequestContent());
+		// 找不到的内容保留引用 (Content that cannot be found keeps its reference)
+		assertEquals(missing, page.get(2).getResponseContent());
+	}
+
+	@Test
+	void keepsShortAndLegacyValuesReadable() {
+		LogPayloadCodec codec = codec(new RequestLogConfig());
+		assertEquals("本地解析指令: rotate", codec.encode("本地解析指令: rotate"));
+		assertEquals("legacy plain text", codec.decode("legacy plain text"));
+
+		// 恰好以前缀开头的原文也能还原 (Plain text that happens to start with a prefix still round-trips)
+		String ambiguous = "z1:not really compressed";
+		assertTrue(!ambiguous.equals(codec.encode(ambiguous)));
+		assertEquals(ambiguous, codec.decode(codec.encode(ambiguous)));
+	}
+
+	private static long cost(Runnable task) {
+		for (int i = 0; i < ITERATIONS; i++) {
+			task.run();
+		}
+		long started = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			task.run();
+		}
+		return (System.nanoTime() - started) / ITERATIONS;
+	}
+
+	private static int deflateWithoutDictionary(String payload) {
+		Deflater deflater = new Deflater(6);
+		deflater.setInput(payload.getBytes(StandardCharsets.UTF_8));
+		deflater.finish();
+		byte[] buffer = new byte[payload.length() * 4 + 64];
+		int length = deflater.deflate(buffer);
+		deflater.end();
+		return length;
+	}
+
+	private static DifyRequest request() {
+		DifyRequest request = new DifyRequest();
+		request.setInputs(Map.of("company_name", "digital-twin", "equipment_type", "pump"));
+		request.setQuery("把泵体向左旋转30度");
+		request.setResponseMode("blocking");
+		request.setUser("session-4f1c2a");
+		return request;
+	}
+
+	private static DifyResponse response(int resources) {
+		DifyResponse response = new DifyResponse();
+		response.setId("a1b2c3d4-0000-4000-8000-000000000001");
+		response.setConversationId("c0ffee00-0000-4000-8000-000000000002");
+		response.setEvent("message");
+		response.setTaskId("7a5e0000-0000-4000-8000-000000000003");
+		response.setMessageId("b16b0000-0000-4000-8000-000000000004");
+		response.setCreatedAt(1_700_000_000L);
+		response.setAnswer("好的，已将泵体向左旋转30度。{\"type\":\"rotate\",\"target\":\"pump_body\",\"params\":{\"direction\":\"left\",\"angle\":30}}");
+		List<DifyResponse.RetrieverResource> list = new ArrayList<>();
+		for (int i = 0; i < resources; i++) {
+			DifyResponse.RetrieverResource resource = new DifyResponse.RetrieverResource();
+			resource.setDocumentId("doc-" + i);
+			resource.setDocumentName("设备手册-第" + i + "章.pdf");
+			resource.setScore(0.8 - i * 0.01);
+			resource.setContent("泵体由电机、叶轮、泵壳组成。旋转操作用于从不同角度观察设备结构，缩放用于查看细节部件。第" + i + "节介绍了维护步骤和注意事项。");
+			list.add(resource);
+		}
+		response.setRetrieverResources(list);
+		return response;
+	}
+}
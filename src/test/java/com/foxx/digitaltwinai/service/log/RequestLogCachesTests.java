@@ -0,0 +1,183 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import com.foxx.digitaltwinai.model.RequestLogPage;
+import com.foxx.digitaltwinai.model.RequestLogQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestLogCachesTests {
+
+	private final CompactCacheSerializer serializer = new CompactCacheSerializer(
+			new ObjectMapper().registerModule(new JavaTimeModule()), 1024);
+
+	private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+	@SuppressWarnings("unchecked")
+	private final ValueOperations<String, String> values = mock(ValueOperations.class);
+
+	private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+	private final CacheManager cacheManager = new ConcurrentMapCacheManager();
+
+	{
+		when(redisTemplate.opsForValue()).thenReturn(values);
+		doAnswer(invocation -> {
+			Long value = generations.get(invocation.<String>getArgument(0));
+			return value != null ? value.toString() : null;
+		}).when(values).get(anyString());
+		doAnswer(invocation -> generations.merge(invocation.getArgument(0), 1L, Long::sum))
+				.when(values).increment(anyString());
+	}
+
+	private static DifyRequestLog entry(long id, String operationType, int status) {
+		DifyRequestLog entry = new DifyRequestLog();
+		entry.setId(id);
+		entry.setUserInstruction("旋转底座 " + id);
+		entry.setRequestContent("{\"query\":\"rotate the base by 30 degrees\",\"user\":\"digital-twin\"}");
+		entry.setStatus(status);
+		entry.setOperationType(operationType);
+		entry.setHandlingPath(HandlingPath.LOCAL);
+		entry.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusSeconds(id));
+		return entry;
+	}
+
+	@Test
+	void roundTripsPagesAndCompressesLargeValues() {
+		List<DifyRequestLog> items = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			items.add(entry(i, "rotate", 1));
+		}
+		RequestLogPage page = new RequestLogPage(items, "cursor");
+
+		byte[] bytes = serializer.serialize(page);
+		assertEquals(1, bytes[0]);
+		RequestLogPage restored = (RequestLogPage) serializer.deserialize(bytes);
+		assertEquals(page, restored);
+
+		byte[] small = serializer.serialize(new RequestLogPage(List.of(), null));
+		assertEquals(0, small[0]);
+		assertTrue(((RequestLogPage) serializer.deserialize(small)).getItems().isEmpty());
+	}
+
+	@Test
+	void roundTripsStatsMaps() {
+		Map<String, Object> total = new LinkedHashMap<>();
+		total.put("count", 12L);
+		total.put("successRate", 0.75);
+		total.put("p95", null);
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("success", true);
+		stats.put("total", total);
+		stats.put("buckets", List.of(Map.of("bucketStart", "2024-01-01T12:00")));
+
+		@SuppressWarnings("unchecked")
+		Map<String, Object> restored = (Map<String, Object>) serializer.deserialize(serializer.serialize(stats));
+		assertEquals(true, restored.get("success"));
+		assertEquals(12L, ((Map<?, ?>) restored.get("total")).get("count"));
+		assertEquals(stats.get("buckets"), restored.get("buckets"));
+	}
+
+	@Test
+	void pageKeysIncludeTheCursor() {
+		RequestLogQuery head = RequestLogQuery.builder().operationType("rotate").build();
+		RequestLogQuery next = RequestLogQuery.builder().operationType("rotate").cursor("abc").build();
+		assertNotEquals(RequestLogCaches.pageKey(head), RequestLogCaches.pageKey(next));
+	}
+
+	@Test
+	void writesMoveHeadPagesToANewGenerationAndLeaveHistoryPages() {
+		RequestLogCaches caches = new RequestLogCaches(cacheManager, redisTemplate, 0, Runnable::run);
+		RequestLogQuery head = RequestLogQuery.builder().build();
+		String headKey = caches.headPageKey(head);
+		cacheManager.getCache(RequestLogCaches.PAGES).put("history", "page");
+
+		caches.onWritten(List.of(entry(1, "rotate", 1)));
+
+		assertNotEquals(headKey, caches.headPageKey(head));
+		assertNotNull(cacheManager.getCache(RequestLogCaches.PAGES).get("history"));
+
+		String statsKey = caches.statsKey("MINUTE", null, null, "rotate", null);
+		caches.onRollupFlushed();
+		assertNotEquals(statsKey, caches.statsKey("MINUTE", null, null, "rotate", null));
+
+		caches.onHistoryChanged();
+		assertNull(cacheManager.getCache(RequestLogCaches.PAGES).get("history"));
+	}
+
+	@Test
+	void coalescesWritesIntoOneInvalidationOffTheWriterThread() {
+		List<Runnable> scheduled = new ArrayList<>();
+		RequestLogCaches caches = new RequestLogCaches(cacheManager, redisTemplate, 0, scheduled::add);
+
+		caches.onWritten(List.of(entry(1, "rotate", 1)));
+		caches.onWritten(List.of(entry(2, "rotate", 1)));
+		caches.onWritten(List.of(entry(3, "zoom", 1)));
+
+		verify(values, never()).increment(anyString());
+		assertEquals(1, scheduled.size());
+		scheduled.get(0).run();
+		verify(values, times(1)).increment(RequestLogCaches.HEAD_GENERATION);
+
+		caches.onWritten(List.of(entry(4, "rotate", 1)));
+		assertEquals(2, scheduled.size());
+	}
+
+	@Test
+	void movesHeadPagesToANewGenerationAtMostOncePerRefreshInterval() {
+		RequestLogCaches caches = new RequestLogCaches(cacheManager, redisTemplate, 60_000, Runnable::run);
+		RequestLogQuery head = RequestLogQuery.builder().build();
+
+		caches.onWritten(List.of(entry(1, "rotate", 1)));
+		String headKey = caches.headPageKey(head);
+		caches.onWritten(List.of(entry(2, "rotate", 1)));
+		caches.onWritten(List.of(entry(3, "zoom", 1)));
+
+		assertEquals(headKey, caches.headPageKey(head));
+		verify(values, times(1)).increment(RequestLogCaches.HEAD_GENERATION);
+
+		// 回放和清理不受刷新间隔限制 (Replay and purge are not held back by the refresh interval)
+		caches.onHistoryChanged();
+		assertNotEquals(headKey, caches.headPageKey(head));
+	}
+
+	@Test
+	void bypassesTheCachesWhenRedisIsDown() {
+		when(values.get(anyString())).thenThrow(new IllegalStateException("redis down"));
+		RequestLogCaches caches = new RequestLogCaches(cacheManager, redisTemplate, 0, Runnable::run);
+		RequestLogQuery head = RequestLogQuery.builder().build();
+		assertTrue(caches.isAvailable());
+
+		String first = caches.headPageKey(head);
+
+		assertFalse(caches.isAvailable());
+		assertNotEquals(first, caches.headPageKey(head));
+	}
+}
@@ -0,0 +1,114 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestLogJournalReplayerTests {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final DifyRequestLogRepository repository = mock(DifyRequestLogRepository.class);
+
+	private final RequestLogConfig config = new RequestLogConfig();
+
+	private RequestLogJournal journal;
+
+	private DatabaseCircuit circuit;
+
+	private RequestLogJournalReplayer replayer;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		config.setBatchSize(10);
+		config.getJournal().setDirectory(directory.toString());
+		config.getJournal().setSegmentSize(4096);
+		config.getJournal().setMaxDiskBytes(1 << 20);
+		journal = new RequestLogJournal(config, new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+		journal.open();
+		circuit = new DatabaseCircuit(config, meterRegistry);
+		replayer = new RequestLogJournalReplayer(journal, circuit, mock(RequestLogRollup.class),
+				mock(RequestLogCaches.class), repository, mock(PlatformTransactionManager.class), config, meterRegistry);
+		for (String instruction : List.of("first", "poison", "third")) {
+			DifyRequestLog entry = new DifyRequestLog();
+			entry.setUserInstruction(instruction);
+			entry.setStatus(1);
+			entry.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+			journal.append(entry);
+		}
+		journal.seal();
+	}
+
+	private static DifyRequestLog instruction(String instruction) {
+		return argThat(entry -> entry != null && instruction.equals(entry.getUserInstruction()));
+	}
+
+	@Test
+	void quarantinesPoisonRowsAndMovesOn() throws Exception {
+		when(repository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("Data too long"));
+		when(repository.save(instruction("poison"))).thenThrow(new DataIntegrityViolationException("Data too long"));
+
+		assertEquals(2, replayer.replay());
+
+		assertTrue(journal.sealedSegments().isEmpty());
+		assertEquals(1, meterRegistry.get("digital_twin.request_log.journal.quarantined").counter().count());
+		assertEquals(2, meterRegistry.get("digital_twin.request_log.journal.replayed").counter().count());
+		List<String> quarantined = Files.readAllLines(directory.resolve(RequestLogJournal.QUARANTINE_FILE),
+				StandardCharsets.UTF_8);
+		assertEquals(1, quarantined.size());
+		assertTrue(quarantined.get(0).contains("poison"));
+		assertFalse(circuit.isOpen());
+		// 下一次回放没有剩余工作 (Nothing is left for the next run)
+		assertEquals(0, replayer.replay());
+	}
+
+	@Test
+	void savesProgressAndOpensTheCircuitWhenTheDatabaseDropsMidBatch() throws Exception {
+		when(repository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("Data too long"));
+		when(repository.save(instruction("poison"))).thenThrow(new DataAccessResourceFailureException("gone"));
+
+		assertEquals(0, replayer.replay());
+
+		assertTrue(circuit.isOpen());
+		Path segment = journal.sealedSegments().get(0);
+		assertEquals(1, journal.replayedCount(segment));
+		assertEquals(1, meterRegistry.get("digital_twin.request_log.journal.replayed").counter().count());
+	}
+
+	@Test
+	void connectivityFailureOnBatchKeepsTheSegment() throws Exception {
+		when(repository.saveAll(anyList())).thenThrow(new DataAccessResourceFailureException("gone"));
+
+		assertEquals(0, replayer.replay());
+
+		assertTrue(circuit.isOpen());
+		assertEquals(0, journal.replayedCount(journal.sealedSegments().get(0)));
+		assertEquals(0, meterRegistry.get("digital_twin.request_log.journal.quarantined").counter().count());
+	}
+}
@@ -0,0 +1,164 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RequestLogJournalTests {
+
+	@TempDir
+	Path directory;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private RequestLogJournal journal(int segmentSize, long maxDiskBytes) throws Exception {
+		RequestLogConfig config = new RequestLogConfig();
+		config.getJournal().setDirectory(directory.toString());
+		config.getJournal().setSegmentSize(segmentSize);
+		config.getJournal().setMaxDiskBytes(maxDiskBytes);
+		RequestLogJournal journal = new RequestLogJournal(config,
+				new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry);
+		journal.open();
+		return journal;
+	}
+
+	private static DifyRequestLog entry(String instruction) {
+		DifyRequestLog entry = new DifyRequestLog();
+		entry.setUserInstruction(instruction);
+		entry.setStatus(1);
+		entry.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+		return entry;
+	}
+
+	@Test
+	void rotatesSegmentsAndReadsRecordsBack() throws Exception {
+		RequestLogJournal journal = journal(512, 1 << 20);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(journal.append(entry("rotate " + i)));
+		}
+		journal.seal();
+
+		List<Path> segments = journal.sealedSegments();
+		assertTrue(segments.size() > 1);
+		List<String> instructions = segments.stream()
+				.flatMap(segment -> {
+					try {
+						return journal.read(segment).stream();
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				})
+				.map(DifyRequestLog::getUserInstruction)
+				.toList();
+		assertEquals("rotate 0", instructions.get(0));
+		assertEquals(10, instructions.size());
+		assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0), journal.read(segments.get(0)).get(0).getCreatedAt());
+	}
+
+	@Test
+	void stopsReadingAtACorruptRecord() throws Exception {
+		RequestLogJournal journal = journal(4096, 1 << 20);
+		journal.append(entry("first"));
+		journal.append(entry("second"));
+		journal.seal();
+		Path segment = journal.sealedSegments().get(0);
+		int firstLength = readInt(segment, 0);
+
+		// 破坏第二条记录的内容 (Corrupt the payload of the second record)
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] {'X'}), 8 + firstLength + 8 + 2);
+		}
+		assertEquals(List.of("first"), journal.read(segment).stream().map(DifyRequestLog::getUserInstruction).toList());
+	}
+
+	@Test
+	void deletesTheOldestSegmentsBeyondTheDiskBudget() throws Exception {
+		RequestLogJournal journal = journal(512, 2048);
+		for (int i = 0; i < 40; i++) {
+			journal.append(entry("budget " + i));
+		}
+		journal.seal();
+
+		assertTrue(journal.sealedSegments().size() <= 4);
+		assertTrue(meterRegistry.get("digital_twin.request_log.journal.lost").counter().count() > 0);
+	}
+
+	@Test
+	void keepsTheSegmentBeingReplayedWhenOverTheDiskBudget() throws Exception {
+		RequestLogJournal journal = journal(512, 2048);
+		for (int i = 0; i < 4; i++) {
+			journal.append(entry("replaying " + i));
+		}
+		journal.seal();
+		Path replaying = journal.sealedSegments().get(0);
+
+		journal.beginReplay(replaying);
+		for (int i = 0; i < 40; i++) {
+			journal.append(entry("budget " + i));
+		}
+		journal.seal();
+
+		assertTrue(Files.exists(replaying));
+		assertEquals("replaying 0", journal.read(replaying).get(0).getUserInstruction());
+		assertTrue(meterRegistry.get("digital_twin.request_log.journal.lost").counter().count() > 0);
+
+		journal.endReplay();
+		for (int i = 0; i < 10; i++) {
+			journal.append(entry("after " + i));
+		}
+		assertFalse(Files.exists(replaying));
+	}
+
+	@Test
+	void replaysSealedSegmentsAndResumesFromTheCheckpoint() throws Exception {
+		RequestLogJournal journal = journal(4096, 1 << 20);
+		for (int i = 0; i < 5; i++) {
+			journal.append(entry("replay " + i));
+		}
+		journal.seal();
+		Path segment = journal.sealedSegments().get(0);
+		journal.markReplayed(segment, 2);
+
+		RequestLogConfig config = new RequestLogConfig();
+		config.setBatchSize(2);
+		DifyRequestLogRepository repository = mock(DifyRequestLogRepository.class);
+		RequestLogJournalReplayer replayer = new RequestLogJournalReplayer(journal,
+				new DatabaseCircuit(config, meterRegistry), mock(RequestLogRollup.class), mock(RequestLogCaches.class),
+				repository,
+				mock(PlatformTransactionManager.class), config, meterRegistry);
+
+		assertEquals(3, replayer.replay());
+		verify(repository, times(2)).saveAll(anyList());
+		assertTrue(journal.sealedSegments().isEmpty());
+	}
+
+	private static int readInt(Path segment, long position) throws Exception {
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(4);
+			channel.read(buffer, position);
+			return buffer.flip().getInt();
+		}
+	}
+}
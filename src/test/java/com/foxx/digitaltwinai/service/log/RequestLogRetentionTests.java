@@ -0,0 +1,121 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.repository.DifyRequestLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class RequestLogRetentionTests {
+
+	private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 3, 30);
+
+	@TempDir
+	Path directory;
+
+	private final DifyRequestLogRepository repository = mock(DifyRequestLogRepository.class);
+
+	private static List<DifyRequestLog> chunk(int from, int size) {
+		List<DifyRequestLog> chunk = new ArrayList<>();
+		for (int i = from; i < from + size; i++) {
+			DifyRequestLog entry = new DifyRequestLog();
+			entry.setId((long) i);
+			entry.setUserInstruction("old " + i);
+			entry.setCreatedAt(NOW.minusDays(60).plusMinutes(i));
+			chunk.add(entry);
+		}
+		return chunk;
+	}
+
+	@Test
+	void archivesThenDeletesExpiredLogsInChunks() throws Exception {
+		RequestLogConfig config = new RequestLogConfig();
+		config.getRetention().setChunkSize(3);
+		config.getRetention().setPauseBetweenChunks(0);
+		config.getRetention().setArchiveDirectory(directory.toString());
+		when(repository.findExpiredChunk(eq(NOW.minusDays(30)), any()))
+				.thenReturn(chunk(0, 3), chunk(3, 3), chunk(6, 1));
+		RequestLogRetention retention = new RequestLogRetention(config, repository, mock(PayloadOffloadStore.class),
+				mock(LogPayloadCodec.class), mock(JdbcTemplate.class), new ObjectMapper().registerModule(new JavaTimeModule()), mock(RequestLogCaches.class),
+				new SimpleMeterRegistry());
+
+		assertEquals(7, retention.purge(NOW));
+
+		verify(repository, times(3)).deleteAllByIdInBatch(anyList());
+		List<Path> archives;
+		try (Stream<Path> files = Files.list(directory)) {
+			archives = files.toList();
+		}
+		assertEquals(1, archives.size());
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(Files.newInputStream(archives.get(0))), StandardCharsets.UTF_8))) {
+			List<String> lines = reader.lines().toList();
+			assertEquals(7, lines.size());
+			assertEquals("old 6", new ObjectMapper().readTree(lines.get(6)).get("userInstruction").asText());
+		}
+	}
+
+	@Test
+	void leavesNoArchiveWhenNothingExpired() throws Exception {
+		RequestLogConfig config = new RequestLogConfig();
+		config.getRetention().setArchiveDirectory(directory.toString());
+		config.getRetention().setPauseBetweenChunks(0);
+		when(repository.findExpiredChunk(any(), any())).thenReturn(List.of());
+		RequestLogRetention retention = new RequestLogRetention(config, repository, mock(PayloadOffloadStore.class),
+				mock(LogPayloadCodec.class), mock(JdbcTemplate.class), new ObjectMapper().registerModule(new JavaTimeModule()), mock(RequestLogCaches.class),
+				new SimpleMeterRegistry());
+
+		assertEquals(0, retention.purge(NOW));
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(0, files.count());
+		}
+	}
+
+	@Test
+	void purgesOnlyMinuteRollupsWithTheBinaryStore() throws Exception {
+		RequestLogConfig config = new RequestLogConfig();
+		config.setStore(RequestLogConfig.Store.BINARY);
+		config.getRetention().setArchiveDirectory(directory.toString());
+		config.getRetention().setPauseBetweenChunks(0);
+		PayloadOffloadStore payloadOffloadStore = mock(PayloadOffloadStore.class);
+		JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+		RequestLogRetention retention = new RequestLogRetention(config, repository, payloadOffloadStore,
+				mock(LogPayloadCodec.class), jdbcTemplate, new ObjectMapper().registerModule(new JavaTimeModule()), mock(RequestLogCaches.class),
+				new SimpleMeterRegistry());
+
+		assertEquals(0, retention.purge(NOW));
+
+		verifyNoInteractions(repository, payloadOffloadStore);
+		verify(jdbcTemplate).update(startsWith("DELETE FROM request_log_rollups"), any(Timestamp.class), eq(500));
+		try (Stream<Path> files = Files.list(directory)) {
+			assertEquals(0, files.count());
+		}
+	}
+}
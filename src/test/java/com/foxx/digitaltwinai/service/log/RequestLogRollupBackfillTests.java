@@ -0,0 +1,77 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 在MySQL兼容模式的H2上执行V3和V7迁移，再分批回填
+ * (Runs the V3 and V7 migrations on H2 in MySQL mode, then backfills in batches)
+ */
+class RequestLogRollupBackfillTests {
+
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * 建表并写入5条旧日志后执行迁移，可选地在V7之前放入一行已有汇总
+	 * (Creates the table with 5 existing logs and runs the migrations, optionally with a rollup row in place before V7)
+	 */
+	private RequestLogRollupBackfill migrate(boolean existingRollups) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE dify_request_logs (id BIGINT PRIMARY KEY, created_at DATETIME, "
+				+ "operation_type VARCHAR(50), status INT, response_time BIGINT)");
+		for (int id = 1; id <= 5; id++) {
+			jdbcTemplate.update("INSERT INTO dify_request_logs VALUES (?, ?, 'rotate', ?, ?)", id,
+					Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 12, 0, id)), id % 2, 40L * id);
+		}
+		new ResourceDatabasePopulator(new ClassPathResource("db/migration/V3__request_log_rollups.sql")).execute(dataSource);
+		if (existingRollups) {
+			jdbcTemplate.update("INSERT INTO request_log_rollups (granularity, bucket_start, operation_type, handling_path) "
+					+ "VALUES ('HOUR', '2024-01-01 12:00:00', 'rotate', 'UNKNOWN')");
+		}
+		new ResourceDatabasePopulator(new ClassPathResource("db/migration/V7__request_log_rollup_backfill.sql")).execute(dataSource);
+
+		RequestLogConfig config = new RequestLogConfig();
+		config.getRollup().setBackfillBatchSize(2);
+		return new RequestLogRollupBackfill(config, jdbcTemplate, new DataSourceTransactionManager(dataSource),
+				mock(RequestLogCaches.class));
+	}
+
+	@Test
+	void backfillsExistingLogsInBatchesAsUnknownPath() {
+		RequestLogRollupBackfill backfill = migrate(false);
+
+		assertEquals(2, backfill.backfill());
+		assertEquals(2, backfill.backfill());
+		assertEquals(1, backfill.backfill());
+		assertEquals(0, backfill.backfill());
+
+		assertEquals(5L, jdbcTemplate.queryForObject("SELECT request_count FROM request_log_rollups "
+				+ "WHERE granularity = 'MINUTE' AND handling_path = 'UNKNOWN' AND operation_type = 'rotate'", Long.class));
+		assertEquals(3L, jdbcTemplate.queryForObject("SELECT success_count FROM request_log_rollups "
+				+ "WHERE granularity = 'HOUR'", Long.class));
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM request_log_rollup_backfill", Integer.class));
+	}
+
+	@Test
+	void skipsTheBackfillWhenRollupsAlreadyExist() {
+		RequestLogRollupBackfill backfill = migrate(true);
+
+		assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM request_log_rollup_backfill", Integer.class));
+		assertEquals(0, backfill.backfill());
+		assertEquals(0L, jdbcTemplate.queryForObject("SELECT request_count FROM request_log_rollups", Long.class));
+	}
+}
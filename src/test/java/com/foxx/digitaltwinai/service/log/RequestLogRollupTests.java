@@ -0,0 +1,91 @@
+package com.foxx.digitaltwinai.service.log;
+
+import com.foxx.digitaltwinai.config.RequestLogConfig;
+import com.foxx.digitaltwinai.entity.DifyRequestLog;
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestLogRollupTests {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	private final RequestLogRollup rollup = new RequestLogRollup(new RequestLogConfig(), jdbcTemplate,
+			mock(RequestLogCaches.class), new SimpleMeterRegistry());
+
+	private static DifyRequestLog entry(int second, long latency, int status, HandlingPath path) {
+		DifyRequestLog entry = new DifyRequestLog();
+		entry.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0, second));
+		entry.setResponseTime(latency);
+		entry.setStatus(status);
+		entry.setOperationType("rotate");
+		entry.setHandlingPath(path);
+		return entry;
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void aggregatesPerMinuteAndHourAndMergesIncrementally() {
+		rollup.record(List.of(entry(1, 40, 1, HandlingPath.LOCAL), entry(30, 120, 0, HandlingPath.LOCAL),
+				entry(59, 3000, 1, HandlingPath.DIFY)));
+
+		// 每个处理路径各一行分钟汇总和一行小时汇总 (One minute row and one hour row per handling path)
+		ArgumentCaptor<Collection<Map.Entry<RequestLogRollup.Key, RequestLogRollup.Aggregate>>> rows =
+				ArgumentCaptor.forClass(Collection.class);
+		assertEquals(4, rollup.flush());
+		verify(jdbcTemplate).batchUpdate(anyString(), rows.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+		RequestLogRollup.Aggregate local = rows.getValue().stream()
+				.filter(row -> row.getKey().granularity() == RequestLogRollup.Granularity.MINUTE
+						&& row.getKey().handlingPath().equals("LOCAL"))
+				.findFirst().orElseThrow().getValue();
+		assertEquals(2, local.count);
+		assertEquals(1, local.success);
+		assertEquals(160, local.latencySum);
+		assertEquals(0, rollup.flush());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void keepsIncrementsWhenTheMergeFails() {
+		when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+				.thenThrow(new IllegalStateException("down"))
+				.thenReturn(new int[0][]);
+		rollup.record(entry(1, 40, 1, HandlingPath.LOCAL));
+
+		assertEquals(0, rollup.flush());
+		assertEquals(2, rollup.flush());
+		verify(jdbcTemplate, times(2)).batchUpdate(anyString(), any(Collection.class), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+	}
+
+	@Test
+	void estimatesPercentilesWithinBuckets() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 0; i < 90; i++) {
+			histogram.record(80);
+		}
+		for (int i = 0; i < 10; i++) {
+			histogram.record(4000);
+		}
+		assertEquals(100, histogram.total());
+		assertEquals(78L, histogram.percentile(0.5, 4000));
+		// 上界取观测最大值4000 (Upper bound is the observed max of 4000)
+		assertEquals(3250L, histogram.percentile(0.95, 4000));
+	}
+}
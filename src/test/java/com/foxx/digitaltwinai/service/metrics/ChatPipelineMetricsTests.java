@@ -0,0 +1,72 @@
+package com.foxx.digitaltwinai.service.metrics;
+
+import com.foxx.digitaltwinai.entity.HandlingPath;
+import com.foxx.digitaltwinai.operation.OperationRegistry;
+import com.foxx.digitaltwinai.operation.handler.RotateOperationHandler;
+import com.foxx.digitaltwinai.operation.handler.ZoomOperationHandler;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatPipelineMetricsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final ChatPipelineMetrics metrics = new ChatPipelineMetrics(new OperationRegistry(List.of(
+			new ZoomOperationHandler(), new RotateOperationHandler())), meterRegistry);
+
+	@Test
+	void tagsStagesByPathOperationAndOutcome() {
+		metrics.recordStage(ChatPipelineMetrics.Stage.BROWSER, HandlingPath.FALLBACK, "ROTATE",
+				ChatPipelineMetrics.SUCCESS, TimeUnit.MILLISECONDS.toNanos(40));
+		metrics.recordStage(ChatPipelineMetrics.Stage.DIFY_FIRST_BYTE, HandlingPath.DIFY, null,
+				ChatPipelineMetrics.ERROR, TimeUnit.MILLISECONDS.toNanos(900));
+
+		Timer browser = meterRegistry.get(ChatPipelineMetrics.STAGE_METRIC)
+				.tags("stage", "browser", "path", "fallback", "operation", "rotate", "outcome", "success").timer();
+		assertEquals(1, browser.count());
+
+		assertEquals(1, meterRegistry.get(ChatPipelineMetrics.STAGE_METRIC)
+				.tags("stage", "dify_first_byte", "path", "dify", "operation", "none", "outcome", "error").timer().count());
+	}
+
+	@Test
+	void collapsesUnknownOperationTypes() {
+		metrics.recordRequest(HandlingPath.DIFY, "spin-around", ChatPipelineMetrics.SUCCESS, 120);
+		metrics.recordRequest(HandlingPath.DIFY, "whatever-else", ChatPipelineMetrics.SUCCESS, 80);
+
+		assertEquals(2, meterRegistry.get(ChatPipelineMetrics.REQUEST_METRIC)
+				.tags("operation", "other").timer().count());
+	}
+
+	@Test
+	void countsFallbacksAndLocalParses() {
+		metrics.recordFallback("connection");
+		metrics.recordLocalParse(true);
+		metrics.recordLocalParse(false);
+		metrics.recordLocalParse(false);
+
+		assertEquals(1.0, meterRegistry.get(ChatPipelineMetrics.FALLBACK_METRIC).tag("reason", "connection").counter().count());
+		assertEquals(2.0, meterRegistry.get(ChatPipelineMetrics.LOCAL_PARSE_METRIC).tag("result", "miss").counter().count());
+	}
+
+	@Test
+	void publishesHistogramBucketsInTheScrape() {
+		PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+		ChatPipelineMetrics scraped = new ChatPipelineMetrics(new OperationRegistry(List.of(new ZoomOperationHandler())), prometheus);
+		scraped.recordStage(ChatPipelineMetrics.Stage.PARSE, HandlingPath.LOCAL, "zoom",
+				ChatPipelineMetrics.SUCCESS, TimeUnit.MICROSECONDS.toNanos(300));
+
+		String scrape = prometheus.scrape();
+		assertTrue(scrape.contains("digital_twin_chat_stage_seconds_bucket{"));
+		assertTrue(scrape.contains("stage=\"parse\""));
+	}
+}
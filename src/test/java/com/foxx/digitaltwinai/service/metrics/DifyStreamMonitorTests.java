@@ -0,0 +1,74 @@
+package com.foxx.digitaltwinai.service.metrics;
+
+import com.foxx.digitaltwinai.config.DifyApiConfig;
+import com.foxx.digitaltwinai.model.StreamStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DifyStreamMonitorTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private DifyStreamMonitor monitor(long stallThreshold) {
+		DifyApiConfig config = new DifyApiConfig();
+		config.getStream().setStallThreshold(stallThreshold);
+		return new DifyStreamMonitor(config, meterRegistry);
+	}
+
+	@Test
+	void recordsChunkStatisticsAndHistograms() throws Exception {
+		DifyStreamMonitor monitor = monitor(10000);
+		DifyStreamMonitor.Tracker tracker = monitor.begin();
+		Thread.sleep(5);
+		tracker.onChunk("正在");
+		tracker.onChunk("旋转");
+		Thread.sleep(20);
+		tracker.onChunk("底座");
+		tracker.onUsage(7);
+
+		StreamStats stats = tracker.finish();
+		assertNotNull(stats.getTtftMs());
+		assertTrue(stats.getTtftMs() >= 5);
+		assertEquals(3, stats.getChunkCount());
+		assertEquals(6, stats.getAnswerLength());
+		assertTrue(stats.getMaxChunkGapMs() >= 20);
+		assertEquals(7, stats.getCompletionTokens());
+		assertFalse(stats.isStalled());
+		assertNull(tracker.finish());
+
+		assertEquals(1, meterRegistry.get("digital_twin.dify.stream.ttft").timer().count());
+		assertEquals(2, meterRegistry.get("digital_twin.dify.stream.chunk_gap").timer().count());
+		assertEquals(1, meterRegistry.get("digital_twin.dify.stream.tokens_per_second").summary().count());
+		assertEquals(0.0, meterRegistry.get("digital_twin.dify.stream.active").gauge().value());
+	}
+
+	@Test
+	void countsEachStalledStreamOnce() throws Exception {
+		DifyStreamMonitor monitor = monitor(10);
+		DifyStreamMonitor.Tracker tracker = monitor.begin();
+		tracker.onChunk("a");
+		Thread.sleep(30);
+
+		assertEquals(1.0, meterRegistry.get(DifyStreamMonitor.STALLED_METRIC).gauge().value());
+		assertEquals(1, monitor.checkStalls());
+		assertEquals(0, monitor.checkStalls());
+		assertEquals(1.0, meterRegistry.get(DifyStreamMonitor.STALLS_METRIC).counter().count());
+
+		StreamStats stats = tracker.finish();
+		assertTrue(stats.isStalled());
+		assertEquals(0.0, meterRegistry.get(DifyStreamMonitor.STALLED_METRIC).gauge().value());
+	}
+
+	@Test
+	void leavesTimeToFirstTokenEmptyWithoutChunks() {
+		StreamStats stats = monitor(10000).begin().finish();
+		assertNull(stats.getTtftMs());
+		assertEquals(0, stats.getChunkCount());
+	}
+}
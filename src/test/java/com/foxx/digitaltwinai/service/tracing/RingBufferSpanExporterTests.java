@@ -0,0 +1,122 @@
+package com.foxx.digitaltwinai.service.tracing;
+
+import com.foxx.digitaltwinai.config.TracingConfig;
+import com.foxx.digitaltwinai.model.TraceSummary;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferSpanExporterTests {
+
+	private static final long BASE = TimeUnit.SECONDS.toNanos(1_700_000_000L);
+
+	private final TracingConfig config = new TracingConfig();
+
+	private final RingBufferSpanExporter exporter = new RingBufferSpanExporter(config);
+
+	private final SdkTracerProvider provider = SdkTracerProvider.builder()
+			.addSpanProcessor(SimpleSpanProcessor.create(exporter))
+			.build();
+
+	private final Tracer tracer = provider.get("test");
+
+	@AfterEach
+	void close() {
+		provider.close();
+	}
+
+	/**
+	 * 生成一条根span加一个子span的链路，返回链路ID
+	 * (Produce a trace of one root span with one child, returning the trace ID)
+	 */
+	private String trace(long rootMs, long childMs, boolean childError) {
+		Span root = tracer.spanBuilder("chat").setStartTimestamp(BASE, TimeUnit.NANOSECONDS).startSpan();
+		Span child = tracer.spanBuilder("dify.chat_messages")
+				.setParent(Context.current().with(root))
+				.setStartTimestamp(BASE + TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.NANOSECONDS)
+				.setAttribute("response_mode", "streaming")
+				.startSpan();
+		if (childError) {
+			child.setStatus(StatusCode.ERROR);
+		}
+		child.end(BASE + TimeUnit.MILLISECONDS.toNanos(1 + childMs), TimeUnit.NANOSECONDS);
+		root.end(BASE + TimeUnit.MILLISECONDS.toNanos(rootMs), TimeUnit.NANOSECONDS);
+		return root.getSpanContext().getTraceId();
+	}
+
+	@Test
+	void listsTracesAboveThresholdSlowestFirst() {
+		trace(200, 100, false);
+		String slow = trace(3000, 2500, false);
+		String slower = trace(5000, 10, true);
+
+		List<TraceSummary> traces = exporter.slowest(1000, 10);
+
+		assertEquals(2, traces.size());
+		assertEquals(slower, traces.get(0).getTraceId());
+		assertEquals(5000, traces.get(0).getDurationMs());
+		assertTrue(traces.get(0).isError());
+		assertEquals(slow, traces.get(1).getTraceId());
+		assertEquals("chat", traces.get(1).getRootName());
+		assertEquals(2, traces.get(1).getSpanCount());
+		assertNull(traces.get(1).getSpans());
+		assertEquals(1, exporter.slowest(0, 1).size());
+	}
+
+	@Test
+	void returnsSpansOfOneTraceInStartOrder() {
+		String traceId = trace(1500, 1200, false);
+
+		TraceSummary trace = exporter.find(traceId);
+
+		assertNotNull(trace);
+		assertEquals(2, trace.getSpans().size());
+		TraceSummary.Span root = trace.getSpans().get(0);
+		TraceSummary.Span child = trace.getSpans().get(1);
+		assertEquals("chat", root.getName());
+		assertNull(root.getParentSpanId());
+		assertEquals(root.getSpanId(), child.getParentSpanId());
+		assertEquals(1200, child.getDurationMs());
+		assertEquals("streaming", child.getAttributes().get("response_mode"));
+		assertFalse(child.isError());
+		assertNull(exporter.find("0af7651916cd43dd8448eb211c80319c"));
+	}
+
+	@Test
+	void dropsOldestTracesAndCapsSpansPerTrace() {
+		config.setMaxTraces(2);
+		config.setMaxSpansPerTrace(1);
+		String first = trace(100, 10, false);
+		String second = trace(100, 10, false);
+		String third = trace(100, 10, false);
+
+		assertEquals(2, exporter.size());
+		assertNull(exporter.find(first));
+		assertNotNull(exporter.find(second));
+		TraceSummary capped = exporter.find(third);
+		assertEquals(2, capped.getSpanCount());
+		assertEquals(1, capped.getSpans().size());
+	}
+
+	@Test
+	void keepsNothingWhenDisabled() {
+		config.setEnabled(false);
+		trace(5000, 10, false);
+
+		assertEquals(0, exporter.size());
+	}
+}
@@ -0,0 +1,83 @@
+package com.foxx.digitaltwinai.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchingMessagePublisherTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final List<Object> sent = new ArrayList<>();
+
+	@Test
+	void mergesBufferedMessagesIntoOneBatchFrame() {
+		BatchingMessagePublisher publisher = newPublisher(100, 1000);
+		publisher.publish("s1", "/queue/logs", message("a"), false);
+		publisher.publish("s1", "/queue/logs", message("b"), false);
+		publisher.publish("s1", "/queue/errors", message("boom"), true);
+		publisher.publish("s1", "/queue/errors", message("boom"), true);
+		publisher.shutdown();
+
+		assertEquals(2, sent.size());
+		Map<?, ?> first = (Map<?, ?>) sent.stream().filter(frame -> "batch".equals(((Map<?, ?>) frame).get("type")))
+				.findFirst().orElseThrow();
+		assertEquals(2, ((List<?>) first.get("items")).size());
+		Map<?, ?> error = (Map<?, ?>) sent.stream().filter(frame -> "boom".equals(((Map<?, ?>) frame).get("content")))
+				.findFirst().orElseThrow();
+		assertEquals(2, error.get("repeat"));
+		assertEquals(1.0, meterRegistry.counter("digital_twin.websocket.batch.merged").count());
+	}
+
+	@Test
+	void dropsMessagesOverTheSessionBurst() {
+		BatchingMessagePublisher publisher = newPublisher(1, 3);
+		for (int i = 0; i < 10; i++) {
+			publisher.publish("s1", "/queue/logs", message("m" + i), false);
+		}
+		publisher.publish("s2", "/queue/logs", message("other"), false);
+		publisher.shutdown();
+
+		assertEquals(2, sent.size());
+		Map<?, ?> batch = (Map<?, ?>) sent.stream().filter(frame -> "batch".equals(((Map<?, ?>) frame).get("type")))
+				.findFirst().orElseThrow();
+		assertEquals(3, ((List<?>) batch.get("items")).size());
+		assertEquals(7.0, meterRegistry.counter("digital_twin.websocket.batch.dropped").count());
+	}
+
+	@Test
+	void errorsDroppedByTheRateLimitAreNotDeduplicated() throws InterruptedException {
+		BatchingMessagePublisher publisher = newPublisher(20, 1);
+		publisher.publish("s1", "/queue/logs", message("a"), false);
+		publisher.publish("s1", "/queue/errors", message("boom"), true);
+		Thread.sleep(200);
+		publisher.publish("s1", "/queue/errors", message("boom"), true);
+		publisher.shutdown();
+
+		assertEquals(2, sent.size());
+		assertEquals(1, sent.stream().filter(frame -> "boom".equals(((Map<?, ?>) frame).get("content"))).count());
+		assertEquals(1.0, meterRegistry.counter("digital_twin.websocket.batch.dropped").count());
+		assertEquals(0.0, meterRegistry.counter("digital_twin.websocket.batch.merged").count());
+	}
+
+	private BatchingMessagePublisher newPublisher(double ratePerSecond, double burst) {
+		return new BatchingMessagePublisher((sessionId, destination, payload) -> {
+			synchronized (sent) {
+				sent.add(payload);
+			}
+		}, 20, 60_000, 2000, ratePerSecond, burst, meterRegistry);
+	}
+
+	private static Map<String, Object> message(String content) {
+		Map<String, Object> message = new HashMap<>();
+		message.put("type", "log");
+		message.put("content", content);
+		return message;
+	}
+}
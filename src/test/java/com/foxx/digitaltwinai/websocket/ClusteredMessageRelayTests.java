@@ -0,0 +1,157 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.user.DefaultUserDestinationResolver;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 两个节点通过内存传输互相转发，各自运行真实的内存代理和用户目标解析
+ * (Two nodes relaying through an in-memory transport, each running a real simple broker and user destination resolution)
+ */
+class ClusteredMessageRelayTests {
+
+	private final InMemoryTransport transport = new InMemoryTransport();
+
+	private final Node nodeA = new Node("chat-a", "ws-a");
+
+	private final Node nodeB = new Node("chat-b", "ws-b");
+
+	@Test
+	void deliversUserMessagesToTheNodeOwningTheSession() {
+		nodeB.relay.sendToUser("chat-a", "/queue/operationResults", Map.of("success", true));
+
+		assertEquals(1, nodeA.delivered.size());
+		assertEquals("/queue/operationResults-userws-a", destination(nodeA.delivered.get(0)));
+		assertTrue(payload(nodeA.delivered.get(0)).contains("\"success\":true"));
+		assertEquals(0, nodeB.delivered.size());
+	}
+
+	@Test
+	void broadcastsTopicsToEveryNodeOnce() {
+		nodeA.relay.send("/topic/status", Map.of("content", "ready"));
+
+		assertEquals(1, nodeA.delivered.size());
+		assertEquals(1, nodeB.delivered.size());
+		assertEquals("/topic/status", destination(nodeB.delivered.get(0)));
+	}
+
+	@Test
+	void encodesCborTopicsAsBinaryFramesOnEveryNode() {
+		nodeA.relay.send("/topic/scenes/s1/camera/cbor", Map.of("version", 1));
+
+		assertEquals(1, nodeB.delivered.size());
+		Message<?> frame = nodeB.delivered.get(0);
+		assertEquals("/topic/scenes/s1/camera/cbor", destination(frame));
+		assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, frame.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+		assertEquals(Map.of("version", 1), new CborMessageConverter().fromMessage(frame, Map.class));
+	}
+
+	@Test
+	void keepsJsonOnTheRegularTopic() {
+		nodeA.relay.send("/topic/scenes/s1/camera", Map.of("version", 1));
+
+		assertEquals(1, nodeB.delivered.size());
+		assertTrue(payload(nodeB.delivered.get(0)).contains("\"version\":1"));
+	}
+
+	private static String destination(Message<?> message) {
+		return SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+	}
+
+	private static String payload(Message<?> message) {
+		return new String((byte[]) message.getPayload(), StandardCharsets.UTF_8);
+	}
+
+	private final class Node {
+
+		private final List<Message<?>> delivered = new CopyOnWriteArrayList<>();
+
+		private final ClusteredMessageRelay relay;
+
+		Node(String chatSessionId, String webSocketSessionId) {
+			ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+			ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+			ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+			clientOutbound.subscribe(delivered::add);
+
+			SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound,
+					brokerChannel, List.of("/topic", "/queue"));
+			broker.start();
+
+			DefaultSimpUserRegistry userRegistry = new DefaultSimpUserRegistry();
+			SimpMessageHeaderAccessor connected = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+			connected.setSessionId(webSocketSessionId);
+			userRegistry.onApplicationEvent(new SessionConnectedEvent(this,
+					MessageBuilder.createMessage(new byte[0], connected.getMessageHeaders()),
+					new SessionPrincipal(chatSessionId)));
+			new UserDestinationMessageHandler(clientInbound, brokerChannel,
+					new DefaultUserDestinationResolver(userRegistry)).start();
+
+			SimpMessageHeaderAccessor connect = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+			connect.setSessionId(webSocketSessionId);
+			broker.handleMessage(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()));
+			subscribe(broker, webSocketSessionId, "/topic/status");
+			subscribe(broker, webSocketSessionId, "/topic/scenes/s1/camera");
+			subscribe(broker, webSocketSessionId, "/topic/scenes/s1/camera/cbor");
+			subscribe(broker, webSocketSessionId, "/queue/operationResults-user" + webSocketSessionId);
+			delivered.clear();
+
+			SimpMessagingTemplate template = new SimpMessagingTemplate(brokerChannel);
+			template.setMessageConverter(new CompositeMessageConverter(
+					List.of(new MappingJackson2MessageConverter(), new CborMessageConverter())));
+			relay = new ClusteredMessageRelay(template, new ObjectMapper(), transport, new PayloadEncodingRegistry(),
+					new SimpleMeterRegistry());
+		}
+
+		private void subscribe(SimpleBrokerMessageHandler broker, String sessionId, String destination) {
+			SimpMessageHeaderAccessor subscribe = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+			subscribe.setSessionId(sessionId);
+			subscribe.setSubscriptionId(destination);
+			subscribe.setDestination(destination);
+			broker.handleMessage(MessageBuilder.createMessage(new byte[0], subscribe.getMessageHeaders()));
+		}
+	}
+
+	/**
+	 * 代替Redis发布订阅的内存传输
+	 * (In-memory stand-in for Redis pub/sub)
+	 */
+	private static final class InMemoryTransport implements RelayTransport {
+
+		private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void publish(String message) {
+			listeners.forEach(listener -> listener.accept(message));
+		}
+
+		@Override
+		public void subscribe(Consumer<String> listener) {
+			listeners.add(listener);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 比较JSON与CBOR的帧大小和编码耗时
+ * (Compares frame size and encode cost of JSON and CBOR)
+ */
+class PayloadEncodingBenchmarkTests {
+
+	private static final int ITERATIONS = 20_000;
+
+	private final MappingJackson2MessageConverter json = jsonConverter();
+
+	private final CborMessageConverter cbor = new CborMessageConverter();
+
+	@Test
+	@Tag("benchmark")
+	void cborFramesAreSmallerAndRoundTrip() {
+		Map<String, Map<String, Object>> payloads = Map.of(
+				"log", logMessage(0),
+				"camera", cameraState(),
+				"log-batch", logBatch());
+
+		payloads.forEach((name, payload) -> {
+			byte[] jsonFrame = encode(json, payload, MimeTypeUtils.APPLICATION_JSON);
+			byte[] cborFrame = encode(cbor, payload, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+			long jsonNanos = encodeCost(json, payload, MimeTypeUtils.APPLICATION_JSON);
+			long cborNanos = encodeCost(cbor, payload, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+			System.out.printf("%-10s json %5d bytes %6d ns/op | cbor %5d bytes %6d ns/op%n",
+					name, jsonFrame.length, jsonNanos, cborFrame.length, cborNanos);
+
+			assertTrue(cborFrame.length < jsonFrame.length, name);
+			Object decoded = cbor.fromMessage(message(cborFrame, MimeTypeUtils.APPLICATION_OCTET_STREAM), Map.class);
+			assertEquals(json.fromMessage(message(jsonFrame, MimeTypeUtils.APPLICATION_JSON), Map.class), decoded, name);
+		});
+	}
+
+	@Test
+	void jsonStaysTheDefaultWithoutAnExplicitContentType() {
+		assertEquals(null, cbor.toMessage(logMessage(0), new MessageHeaders(null)));
+	}
+
+	private static long encodeCost(MessageConverter converter, Object payload, MimeType mimeType) {
+		for (int i = 0; i < ITERATIONS; i++) {
+			encode(converter, payload, mimeType);
+		}
+		long started = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			encode(converter, payload, mimeType);
+		}
+		return (System.nanoTime() - started) / ITERATIONS;
+	}
+
+	private static byte[] encode(MessageConverter converter, Object payload, MimeType mimeType) {
+		return (byte[]) converter.toMessage(payload, headers(mimeType)).getPayload();
+	}
+
+	private static Message<byte[]> message(byte[] payload, MimeType mimeType) {
+		return MessageBuilder.createMessage(payload, headers(mimeType));
+	}
+
+	private static MessageHeaders headers(MimeType mimeType) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setContentType(mimeType);
+		return accessor.getMessageHeaders();
+	}
+
+	private static MappingJackson2MessageConverter jsonConverter() {
+		MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+		ObjectMapper mapper = new ObjectMapper();
+		mapper.registerModule(new JavaTimeModule());
+		converter.setObjectMapper(mapper);
+		return converter;
+	}
+
+	private static Map<String, Object> logMessage(int index) {
+		Map<String, Object> message = new HashMap<>();
+		message.put("type", "log");
+		message.put("content", "执行旋转操作: 方向=left, 角度=" + (15 + index));
+		message.put("sessionId", "5f0c2a7e-8d1b-4c3e-9a51-2b7c6d4e1f90");
+		message.put("timestamp", 1760000000000L + index);
+		return message;
+	}
+
+	private static Map<String, Object> logBatch() {
+		List<Map<String, Object>> items = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			items.add(logMessage(i));
+		}
+		Map<String, Object> batch = new HashMap<>();
+		batch.put("type", "batch");
+		batch.put("items", items);
+		batch.put("timestamp", 1760000000000L);
+		return batch;
+	}
+
+	private static Map<String, Object> cameraState() {
+		Map<String, Object> camera = new HashMap<>();
+		camera.put("type", "camera");
+		camera.put("sceneId", "main");
+		camera.put("version", 1842L);
+		camera.put("position", Map.of("x", 12.5, "y", 30.25, "z", -8.75));
+		camera.put("target", Map.of("x", 0.0, "y", 0.0, "z", 0.0));
+		camera.put("zoom", 1.35);
+		camera.put("timestamp", 1760000000000L);
+		return camera;
+	}
+}
@@ -0,0 +1,40 @@
+package com.foxx.digitaltwinai.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PayloadEncodingRegistryTests {
+
+	private final PayloadEncodingRegistry registry = new PayloadEncodingRegistry();
+
+	@Test
+	void refusesCborTopicsForSessionsWithoutBinaryFrames() {
+		Message<byte[]> subscribe = subscribe("/topic/scenes/s1/camera/cbor");
+
+		assertThrows(MessageDeliveryException.class, () -> registry.preSend(subscribe, null));
+	}
+
+	@Test
+	void allowsJsonTopicsForEverySession() {
+		Message<byte[]> subscribe = subscribe("/topic/scenes/s1/camera");
+
+		assertSame(subscribe, registry.preSend(subscribe, null));
+		assertNull(registry.topicHeadersFor("/topic/scenes/s1/camera"));
+	}
+
+	private static Message<byte[]> subscribe(String destination) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+		accessor.setSessionId("ws-1");
+		accessor.setDestination(destination);
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,108 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.foxx.digitaltwinai.config.WebSocketProperties;
+import com.foxx.digitaltwinai.util.HmacUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.WebSocketHandler;
+
+import java.net.URI;
+import java.security.Principal;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionChannelInterceptorTests {
+
+	private final SessionChannelInterceptor interceptor = new SessionChannelInterceptor();
+
+	private final MessageChannel channel = mock(MessageChannel.class);
+
+	private static Message<byte[]> frame(StompCommand command, Principal user, String sessionIdHeader) {
+		StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+		accessor.setSessionId("ws-1");
+		accessor.setUser(user);
+		if (sessionIdHeader != null) {
+			accessor.setNativeHeader(SessionChannelInterceptor.SESSION_ID_HEADER, sessionIdHeader);
+		}
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	private final SessionTokens sessionTokens = new SessionTokens(new HmacUtils(), new WebSocketProperties());
+
+	private Principal handshake(String uri) {
+		ServerHttpRequest request = mock(ServerHttpRequest.class);
+		when(request.getURI()).thenReturn(URI.create(uri));
+		return new SessionHandshakeHandler(sessionTokens).determineUser(request, mock(WebSocketHandler.class), new HashMap<>());
+	}
+
+	@Test
+	void keepsTheHandshakeIdentityWithoutHeader() {
+		Principal user = new SessionPrincipal("session-1");
+		Message<byte[]> message = frame(StompCommand.CONNECT, user, null);
+
+		Message<?> result = interceptor.preSend(message, channel);
+
+		assertSame(user, StompHeaderAccessor.wrap(result).getUser());
+	}
+
+	@Test
+	void acceptsMatchingHeader() {
+		Principal user = new SessionPrincipal("session-1");
+
+		Message<?> result = interceptor.preSend(frame(StompCommand.CONNECT, user, "session-1"), channel);
+
+		assertEquals("session-1", StompHeaderAccessor.wrap(result).getUser().getName());
+	}
+
+	@Test
+	void rejectsHeaderClaimingAnotherSession() {
+		Message<byte[]> message = frame(StompCommand.CONNECT, new SessionPrincipal("session-1"), "session-2");
+
+		assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(message, channel));
+	}
+
+	@Test
+	void rejectsConnectWithoutHandshakeIdentity() {
+		Message<byte[]> message = frame(StompCommand.CONNECT, null, "session-2");
+
+		assertThrows(MessageDeliveryException.class, () -> interceptor.preSend(message, channel));
+	}
+
+	@Test
+	void ignoresFramesOtherThanConnect() {
+		Message<byte[]> message = frame(StompCommand.SEND, new SessionPrincipal("session-1"), "session-2");
+
+		assertSame(message, interceptor.preSend(message, channel));
+	}
+
+	@Test
+	void handshakeAssignsARandomIdentityAndIgnoresAClaimedSessionId() {
+		Principal first = handshake("ws://localhost/ws-native");
+		Principal second = handshake("ws://localhost/ws-native");
+		assertNotEquals(first.getName(), second.getName());
+
+		assertNotEquals("session-1", handshake("ws://localhost/ws-native?sessionId=session-1").getName());
+	}
+
+	@Test
+	void handshakeResumesTheIdentityOfAValidToken() {
+		String token = sessionTokens.issue("session-1");
+		assertEquals("session-1", handshake("ws://localhost/ws-native?sessionToken=" + token).getName());
+
+		String forged = token.replace("session-1", "session-2");
+		assertNotEquals("session-2", handshake("ws://localhost/ws-native?sessionToken=" + forged).getName());
+	}
+}
@@ -0,0 +1,47 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.foxx.digitaltwinai.config.WebSocketProperties;
+import com.foxx.digitaltwinai.util.HmacUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SessionTokensTests {
+
+	private static final long NOW = 1_700_000_000_000L;
+
+	private static SessionTokens tokens(String secret) {
+		WebSocketProperties properties = new WebSocketProperties();
+		properties.getSession().setTokenSecret(secret);
+		properties.getSession().setTokenTtl(60_000);
+		return new SessionTokens(new HmacUtils(), properties);
+	}
+
+	@Test
+	void verifiesTokensItIssued() {
+		SessionTokens tokens = tokens("secret");
+		String sessionId = "4f1c2a00-0000-4000-8000-000000000001";
+
+		assertEquals(sessionId, tokens.verify(tokens.issue(sessionId, NOW), NOW + 1_000));
+	}
+
+	@Test
+	void rejectsForgedExpiredAndForeignTokens() {
+		SessionTokens tokens = tokens("secret");
+		String token = tokens.issue("session-1", NOW);
+
+		assertNull(tokens.verify(token.replace("session-1", "session-2"), NOW));
+		assertNull(tokens.verify(token, NOW + 60_001));
+		assertNull(tokens("other").verify(token, NOW));
+		assertNull(tokens.verify("session-1", NOW));
+		assertNull(tokens.verify(null, NOW));
+	}
+
+	@Test
+	void generatesASecretWhenNoneIsConfigured() {
+		String token = tokens("").issue("session-1", NOW);
+
+		assertNull(tokens("").verify(token, NOW));
+	}
+}
@@ -0,0 +1,78 @@
+package com.foxx.digitaltwinai.websocket;
+
+import com.foxx.digitaltwinai.config.WebSocketProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SlowConsumerGuardTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final MessageChannel channel = mock(MessageChannel.class);
+
+	@Test
+	void dropsMessagesOnceTheSessionHasTooManyPending() throws Exception {
+		SlowConsumerGuard guard = newGuard(WebSocketProperties.SlowConsumerPolicy.DROP);
+		connect(guard);
+
+		assertNotNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+		assertNotNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+		assertNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+		assertNotNull(guard.preSend(message(SimpMessageType.CONNECT_ACK), channel));
+
+		guard.afterMessageHandled(message(SimpMessageType.MESSAGE), channel, null, null);
+		guard.afterMessageHandled(message(SimpMessageType.MESSAGE), channel, null, null);
+		guard.afterMessageHandled(message(SimpMessageType.CONNECT_ACK), channel, null, null);
+		assertNotNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+		assertEquals(1.0, meterRegistry.get("digital_twin.websocket.slow_consumer").tag("action", "dropped").counter().count());
+		assertEquals(1, guard.getSessionCount());
+	}
+
+	@Test
+	void closesSlowSessionsUnderTheClosePolicy() throws Exception {
+		SlowConsumerGuard guard = newGuard(WebSocketProperties.SlowConsumerPolicy.CLOSE);
+		WebSocketSession session = connect(guard);
+
+		guard.preSend(message(SimpMessageType.MESSAGE), channel);
+		guard.preSend(message(SimpMessageType.MESSAGE), channel);
+		assertNull(guard.preSend(message(SimpMessageType.MESSAGE), channel));
+
+		verify(session).close(CloseStatus.SESSION_NOT_RELIABLE);
+		assertEquals(0, guard.getSessionCount());
+	}
+
+	private SlowConsumerGuard newGuard(WebSocketProperties.SlowConsumerPolicy policy) {
+		WebSocketProperties properties = new WebSocketProperties();
+		properties.getSlowConsumer().setPolicy(policy);
+		properties.getSlowConsumer().setMaxPendingMessages(2);
+		return new SlowConsumerGuard(properties, meterRegistry);
+	}
+
+	private WebSocketSession connect(SlowConsumerGuard guard) throws Exception {
+		WebSocketSession session = mock(WebSocketSession.class);
+		when(session.getId()).thenReturn("ws-1");
+		guard.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(session);
+		return session;
+	}
+
+	private static Message<byte[]> message(SimpMessageType type) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+		accessor.setSessionId("ws-1");
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+}
@@ -0,0 +1,111 @@
+package com.foxx.digitaltwinai.websocket;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.session.PollingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.StreamingSockJsSession;
+import org.springframework.web.socket.sockjs.transport.session.WebSocketServerSockJsSession;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TransportMetricsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final TransportMetrics metrics = new TransportMetrics(meterRegistry);
+
+	private final MessageChannel channel = mock(MessageChannel.class);
+
+	private static <T extends WebSocketSession> T session(Class<T> type, String id) {
+		T session = mock(type);
+		when(session.getId()).thenReturn(id);
+		return session;
+	}
+
+	private double connections(String transport) {
+		return meterRegistry.get("digital_twin.websocket.connections").tag("transport", transport).gauge().value();
+	}
+
+	private Timer latency(String transport) {
+		return meterRegistry.get("digital_twin.websocket.transport.latency").tag("transport", transport).timer();
+	}
+
+	private static Message<byte[]> outbound(String sessionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setSessionId(sessionId);
+		accessor.setLeaveMutable(true);
+		return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+	}
+
+	@Test
+	void detectsTheTransportOfEachSession() {
+		assertEquals("websocket", TransportMetrics.transportOf(session(WebSocketSession.class, "1")));
+		assertEquals("sockjs-websocket", TransportMetrics.transportOf(session(WebSocketServerSockJsSession.class, "2")));
+		assertEquals("sockjs-streaming", TransportMetrics.transportOf(session(StreamingSockJsSession.class, "3")));
+		assertEquals("sockjs-polling", TransportMetrics.transportOf(session(PollingSockJsSession.class, "4")));
+		// 装饰后的会话按被装饰的会话识别 (Decorated sessions are classified by the session they wrap)
+		assertEquals("sockjs-polling", TransportMetrics.transportOf(
+				new WebSocketSessionDecorator(session(PollingSockJsSession.class, "5"))));
+	}
+
+	@Test
+	void countsConnectionsPerTransport() throws Exception {
+		WebSocketHandler delegate = mock(WebSocketHandler.class);
+		WebSocketHandler handler = metrics.decorate(delegate);
+		WebSocketSession nativeSession = session(WebSocketSession.class, "native-1");
+		WebSocketSession pollingSession = session(PollingSockJsSession.class, "polling-1");
+
+		handler.afterConnectionEstablished(nativeSession);
+		handler.afterConnectionEstablished(pollingSession);
+
+		assertEquals(1, connections("websocket"));
+		assertEquals(1, connections("sockjs-polling"));
+		assertEquals(0, connections("sockjs-streaming"));
+		verify(delegate).afterConnectionEstablished(nativeSession);
+
+		handler.afterConnectionClosed(nativeSession, CloseStatus.NORMAL);
+		// 重复关闭不会让计数变为负数 (A repeated close does not drive the count negative)
+		handler.afterConnectionClosed(nativeSession, CloseStatus.NORMAL);
+
+		assertEquals(0, connections("websocket"));
+		assertEquals(1, metrics.getConnectionCount("sockjs-polling"));
+		verify(delegate, times(2)).afterConnectionClosed(nativeSession, CloseStatus.NORMAL);
+	}
+
+	@Test
+	void recordsOutboundLatencyUnderTheSessionTransport() throws Exception {
+		metrics.decorate(mock(WebSocketHandler.class))
+				.afterConnectionEstablished(session(StreamingSockJsSession.class, "streaming-1"));
+		Message<byte[]> message = outbound("streaming-1");
+
+		metrics.afterMessageHandled(metrics.preSend(message, channel), channel, null, null);
+
+		assertEquals(1, latency("sockjs-streaming").count());
+		assertEquals(0, latency("websocket").count());
+	}
+
+	@Test
+	void ignoresMessagesForUnknownSessions() {
+		Message<byte[]> message = outbound("unknown");
+
+		metrics.afterMessageHandled(metrics.preSend(message, channel), channel, null, null);
+
+		for (String transport : TransportMetrics.TRANSPORTS) {
+			assertEquals(0, latency(transport).count());
+		}
+	}
+}